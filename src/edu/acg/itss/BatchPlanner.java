@@ -0,0 +1,370 @@
+package edu.acg.itss;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+
+/**
+ * headless planner that computes the schedules of an entire cohort of
+ * students of one program in a single process. The program data (courses,
+ * course groups and schedule params) are loaded once in a <CODE>Catalog</CODE>
+ * shared by all workers, and the student records
+ * (see class <CODE>StudentRecord</CODE>) are streamed from a CSV or JSONL
+ * file and solved on a bounded pool of worker threads, so that at most a few
+ * records per worker are held in memory at any time. For every student, one
+ * JSON line is written to the output, in order of completion:
+ * <pre>
+ * {"student":"...","status":"OPTIMAL","objective":16420.97,"gap":0.0,
+ *  "modelMsecs":12,"setupMsecs":0,"solveMsecs":340,
+ *  "schedule":[{"term":"FA2024","courses":["ITC1070","ITC2088"]},...]}
+ * </pre>
+ * (in a single line), or a line with status "ERROR" and an "error" message if
+ * the record could not be parsed or planned. At the end, a summary with the
+ * throughput (students per second) and the median and 99th percentile solve
+ * times is printed to the standard output.
+ * <p>Usage:
+ * <CODE>java edu.acg.itss.BatchPlanner &lt;programdir&gt;
+ * &lt;students.csv|students.jsonl&gt; &lt;results.jsonl&gt;
+ * [numthreads(#cores)] [dd/mm/yyyy(today)]</CODE>
+ * <p>CSV input files must have a header line with the keys of the columns
+ * (see <CODE>StudentRecord</CODE>). The solver is the one specified in the
+ * program's params.props file; with GUROBI, at most "GurobiEnvPoolSize"
+ * students are solved concurrently regardless of the number of threads.
+ * Notice that per-student estimated grade files are not read in batch mode.
+ * <p>Students are planned by <CODE>MIPHandler.optimizeSchedule()</CODE>, so
+ * students with equivalent histories and preferences (see 
+ * <CODE>MIPHandler.createMIPModel()</CODE>) share the entry of their model
+ * in the plan cache of the catalog, and each distinct model is solved only
+ * once (unless students with the same model are solved concurrently, or the
+ * entry is evicted); the solve times of the students served from the cache
+ * are zero.
+ * @author itc
+ */
+public class BatchPlanner {
+    private final Catalog _catalog;
+    private final PlanningDate _date;
+    private final ScheduleSolver _solver;
+    private final int _numThreads;
+
+
+    /**
+     * public constructor.
+     * @param catalog Catalog the catalog of the program
+     * @param date PlanningDate the date with respect to which all students are
+     * planned
+     * @param solver ScheduleSolver must be thread-safe if numThreads &gt; 1
+     * @param numThreads int the number of worker threads
+     */
+    public BatchPlanner(Catalog catalog, PlanningDate date, 
+                        ScheduleSolver solver, int numThreads) {
+        if (numThreads<=0)
+            throw new IllegalArgumentException("numThreads must be positive");
+        _catalog = catalog;
+        _date = date;
+        _solver = solver;
+        _numThreads = numThreads;
+    }
+
+
+    /**
+     * plans all students read from the given reader, writing one result line
+     * per student to the given writer.
+     * @param in BufferedReader the student records, one per line
+     * @param isCSV boolean true if the input is CSV (with a header line),
+     * false if it is JSONL
+     * @param out PrintWriter
+     * @return Summary the statistics of the run
+     * @throws IOException if reading the input fails
+     * @throws InterruptedException if interrupted while waiting for workers
+     */
+    public Summary run(BufferedReader in, boolean isCSV, PrintWriter out)
+        throws IOException, InterruptedException {
+        final long start = System.currentTimeMillis();
+        final Summary summary = new Summary();
+        ExecutorService executor = Executors.newFixedThreadPool(_numThreads);
+        // bounds the records read but not yet planned
+        final Semaphore slots = new Semaphore(2*_numThreads);
+        try {
+            String[] header = null;
+            int lineno = 0;
+            while (true) {
+                final String line = in.readLine();
+                if (line==null) break;  // EOF
+                ++lineno;
+                if (line.trim().length()==0) continue;
+                if (isCSV && header==null) {
+                    header = line.startsWith("#") ?
+                               line.substring(1).split(",") : line.split(",");
+                    continue;
+                }
+                final String[] hdr = header;
+                final int ln = lineno;
+                slots.acquire();
+                executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            final String res = plan(line, hdr, ln, summary);
+                            synchronized (out) {
+                                out.println(res);
+                            }
+                        }
+                        finally {
+                            slots.release();
+                        }
+                    }
+                });
+            }
+        }
+        finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            out.flush();
+        }
+        summary.setWallTime(System.currentTimeMillis()-start);
+        return summary;
+    }
+
+
+    /**
+     * parses and plans a single student record.
+     * @param line String
+     * @param header String[] null for JSONL input
+     * @param lineno int
+     * @param summary Summary
+     * @return String the result line
+     */
+    private String plan(String line, String[] header, int lineno,
+                        Summary summary) {
+        String name = "line "+lineno;
+        try {
+            final StudentRecord rec = header!=null ?
+                                        StudentRecord.fromCSVLine(header, line):
+                                        StudentRecord.fromJSONLine(line);
+            name = rec.getName();
+            final long start = System.currentTimeMillis();
+            MIPHandler handler = new MIPHandler(_catalog, _date);
+            handler.setSolver(_solver);
+            handler.setStudentName(name+"_"+lineno);
+            MIPModel model = rec.createMIPModel(handler);
+            final long model_dur = System.currentTimeMillis()-start;
+            // equivalent students share the plan cache entry of their model
+            handler.optimizeSchedule(model);
+            MIPSolution sol = handler.getLastMIPSolution();
+            summary.addResult(sol);
+            return getResultLine(name, model, sol, model_dur, _catalog, 
+                                 _date);
+        }
+        catch (Exception e) {
+            summary.addError();
+            System.err.println("BatchPlanner: "+name+" failed: "+e);
+            return "{\"student\":"+JSONParser.quote(name)+
+                   ",\"status\":\"ERROR\",\"error\":"+
+                   JSONParser.quote(e.toString())+"}";
+        }
+    }
+
+
+    /**
+     * return the JSON line describing the given solution.
+     * @param name String
+     * @param model MIPModel
+     * @param sol MIPSolution
+     * @param modelDur long
+     * @param catalog Catalog
+     * @param date PlanningDate
+     * @return String
+     */
+    static String getResultLine(String name, MIPModel model, MIPSolution sol,
+                                long modelDur, Catalog catalog, 
+                                PlanningDate date) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"student\":").append(JSONParser.quote(name));
+        sb.append(",\"status\":\"").append(sol.getStatus()).append('"');
+        if (sol.hasSolution()) {
+            sb.append(",\"objective\":").append(sol.getObjectiveValue());
+            sb.append(",\"gap\":").append(sol.getMIPGap());
+        }
+        sb.append(",\"modelMsecs\":").append(modelDur);
+        sb.append(",\"setupMsecs\":").append(sol.getSetupTime());
+        sb.append(",\"solveMsecs\":").append(sol.getSolveTime());
+        if (sol.hasSolution()) {
+            // courses per term, skipping the courses already taken (s=0)
+            TreeMap<Integer, List<String>> terms = new TreeMap<>();
+            for (int i=0; i<model.getNumCourses(); i++) {
+                for (int s=1; s<=model.getSmax(); s++) {
+                    final int xis = model.getXVar(i, s);
+                    if (xis>=0 && sol.getValue(xis)>0.5) {
+                        List<String> crss = terms.get(s);
+                        if (crss==null) {
+                            crss = new ArrayList<>();
+                            terms.put(s, crss);
+                        }
+                        crss.add(catalog.getCourseById(i).getCode());
+                    }
+                }
+            }
+            sb.append(",\"schedule\":[");
+            boolean first = true;
+            for (Map.Entry<Integer, List<String>> e : terms.entrySet()) {
+                if (!first) sb.append(',');
+                first = false;
+                sb.append("{\"term\":");
+                sb.append(JSONParser.quote(
+                            date.getTermNameByTermNo(e.getKey())));
+                sb.append(",\"courses\":[");
+                List<String> crss = e.getValue();
+                for (int k=0; k<crss.size(); k++) {
+                    if (k>0) sb.append(',');
+                    sb.append(JSONParser.quote(crss.get(k)));
+                }
+                sb.append("]}");
+            }
+            sb.append(']');
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+
+    /**
+     * the statistics of a batch run. Thread-safe.
+     */
+    public static final class Summary {
+        private final List<Long> _solveTimes = new ArrayList<>();
+        private int _numStudents = 0;
+        private int _numWithSchedule = 0;
+        private int _numErrors = 0;
+        private long _wallTime = 0;
+
+        private synchronized void addResult(MIPSolution sol) {
+            ++_numStudents;
+            if (sol.hasSolution()) ++_numWithSchedule;
+            _solveTimes.add(sol.getSolveTime());
+        }
+
+        private synchronized void addError() {
+            ++_numStudents;
+            ++_numErrors;
+        }
+
+        private synchronized void setWallTime(long msecs) {
+            _wallTime = msecs;
+        }
+
+        /**
+         * get the number of student records processed.
+         * @return int
+         */
+        public synchronized int getNumStudents() { return _numStudents; }
+
+        /**
+         * get the number of students for which a schedule was found.
+         * @return int
+         */
+        public synchronized int getNumWithSchedule() {
+            return _numWithSchedule;
+        }
+
+        /**
+         * get the number of records that could not be parsed or planned.
+         * @return int
+         */
+        public synchronized int getNumErrors() { return _numErrors; }
+
+        /**
+         * get the msecs the entire run took.
+         * @return long
+         */
+        public synchronized long getWallTime() { return _wallTime; }
+
+        /**
+         * get the number of students processed per second.
+         * @return double
+         */
+        public synchronized double getThroughput() {
+            return _wallTime>0 ? 1000.0*_numStudents/_wallTime : 0.0;
+        }
+
+        /**
+         * get the given percentile (nearest-rank) of the solve times of all
+         * students that reached the solver.
+         * @param p double in (0, 100]
+         * @return long msecs, or -1 if no student reached the solver
+         */
+        public synchronized long getSolveTimePercentile(double p) {
+            if (_solveTimes.isEmpty()) return -1;
+            List<Long> times = new ArrayList<>(_solveTimes);
+            Collections.sort(times);
+            int idx = (int) Math.ceil(p/100.0*times.size()) - 1;
+            idx = Math.max(0, Math.min(idx, times.size()-1));
+            return times.get(idx);
+        }
+
+        /**
+         * return a one-line description of the run.
+         * @return String
+         */
+        @Override
+        public synchronized String toString() {
+            return "planned "+_numStudents+" students ("+_numWithSchedule+
+                   " with schedule, "+_numErrors+" errors) in "+_wallTime+
+                   " msecs: "+String.format("%.2f", getThroughput())+
+                   " students/sec, solve time p50="+
+                   getSolveTimePercentile(50)+" msecs, p99="+
+                   getSolveTimePercentile(99)+" msecs";
+        }
+    }
+
+
+    /**
+     * invoke as:
+     * <CODE>java edu.acg.itss.BatchPlanner &lt;programdir&gt;
+     * &lt;students.csv|students.jsonl&gt; &lt;results.jsonl&gt;
+     * [numthreads(#cores)] [dd/mm/yyyy(today)]</CODE>.
+     * @param args String[]
+     */
+    public static void main(String[] args) {
+        if (args.length<3) {
+            System.err.println("usage: java edu.acg.itss.BatchPlanner "+
+                               "<programdir> <students.csv|students.jsonl> "+
+                               "<results.jsonl> [numthreads] [dd/mm/yyyy]");
+            System.exit(-1);
+        }
+        final int num_threads = args.length>3 ? Integer.parseInt(args[3]) :
+                                  Runtime.getRuntime().availableProcessors();
+        final PlanningDate date = args.length>4 ? 
+                                    PlanningDate.parse(args[4]) : 
+                                    PlanningDate.today();
+        Catalog catalog = null;
+        try {
+            catalog = Catalog.load(args[0]);
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            System.exit(-1);
+        }
+        final ScheduleParams params = catalog.getParams();
+        GRBEnvPool pool = null;
+        if ("gurobi".equalsIgnoreCase(params.getSolverName()))
+            pool = new GRBEnvPool(params.getGurobiEnvPoolSize());
+        ScheduleSolver solver = MIPHandler.createSolver(params, pool);
+        final boolean is_csv = args[1].toLowerCase().endsWith(".csv");
+        try (BufferedReader br = new BufferedReader(new FileReader(args[1]));
+             PrintWriter pw = new PrintWriter(new BufferedWriter(
+                                                 new FileWriter(args[2])))) {
+            BatchPlanner planner = new BatchPlanner(catalog, date, solver,
+                                                    num_threads);
+            Summary summary = planner.run(br, is_csv, pw);
+            System.out.println(summary);
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            System.exit(-1);
+        }
+        finally {
+            solver.close();
+            if (pool!=null) pool.close();
+        }
+    }
+}
@@ -0,0 +1,538 @@
+package edu.acg.itss;
+
+import java.util.Arrays;
+
+
+/**
+ * bounded primal revised simplex method, used by
+ * <CODE>BranchAndBoundSolver</CODE> to solve the LP relaxations of the
+ * scheduling problem. The LP is given in the form
+ * <PRE>
+ * min c'x  s.t.  Ax + s = 0,  lo &le; (x,s) &le; hi
+ * </PRE>
+ * where the n "structural" variables x are the columns of the sparse m x n
+ * matrix A (in Compressed Sparse Column form), and the m "logical" variables s
+ * (indexed n...n+m-1) carry the row bounds: a row lr &le; a_r'x &le; ur becomes
+ * -ur &le; s_r &le; -lr. This way the all-logical starting basis is the
+ * identity matrix.
+ * <p>The basis inverse is kept in product form (an eta file) that is rebuilt
+ * from scratch after every 100 pivots. Infeasible bases are handled by a composite
+ * phase-1 that minimizes the sum of infeasibilities, so that the method can be
+ * warm-started from any basis (as is needed after the bounds of a variable are
+ * changed during branch-and-bound). Pricing is Dantzig's rule, with a fallback
+ * to Bland's rule after a long sequence of degenerate pivots, and the ratio
+ * test is the two-pass test of Harris.
+ * <p>Not thread-safe: each thread must use its own instance.
+ * @author itc
+ */
+final class BoundedSimplex {
+    static final int OPTIMAL = 0;
+    static final int INFEASIBLE = 1;
+    static final int UNBOUNDED = 2;
+    static final int ABORTED = 3;  // time or iteration limit, or numerical
+                                   // trouble
+
+    private static final double _INF = MIPModel.INFINITY;
+    private static final double _FEAS_TOL = 1.e-6;
+    private static final double _OPT_TOL = 1.e-7;
+    private static final double _PIVOT_TOL = 1.e-7;
+    private static final double _DROP_TOL = 1.e-12;
+    private static final int _REINVERT_FREQ = 100;
+    private static final int _MAX_DEGENERATE_PIVOTS = 50;
+
+    private final int _m;
+    private final int _n;
+    private final int[] _colStart;
+    private final int[] _colRows;
+    private final double[] _colVals;
+    private final double[] _cost;  // size n
+    private final double[] _lo;  // size n+m
+    private final double[] _hi;  // size n+m
+    private final double[] _x;  // size n+m
+    private final int[] _head;  // basis position -> variable
+    private final int[] _pos;  // variable -> basis position, or -1
+    private final boolean[] _atUpper;  // for non-basic variables
+
+    // the eta file: eta k pivots on row _etaRow[k] with pivot _etaPiv[k], and
+    // has off-pivot entries at positions _etaStart[k]..._etaStart[k+1]-1
+    private int _numEtas = 0;
+    private int _numFactorEtas = 0;  // etas created by the last reinversion
+    private int[] _etaRow = new int[_REINVERT_FREQ];
+    private double[] _etaPiv = new double[_REINVERT_FREQ];
+    private int[] _etaStart = new int[_REINVERT_FREQ+1];
+    private int[] _etaIdx = new int[4096];
+    private double[] _etaVal = new double[4096];
+    private boolean _factorValid = false;
+
+    private final double[] _alpha;  // work vector of size m
+    private final double[] _y;  // work vector of size m
+    private final double[] _cB;  // work vector of size m
+    private long _numIters = 0;
+
+
+    /**
+     * snapshot of a simplex basis, used to warm-start the method.
+     */
+    static final class Basis {
+        private final int[] _head;
+        private final boolean[] _atUpper;
+
+        private Basis(int[] head, boolean[] atUpper) {
+            _head = head;
+            _atUpper = atUpper;
+        }
+    }
+
+
+    /**
+     * sole constructor. The arrays describing A are not copied.
+     * @param m int number of rows
+     * @param n int number of structural variables
+     * @param colStart int[] of size n+1
+     * @param colRows int[] row indices of the non-zeros
+     * @param colVals double[] values of the non-zeros
+     * @param cost double[] objective coefficients of the structural variables
+     * @param lo double[] lower bounds of all n+m variables
+     * @param hi double[] upper bounds of all n+m variables
+     */
+    BoundedSimplex(int m, int n, int[] colStart, int[] colRows,
+                   double[] colVals, double[] cost, double[] lo, double[] hi) {
+        _m = m;
+        _n = n;
+        _colStart = colStart;
+        _colRows = colRows;
+        _colVals = colVals;
+        _cost = Arrays.copyOf(cost, n);
+        _lo = Arrays.copyOf(lo, n+m);
+        _hi = Arrays.copyOf(hi, n+m);
+        _x = new double[n+m];
+        _head = new int[m];
+        _pos = new int[n+m];
+        _atUpper = new boolean[n+m];
+        _alpha = new double[m];
+        _y = new double[m];
+        _cB = new double[m];
+        Arrays.fill(_pos, -1);
+        for (int i=0; i<m; i++) {
+            _head[i] = n+i;
+            _pos[n+i] = i;
+        }
+        for (int j=0; j<n+m; j++) fixAtUpper(j);
+    }
+
+
+    /**
+     * set the bounds of the given (structural or logical) variable.
+     * @param j int
+     * @param lo double
+     * @param hi double
+     */
+    void setBounds(int j, double lo, double hi) {
+        _lo[j] = lo;
+        _hi[j] = hi;
+        fixAtUpper(j);
+    }
+
+
+    /**
+     * set the objective coefficient of the given structural variable.
+     * @param j int
+     * @param c double
+     */
+    void setCost(int j, double c) {
+        _cost[j] = c;
+    }
+
+
+    double getLB(int j) { return _lo[j]; }
+
+
+    double getUB(int j) { return _hi[j]; }
+
+
+    /**
+     * get the value of the given variable after the last call to
+     * <CODE>solve()</CODE>.
+     * @param j int
+     * @return double
+     */
+    double getValue(int j) { return _x[j]; }
+
+
+    /**
+     * get the objective value of the current solution.
+     * @return double
+     */
+    double getObjValue() {
+        double obj = 0.0;
+        for (int j=0; j<_n; j++) obj += _cost[j]*_x[j];
+        return obj;
+    }
+
+
+    /**
+     * get the total number of simplex iterations performed so far.
+     * @return long
+     */
+    long getNumIterations() { return _numIters; }
+
+
+    /**
+     * get a snapshot of the current basis.
+     * @return Basis
+     */
+    Basis getBasis() {
+        return new Basis(Arrays.copyOf(_head, _m),
+                         Arrays.copyOf(_atUpper, _n+_m));
+    }
+
+
+    /**
+     * restore a basis obtained via <CODE>getBasis()</CODE>.
+     * @param b Basis
+     */
+    void setBasis(Basis b) {
+        System.arraycopy(b._head, 0, _head, 0, _m);
+        System.arraycopy(b._atUpper, 0, _atUpper, 0, _n+_m);
+        Arrays.fill(_pos, -1);
+        for (int i=0; i<_m; i++) _pos[_head[i]] = i;
+        for (int j=0; j<_n+_m; j++) fixAtUpper(j);
+        _factorValid = false;
+    }
+
+
+    /**
+     * solves the LP starting from the current basis.
+     * @param deadline long the time (in System.currentTimeMillis() terms)
+     * after which the method gives up and returns <CODE>ABORTED</CODE>
+     * @param maxIters long the max number of iterations to perform
+     * @return int one of <CODE>OPTIMAL, INFEASIBLE, UNBOUNDED, ABORTED</CODE>
+     */
+    int solve(long deadline, long maxIters) {
+        if (!_factorValid) reinvert();
+        computeBasicValues();
+        boolean fresh = true;  // no pivots since last reinversion
+        boolean bland = false;
+        int num_degenerate = 0;
+        for (long it=0; ; it++) {
+            if (it>=maxIters) return ABORTED;
+            if (it % 100 == 99 && System.currentTimeMillis()>deadline)
+                return ABORTED;
+            if (_numEtas-_numFactorEtas>=_REINVERT_FREQ) {
+                reinvert();
+                computeBasicValues();
+                fresh = true;
+            }
+            // 1. set up the costs of the basic variables for the current phase
+            boolean phase1 = false;
+            for (int i=0; i<_m; i++) {
+                final int j = _head[i];
+                if (_x[j]<_lo[j]-_FEAS_TOL) {
+                    _cB[i] = -1.0;
+                    phase1 = true;
+                }
+                else if (_x[j]>_hi[j]+_FEAS_TOL) {
+                    _cB[i] = 1.0;
+                    phase1 = true;
+                }
+                else _cB[i] = 0.0;
+            }
+            if (!phase1) {
+                for (int i=0; i<_m; i++) {
+                    final int j = _head[i];
+                    _cB[i] = j<_n ? _cost[j] : 0.0;
+                }
+            }
+            // 2. pricing
+            System.arraycopy(_cB, 0, _y, 0, _m);
+            btran(_y);
+            int q = -1;
+            int dir = 0;
+            double best = 0.0;
+            for (int j=0; j<_n+_m; j++) {
+                if (_pos[j]>=0 || _lo[j]==_hi[j]) continue;
+                double d;
+                if (j<_n) {
+                    d = phase1 ? 0.0 : _cost[j];
+                    for (int p=_colStart[j]; p<_colStart[j+1]; p++)
+                        d -= _y[_colRows[p]]*_colVals[p];
+                }
+                else d = -_y[j-_n];
+                int dj = 0;
+                if (d<-_OPT_TOL && !_atUpper[j]) dj = 1;
+                else if (d>_OPT_TOL && (_atUpper[j] || _lo[j]==-_INF)) dj = -1;
+                if (dj==0) continue;
+                if (bland) {
+                    q = j;
+                    dir = dj;
+                    break;
+                }
+                if (Math.abs(d)>best) {
+                    best = Math.abs(d);
+                    q = j;
+                    dir = dj;
+                }
+            }
+            if (q<0) {  // no improving direction
+                if (!fresh) {  // double-check with a fresh factorization
+                    reinvert();
+                    computeBasicValues();
+                    fresh = true;
+                    continue;
+                }
+                return phase1 ? INFEASIBLE : OPTIMAL;
+            }
+            // 3. ratio test
+            ftranColumn(q);
+            final double flip = _lo[q]>-_INF && _hi[q]<_INF ?
+                                  _hi[q]-_lo[q] : _INF;
+            double theta1 = _INF;
+            for (int i=0; i<_m; i++) {
+                final double a = _alpha[i];
+                if (Math.abs(a)<_PIVOT_TOL) continue;
+                final double r = ratio(i, -dir*a, _FEAS_TOL);
+                if (r<theta1) theta1 = r;
+            }
+            int r = -1;
+            double theta = 0.0;
+            if (flip<=theta1) theta = flip;
+            else if (theta1<_INF) {
+                // among the rows blocking within theta1, choose the largest
+                // pivot (or the lowest variable index in Bland mode)
+                double maxa = 0.0;
+                for (int i=0; i<_m; i++) {
+                    final double a = _alpha[i];
+                    if (Math.abs(a)<_PIVOT_TOL) continue;
+                    final double ri = ratio(i, -dir*a, 0.0);
+                    if (ri>theta1) continue;
+                    if (bland ? r<0 || _head[i]<_head[r] : Math.abs(a)>maxa) {
+                        maxa = Math.abs(a);
+                        r = i;
+                        theta = ri;
+                    }
+                }
+            }
+            else {
+                if (phase1) return ABORTED;  // cannot really happen
+                return UNBOUNDED;
+            }
+            // 4. update the solution; the leaving variable (if any) ends up
+            //    at the bound it moves towards
+            boolean to_lower = false;
+            if (r>=0) {
+                final int l = _head[r];
+                if (_x[l]<_lo[l]-_FEAS_TOL) to_lower = true;
+                else if (_x[l]>_hi[l]+_FEAS_TOL) to_lower = false;
+                else to_lower = dir*_alpha[r]>0;
+            }
+            _x[q] += dir*theta;
+            if (theta!=0.0) {
+                for (int i=0; i<_m; i++) {
+                    if (_alpha[i]!=0.0) _x[_head[i]] -= dir*_alpha[i]*theta;
+                }
+            }
+            ++_numIters;
+            if (theta<=_DROP_TOL) {
+                if (++num_degenerate>_MAX_DEGENERATE_PIVOTS) bland = true;
+            }
+            else {
+                num_degenerate = 0;
+                bland = false;
+            }
+            if (r<0) {  // bound flip
+                _atUpper[q] = dir>0;
+                _x[q] = dir>0 ? _hi[q] : _lo[q];
+                continue;
+            }
+            // 5. basis change
+            final int l = _head[r];
+            _x[l] = to_lower ? _lo[l] : _hi[l];
+            _atUpper[l] = !to_lower;
+            _pos[l] = -1;
+            fixAtUpper(l);
+            _head[r] = q;
+            _pos[q] = r;
+            _atUpper[q] = false;
+            addEta(r);
+            fresh = false;
+        }
+    }
+
+
+    /**
+     * the step length after which the basic variable at position i reaches
+     * the bound it moves towards (in phase-1, an infeasible variable blocks
+     * when it reaches the bound it violates).
+     */
+    private double ratio(int i, double delta, double tol) {
+        final int j = _head[i];
+        final double xj = _x[j];
+        if (xj<_lo[j]-_FEAS_TOL) {  // infeasible below
+            return delta>0 ? Math.max(0.0, (_lo[j]-xj+tol)/delta) : _INF;
+        }
+        if (xj>_hi[j]+_FEAS_TOL) {  // infeasible above
+            return delta<0 ? Math.max(0.0, (xj-_hi[j]+tol)/(-delta)) : _INF;
+        }
+        if (delta<0) {
+            return _lo[j]>-_INF ? Math.max(0.0, (xj-_lo[j]+tol)/(-delta)) :
+                                  _INF;
+        }
+        return _hi[j]<_INF ? Math.max(0.0, (_hi[j]-xj+tol)/delta) : _INF;
+    }
+
+
+    private void fixAtUpper(int j) {
+        if (_lo[j]==-_INF && _hi[j]<_INF) _atUpper[j] = true;
+        else if (_hi[j]==_INF || _lo[j]==_hi[j]) _atUpper[j] = false;
+    }
+
+
+    private double nonbasicValue(int j) {
+        if (_atUpper[j]) return _hi[j];
+        if (_lo[j]>-_INF) return _lo[j];
+        return 0.0;  // free variable
+    }
+
+
+    /**
+     * sets the non-basic variables at their bounds and computes the values of
+     * the basic ones from scratch.
+     */
+    private void computeBasicValues() {
+        final double[] rhs = _alpha;
+        Arrays.fill(rhs, 0.0);
+        for (int j=0; j<_n+_m; j++) {
+            if (_pos[j]>=0) continue;
+            final double v = nonbasicValue(j);
+            _x[j] = v;
+            if (v==0.0) continue;
+            if (j<_n) {
+                for (int p=_colStart[j]; p<_colStart[j+1]; p++)
+                    rhs[_colRows[p]] -= _colVals[p]*v;
+            }
+            else rhs[j-_n] -= v;
+        }
+        ftran(rhs);
+        for (int i=0; i<_m; i++) _x[_head[i]] = rhs[i];
+    }
+
+
+    /**
+     * computes into _alpha the column B^{-1}a_j.
+     */
+    private void ftranColumn(int j) {
+        Arrays.fill(_alpha, 0.0);
+        if (j<_n) {
+            for (int p=_colStart[j]; p<_colStart[j+1]; p++)
+                _alpha[_colRows[p]] = _colVals[p];
+        }
+        else _alpha[j-_n] = 1.0;
+        ftran(_alpha);
+    }
+
+
+    private void ftran(double[] v) {
+        for (int k=0; k<_numEtas; k++) {
+            final int p = _etaRow[k];
+            double t = v[p];
+            if (t==0.0) continue;
+            t /= _etaPiv[k];
+            v[p] = t;
+            for (int e=_etaStart[k]; e<_etaStart[k+1]; e++)
+                v[_etaIdx[e]] -= _etaVal[e]*t;
+        }
+    }
+
+
+    private void btran(double[] v) {
+        for (int k=_numEtas-1; k>=0; k--) {
+            final int p = _etaRow[k];
+            double t = v[p];
+            for (int e=_etaStart[k]; e<_etaStart[k+1]; e++)
+                t -= _etaVal[e]*v[_etaIdx[e]];
+            v[p] = t/_etaPiv[k];
+        }
+    }
+
+
+    /**
+     * appends to the eta file the eta matrix that pivots _alpha on row r.
+     */
+    private void addEta(int r) {
+        if (_numEtas==_etaRow.length) {
+            final int len = 2*_numEtas;
+            _etaRow = Arrays.copyOf(_etaRow, len);
+            _etaPiv = Arrays.copyOf(_etaPiv, len);
+            _etaStart = Arrays.copyOf(_etaStart, len+1);
+        }
+        int nnz = _etaStart[_numEtas];
+        for (int i=0; i<_m; i++) {
+            if (i==r || Math.abs(_alpha[i])<=_DROP_TOL) continue;
+            if (nnz==_etaIdx.length) {
+                _etaIdx = Arrays.copyOf(_etaIdx, 2*nnz);
+                _etaVal = Arrays.copyOf(_etaVal, 2*nnz);
+            }
+            _etaIdx[nnz] = i;
+            _etaVal[nnz] = _alpha[i];
+            ++nnz;
+        }
+        _etaRow[_numEtas] = r;
+        _etaPiv[_numEtas] = _alpha[r];
+        _etaStart[++_numEtas] = nnz;
+    }
+
+
+    /**
+     * rebuilds the eta file for the current basis from scratch. Structural
+     * basic variables whose columns turn out to be (numerically) dependent are
+     * replaced by logical ones.
+     */
+    private void reinvert() {
+        _numEtas = 0;
+        _etaStart[0] = 0;
+        boolean[] row_free = new boolean[_m];  // rows w/ non-basic logical
+        int num_struct = 0;
+        int[] structs = new int[_m];
+        for (int i=0; i<_m; i++) {
+            row_free[i] = _pos[_n+i]<0;
+            if (_head[i]<_n) structs[num_struct++] = _head[i];
+        }
+        // sparser columns first keep the eta file sparser
+        Integer[] order = new Integer[num_struct];
+        for (int k=0; k<num_struct; k++) order[k] = structs[k];
+        Arrays.sort(order, (a, b) -> Integer.compare(_colStart[a+1]-_colStart[a],
+                                                     _colStart[b+1]-_colStart[b]));
+        int[] new_head = new int[_m];
+        Arrays.fill(new_head, -1);
+        for (int i=0; i<_m; i++) if (!row_free[i]) new_head[i] = _n+i;
+        for (int k=0; k<num_struct; k++) {
+            final int j = order[k];
+            ftranColumn(j);
+            int r = -1;
+            double maxa = _PIVOT_TOL;
+            for (int i=0; i<_m; i++) {
+                if (row_free[i] && Math.abs(_alpha[i])>maxa) {
+                    maxa = Math.abs(_alpha[i]);
+                    r = i;
+                }
+            }
+            if (r<0) {  // dependent column: make it non-basic
+                _pos[j] = -1;
+                _atUpper[j] = _hi[j]<_INF &&
+                              (_lo[j]==-_INF || _x[j]>0.5*(_lo[j]+_hi[j]));
+                fixAtUpper(j);
+                continue;
+            }
+            addEta(r);
+            row_free[r] = false;
+            new_head[r] = j;
+        }
+        for (int i=0; i<_m; i++) {
+            if (new_head[i]<0) new_head[i] = _n+i;  // logical enters basis
+        }
+        System.arraycopy(new_head, 0, _head, 0, _m);
+        for (int i=0; i<_m; i++) _pos[_head[i]] = i;
+        _numFactorEtas = _numEtas;
+        _factorValid = true;
+    }
+}
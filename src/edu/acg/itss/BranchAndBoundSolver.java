@@ -0,0 +1,899 @@
+package edu.acg.itss;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * pure-Java 0/1 MIP solver for the scheduling models created by
+ * <CODE>MIPHandler</CODE>, that requires no external library or license. It is
+ * meant for batch runs (eg nightly regression plans whose objective values are
+ * compared against GUROBI's), not as a replacement of GUROBI in the GUI, as it
+ * is much slower on the hardest instances, where it usually stops at its time
+ * limit with a (reported) gap rather than proving optimality.
+ * <p>The solver works in three steps:
+ * <ol>
+ * <li>presolve: bound propagation over the rows of the model. Since the model
+ * fixes most x_{i,s} variables to zero (terms when a course is not offered,
+ * past terms, summer terms off, etc.), this removes most variables and rows
+ * before any LP is solved. Fixed variables are moved to the right-hand sides,
+ * and rows that can no longer be violated are dropped.
+ * <li>if the model has a MIP start (eg the previous schedule of the same
+ * student), its binary variables are fixed to their start values and the LP
+ * over the remaining variables is solved, for a first incumbent. If the start
+ * is no longer feasible, only the variables it sets to one are fixed (where
+ * the presolved bounds allow it), and a fractional LP solution is repaired by
+ * the diving heuristic below.
+ * <li>a diving heuristic for a first incumbent: starting from the root LP
+ * relaxation without the costs of the continuous variables (D and DL, whose
+ * large coefficients otherwise make the LP spread courses over many terms),
+ * the binary variable with the largest fractional value is repeatedly fixed to
+ * one (or to zero if that makes the LP infeasible) until the LP solution is
+ * integral.
+ * <li>depth-first LP-based branch-and-bound over the remaining binary
+ * variables: at every node the branching fixings are propagated over the rows,
+ * and the LP relaxation is solved by the bounded primal simplex method of class
+ * <CODE>BoundedSimplex</CODE>, warm-started from the optimal basis of the
+ * parent node. Branching is on the most fractional variable, exploring first
+ * the child closest to the LP value, and nodes whose bound is within the MIP
+ * gap of the incumbent are pruned.
+ * </ol>
+ * Time and node limits can be set, in which case the best solution found (if
+ * any) is returned with status <CODE>TIME_LIMIT</CODE> or
+ * <CODE>NODE_LIMIT</CODE>; likewise, a search stopped by <CODE>cancel()</CODE>
+ * returns its best solution with status <CODE>INTERRUPTED</CODE>. The
+ * progress of the search is reported to the listener set (if any) at every
+ * new incumbent and about once a second.
+ * @author itc
+ */
+public class BranchAndBoundSolver implements ScheduleSolver {
+    private static final double _INF = MIPModel.INFINITY;
+    private static final double _INT_TOL = 1.e-6;
+    private static final double _FEAS_TOL = 1.e-6;
+    private static final int _MAX_PRESOLVE_PASSES = 50;
+
+    private double _timeLimit = Double.POSITIVE_INFINITY;  // in seconds
+    private long _nodeLimit = Long.MAX_VALUE;
+    private double _mipGap = 1.e-4;  // same as GUROBI's default
+    private static final long _PROGRESS_INTERVAL_MSECS = 1000;
+    private volatile SolverProgressListener _listener = null;
+    /**
+     * the number of calls to <CODE>cancel()</CODE> so far: a search stops
+     * when this number changes after it started.
+     */
+    private final AtomicLong _numCancels = new AtomicLong();
+
+
+    /**
+     * public no-arg constructor: no time or node limits, and relative MIP gap
+     * 1.e-4.
+     */
+    public BranchAndBoundSolver() {
+        // no-op
+    }
+
+
+    /**
+     * set the time limit (in seconds) of each call to <CODE>solve()</CODE>.
+     * @param secs double
+     */
+    @Override
+    public void setTimeLimit(double secs) { _timeLimit = secs; }
+
+
+    /**
+     * set the max number of nodes each call to <CODE>solve()</CODE> may
+     * explore.
+     * @param limit long
+     */
+    public void setNodeLimit(long limit) { _nodeLimit = limit; }
+
+
+    /**
+     * set the relative MIP gap at which the search stops.
+     * @param gap double
+     */
+    @Override
+    public void setMIPGap(double gap) { _mipGap = gap; }
+
+
+    /**
+     * return "bnb".
+     * @return String
+     */
+    @Override
+    public String getName() { return "bnb"; }
+
+
+    /**
+     * set the listener to notify of the progress of the searches.
+     * @param listener SolverProgressListener may be null
+     */
+    @Override
+    public void setProgressListener(SolverProgressListener listener) {
+        _listener = listener;
+    }
+
+
+    /**
+     * stops the searches currently running, at their next node.
+     */
+    @Override
+    public void cancel() {
+        _numCancels.incrementAndGet();
+    }
+
+
+    /**
+     * no-op, as this solver holds no resources between calls.
+     */
+    @Override
+    public void close() {
+        // no-op
+    }
+
+
+    /**
+     * solves the given model.
+     * @param model MIPModel
+     * @return MIPSolution
+     * @throws SolverException never actually, numerical trouble in a node is
+     * reported via the <CODE>SUBOPTIMAL</CODE> status
+     */
+    @Override
+    public MIPSolution solve(MIPModel model) throws SolverException {
+        final long start = System.currentTimeMillis();
+        final long cancels = _numCancels.get();
+        final long deadline = Double.isInfinite(_timeLimit) ? Long.MAX_VALUE :
+                                start + (long) (1000*_timeLimit);
+        final int nv = model.getNumVars();
+        final int nr = model.getNumRows();
+        // 1. the rows of the model, with duplicate terms merged
+        int[] rbeg = new int[nr+1];
+        int[] rvar = new int[model.getNumNonZeros()];
+        double[] rval = new double[model.getNumNonZeros()];
+        int[] where = new int[nv];
+        Arrays.fill(where, -1);
+        int nnz = 0;
+        for (int r=0; r<nr; r++) {
+            rbeg[r] = nnz;
+            for (int p=model.getRowBegin(r); p<model.getRowEnd(r); p++) {
+                final int j = model.getTermVar(p);
+                if (where[j]>=rbeg[r]) rval[where[j]] += model.getTermCoeff(p);
+                else {
+                    where[j] = nnz;
+                    rvar[nnz] = j;
+                    rval[nnz++] = model.getTermCoeff(p);
+                }
+            }
+        }
+        rbeg[nr] = nnz;
+        double[] rlo = new double[nr];
+        double[] rhi = new double[nr];
+        for (int r=0; r<nr; r++) {
+            final char sense = model.getSense(r);
+            rlo[r] = sense==MIPModel.LESS_EQUAL ? -_INF : model.getRHS(r);
+            rhi[r] = sense==MIPModel.GREATER_EQUAL ? _INF : model.getRHS(r);
+        }
+        double[] lb = model.getLBs();
+        double[] ub = model.getUBs();
+        char[] types = model.getVarTypes();
+        // 2. presolve
+        boolean[] row_active = new boolean[nr];
+        Arrays.fill(row_active, true);
+        if (!presolve(rbeg, rvar, rval, rlo, rhi, lb, ub, types, row_active)) {
+            return new MIPSolution(MIPSolution.Status.INFEASIBLE, null, 0, _INF,
+                                   0, System.currentTimeMillis()-start);
+        }
+        // 3. heuristic and branch-and-bound
+        Search search = new Search(model, rbeg, rvar, rval, rlo, rhi, lb, ub,
+                                   row_active, deadline, cancels);
+        return search.run(start);
+    }
+
+
+    /**
+     * a node of the branch-and-bound tree: the binary columns it fixes, the
+     * bound of its parent and the parent's optimal basis.
+     */
+    private static final class Node {
+        private final int[] _fixCols;
+        private final byte[] _fixVals;
+        private final double _bound;
+        private final BoundedSimplex.Basis _basis;
+
+        private Node(int[] fixCols, byte[] fixVals, double bound,
+                     BoundedSimplex.Basis basis) {
+            _fixCols = fixCols;
+            _fixVals = fixVals;
+            _bound = bound;
+            _basis = basis;
+        }
+
+        private Node child(int col, byte val, double bound,
+                           BoundedSimplex.Basis basis) {
+            final int len = _fixCols.length;
+            int[] cols = Arrays.copyOf(_fixCols, len+1);
+            byte[] vals = Arrays.copyOf(_fixVals, len+1);
+            cols[len] = col;
+            vals[len] = val;
+            return new Node(cols, vals, bound, basis);
+        }
+    }
+
+
+    /**
+     * the state of a single call to <CODE>solve()</CODE>: the presolved LP
+     * (whose columns are the model variables that presolve did not fix), the
+     * node bound propagator, and the incumbent.
+     */
+    private final class Search {
+        private final MIPModel _model;
+        private final long _deadline;
+        private final long _cancelsAtStart;
+        private final int _n;  // columns of the LP
+        private final int[] _colOf;  // model var -> LP column, or -1 if fixed
+        private final double[] _fixedVal;  // values of the fixed model vars
+        private final double _objConst;  // objective value of the fixed vars
+        private final double[] _lo;  // root bounds of the n+m LP variables
+        private final double[] _hi;
+        private final double[] _cost;
+        private final boolean[] _isBinary;
+        private final BoundedSimplex _lp;
+        private final Propagator _prop;
+        private final long _maxLPIters;
+        private double[] _incumbent = null;
+        private double _incObj = _INF;
+        private boolean _newIncumbent = false;  // since the last report
+
+        private Search(MIPModel model, int[] rbeg, int[] rvar, double[] rval,
+                       double[] rlo, double[] rhi, double[] lb, double[] ub,
+                       boolean[] rowActive, long deadline, long cancels) {
+            _model = model;
+            _deadline = deadline;
+            _cancelsAtStart = cancels;
+            final int nv = model.getNumVars();
+            final int nr = rowActive.length;
+            final double[] obj = model.getObjCoeffs();
+            _colOf = new int[nv];
+            _fixedVal = lb;
+            int n = 0;
+            double obj_const = 0.0;
+            for (int j=0; j<nv; j++) {
+                if (lb[j]<ub[j]) _colOf[j] = n++;
+                else {
+                    _colOf[j] = -1;
+                    obj_const += obj[j]*lb[j];
+                }
+            }
+            _n = n;
+            _objConst = obj_const;
+            int[] var_of = new int[n];
+            for (int j=0; j<nv; j++) if (_colOf[j]>=0) var_of[_colOf[j]] = j;
+            // the LP matrix in column-wise form
+            int m = 0;
+            int[] cbeg = new int[n+1];
+            for (int r=0; r<nr; r++) {
+                if (!rowActive[r]) continue;
+                ++m;
+                for (int p=rbeg[r]; p<rbeg[r+1]; p++) {
+                    final int k = _colOf[rvar[p]];
+                    if (k>=0 && rval[p]!=0.0) ++cbeg[k+1];
+                }
+            }
+            for (int k=0; k<n; k++) cbeg[k+1] += cbeg[k];
+            int[] crow = new int[cbeg[n]];
+            double[] cval = new double[cbeg[n]];
+            int[] fill = Arrays.copyOf(cbeg, n);
+            _lo = new double[n+m];
+            _hi = new double[n+m];
+            _cost = new double[n];
+            _isBinary = new boolean[n];
+            for (int k=0; k<n; k++) {
+                _lo[k] = lb[var_of[k]];
+                _hi[k] = ub[var_of[k]];
+                _cost[k] = obj[var_of[k]];
+                _isBinary[k] = model.getVarType(var_of[k])==MIPModel.BINARY;
+            }
+            int i = 0;
+            for (int r=0; r<nr; r++) {
+                if (!rowActive[r]) continue;
+                double fixed = 0.0;
+                for (int p=rbeg[r]; p<rbeg[r+1]; p++) {
+                    final int k = _colOf[rvar[p]];
+                    if (k<0) fixed += rval[p]*lb[rvar[p]];
+                    else if (rval[p]!=0.0) {
+                        crow[fill[k]] = i;
+                        cval[fill[k]++] = rval[p];
+                    }
+                }
+                // the logical variable of the row is -a_r'x
+                _lo[n+i] = rhi[r]>=_INF ? -_INF : -(rhi[r]-fixed);
+                _hi[n+i] = rlo[r]<=-_INF ? _INF : -(rlo[r]-fixed);
+                ++i;
+            }
+            _lp = new BoundedSimplex(m, n, cbeg, crow, cval, _cost, _lo, _hi);
+            _prop = new Propagator(m, n, cbeg, crow, cval, _lo, _hi,
+                                   _isBinary);
+            _maxLPIters = 100L*(n+m) + 10000;
+        }
+
+
+        /**
+         * the depth-first branch-and-bound; the diving heuristic runs once,
+         * right after the root LP is solved.
+         * @param start long the time <CODE>solve()</CODE> was called
+         * @return MIPSolution
+         */
+        private MIPSolution run(long start) {
+            long num_nodes = 0;
+            int num_lp_failures = 0;
+            MIPSolution.Status limit_status = null;
+            double open_bound = _INF;  // min bound of nodes left unexplored
+            double pruned_bound = _INF;  // min bound of nodes pruned by bound
+            double[] nlo = new double[_n];
+            double[] nhi = new double[_n];
+            int[] applied = new int[_n];  // columns w/ node bounds in the LP
+            int num_applied = 0;
+            BoundedSimplex.Basis cur_basis = null;  // basis now factorized
+            long last_report = start;
+            tryStart();
+            ArrayDeque<Node> stack = new ArrayDeque<>();
+            stack.push(new Node(new int[0], new byte[0], -_INF, null));
+            while (!stack.isEmpty()) {
+                final Node node = stack.pop();
+                final double cutoff = getCutoff();
+                if (node._bound>=cutoff) {
+                    pruned_bound = Math.min(pruned_bound, node._bound);
+                    continue;
+                }
+                if (num_nodes>=_nodeLimit) {
+                    limit_status = MIPSolution.Status.NODE_LIMIT;
+                    open_bound = node._bound;
+                    break;
+                }
+                final long now = System.currentTimeMillis();
+                if (now>_deadline) {
+                    limit_status = MIPSolution.Status.TIME_LIMIT;
+                    open_bound = node._bound;
+                    break;
+                }
+                if (isCancelled()) {
+                    limit_status = MIPSolution.Status.INTERRUPTED;
+                    open_bound = node._bound;
+                    break;
+                }
+                final SolverProgressListener listener = _listener;
+                if (listener!=null && 
+                    (_newIncumbent || 
+                     now-last_report>=_PROGRESS_INTERVAL_MSECS)) {
+                    double bound = Math.min(node._bound, pruned_bound);
+                    for (Node nd : stack) bound = Math.min(bound, nd._bound);
+                    listener.progress(_incObj, Math.min(bound, _incObj),
+                                      num_nodes, now-start);
+                    last_report = now;
+                    _newIncumbent = false;
+                }
+                ++num_nodes;
+                // undo the bounds of the previous node, propagate the fixings
+                // of the current one, and set the resulting bounds in the LP
+                for (int a=0; a<num_applied; a++) {
+                    final int c = applied[a];
+                    _lp.setBounds(c, _lo[c], _hi[c]);
+                }
+                num_applied = 0;
+                System.arraycopy(_lo, 0, nlo, 0, _n);
+                System.arraycopy(_hi, 0, nhi, 0, _n);
+                if (!_prop.propagate(node._fixCols, node._fixVals, nlo, nhi))
+                    continue;  // infeasible node
+                for (int k=0; k<_n; k++) {
+                    if (nlo[k]!=_lo[k] || nhi[k]!=_hi[k]) {
+                        _lp.setBounds(k, nlo[k], nhi[k]);
+                        applied[num_applied++] = k;
+                    }
+                }
+                if (node._basis!=null && node._basis!=cur_basis)
+                    _lp.setBasis(node._basis);
+                final int lpstat = _lp.solve(_deadline, _maxLPIters);
+                cur_basis = null;  // the LP has (probably) pivoted
+                if (lpstat==BoundedSimplex.ABORTED) {
+                    if (System.currentTimeMillis()>_deadline) {
+                        limit_status = MIPSolution.Status.TIME_LIMIT;
+                        open_bound = node._bound;
+                        break;
+                    }
+                    if (isCancelled()) {
+                        limit_status = MIPSolution.Status.INTERRUPTED;
+                        open_bound = node._bound;
+                        break;
+                    }
+                    ++num_lp_failures;
+                    continue;
+                }
+                if (lpstat==BoundedSimplex.UNBOUNDED) {
+                    if (num_nodes==1) {
+                        return new MIPSolution(MIPSolution.Status.UNBOUNDED,
+                                               null, 0, -_INF, num_nodes,
+                                               System.currentTimeMillis()-
+                                                 start);
+                    }
+                    ++num_lp_failures;  // cannot happen with bounded integers
+                    continue;
+                }
+                if (lpstat==BoundedSimplex.INFEASIBLE) continue;
+                final double bound = _lp.getObjValue() + _objConst;
+                if (bound>=cutoff) {
+                    pruned_bound = Math.min(pruned_bound, bound);
+                    continue;
+                }
+                final int bc = getBranchingColumn();
+                if (bc<0) {  // integral solution
+                    updateIncumbent();
+                    continue;
+                }
+                final double v = _lp.getValue(bc);
+                final BoundedSimplex.Basis basis = _lp.getBasis();
+                cur_basis = basis;
+                if (num_nodes==1) {
+                    dive(nlo, nhi);
+                    // the dive resets all LP bounds to their root values
+                    num_applied = 0;
+                    cur_basis = null;
+                    if (bound>=getCutoff()) {
+                        pruned_bound = Math.min(pruned_bound, bound);
+                        continue;
+                    }
+                }
+                final byte first = v>=0.5 ? (byte) 1 : (byte) 0;
+                stack.push(node.child(bc, (byte) (1-first), bound, basis));
+                stack.push(node.child(bc, first, bound, basis));
+            }
+            // report
+            final long dur = System.currentTimeMillis()-start;
+            MIPSolution.Status status;
+            double best_bound;
+            if (limit_status!=null) {
+                status = limit_status;
+                best_bound = open_bound;
+                for (Node nd : stack)
+                    best_bound = Math.min(best_bound, nd._bound);
+                best_bound = Math.min(Math.min(best_bound, pruned_bound),
+                                      _incObj);
+            }
+            else if (num_lp_failures>0) {
+                status = MIPSolution.Status.SUBOPTIMAL;
+                best_bound = -_INF;
+            }
+            else {
+                status = _incumbent!=null ? MIPSolution.Status.OPTIMAL :
+                                            MIPSolution.Status.INFEASIBLE;
+                best_bound = Math.min(pruned_bound, _incObj);
+            }
+            return new MIPSolution(status, _incumbent, _incObj, best_bound,
+                                   num_nodes, dur);
+        }
+
+
+        /**
+         * makes the MIP start of the model (if any) the first incumbent: the
+         * binary columns with a start value are fixed to it, the fixings are
+         * propagated, and the LP over the remaining columns is solved. If this
+         * fails (eg because the start violates bounds or rows that changed 
+         * since it was computed), only the columns the start sets to one are
+         * fixed, and a fractional LP solution is then repaired by diving. On
+         * return, all bounds of the LP are reset to their root values.
+         */
+        private void tryStart() {
+            if (!_model.hasStart()) return;
+            if (!tryStart(false)) tryStart(true);
+            for (int k=0; k<_n; k++) _lp.setBounds(k, _lo[k], _hi[k]);
+        }
+
+
+        /**
+         * fixes the binary columns of the MIP start (only those set to one if
+         * onesOnly is true) and solves the LP.
+         * @param onesOnly boolean
+         * @return boolean true iff a new incumbent was found
+         */
+        private boolean tryStart(boolean onesOnly) {
+            final int nv = _model.getNumVars();
+            int[] cols = new int[_n];
+            byte[] vals = new byte[_n];
+            int nf = 0;
+            for (int j=0; j<nv; j++) {
+                final int k = _colOf[j];
+                final double v = _model.getStart(j);
+                if (Double.isNaN(v)) continue;
+                final byte bv = v>=0.5 ? (byte) 1 : (byte) 0;
+                if (k<0) {  // fixed by presolve
+                    if (!onesOnly && bv!=_fixedVal[j]) return false;
+                    continue;
+                }
+                if (!_isBinary[k] || (onesOnly && bv==0)) continue;
+                if (bv<_lo[k] || bv>_hi[k]) {
+                    if (!onesOnly) return false;
+                    continue;
+                }
+                cols[nf] = k;
+                vals[nf++] = bv;
+            }
+            double[] slo = Arrays.copyOf(_lo, _n);
+            double[] shi = Arrays.copyOf(_hi, _n);
+            if (!_prop.propagate(Arrays.copyOf(cols, nf), 
+                                 Arrays.copyOf(vals, nf), slo, shi))
+                return false;
+            setLPBounds(slo, shi);
+            if (_lp.solve(_deadline, _maxLPIters)!=BoundedSimplex.OPTIMAL) 
+                return false;
+            final double inc_obj = _incObj;
+            if (getBranchingColumn()<0) updateIncumbent();
+            else if (onesOnly) dive(slo, shi);
+            return _incObj<inc_obj;
+        }
+
+
+        /**
+         * check whether <CODE>cancel()</CODE> was called since the search
+         * started.
+         * @return boolean
+         */
+        private boolean isCancelled() {
+            return _numCancels.get()!=_cancelsAtStart;
+        }
+
+
+        /**
+         * nodes whose bound is not below the returned value are pruned.
+         * @return double
+         */
+        private double getCutoff() {
+            return _incObj - Math.max(1.e-6, _mipGap*Math.abs(_incObj));
+        }
+
+
+        /**
+         * return the most fractional binary column of the current LP
+         * solution, or -1 if the solution is integral.
+         * @return int
+         */
+        private int getBranchingColumn() {
+            int bc = -1;
+            double bfrac = _INT_TOL;
+            for (int k=0; k<_n; k++) {
+                if (!_isBinary[k]) continue;
+                final double v = _lp.getValue(k);
+                final double frac = Math.min(v-Math.floor(v), Math.ceil(v)-v);
+                if (frac>bfrac) {
+                    bfrac = frac;
+                    bc = k;
+                }
+            }
+            return bc;
+        }
+
+
+        /**
+         * makes the current (integral) LP solution the incumbent if it is
+         * better than the current one.
+         */
+        private void updateIncumbent() {
+            final int nv = _model.getNumVars();
+            double[] sol = new double[nv];
+            double sobj = 0.0;
+            for (int j=0; j<nv; j++) {
+                final int k = _colOf[j];
+                double v = k>=0 ? _lp.getValue(k) : _fixedVal[j];
+                if (_model.getVarType(j)==MIPModel.BINARY) v = Math.round(v);
+                sol[j] = v;
+                sobj += _model.getObjCoeff(j)*v;
+            }
+            if (sobj<_incObj) {
+                _incObj = sobj;
+                _incumbent = sol;
+                _newIncumbent = true;
+            }
+        }
+
+
+        /**
+         * the diving heuristic, starting from the given bounds (those of the
+         * root node). On return, all bounds and costs of the LP are reset to
+         * their root values.
+         * @param nlo double[]
+         * @param nhi double[]
+         */
+        private void dive(double[] nlo, double[] nhi) {
+            double[] dlo = Arrays.copyOf(nlo, _n);
+            double[] dhi = Arrays.copyOf(nhi, _n);
+            double[] blo = new double[_n];
+            double[] bhi = new double[_n];
+            int[] col = new int[1];
+            byte[] val = new byte[1];
+            for (int k=0; k<_n; k++) {
+                if (!_isBinary[k]) _lp.setCost(k, 0.0);
+            }
+            boolean found = false;
+            for (int step=0; step<=_n; step++) {
+                if (_lp.solve(_deadline, _maxLPIters)!=BoundedSimplex.OPTIMAL)
+                    break;
+                // the binary column with the largest fractional value
+                int bc = -1;
+                double bv = _INT_TOL;
+                for (int k=0; k<_n; k++) {
+                    if (!_isBinary[k]) continue;
+                    final double v = _lp.getValue(k);
+                    if (v<1.0-_INT_TOL && v>bv) {
+                        bv = v;
+                        bc = k;
+                    }
+                }
+                if (bc<0) {
+                    found = true;
+                    break;
+                }
+                // fix it to 1, or to 0 if 1 is infeasible
+                System.arraycopy(dlo, 0, blo, 0, _n);
+                System.arraycopy(dhi, 0, bhi, 0, _n);
+                col[0] = bc;
+                val[0] = 1;
+                boolean ok = _prop.propagate(col, val, dlo, dhi);
+                if (ok) {
+                    setLPBounds(dlo, dhi);
+                    ok = _lp.solve(_deadline, _maxLPIters)==
+                           BoundedSimplex.OPTIMAL;
+                }
+                if (!ok) {
+                    System.arraycopy(blo, 0, dlo, 0, _n);
+                    System.arraycopy(bhi, 0, dhi, 0, _n);
+                    val[0] = 0;
+                    if (!_prop.propagate(col, val, dlo, dhi)) break;
+                    setLPBounds(dlo, dhi);
+                }
+                if (System.currentTimeMillis()>_deadline || isCancelled()) 
+                    break;
+            }
+            for (int k=0; k<_n; k++) _lp.setCost(k, _cost[k]);
+            if (found) {
+                // fix the binaries and re-optimize the continuous columns
+                for (int k=0; k<_n; k++) {
+                    if (_isBinary[k]) {
+                        final double v = Math.round(_lp.getValue(k));
+                        _lp.setBounds(k, v, v);
+                    }
+                }
+                if (_lp.solve(_deadline, _maxLPIters)==BoundedSimplex.OPTIMAL)
+                    updateIncumbent();
+            }
+            for (int k=0; k<_n; k++) _lp.setBounds(k, _lo[k], _hi[k]);
+        }
+
+
+        /**
+         * sets in the LP the column bounds that differ from the given ones.
+         * @param lo double[]
+         * @param hi double[]
+         */
+        private void setLPBounds(double[] lo, double[] hi) {
+            for (int k=0; k<_n; k++) {
+                if (lo[k]!=_lp.getLB(k) || hi[k]!=_lp.getUB(k))
+                    _lp.setBounds(k, lo[k], hi[k]);
+            }
+        }
+    }
+
+
+    /**
+     * bound propagation at the nodes of the branch-and-bound tree: starting
+     * from the rows of the fixed columns, the min and max activities of the
+     * rows are used to fix further binary columns, until no more bounds
+     * change. Continuous columns are never tightened (the LP takes care of
+     * them).
+     */
+    private static final class Propagator {
+        private final int _m;
+        private final int[] _rb;
+        private final int[] _rc;
+        private final double[] _rv;
+        private final int[] _cbeg;
+        private final int[] _crow;
+        private final double[] _rowLo;
+        private final double[] _rowHi;
+        private final boolean[] _isBinary;
+        private final int[] _queue;
+        private final boolean[] _inQueue;
+
+        private Propagator(int m, int n, int[] cbeg, int[] crow, double[] cval,
+                           double[] lo, double[] hi, boolean[] isBinary) {
+            _m = m;
+            _cbeg = cbeg;
+            _crow = crow;
+            _isBinary = isBinary;
+            // row-wise copy of the matrix
+            _rb = new int[m+1];
+            for (int p=0; p<cbeg[n]; p++) ++_rb[crow[p]+1];
+            for (int r=0; r<m; r++) _rb[r+1] += _rb[r];
+            _rc = new int[cbeg[n]];
+            _rv = new double[cbeg[n]];
+            int[] fill = Arrays.copyOf(_rb, m);
+            for (int k=0; k<n; k++) {
+                for (int p=cbeg[k]; p<cbeg[k+1]; p++) {
+                    _rc[fill[crow[p]]] = k;
+                    _rv[fill[crow[p]]++] = cval[p];
+                }
+            }
+            // the logical variable of row r is -a_r'x
+            _rowLo = new double[m];
+            _rowHi = new double[m];
+            for (int r=0; r<m; r++) {
+                _rowLo[r] = hi[n+r]>=_INF ? -_INF : -hi[n+r];
+                _rowHi[r] = lo[n+r]<=-_INF ? _INF : -lo[n+r];
+            }
+            _queue = new int[Math.max(m, 1)];
+            _inQueue = new boolean[m];
+        }
+
+        /**
+         * fixes the given columns and propagates.
+         * @return boolean false iff infeasibility is detected
+         */
+        private boolean propagate(int[] fixCols, byte[] fixVals, double[] lo,
+                                  double[] hi) {
+            int head = 0;
+            int size = 0;
+            boolean feasible = true;
+            for (int f=0; f<fixCols.length && feasible; f++) {
+                final int c = fixCols[f];
+                if (fixVals[f]<lo[c] || fixVals[f]>hi[c]) feasible = false;
+                lo[c] = hi[c] = fixVals[f];
+                for (int p=_cbeg[c]; p<_cbeg[c+1]; p++) {
+                    final int r = _crow[p];
+                    if (!_inQueue[r]) {
+                        _inQueue[r] = true;
+                        _queue[(head+size++) % _m] = r;
+                    }
+                }
+            }
+            while (size>0) {
+                final int r = _queue[head];
+                head = (head+1) % _m;
+                --size;
+                _inQueue[r] = false;
+                if (!feasible) continue;  // just empty the queue
+                double min_act = 0.0;
+                double max_act = 0.0;
+                int min_inf = 0;
+                int max_inf = 0;
+                for (int p=_rb[r]; p<_rb[r+1]; p++) {
+                    final double a = _rv[p];
+                    final int k = _rc[p];
+                    if (a>0) {
+                        if (lo[k]<=-_INF) ++min_inf;
+                        else min_act += a*lo[k];
+                        if (hi[k]>=_INF) ++max_inf;
+                        else max_act += a*hi[k];
+                    }
+                    else {
+                        if (hi[k]>=_INF) ++min_inf;
+                        else min_act += a*hi[k];
+                        if (lo[k]<=-_INF) ++max_inf;
+                        else max_act += a*lo[k];
+                    }
+                }
+                if ((min_inf==0 && min_act>_rowHi[r]+_FEAS_TOL) ||
+                    (max_inf==0 && max_act<_rowLo[r]-_FEAS_TOL)) {
+                    feasible = false;
+                    continue;
+                }
+                for (int p=_rb[r]; p<_rb[r+1]; p++) {
+                    final int k = _rc[p];
+                    if (!_isBinary[k] || lo[k]==hi[k]) continue;
+                    final double a = _rv[p];
+                    int fix = -1;
+                    // would setting the column to 1 (resp. 0) violate the row?
+                    if (_rowHi[r]<_INF && min_inf==0 &&
+                        min_act+Math.abs(a)>_rowHi[r]+_FEAS_TOL)
+                        fix = a>0 ? 0 : 1;
+                    else if (_rowLo[r]>-_INF && max_inf==0 &&
+                             max_act-Math.abs(a)<_rowLo[r]-_FEAS_TOL)
+                        fix = a>0 ? 1 : 0;
+                    if (fix<0) continue;
+                    // the activities stay valid bounds (just not the tightest)
+                    lo[k] = hi[k] = fix;
+                    for (int q=_cbeg[k]; q<_cbeg[k+1]; q++) {
+                        final int r2 = _crow[q];
+                        if (r2!=r && !_inQueue[r2]) {
+                            _inQueue[r2] = true;
+                            _queue[(head+size++) % _m] = r2;
+                        }
+                    }
+                }
+            }
+            return feasible;
+        }
+    }
+
+
+    /**
+     * bound propagation: for every active row, the min and max activity of
+     * the row given the current variable bounds are used to tighten the
+     * bounds of the variables in the row (rounded for binary variables), and
+     * to drop rows that can no longer be violated. Repeated until no more
+     * bounds change.
+     * @return boolean false iff the model is found to be infeasible
+     */
+    private static boolean presolve(int[] rbeg, int[] rvar, double[] rval,
+                                    double[] rlo, double[] rhi,
+                                    double[] lb, double[] ub, char[] types,
+                                    boolean[] rowActive) {
+        final int nr = rowActive.length;
+        boolean changed = true;
+        for (int pass=0; changed && pass<_MAX_PRESOLVE_PASSES; pass++) {
+            changed = false;
+            for (int r=0; r<nr; r++) {
+                if (!rowActive[r]) continue;
+                double min_act = 0.0;
+                double max_act = 0.0;
+                int min_inf = 0;
+                int max_inf = 0;
+                for (int p=rbeg[r]; p<rbeg[r+1]; p++) {
+                    final double a = rval[p];
+                    final int j = rvar[p];
+                    if (a>0) {
+                        if (lb[j]<=-_INF) ++min_inf;
+                        else min_act += a*lb[j];
+                        if (ub[j]>=_INF) ++max_inf;
+                        else max_act += a*ub[j];
+                    }
+                    else if (a<0) {
+                        if (ub[j]>=_INF) ++min_inf;
+                        else min_act += a*ub[j];
+                        if (lb[j]<=-_INF) ++max_inf;
+                        else max_act += a*lb[j];
+                    }
+                }
+                if ((min_inf==0 && min_act>rhi[r]+_FEAS_TOL) ||
+                    (max_inf==0 && max_act<rlo[r]-_FEAS_TOL)) return false;
+                if ((max_inf==0 && max_act<=rhi[r]+_FEAS_TOL || rhi[r]>=_INF) &&
+                    (min_inf==0 && min_act>=rlo[r]-_FEAS_TOL || rlo[r]<=-_INF)){
+                    rowActive[r] = false;  // row is redundant
+                    continue;
+                }
+                for (int p=rbeg[r]; p<rbeg[r+1]; p++) {
+                    final double a = rval[p];
+                    final int j = rvar[p];
+                    if (a==0.0 || lb[j]==ub[j]) continue;
+                    double new_lb = lb[j];
+                    double new_ub = ub[j];
+                    // residual activities, ie without the term of j
+                    if (rhi[r]<_INF && min_inf==0) {
+                        final double res = min_act - (a>0 ? a*lb[j] : a*ub[j]);
+                        if (a>0) new_ub = Math.min(new_ub, (rhi[r]-res)/a);
+                        else new_lb = Math.max(new_lb, (rhi[r]-res)/a);
+                    }
+                    if (rlo[r]>-_INF && max_inf==0) {
+                        final double res = max_act - (a>0 ? a*ub[j] : a*lb[j]);
+                        if (a>0) new_lb = Math.max(new_lb, (rlo[r]-res)/a);
+                        else new_ub = Math.min(new_ub, (rlo[r]-res)/a);
+                    }
+                    if (types[j]==MIPModel.BINARY) {
+                        new_lb = Math.ceil(new_lb-_FEAS_TOL);
+                        new_ub = Math.floor(new_ub+_FEAS_TOL);
+                    }
+                    if (new_lb>new_ub+_FEAS_TOL) return false;
+                    if (new_lb>new_ub) new_lb = new_ub;
+                    final double eps = _FEAS_TOL*Math.max(1.0, Math.abs(ub[j]));
+                    if (new_ub<ub[j]-eps || new_lb>lb[j]+eps) {
+                        // the activities computed above are still valid
+                        // bounds (just not the tightest), so go on w/ the row
+                        if (new_ub<ub[j]-eps) ub[j] = new_ub;
+                        if (new_lb>lb[j]+eps) lb[j] = new_lb;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,420 @@
+package edu.acg.itss;
+
+import java.io.*;
+import java.util.*;
+
+
+/**
+ * immutable description of a program (eg IT, CN, CYN or PSY): its schedule
+ * params, its courses and its course groups. A catalog is loaded once from the
+ * files of the program's directory (see <CODE>load()</CODE>) and is then
+ * shared, without any synchronization, by all <CODE>MIPHandler</CODE> objects
+ * that plan schedules for students of the program, so that many programs can
+ * be planned concurrently in the same JVM. Unlike the static maps of the
+ * <CODE>Course</CODE> and <CODE>CourseGroup</CODE> classes (that are used by
+ * the editors), a catalog cannot be modified once created; to pick up changes
+ * made by the editors, a new catalog must be loaded.
+ * <p>Term numbers depend on the date of planning, so they are not part of the
+ * catalog; see class <CODE>PlanningDate</CODE>. The catalog does however keep
+ * the tables of the terms its courses are offered in, for the few most
+ * recently used planning dates (see <CODE>getOfferedTerms()</CODE>), as
+ * well as the templates of the rows of the MIP models that do not depend on
+ * the student (see <CODE>getModelTemplate()</CODE>) and the solutions of 
+ * the models of the students (see <CODE>getPlanCache()</CODE>); these 
+ * caches are the only mutable state of a catalog, and are synchronized. The
+ * transitive closure of the prerequisites and co-requisites of every course
+ * is computed once, when the catalog is created (see
+ * <CODE>getRequisites()</CODE>).
+ * <p>The course codes of every group are resolved into course ids when the
+ * catalog is created (see <CODE>CourseGroup.getCourseIds()</CODE>), and the
+ * groups of every course are indexed as well (see 
+ * <CODE>getCourseGroups()</CODE>).
+ * <p>Two more tables computed at creation serve the normalization of the
+ * passed courses of students (see <CODE>MIPHandler.createMIPModel()</CODE>):
+ * the catalog course of every synonym code (see 
+ * <CODE>getCanonicalCode()</CODE>), and the courses that only count for
+ * their credits (see <CODE>isCreditOnly()</CODE>).
+ * @author itc
+ */
+public final class Catalog {
+    private static final int _MAX_NUM_OFFERED_TERMS = 8;
+    private static final int _MAX_NUM_MODEL_TEMPLATES = 8;
+    private final ScheduleParams _params;
+    /**
+     * the courses indexed by their id.
+     */
+    private final Course[] _courses;
+    /**
+     * the courses by code; iterators return keys in alphabetical order.
+     */
+    private final SortedMap<String, Course> _coursesByCode;
+    /**
+     * the course groups by name; iterators return keys in alphabetical order.
+     */
+    private final SortedMap<String, CourseGroup> _groupsByName;
+    private final Set<String> _concentrationAreas;
+    /**
+     * the groups of every course, indexed by course id, in the order of their
+     * names.
+     */
+    private final List<List<CourseGroup>> _groupsOfCourse;
+    /**
+     * the requirements graph of the courses, with its transitive closure.
+     */
+    private final Requisites _requisites;
+    /**
+     * the catalog codes of the synonym codes of the courses.
+     */
+    private final Map<String, String> _synonyms;
+    /**
+     * the ids of the courses that are in no group and are required by no
+     * course.
+     */
+    private final BitSet _creditOnly;
+    /**
+     * the solutions of the models created for this catalog.
+     */
+    private final PlanCache _planCache;
+    /**
+     * the terms-offered tables of the most recently used planning dates, in
+     * access order.
+     */
+    private final LinkedHashMap<PlanningDate, OfferedTerms> _offeredTerms =
+        new LinkedHashMap<PlanningDate, OfferedTerms>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<PlanningDate, OfferedTerms> eldest) {
+                return size() > _MAX_NUM_OFFERED_TERMS;
+            }
+        };
+    /**
+     * the model templates of the most recently used planning dates, in
+     * access order.
+     */
+    private final LinkedHashMap<PlanningDate, ModelTemplate> _templates =
+        new LinkedHashMap<PlanningDate, ModelTemplate>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<PlanningDate, ModelTemplate> eldest) {
+                return size() > _MAX_NUM_MODEL_TEMPLATES;
+            }
+        };
+
+
+    /**
+     * public constructor.
+     * @param params ScheduleParams
+     * @param courses List&lt;Course&gt; the course at position i must have id i
+     * @param groups Collection&lt;CourseGroup&gt; if two groups have the same
+     * name, the latter replaces the former (as when groups are read into the 
+     * static map of <CODE>CourseGroup</CODE>); the groups are resolved
+     * against the given courses (see <CODE>CourseGroup.getCourseIds()</CODE>),
+     * so they must not be shared by catalogs of other courses
+     * @throws IllegalArgumentException if the course ids are not contiguous
+     * starting at zero, or if two courses have the same code
+     */
+    public Catalog(ScheduleParams params, List<Course> courses,
+                   Collection<CourseGroup> groups) {
+        _params = params;
+        _courses = courses.toArray(new Course[0]);
+        TreeMap<String, Course> by_code = new TreeMap<>();
+        for (int i=0; i<_courses.length; i++) {
+            if (_courses[i].getId()!=i)
+                throw new IllegalArgumentException("course "+
+                                                   _courses[i].getCode()+
+                                                   " has id "+
+                                                   _courses[i].getId()+
+                                                   " instead of "+i);
+            if (by_code.put(_courses[i].getCode(), _courses[i])!=null)
+                throw new IllegalArgumentException("duplicate course "+
+                                                   _courses[i].getCode());
+        }
+        _coursesByCode = Collections.unmodifiableSortedMap(by_code);
+        TreeMap<String, CourseGroup> by_name = new TreeMap<>();
+        for (CourseGroup cg : groups) {
+            if (by_name.put(cg.getGroupName(), cg)!=null)
+                System.err.println("Catalog: group "+cg.getGroupName()+
+                                   " defined more than once, last one kept");
+        }
+        Set<String> conc_areas = new HashSet<>();
+        for (CourseGroup cg : by_name.values()) {
+            final String name = cg.getGroupName();
+            if (cg.isConcentrationArea() && name.endsWith(" Core"))
+                conc_areas.add(name.substring(0, name.length()-5));
+        }
+        _groupsByName = Collections.unmodifiableSortedMap(by_name);
+        List<List<CourseGroup>> groups_of = new ArrayList<>(_courses.length);
+        for (int i=0; i<_courses.length; i++) 
+            groups_of.add(new ArrayList<CourseGroup>());
+        for (CourseGroup cg : by_name.values()) {
+            cg.resolveCourseIds(by_code, _courses.length);
+            final BitSet ids = cg.getCourseIdSet();
+            for (int i=ids.nextSetBit(0); i>=0; i=ids.nextSetBit(i+1))
+                groups_of.get(i).add(cg);
+        }
+        for (int i=0; i<_courses.length; i++) 
+            groups_of.set(i, Collections.unmodifiableList(groups_of.get(i)));
+        _groupsOfCourse = groups_of;
+        _concentrationAreas = Collections.unmodifiableSet(conc_areas);
+        _requisites = new Requisites(this);
+        Map<String, String> syns = new HashMap<>();
+        for (Course c : _courses) {
+            for (String syn : c.getSynonymCodes()) {
+                if (by_code.containsKey(syn)) continue;  // a course itself
+                final String prev = syns.put(syn, c.getCode());
+                if (prev!=null && !prev.equals(c.getCode()))
+                    System.err.println("Catalog: "+syn+" is a synonym of both "+
+                                       prev+" and "+c.getCode());
+            }
+        }
+        _synonyms = Collections.unmodifiableMap(syns);
+        _creditOnly = new BitSet(_courses.length);
+        _creditOnly.set(0, _courses.length);
+        for (int i=0; i<_courses.length; i++) {
+            _creditOnly.andNot(_requisites.getRequired(i));
+        }
+        for (int i=0; i<_courses.length; i++) {
+            if (!_groupsOfCourse.get(i).isEmpty()) _creditOnly.clear(i);
+        }
+        Course thesis = by_code.get(params.getThesisCode());
+        if (thesis!=null) _creditOnly.clear(thesis.getId());
+        _planCache = new PlanCache(1024L*params.getPlanCacheKB());
+    }
+
+
+    /**
+     * reads the catalog of a program from the files in the given directory:
+     * the schedule params file "params.props", the course data file "cls.csv"
+     * and every group-data file (with extension ".grp"). The formats of these
+     * files are described in the classes <CODE>ScheduleParams</CODE>,
+     * <CODE>Course</CODE> and <CODE>CourseGroup</CODE> respectively.
+     * @param dir2Files String
+     * @return Catalog
+     * @throws IOException if any of the files cannot be read
+     * @throws IllegalArgumentException if any of the files cannot be parsed
+     */
+    public static Catalog load(String dir2Files) throws IOException {
+        File params_file = new File(dir2Files, "params.props");
+        // ScheduleParams exits the JVM if it cannot read its file
+        if (!params_file.isFile())
+            throw new FileNotFoundException(params_file.getPath());
+        ScheduleParams params = new ScheduleParams(params_file.getPath());
+        List<Course> courses = Course.readCoursesFromFile(dir2Files+
+                                                          "/cls.csv");
+        List<CourseGroup> groups = new ArrayList<>();
+        File[] cur_files = new File(dir2Files).listFiles();
+        for (File f : cur_files) {
+            if (f.isFile() && f.getName().endsWith("grp")) {
+                groups.add(CourseGroup.parseCourseGroup(f.getAbsolutePath()));
+            }
+        }
+        System.err.println("Catalog "+dir2Files+": "+courses.size()+
+                           " courses, "+groups.size()+" groups");
+        return new Catalog(params, courses, groups);
+    }
+
+
+    /**
+     * get the schedule params of the program.
+     * @return ScheduleParams
+     */
+    public ScheduleParams getParams() { return _params; }
+
+
+    /**
+     * get the total number of courses.
+     * @return int
+     */
+    public int getNumCourses() { return _courses.length; }
+
+
+    /**
+     * retrieve a course by its id.
+     * @param id int
+     * @return Course null if there is no course with the given id
+     */
+    public Course getCourseById(int id) {
+        return id>=0 && id<_courses.length ? _courses[id] : null;
+    }
+
+
+    /**
+     * retrieve a course by its code (synonym codes are not looked up).
+     * @param code String such as "ITC3234"
+     * @return Course may be null
+     */
+    public Course getCourseByCode(String code) {
+        return _coursesByCode.get(code);
+    }
+
+
+    /**
+     * return the code of the course of this catalog with the given code or
+     * synonym code.
+     * @param code String such as "MA2205", a synonym of "MA2105"
+     * @return String null if the code is neither a course code nor a synonym
+     */
+    public String getCanonicalCode(String code) {
+        if (_coursesByCode.containsKey(code)) return code;
+        return _synonyms.get(code);
+    }
+
+
+    /**
+     * check whether the given course only counts for its credits, ie whether
+     * it belongs to no course group, no course requires it, and it is not the
+     * thesis. A passed 
+     * course of this kind only adds its credits to the total-credits and 
+     * capstone-credits rows of the MIP models (and a constant to their 
+     * objective), so students whose passed courses differ only by such
+     * courses of the same total credits get the same schedules.
+     * @param courseId int
+     * @return boolean
+     */
+    public boolean isCreditOnly(int courseId) {
+        return _creditOnly.get(courseId);
+    }
+
+
+    /**
+     * return an iterator over all course codes in alphabetical order.
+     * @return Iterator&lt;String&gt; read-only
+     */
+    public Iterator<String> getAllCodesIterator() {
+        return _coursesByCode.keySet().iterator();
+    }
+
+
+    /**
+     * retrieve a course group by its name.
+     * @param groupname String
+     * @return CourseGroup may be null
+     */
+    public CourseGroup getCourseGroupByName(String groupname) {
+        return _groupsByName.get(groupname);
+    }
+
+
+    /**
+     * return the groups the course with the given id is in.
+     * @param courseId int
+     * @return List&lt;CourseGroup&gt; unmodifiable, in the order of the 
+     * group names
+     */
+    public List<CourseGroup> getCourseGroups(int courseId) {
+        return _groupsOfCourse.get(courseId);
+    }
+
+
+    /**
+     * return an iterator over all group names in alphabetical order.
+     * @return Iterator&lt;String&gt; read-only
+     */
+    public Iterator<String> getCourseGroupNameIterator() {
+        return _groupsByName.keySet().iterator();
+    }
+
+
+    /**
+     * return the names of the concentration areas, ie the names of the
+     * concentration-area groups whose names end with " Core", without this
+     * suffix (see <CODE>CourseGroup.getAllConcentrationAreas()</CODE>).
+     * @return Set&lt;String&gt; unmodifiable
+     */
+    public Set<String> getAllConcentrationAreas() {
+        return _concentrationAreas;
+    }
+
+
+    /**
+     * return the prerequisite/co-requisite graph of the courses, with the set
+     * of all courses each course requires.
+     * @return Requisites
+     */
+    public Requisites getRequisites() { return _requisites; }
+
+
+    /**
+     * return the cache of the solutions of the models created for the
+     * students of this program, with capacity given by the property 
+     * "PlanCacheKB" of the schedule params (see 
+     * <CODE>MIPHandler.optimizeSchedule(MIPModel)</CODE>).
+     * @return PlanCache
+     */
+    public PlanCache getPlanCache() { return _planCache; }
+
+
+    /**
+     * return the table of the terms in which the courses of this catalog are
+     * offered with respect to the given date. The table is built on the first
+     * call for a date, and then returned to every caller asking for the same
+     * date (a table built for a larger Smax is returned if one exists).
+     * @param date PlanningDate
+     * @param Smax int the maximum term number of the schedules to plan
+     * @return OfferedTerms
+     */
+    public OfferedTerms getOfferedTerms(PlanningDate date, int Smax) {
+        synchronized (_offeredTerms) {
+            OfferedTerms ot = _offeredTerms.get(date);
+            if (ot==null || ot.getSmax()<Smax) {
+                ot = new OfferedTerms(this, date, Smax);
+                _offeredTerms.put(date, ot);
+            }
+            return ot;
+        }
+    }
+
+
+    /**
+     * return the template of the rows of the MIP models that do not depend
+     * on the student, for the given date (see class 
+     * <CODE>ModelTemplate</CODE>). The template is built on the first call
+     * for a date, and then returned to every caller asking for the same date.
+     * If the property "ModelCacheDir" of the schedule params names a
+     * directory, templates are also kept there, in files named after the 
+     * fingerprint of their inputs, so that a template built by an earlier 
+     * run for the same inputs is read from its file instead of being built
+     * again.
+     * @param date PlanningDate
+     * @param Smax int the maximum term number of the schedules to plan
+     * @return ModelTemplate
+     */
+    public ModelTemplate getModelTemplate(PlanningDate date, int Smax) {
+        synchronized (_templates) {
+            ModelTemplate mt = _templates.get(date);
+            if (mt==null || mt.getSmax()!=Smax) {
+                mt = loadOrCreateModelTemplate(date, Smax);
+                _templates.put(date, mt);
+            }
+            return mt;
+        }
+    }
+
+
+    private ModelTemplate loadOrCreateModelTemplate(PlanningDate date,
+                                                    int Smax) {
+        final String dir = _params.getModelCacheDir();
+        if (dir==null) return ModelTemplate.create(this, date, Smax);
+        final long fp = ModelTemplate.fingerprint(this, date, Smax);
+        File f = new File(dir, "template_"+Long.toHexString(fp)+".bin");
+        if (f.isFile()) {
+            try {
+                ModelTemplate mt = ModelTemplate.load(f, fp);
+                if (mt!=null) return mt;
+            }
+            catch (IOException e) {
+                System.err.println("Catalog: cannot read model template "+f+
+                                   " ("+e.getMessage()+"), rebuilding it");
+            }
+        }
+        ModelTemplate mt = ModelTemplate.create(this, date, Smax);
+        try {
+            mt.save(f);
+        }
+        catch (IOException e) {
+            System.err.println("Catalog: cannot write model template "+f+
+                               " ("+e.getMessage()+")");
+        }
+        return mt;
+    }
+}
@@ -41,6 +41,9 @@ public class CodeNameAllowedTerms {
      * @param currentTermNo int the termno when the course with given code is
      * scheduled in the current solution
      * @param Smax int the maximum allowed term remaining to complete studies
+     * @param catalog Catalog the catalog of the program
+     * @param date PlanningDate the date with respect to which terms are 
+     * numbered
      * @return boolean true iff the allowedTerms contains at least one term 
      * when the course is offered
      * @throws IllegalArgumentException if code does not exist or if 
@@ -49,13 +52,15 @@ public class CodeNameAllowedTerms {
     public static boolean prefferedTermsAllowed(String code, 
                                                 String allowedTerms,
                                                 int currentTermNo,
-                                                int Smax) {
-        Course c = Course.getCourseByCode(code);
+                                                int Smax,
+                                                Catalog catalog,
+                                                PlanningDate date) {
+        Course c = catalog.getCourseByCode(code);
         if (c==null) throw new IllegalArgumentException("invalid course code");
         if (allowedTerms==null) 
             throw new IllegalArgumentException("null allowedTerms");
         String[] terms = allowedTerms.split(" ");
-        List<Integer> off_terms = c.getTermsOffered(Smax);
+        List<Integer> off_terms = c.getTermsOffered(Smax, date);
         boolean ret = false;
         for (String term : terms) {
             if ("-".equals(term.trim())) return false;
@@ -70,7 +75,7 @@ public class CodeNameAllowedTerms {
                 continue;
             }
             if (term.length()>1) {
-                int termno = Course.getTermNo(term);
+                int termno = date.getTermNo(term);
                 if (off_terms.contains(termno)) ret = true;
             }
         }
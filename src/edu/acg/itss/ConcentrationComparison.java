@@ -0,0 +1,348 @@
+package edu.acg.itss;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+
+/**
+ * plans one student for several concentration areas at once, to answer the
+ * advisors' "what would the plan look like for each concentration?" without
+ * re-entering the student's inputs once per area. The parts of the models
+ * that do not depend on the concentration are shared: the catalog's model
+ * template and offered terms (see <CODE>Catalog.getModelTemplate()</CODE>)
+ * are built once before the variants are forked, and every variant re-uses
+ * them. Each variant (the student's record with another concentration, see
+ * <CODE>StudentRecord.withConcentration()</CODE>) then gets its own
+ * <CODE>MIPHandler</CODE> and is solved on its own worker thread; with
+ * GUROBI, each concurrent solve checks out its own environment of the
+ * <CODE>GRBEnvPool</CODE> of the solver. As the variants are planned by
+ * <CODE>MIPHandler.optimizeSchedule()</CODE>, the plans of areas already
+ * compared for an equivalent student are taken from the plan cache.
+ * <p>The completion terms and credit totals of the variants are presented
+ * side by side by <CODE>toTable()</CODE>.
+ * <p>Usage:
+ * <CODE>java edu.acg.itss.ConcentrationComparison &lt;programdir&gt;
+ * &lt;studentjson&gt; [dd/mm/yyyy(today)] [concentration1,...(all)]</CODE>
+ * where studentjson is a student record in JSON (see class
+ * <CODE>StudentRecord</CODE>), whose own concentration is ignored.
+ * @author itc
+ */
+public final class ConcentrationComparison {
+    private final Catalog _catalog;
+    private final PlanningDate _date;
+    private final ScheduleSolver _solver;
+    private final int _numThreads;
+
+
+    /**
+     * public constructor.
+     * @param catalog Catalog the catalog of the program
+     * @param date PlanningDate
+     * @param solver ScheduleSolver must be thread-safe if numThreads &gt; 1
+     * @param numThreads int the max number of variants solved concurrently
+     */
+    public ConcentrationComparison(Catalog catalog, PlanningDate date,
+                                   ScheduleSolver solver, int numThreads) {
+        if (numThreads<=0)
+            throw new IllegalArgumentException("numThreads must be positive");
+        _catalog = catalog;
+        _date = date;
+        _solver = solver;
+        _numThreads = numThreads;
+    }
+
+
+    /**
+     * plans the given student for each of the given concentration areas.
+     * @param rec StudentRecord
+     * @param concentrations Collection&lt;String&gt;
+     * @return List&lt;Result&gt; in the order of the concentrations
+     * @throws InterruptedException if interrupted while waiting for the
+     * variants
+     */
+    public List<Result> run(final StudentRecord rec,
+                            Collection<String> concentrations)
+        throws InterruptedException {
+        List<Result> results = new ArrayList<>();
+        if (concentrations.isEmpty()) return results;
+        // the shared part, built once before the variants are forked
+        final int Smax = _catalog.getParams().getSmax();
+        _catalog.getOfferedTerms(_date, Smax);
+        _catalog.getModelTemplate(_date, Smax);
+        ExecutorService executor =
+            Executors.newFixedThreadPool(Math.min(_numThreads,
+                                                  concentrations.size()));
+        List<Future<Result>> futures = new ArrayList<>();
+        try {
+            for (final String conc : concentrations) {
+                futures.add(executor.submit(new Callable<Result>() {
+                    public Result call() {
+                        return plan(rec, conc);
+                    }
+                }));
+            }
+            for (Future<Result> f : futures) {
+                try {
+                    results.add(f.get());
+                }
+                catch (ExecutionException e) {  // plan() catches everything
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+
+    /**
+     * plans the variant of the given record for the given concentration.
+     * @param rec StudentRecord
+     * @param concentration String
+     * @return Result
+     */
+    private Result plan(StudentRecord rec, String concentration) {
+        try {
+            MIPHandler handler = new MIPHandler(_catalog, _date);
+            handler.setSolver(_solver);
+            handler.setStudentName(rec.getName()+"_"+concentration);
+            MIPModel model =
+                rec.withConcentration(concentration).createMIPModel(handler);
+            handler.optimizeSchedule(model);
+            final MIPSolution sol = handler.getLastMIPSolution();
+            if (!sol.hasSolution())
+                return new Result(concentration, sol, null, 0, 0, 0, null);
+            final int N = model.getNumCourses();
+            final int Smax = model.getSmax();
+            int[] terms = new int[N];
+            int credits = 0;
+            int new_credits = 0;
+            for (int i=0; i<N; i++) {
+                terms[i] = -1;
+                for (int s=0; s<=Smax; s++) {
+                    final int xis = model.getXVar(i, s);
+                    if (xis>=0 && Math.round(sol.getValue(xis))==1)
+                        terms[i] = s;
+                }
+                if (handler.isCreditOnlyPassed(i)) terms[i] = 0;
+                if (terms[i]<0) continue;
+                final int ci = _catalog.getCourseById(i).getCredits();
+                credits += ci;
+                if (terms[i]>0) new_credits += ci;
+            }
+            return new Result(concentration, sol, terms,
+                              Math.round(sol.getValue(model.getDVar())),
+                              credits, new_credits, null);
+        }
+        catch (Exception e) {
+            System.err.println("ConcentrationComparison: "+rec.getName()+
+                               " in "+concentration+" failed: "+e);
+            return new Result(concentration, null, null, 0, 0, 0,
+                              e.toString());
+        }
+    }
+
+
+    /**
+     * return the given results side by side, one column per concentration
+     * area, with rows the status, the completion term, the total credits,
+     * the credits still to take and the number of courses still to take.
+     * @param results List&lt;Result&gt;
+     * @param date PlanningDate the date the results were planned for
+     * @return String
+     */
+    public static String toTable(List<Result> results, PlanningDate date) {
+        final String[] rows = {"", "status", "completion term",
+                               "total credits", "credits to take",
+                               "courses to take", "solve msecs"};
+        String[][] cells = new String[results.size()][];
+        for (int k=0; k<results.size(); k++) {
+            final Result r = results.get(k);
+            final boolean has = r.hasSchedule();
+            cells[k] = new String[]{
+                r.getConcentration(),
+                r._error!=null ? "ERROR" : r._solution.getStatus().toString(),
+                has ? date.getTermNameByTermNo((int) r._completionTerm) : "-",
+                has ? Integer.toString(r._credits) : "-",
+                has ? Integer.toString(r._newCredits) : "-",
+                has ? Integer.toString(r.getNumNewCourses()) : "-",
+                r._solution!=null ? Long.toString(r._solution.getSolveTime()) :
+                                    "-"};
+        }
+        int w0 = 0;
+        for (String row : rows) w0 = Math.max(w0, row.length());
+        StringBuilder sb = new StringBuilder();
+        for (int j=0; j<rows.length; j++) {
+            sb.append(String.format("%-"+w0+"s", rows[j]));
+            for (String[] col : cells) {
+                final int w = Math.max(col[0].length(), 8);
+                sb.append("  ").append(String.format("%"+w+"s", col[j]));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+
+    /**
+     * the plan of the student for one concentration area.
+     */
+    public static final class Result {
+        private final String _concentration;
+        private final MIPSolution _solution;
+        private final int[] _terms;
+        private final long _completionTerm;
+        private final int _credits;
+        private final int _newCredits;
+        private final String _error;
+
+        private Result(String concentration, MIPSolution solution,
+                       int[] terms, long completionTerm, int credits,
+                       int newCredits, String error) {
+            _concentration = concentration;
+            _solution = solution;
+            _terms = terms;
+            _completionTerm = completionTerm;
+            _credits = credits;
+            _newCredits = newCredits;
+            _error = error;
+        }
+
+        /**
+         * get the concentration area.
+         * @return String
+         */
+        public String getConcentration() { return _concentration; }
+
+        /**
+         * get the solution of the solver.
+         * @return MIPSolution null if the variant could not be planned
+         */
+        public MIPSolution getSolution() { return _solution; }
+
+        /**
+         * get the message of the error that prevented planning the variant.
+         * @return String null if there was no error
+         */
+        public String getError() { return _error; }
+
+        /**
+         * check whether the solver found a schedule.
+         * @return boolean
+         */
+        public boolean hasSchedule() { return _terms!=null; }
+
+        /**
+         * get the term number in which each course is taken.
+         * @return int[] indexed by course id, -1 for courses not taken, 0 for
+         * the courses passed; null if there is no schedule
+         */
+        public int[] getSchedule() {
+            return _terms!=null ? _terms.clone() : null;
+        }
+
+        /**
+         * get the term of completion, ie the value of D.
+         * @return long
+         */
+        public long getCompletionTerm() { return _completionTerm; }
+
+        /**
+         * get the total credits of the courses passed and to take.
+         * @return int
+         */
+        public int getCredits() { return _credits; }
+
+        /**
+         * get the total credits of the courses to take.
+         * @return int
+         */
+        public int getNewCredits() { return _newCredits; }
+
+        /**
+         * get the number of courses to take.
+         * @return int
+         */
+        public int getNumNewCourses() {
+            if (_terms==null) return 0;
+            int n = 0;
+            for (int s : _terms) if (s>0) ++n;
+            return n;
+        }
+
+        /**
+         * return a one-line description of the result.
+         * @return String
+         */
+        @Override
+        public String toString() {
+            if (_error!=null) return _concentration+" error="+_error;
+            if (_terms==null)
+                return _concentration+" status="+_solution.getStatus();
+            return _concentration+" status="+_solution.getStatus()+" D="+
+                   _completionTerm+" credits="+_credits+" newCredits="+
+                   _newCredits+" solveMsecs="+_solution.getSolveTime();
+        }
+    }
+
+
+    /**
+     * invoke as:
+     * <CODE>java edu.acg.itss.ConcentrationComparison &lt;programdir&gt;
+     * &lt;studentjson&gt; [dd/mm/yyyy(today)]
+     * [concentration1,...(all)]</CODE>.
+     * Prints the results side by side (see <CODE>toTable()</CODE>).
+     * @param args String[]
+     */
+    public static void main(String[] args) {
+        if (args.length<2) {
+            System.err.println("usage: java edu.acg.itss."+
+                               "ConcentrationComparison <programdir> "+
+                               "<studentjson> [dd/mm/yyyy] "+
+                               "[concentration1,...]");
+            System.exit(-1);
+        }
+        final PlanningDate date = args.length>2 ?
+                                    PlanningDate.parse(args[2]) :
+                                    PlanningDate.today();
+        Catalog catalog = null;
+        try {
+            catalog = Catalog.load(args[0]);
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            System.exit(-1);
+        }
+        final Collection<String> concs = args.length>3 ?
+                                           Arrays.asList(args[3].split(",")) :
+                                           new TreeSet<>(catalog.
+                                               getAllConcentrationAreas());
+        final ScheduleParams params = catalog.getParams();
+        GRBEnvPool pool = null;
+        if ("gurobi".equalsIgnoreCase(params.getSolverName()))
+            pool = new GRBEnvPool(params.getGurobiEnvPoolSize());
+        ScheduleSolver solver = MIPHandler.createSolver(params, pool);
+        try {
+            StudentRecord r = StudentRecord.fromJSONLine(args[1]);
+            ConcentrationComparison cmp =
+                new ConcentrationComparison(catalog, date, solver,
+                                            concs.size());
+            final long start = System.currentTimeMillis();
+            List<Result> results = cmp.run(r, concs);
+            System.out.print(toTable(results, date));
+            System.out.println(results.size()+" concentration areas "+
+                               "planned in "+
+                               (System.currentTimeMillis()-start)+" msecs");
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            System.exit(-1);
+        }
+        finally {
+            solver.close();
+            if (pool!=null) pool.close();
+        }
+    }
+}
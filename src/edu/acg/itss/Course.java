@@ -2,10 +2,8 @@ package edu.acg.itss;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
+import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.time.*;
 import javax.swing.JOptionPane;
 
 
@@ -83,11 +81,6 @@ public class Course implements Comparable {
      * readAllCoursesFromFile() executes.
      */
     private final String _toff;
-    /**
-     * the numbers in this list are from the set {s_1, s_2,...S_{max}}
-     * where s_0 is the current term. This list remains null until needed.
-     */
-    private List<Integer> _termsOffered=null;
     /**
      * optional difficulty level of the course is an integer assumed to be in 
      * the range [0,10] (10=MAX_DIFFICULTY).
@@ -96,18 +89,21 @@ public class Course implements Comparable {
     
     /**
      * optional estimated grade from the results of QARMA is a float in [0,4.0].
-     * For this field only, <CODE>setEstimatedGrade(value)</CODE> setter method
-     * exists.
+     * Kept only for the deprecated <CODE>getEstimatedGrade()</CODE> and
+     * <CODE>setEstimatedGrade()</CODE> methods; the models read the estimated
+     * grades of the student from <CODE>MIPHandler.getEstimatedGrade()</CODE>.
      */
     private float _estimatedGrade = 0.0f;
     
-    
     /**
      * class constructor is private, and main way to create <CODE>Course</CODE> 
      * objects is through the static method <CODE>createCourse()</CODE> which 
-     * adds the constructed object in the appropriate static maps as well. Also,
-     * the only other way to create such objects is <CODE>modifyCourse()</CODE>
-     * that is used by the <CODE>CourseEditor</CODE> class.
+     * adds the constructed object in the appropriate static maps as well, or
+     * through <CODE>readCoursesFromFile()</CODE> for the courses of a 
+     * <CODE>Catalog</CODE>. Also, the only other way to create such objects is 
+     * <CODE>modifyCourse()</CODE> that is used by the <CODE>CourseEditor</CODE>
+     * class.
+     * @param id int
      * @param code String
      * @param name String
      * @param synonyms Set&lt;String&gt;
@@ -118,7 +114,7 @@ public class Course implements Comparable {
      * @param scheduleDisplayName String may be null
      * @param difficulty_level int default is 0
      */
-    private Course(String code, 
+    private Course(int id, String code, 
                   String name, Set<String> synonyms,
                   int credits, 
                   Set<Set<String>> prereqs, Set<String> coreqs, 
@@ -134,7 +130,7 @@ public class Course implements Comparable {
         _toff = toff;
         _scheduleDisplayName = scheduleDisplayName;
         _difficultyLevel = difficulty_level;
-        _id = getNextId();
+        _id = id;
     }
     
     
@@ -228,76 +224,114 @@ public class Course implements Comparable {
      * @param Smax int the maximum term number the student has in front of them
      */
     public static void readAllCoursesFromFile(String filename, int Smax) {
+        try {
+            for (Course crs : readCoursesFromFile(filename)) {
+                _allCoursesMap.put(crs._code, crs);
+                _id2CrsMap.put(crs._id, crs);
+                if (_curId<=crs._id) _curId = crs._id+1;
+                if (crs.getId()+1!=_allCoursesMap.size()) {
+                    throw new IllegalStateException("for course "+crs._code+
+                                                    " counts don't add up");
+                }
+            }
+            System.err.println("Created a total of "+_curId+" courses");
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            System.exit(-1);
+        }        
+    }
+    
+    
+    /**
+     * reads all courses from a text (CSV) file in the format described in 
+     * <CODE>readAllCoursesFromFile()</CODE>, without storing them in the class
+     * data. The courses returned have contiguous ids starting at zero, in the
+     * order they appear in the file, and are meant to be stored in a 
+     * <CODE>Catalog</CODE>.
+     * @param filename String the name of the file to read all course data
+     * @return List&lt;Course&gt;
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line cannot be parsed
+     */
+    static List<Course> readCoursesFromFile(String filename) 
+        throws IOException {
         // course description in a CSV file (semi-column separated values) with
         // the following format:
         // <code>;<name>;[aka ]*;<credits>;[prereqCNF[,]]*;[coreq ]*;[term ]* |-
         // [;schedulename][;difficultylevel]
-        String line=null;
+        List<Course> courses = new ArrayList<>();
         try(BufferedReader br = new BufferedReader(new FileReader(filename))) {
             while (true) {
-                line = br.readLine();
+                String line = br.readLine();
                 if (line==null) break;  // EOF
                 if (line.startsWith("#")) continue;  // comment line
-                String[] linearr = line.split(";");
-                String code = linearr[0];
-                String name = linearr[1];
-                String syns = linearr[2];
-                Set<String> synset = new HashSet<>();
-                String[] synsarr = syns.split(" ");
-                if (synsarr.length>1 || synsarr[0].length()>0) {
-                    synset.addAll(Arrays.asList(synsarr));
-                }
-                int c = Integer.parseInt(linearr[3]);
-                Set<Set<String>> prereqs = new HashSet<>();
-                String[] pres = linearr[4].split(",");
-                if (pres.length>1 || pres[0].length()>0) {
-                    for (String df : pres) {
-                        String[] dfs = df.split("\\+");
-                        Set<String> ps = new HashSet<>();
-                        ps.addAll(Arrays.asList(dfs));
-                        prereqs.add(ps);
-                    }
-                }
-                Set<String> coreqs = new HashSet<>();
-                String[] cores = linearr[5].split(" ");
-                if (cores.length>1 || cores[0].length()>0) {
-                    coreqs.addAll(Arrays.asList(cores));
-                }
-                String toff = "-";
-                if (linearr.length>6) {
-                    toff = linearr[6];
-                }
-                String schedule_display_name = null;
-                if (linearr.length>7) {
-                    schedule_display_name = linearr[7];
-                }
-                int diff_lvl = 0;
-                if (linearr.length>8) {
-                    try {
-                        diff_lvl = Integer.parseInt(linearr[8]);
-                    }
-                    catch (NumberFormatException e) {
-                        System.err.println("FOR Line="+line);
-                        System.err.println("couldn't parse difficulty level,"+
-                                           " will stay at zero");
-                    }
+                try {
+                    courses.add(parseCourse(line, courses.size()));
                 }
-                Course crs = Course.createCourse(code, name, synset, c, 
-                                                 prereqs, coreqs, toff,
-                                                 schedule_display_name,
-                                                 diff_lvl);
-                if (crs.getId()+1!=_allCoursesMap.size()) {
-                    throw new IllegalStateException("in line="+line+
-                                                    " counts don't add up");
+                catch (RuntimeException e) {
+                    throw new IllegalArgumentException("offending line="+line,
+                                                       e);
                 }
             }
-            System.err.println("Created a total of "+_curId+" courses");
         }
-        catch (Exception e) {
-            e.printStackTrace();
-            System.err.println("offending line="+line);
-            System.exit(-1);
-        }        
+        return courses;
+    }
+    
+    
+    /**
+     * parses a (non-comment) line of the "cls.csv" file.
+     * @param line String
+     * @param id int the id of the course to create
+     * @return Course
+     */
+    private static Course parseCourse(String line, int id) {
+        String[] linearr = line.split(";");
+        String code = linearr[0];
+        String name = linearr[1];
+        String syns = linearr[2];
+        Set<String> synset = new HashSet<>();
+        String[] synsarr = syns.split(" ");
+        if (synsarr.length>1 || synsarr[0].length()>0) {
+            synset.addAll(Arrays.asList(synsarr));
+        }
+        int c = Integer.parseInt(linearr[3]);
+        Set<Set<String>> prereqs = new HashSet<>();
+        String[] pres = linearr[4].split(",");
+        if (pres.length>1 || pres[0].length()>0) {
+            for (String df : pres) {
+                String[] dfs = df.split("\\+");
+                Set<String> ps = new HashSet<>();
+                ps.addAll(Arrays.asList(dfs));
+                prereqs.add(ps);
+            }
+        }
+        Set<String> coreqs = new HashSet<>();
+        String[] cores = linearr[5].split(" ");
+        if (cores.length>1 || cores[0].length()>0) {
+            coreqs.addAll(Arrays.asList(cores));
+        }
+        String toff = "-";
+        if (linearr.length>6) {
+            toff = linearr[6];
+        }
+        String schedule_display_name = null;
+        if (linearr.length>7) {
+            schedule_display_name = linearr[7];
+        }
+        int diff_lvl = 0;
+        if (linearr.length>8) {
+            try {
+                diff_lvl = Integer.parseInt(linearr[8]);
+            }
+            catch (NumberFormatException e) {
+                System.err.println("FOR Line="+line);
+                System.err.println("couldn't parse difficulty level,"+
+                                   " will stay at zero");
+            }
+        }
+        return new Course(id, code, name, synset, c, prereqs, coreqs, toff,
+                          schedule_display_name, diff_lvl);
     }
     
     
@@ -334,7 +368,8 @@ public class Course implements Comparable {
                                       String termsOffered,
                                       String scheduleDisplayName,
                                       int difficulty_level) {
-        Course c = new Course(code, name, synonyms, credits, prereqs, coreqs, 
+        Course c = new Course(getNextId(), code, name, synonyms, credits, 
+                              prereqs, coreqs, 
                               termsOffered, scheduleDisplayName, 
                               difficulty_level);
         _allCoursesMap.put(code, c);
@@ -430,7 +465,7 @@ public class Course implements Comparable {
                 coreqs += s +" ";
             }
             String termsoffered = "";
-            for (int to : ci._termsOffered) {
+            for (int to : ci.getTermsOffered(Smax)) {
                 termsoffered += Course.getTermNameByTermNo(to) + " ";
             }
             Course ci_new = 
@@ -623,56 +658,67 @@ public class Course implements Comparable {
      * @return List&lt;Integer&gt;
      */
     public final List<Integer> getTermsOffered(int Smax) {
-        //if (_termsOffered!=null) return _termsOffered;
-        // the line above cannot work correctly when CurrentDate is modified
-        // from the GUI right before hitting "Run", as the change in date will
-        // not affect at all the numeric terms that the course is offered.
-        // For this reason, we cannot have a cache for the termsOffered.
-        _termsOffered = new ArrayList<>();
+        return getTermsOffered(Smax, CurrentDate.getPlanningDate());
+    }
+    
+    
+    /**
+     * return the list of terms that this course is offered, with respect to 
+     * the given planning date (see <CODE>getTermsOffered(Smax)</CODE>).
+     * @param Smax int the maximum number of semesters the student may register
+     * for still
+     * @param date PlanningDate the date defining term number zero
+     * @return List&lt;Integer&gt;
+     */
+    public final List<Integer> getTermsOffered(int Smax, PlanningDate date) {
+        // no cache here, as the terms offered change with the date; models
+        // look them up in the table of Catalog.getOfferedTerms() instead
+        final TermCalendar cal = date.getCalendar(Smax);
+        List<Integer> termsOffered = new ArrayList<>();
         String tot = _toff.trim();  // termsOffered cannot be null
         if (!"-".equals(tot)) { 
             String[] toarr = tot.split(" ");
             for (String to : toarr) {
                 to = to.trim();
                 if ("alltimes".equals(to)) {
-                    _termsOffered.clear();
-                    for (int s=1; s<=Smax; s++) _termsOffered.add(s);
+                    termsOffered.clear();
+                    for (int s=1; s<=Smax; s++) termsOffered.add(s);
                 }
                 else if ("everyfall".equals(to)) {
                     for (int s=1; s<=Smax; s++) {
-                        String tstr = Course.getTermNameByTermNo(s);
-                        if (tstr.startsWith("FA")) _termsOffered.add(s);
+                        if (cal.getSeason(s)==TermCalendar.FALL) 
+                            termsOffered.add(s);
                     }
                 }
                 else if ("everyspring".equals(to)) {
                     for (int s=1; s<=Smax; s++) {
-                        String tstr = Course.getTermNameByTermNo(s);
-                        if (tstr.startsWith("SP")) _termsOffered.add(s);
+                        if (cal.getSeason(s)==TermCalendar.SPRING) 
+                            termsOffered.add(s);
                     }
                 }
                 else if ("everysummerterm".equals(to)) {
                     for (int s=1; s<=Smax; s++) {
-                        String tstr = Course.getTermNameByTermNo(s);
-                        if (tstr.startsWith("ST")) _termsOffered.add(s);
+                        if (cal.getSeason(s)==TermCalendar.SUMMER_TERM) 
+                            termsOffered.add(s);
                     }
                 }
                 else if ("next2terms".equals(to)) {
                     for (int s=1; s<=2; s++) {
-                        _termsOffered.add(s);
+                        termsOffered.add(s);
                     }
                 }
                 else if ("next4terms".equals(to)) {
                     for (int s=1; s<=4; s++) {
-                        _termsOffered.add(s);
+                        termsOffered.add(s);
                     }
                 }
                 else {  // to must be like "FA2020"
-                    int t = Course.getTermNo(to);
-                    if (t>0) _termsOffered.add(t);
+                    int t = cal.getTermNo(to);
+                    if (t>0) termsOffered.add(t);
                 }
             }
         }  // termsOffered
-        return _termsOffered;
+        return termsOffered;
     }
     
     
@@ -697,20 +743,27 @@ public class Course implements Comparable {
     
     
     /**
-     * get the estimated grade of a particular student for this Course. This 
-     * number is read from the file "estimated_grades.txt" when it exists.
+     * get the estimated grade of a particular student for this Course, as set
+     * by <CODE>setEstimatedGrade()</CODE>.
      * @return float number in [0,4] eg 3.5.
+     * @deprecated the estimated grades are per student, not per course; they
+     * are read from the file "estimated_grades_&lt;studentName&gt;.txt" by
+     * <CODE>MIPHandler</CODE> and returned by 
+     * <CODE>MIPHandler.getEstimatedGrade(courseId)</CODE>. The value set here
+     * is no longer used when planning.
      */
+    @Deprecated
     public final float getEstimatedGrade() {
         return _estimatedGrade;
     }
     
     
     /**
-     * set the estimated grade of a particular student for this Course. This 
-     * number is read from the file "estimated_grades.txt" when it exists.
+     * set the estimated grade of a particular student for this Course.
      * @param v float number in [0,4] eg 3.5.
+     * @deprecated see <CODE>getEstimatedGrade()</CODE>.
      */
+    @Deprecated
     public final void setEstimatedGrade(float v) {
         if (v<0 || v>4.0f) 
             throw new IllegalArgumentException("float value must be in [0,4]");
@@ -721,7 +774,10 @@ public class Course implements Comparable {
     /**
      * check if the course with given code is required for this Course (if it is
      * an "ancestor", prerequisite-wise, even if it is only inside a disjunction
-     * of possible courses to take.) Takes co-reqs into account too.
+     * of possible courses to take.) Takes co-reqs into account too. The
+     * courses are looked up in the static map of this class (as used by the
+     * editors); when planning, <CODE>Catalog.getRequisites()</CODE> answers
+     * the same question from a precomputed closure.
      * @param code String such as "ITC3234"
      * @return boolean true iff the course with the code passed in as argument
      * is a direct prerequisite for this course, or if it is a requirement for
@@ -747,22 +803,76 @@ public class Course implements Comparable {
     }
     
     
+    /**
+     * checks if this course is actually required (in the strict sense according
+     * to the current solution) by any of the desired courses selected by the 
+     * student. The requirement is taken in the strict sense, so for example if
+     * a desired course is ITC2205 whose prerequisites are ITC2088 AND (ITC2197
+     * OR ITC3234), then ITC2088 is always required, but ITC2197 only if
+     * ITC3234 is missing from the schedule, and vice-versa for ITC3234 (see
+     * <CODE>Requisites.getStrictlyRequired()</CODE>, which finds all such 
+     * courses of a schedule at once).
+     * @param desired DesiredCourses
+     * @param solVarIds Set&lt;Integer&gt; the ids of the courses in the current
+     * solution
+     * @param catalog Catalog the catalog this course belongs to
+     * @return boolean true if this course is needed by any of the desired 
+     * courses in the solution
+     */
+    public final boolean isRequired4Desired(DesiredCourses desired, 
+                                            Set<Integer> solVarIds,
+                                            Catalog catalog) {
+        List<Integer> ids = new ArrayList<>();
+        Iterator<String> dcodesit = desired.getDesiredCourseCodesIterator();
+        while (dcodesit.hasNext()) {
+            ids.add(catalog.getCourseByCode(dcodesit.next()).getId());
+        }
+        BitSet sched = new BitSet(catalog.getNumCourses());
+        for (int id : solVarIds) sched.set(id);
+        return catalog.getRequisites().
+                 getStrictlyRequired(ids.stream().mapToInt(i -> i).toArray(),
+                                     sched).get(getId());
+    }
+    
+    
+    /**
+     * checks if this course is actually required (in the strict sense according
+     * to the current solution) by any of the desired courses selected by the 
+     * student, looking the courses up in the static maps of this class.
+     * @param desired DesiredCourses
+     * @param solVarIds Set&lt;Integer&gt; the ids of the courses in the current
+     * solution
+     * @return boolean true if this course is needed by any of the desired 
+     * courses in the solution
+     * @deprecated use <CODE>isRequired4Desired(desired, solVarIds, catalog)
+     * </CODE> with the <CODE>Catalog</CODE> the courses were planned against.
+     */
+    @Deprecated
+    public final boolean isRequired4Desired(DesiredCourses desired, 
+                                            Set<Integer> solVarIds) {
+        Iterator<String> dcodesit = desired.getDesiredCourseCodesIterator();
+        while (dcodesit.hasNext()) {
+            String dcode = dcodesit.next();
+            Course d = Course.getCourseByCode(dcode);
+            if (!solVarIds.contains(d.getId())) continue;  // d is undesired
+            if (d.scheduleRequiresCourse(getCode(), solVarIds)) return true;
+        }
+        return false;
+    }
+    
+    
     /**
      * checks if code is required so that this course is in the solution, taking
-     * into account the actual solution plan. The requirement here is taken in 
-     * the strict sense, so for example if this course is ITC2205 whose 
-     * prerequisites are ITC2088 AND (ITC2197 OR ITC3234), then ITC2088 always
-     * returns true (in any schedule), but ITC2197 will return true only if 
-     * ITC3234 is missing from the schedule, and false otherwise, and vice-versa
-     * for ITC3234.
+     * into account the actual solution plan, looking the courses up in the
+     * static maps of this class (see <CODE>isRequired4Desired()</CODE>).
      * @param code String such as "ITC3160"
      * @param solVarIds Set&lt;Integer&gt; containing the ids of the courses in
      * the current solution
      * @return boolean true iff code is actually required for this course to be
      * in the solution
      */
-    private final boolean scheduleRequiresCourse(String code, 
-                                                 Set<Integer> solVarIds) {
+    private boolean scheduleRequiresCourse(String code, 
+                                           Set<Integer> solVarIds) {
         // include co-requisites
         Set<Set<String>> allreqs = new HashSet<>(_prereqs);
         for (String cr : _coreqs) {
@@ -798,29 +908,6 @@ public class Course implements Comparable {
         }
         return false;        
     }
-    
-    
-    /**
-     * checks if this course is actually required (in the strict sense according
-     * to the current solution) by any of the desired courses selected by the 
-     * student.
-     * @param desired DesiredCourses
-     * @param solVarIds Set&lt;Integer&gt; the ids of the courses in the current
-     * solution
-     * @return boolean true if this course is needed by any of the desired 
-     * courses in the solution
-     */
-    public final boolean isRequired4Desired(DesiredCourses desired, 
-                                          Set<Integer> solVarIds) {
-        Iterator<String> dcodesit = desired.getDesiredCourseCodesIterator();
-        while (dcodesit.hasNext()) {
-            String dcode = dcodesit.next();
-            Course d = Course.getCourseByCode(dcode);
-            if (!solVarIds.contains(d.getId())) continue;  // d is undesired
-            if (d.scheduleRequiresCourse(getCode(), solVarIds)) return true;
-        }
-        return false;
-    }
         
     
     /**
@@ -851,12 +938,7 @@ public class Course implements Comparable {
      * @return String
      */
     public String getFullDetailsString(int Smax) {
-        if (CurrentDate._curYear==0) {  // need to initialize the CurrentDate
-            LocalDate now = LocalDate.now();
-            CurrentDate._curDay = now.getDayOfMonth();
-            CurrentDate._curMonth = now.getMonthValue();
-            CurrentDate._curYear = now.getYear();
-        }
+        final PlanningDate date = CurrentDate.getPlanningDate();
         StringBuffer sb = new StringBuffer();
         sb.append(_code).append(";").append(_name).append(";");
         // now the synonyms
@@ -887,10 +969,10 @@ public class Course implements Comparable {
         sb.append(";");
         // now the terms offered: first call the method getTermsOffered to 
         // get the list of integers, then run the rest of the code
-        getTermsOffered(Smax);
-        if (_termsOffered!=null && _termsOffered.size()>0) {
-            for (Integer i : _termsOffered) {
-                String code = getTermNameByTermNo(i);
+        List<Integer> terms_offered = getTermsOffered(Smax, date);
+        if (terms_offered.size()>0) {
+            for (Integer i : terms_offered) {
+                String code = date.getTermNameByTermNo(i);
                 sb.append(code).append(" ");
             }
         }
@@ -980,105 +1062,33 @@ public class Course implements Comparable {
     
     /**
      * return an int representing the term (semester) from now that the course
-     * will be offered.
+     * will be offered. Uses the <CODE>CurrentDate</CODE>; see
+     * <CODE>PlanningDate.getTermNo()</CODE>.
      * @param term String must be in the format "S12023" meaning "Summer-1" of
      * 2023.
      * @return int &ge; 0
      */
     public static int getTermNo(String term) {
-        // 1. get the current date
-        int cur_day = CurrentDate._curDay;
-        int cur_mon = CurrentDate._curMonth;
-        int cur_year = CurrentDate._curYear;
-        // 2. compute current term
-        //    Fall (5) starts on Sep. 1
-        //    Spring (1) starts on Jan. 6
-        //    S1 (2) starts on Jun 1
-        //    S2 (3) starts on Jul 1
-        //    ST (4) starts on Jun 1
-        int cur_term;
-        if (cur_mon==1) {
-            if (cur_day<6) cur_term = 5;
-            else cur_term = 1;
-        }
-        else if (cur_mon < 6) cur_term = 1;
-        else if (cur_mon < 9) cur_term = 4;
-        else if (cur_mon <= 12) cur_term = 5;
-        else throw new Error("cur_term not computable???");
-        // 3. compute term number based on season and year
-        String season = term.substring(0, 2);
-        int year = Integer.parseInt(term.substring(2));
-        if (year<cur_year) return 0;
-        else if (year==cur_year) {
-            if ("FA".equals(season)) {
-                if (cur_mon<6) return 4;
-                else if (cur_mon<9) return 1;
-                else return 0;
-            }
-            else if ("SP".equals(season)) {
-                return 0;
-            }
-            else if ("S1".equals(season)) {
-                if (cur_mon<6) return 1;
-                else return 0;
-            }
-            else if ("S2".equals(season)) {
-                if (cur_mon<7) return 2;
-                else return 0;
-            }
-            else {  // season=="ST"
-                if (cur_mon<6) return 3;
-                else return 0;
-            }
-        }
-        else {  // year>cur_year
-            int dif = year - cur_year;  // >= 1
-            int termno = getTermNumberByTermName(season);
-            return dif*5 + termno - cur_term;
-        }
+        return CurrentDate.getPlanningDate().getTermNo(term);
     }
     
     
     /**
      * check whether a given term in the range [0, ..., Smax] is a summer term
-     * (ST). Notice that Summer Term is not the same as Summer1 or Summer2.
+     * (ST). Notice that Summer Term is not the same as Summer1 or Summer2. Uses
+     * the <CODE>CurrentDate</CODE>.
      * @param termno int
      * @return boolean true iff termno corresponds to ST
      * @throws IllegalArgumentException if termno &lt; 0
      */
     public static boolean isSummerTerm(int termno) {
-        if (termno < 0)
-            throw new IllegalArgumentException("termno="+termno+
-                                               " must be non-negative...");
-        // 1. get the current date
-        int cur_day = CurrentDate._curDay;
-        int cur_mon = CurrentDate._curMonth;
-        int cur_year = CurrentDate._curYear;
-        // 2. compute current term
-        //    Fall (5) starts on Sep. 1
-        //    Spring (1) starts on Jan. 6
-        //    S1 (2) starts on Jun 1
-        //    S2 (3) starts on Jul 1
-        //    ST (4) starts on Jun 1
-        int cur_term;
-        if (cur_mon==1) {
-            if (cur_day<6) cur_term = 5;
-            else cur_term = 1;
-        }
-        else if (cur_mon < 6) cur_term = 1;
-        else if (cur_mon < 9) cur_term = 4;
-        else if (cur_mon <= 12) cur_term = 5;
-        else throw new Error("cur_term not computable???");
-        //if (termno < cur_term) return false;
-        if (termno + cur_term < 4) return false;
-        // I want cur_term + termno = 5k + 4, k=0, 1, 2, ...
-        return (cur_term+termno-4) % 5 == 0;
+        return CurrentDate.getPlanningDate().isSummerTerm(termno);
     }
     
     
     /**
      * check whether a given term in the range [1, ..., Smax] is a fall term
-     * (FA).
+     * (FA). Uses the <CODE>CurrentDate</CODE>.
      * @param termno int
      * @return boolean true iff termno corresponds to FA
      * @throws IllegalArgumentException if termno &le; 0
@@ -1089,113 +1099,37 @@ public class Course implements Comparable {
     
     
     /**
-     * return the first fall (FA) term after termno.
+     * return the first fall (FA) term after termno. Uses the 
+     * <CODE>CurrentDate</CODE>.
      * @param termno int
      * @return int
      * @throws IllegalArgumentException if termno &lt; 0
      */
     public static int nextFallTerm(int termno) {
-        if (termno < 0)
-            throw new IllegalArgumentException("termno="+termno+
-                                               " must be non-negative...");
-        int s = termno+1;
-        while(true) {
-            if (Course.isFallTerm(s)) return s;
-            else ++s;
-        }
+        return CurrentDate.getPlanningDate().nextFallTerm(termno);
     }
     
     
     /**
      * check if the term indexed by the input argument occurs during summer, ie
-     * whether the term is "S1", "S2" or "ST" term.
+     * whether the term is "S1", "S2" or "ST" term. Uses the 
+     * <CODE>CurrentDate</CODE>.
      * @param termno int
      * @return boolean true iff the term happens during summer months
      */
     public static boolean happensDuringSummer(int termno) {
-        if (isSummerTerm(termno)) return true;  // ST
-        if (isSummerTerm(termno+1)) return true;  // S2
-        if (isSummerTerm(termno+2)) return true;  // S1
-        return false;
+        return CurrentDate.getPlanningDate().happensDuringSummer(termno);
     }
     
     
     /**
      * reverse functionality of the <CODE>getTermNo(String term)</CODE> method.
+     * Uses the <CODE>CurrentDate</CODE>.
      * @param termno int
      * @return String such as "FA2022".
      */
     public static String getTermNameByTermNo(int termno) {
-        // 1. get the current date
-        int cur_day = CurrentDate._curDay;
-        int cur_mon = CurrentDate._curMonth;
-        int cur_year = CurrentDate._curYear;
-        // 2. compute current term
-        //    Fall (5) starts on Sep. 1
-        //    Spring (1) starts on Jan. 6
-        //    S1 (2) starts on Jun 1
-        //    S2 (3) starts on Jul 1
-        //    ST (4) starts on Jun 1
-        int cur_term;
-        if (cur_mon==1) {
-            if (cur_day<6) cur_term = 5;
-            else cur_term = 1;
-        }
-        else if (cur_mon < 6) cur_term = 1;
-        else if (cur_mon < 9) cur_term = 4;
-        else if (cur_mon <= 12) cur_term = 5;
-        else throw new Error("cur_term not computable???");
-        // figure out how many years ahead is the termno
-        // if cur_term + termno%5 > 5, we add one more year (year change).
-        // and of course, there is the year difference shown below
-        int year_diff = termno / 5;
-        if (cur_term + termno%5 > 5) ++year_diff;
-        String result = "";
-        // now figure out the name of the term
-        int tt = cur_term + termno % 5;
-        if (tt>5) tt = tt - 5*(tt/5);
-        result += getTermNameByTermNumber(tt);
-        result += Integer.toString(cur_year+year_diff);
-        return result;
-    }
-
-    
-    /**
-     * return 1 for Spring ("SP"), 2 for Summer1 ("S1"), 3, for Summer2 ("S2"),
-     * 4 for Summer Term ("ST"), and 5 for Fall ("FA").
-     * @param season String
-     * @return int
-     */
-    private static int getTermNumberByTermName(String season) {
-        Map<String, Integer> map = Stream.of(new Object[][] { 
-            { "SP", 1 }, 
-            { "S1", 2 },
-            { "S2", 3 },
-            { "ST", 4 },
-            { "FA", 5 },
-        }).collect(
-                Collectors.toMap(data -> (String) data[0], 
-                                 data -> (Integer) data[1]));
-        return map.get(season);
-    }
-    
-    
-    /**
-     * return "SP" for 1, "S1" for 2, "S2" for 3, "ST" for 4, and "FA" for 5.
-     * @param tno int
-     * @return String
-     */
-    private static String getTermNameByTermNumber(int tno) {
-        Map<Integer, String> map = Stream.of(new Object[][] {
-            {1, "SP"},
-            {2, "S1"},
-            {3, "S2"},
-            {4, "ST"},
-            {5, "FA"},
-        }).collect(Collectors.toMap(data -> (Integer) data[0],
-                                    data -> (String) data[1]));
-        return map.get(tno);
+        return CurrentDate.getPlanningDate().getTermNameByTermNo(termno);
     }
     
 }
-
@@ -46,6 +46,11 @@ import java.io.*;
  * <p>The <CODE>CourseGroupEditor</CODE> class is responsible for providing the 
  * GUI for editing course groups (each group is stored in their own "*.grp" 
  * file).
+ * <p>When a group is added to a <CODE>Catalog</CODE>, the codes of its 
+ * courses are resolved once into the ids of the courses of the catalog (see
+ * <CODE>getCourseIds()</CODE> and <CODE>getCourseIdSet()</CODE>), so that
+ * the MIP models are built on arrays of ids instead of looking up every code
+ * of every group again for every term.
  * @author itc
  */
 public class CourseGroup {
@@ -102,6 +107,16 @@ public class CourseGroup {
      * courses from this group of courses.
      */
     private final int _minNumDisciplines;
+    /**
+     * the ids of the courses in <CODE>_allGroupCodes</CODE>, in the same 
+     * order, as resolved by the <CODE>Catalog</CODE> the group belongs to 
+     * (see <CODE>resolveCourseIds()</CODE>); null until then.
+     */
+    private int[] _courseIds;
+    /**
+     * the set of the ids in <CODE>_courseIds</CODE>.
+     */
+    private BitSet _courseIdSet;
    
     
     /**
@@ -162,6 +177,29 @@ public class CourseGroup {
      * @return CourseGroup
      */
     public static CourseGroup readCourseGroup(String filename) {
+        try {
+            CourseGroup cg = parseCourseGroup(filename);
+            _allCourseGroupsMap.put(cg._groupName, cg);
+            return cg;
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            System.exit(-1);
+            return null;  // never gets here
+        }
+    }
+    
+    
+    /**
+     * read a course group from a text file in the format described in 
+     * <CODE>readCourseGroup()</CODE>, without storing it in the class data. 
+     * Groups read this way are meant to be stored in a <CODE>Catalog</CODE>.
+     * @param filename String
+     * @return CourseGroup
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file cannot be parsed
+     */
+    static CourseGroup parseCourseGroup(String filename) throws IOException {
         try(BufferedReader br = new BufferedReader(new FileReader(filename))) {
             CourseGroup cg = null;
             String line1 = br.readLine();
@@ -199,13 +237,10 @@ public class CourseGroup {
             cg = new CourseGroup(name, is_conc, codes, 
                                  minnumcourses, isExact, holdsPerSemester,
                                  minnumcredits, minnumdisciplines);
-            _allCourseGroupsMap.put(name, cg);
             return cg;
         }
-        catch (Exception e) {
-            e.printStackTrace();
-            System.exit(-1);
-            return null;  // never gets here
+        catch (RuntimeException e) {
+            throw new IllegalArgumentException("couldn't parse "+filename, e);
         }
     }
     
@@ -378,6 +413,74 @@ public class CourseGroup {
     }
     
     
+    /**
+     * return the ids of the courses of this group, in the order of 
+     * <CODE>getGroupCodes()</CODE> (including any duplicate codes), as 
+     * resolved by the catalog of the group. The array is shared and must not
+     * be modified.
+     * @return int[]
+     * @throws IllegalStateException if the group is not in a catalog
+     */
+    public int[] getCourseIds() {
+        if (_courseIds==null)
+            throw new IllegalStateException("group "+_groupName+
+                                            " not in a catalog");
+        return _courseIds;
+    }
+    
+    
+    /**
+     * return the set of the ids of the courses of this group, as resolved by
+     * the catalog of the group. The set is shared and must not be modified.
+     * @return BitSet
+     * @throws IllegalStateException if the group is not in a catalog
+     */
+    public BitSet getCourseIdSet() {
+        if (_courseIdSet==null)
+            throw new IllegalStateException("group "+_groupName+
+                                            " not in a catalog");
+        return _courseIdSet;
+    }
+    
+    
+    /**
+     * check if the course with the given id is in this group, as resolved by
+     * the catalog of the group.
+     * @param courseId int
+     * @return boolean
+     * @throws IllegalStateException if the group is not in a catalog
+     */
+    public boolean containsCourse(int courseId) {
+        return getCourseIdSet().get(courseId);
+    }
+    
+    
+    /**
+     * resolves the codes of the courses of this group into the ids of the 
+     * given courses (only called by the <CODE>Catalog</CODE> constructor). 
+     * Codes of unknown courses are reported and left out.
+     * @param coursesByCode Map&lt;String, Course&gt;
+     * @param numCourses int
+     */
+    void resolveCourseIds(Map<String, Course> coursesByCode, int numCourses) {
+        int[] ids = new int[_allGroupCodes.size()];
+        BitSet idset = new BitSet(numCourses);
+        int n = 0;
+        for (String code : _allGroupCodes) {
+            final Course c = coursesByCode.get(code);
+            if (c==null) {
+                System.err.println("CourseGroup: course "+code+" of group "+
+                                   _groupName+" doesn't exist");
+                continue;
+            }
+            ids[n++] = c.getId();
+            idset.set(c.getId());
+        }
+        _courseIds = n<ids.length ? Arrays.copyOf(ids, n) : ids;
+        _courseIdSet = idset;
+    }
+    
+    
     /**
      * return the minimum number of courses required from this group.
      * @return int
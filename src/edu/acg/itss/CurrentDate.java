@@ -2,11 +2,40 @@ package edu.acg.itss;
 
 /**
  * trivial class holds "current" day-of-month, month, and year, as specified by
- * user.
+ * user. It is only used by the editors (and the static term methods of class
+ * <CODE>Course</CODE>); schedules are planned with respect to an explicit
+ * <CODE>PlanningDate</CODE> instead.
  * @author itc
  */
 public final class CurrentDate {
     public static int _curDay;
     public static int _curMonth;
     public static int _curYear;
+    /**
+     * the date last returned by <CODE>getPlanningDate()</CODE>, reused (with
+     * its term calendar) while the fields above do not change.
+     */
+    private static volatile PlanningDate _lastDate = null;
+
+
+    /**
+     * return the current date as a <CODE>PlanningDate</CODE>, or today's date
+     * if no current date has been set yet.
+     * @return PlanningDate
+     */
+    public static PlanningDate getPlanningDate() {
+        PlanningDate last = _lastDate;
+        if (_curYear==0) {
+            PlanningDate today = PlanningDate.today();
+            if (today.equals(last)) return last;
+            _lastDate = today;
+            return today;
+        }
+        if (last==null || last.getDay()!=_curDay || 
+            last.getMonth()!=_curMonth || last.getYear()!=_curYear) {
+            last = new PlanningDate(_curDay, _curMonth, _curYear);
+            _lastDate = last;
+        }
+        return last;
+    }
 }
@@ -136,11 +136,14 @@ public class DesiredCourses {
      * @param cur_term int must be in [0, 1, ...Smax] with 0 indicating there is
      * no cur_term to which the course with the given code is assigned
      * @param Smax int
+     * @param date PlanningDate the date with respect to which terms are
+     * numbered
      * @return Set&lt;Integer&gt;
      */
     public Set<Integer> getAllowedTerms4Course(String code, 
                                                int cur_term, 
-                                               int Smax) {
+                                               int Smax,
+                                               PlanningDate date) {
         Set<String> allowed_terms = _desiredCourseCodes.get(code);
         Set<Integer> res = new HashSet<>();
         for (String t : allowed_terms) {
@@ -154,7 +157,7 @@ public class DesiredCourses {
                 }
                 continue;
             }
-            int tno = Course.getTermNo(t);
+            int tno = date.getTermNo(t);
             res.add(tno);
         }
         return res;
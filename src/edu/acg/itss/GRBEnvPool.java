@@ -0,0 +1,181 @@
+package edu.acg.itss;
+
+import gurobi.*;
+import java.util.ArrayDeque;
+
+
+/**
+ * a bounded pool of GUROBI environments. Creating a <CODE>GRBEnv</CODE> checks
+ * out a license and starts the environment, which is expensive, so the
+ * environments are created lazily (up to the max size of the pool) and reused
+ * by all subsequent optimizations. A thread that asks for an environment when
+ * all of them are in use waits until one is released. The environments are
+ * disposed (and their licenses released) only when the pool is closed; models
+ * created from an environment must be disposed before it is released back to
+ * the pool.
+ * <p>Typical usage:
+ * <pre>
+ * GRBEnv env = pool.acquire();
+ * try {
+ *     GRBModel model = new GRBModel(env);
+ *     ...
+ *     model.dispose();
+ * }
+ * finally {
+ *     pool.release(env);
+ * }
+ * </pre>
+ * This class is thread-safe.
+ * @author itc
+ */
+public final class GRBEnvPool implements AutoCloseable {
+    private final int _maxSize;
+    private final ArrayDeque<GRBEnv> _idle = new ArrayDeque<>();
+    private int _numCreated = 0;
+    private boolean _isClosed = false;
+    // statistics
+    private long _numCheckouts = 0;
+    private long _totalCheckoutTime = 0;  // msecs
+
+
+    /**
+     * public constructor.
+     * @param maxSize int the max number of environments the pool will create,
+     * ie the max number of optimizations that may run concurrently
+     * @throws IllegalArgumentException if maxSize is not positive
+     */
+    public GRBEnvPool(int maxSize) {
+        if (maxSize<=0)
+            throw new IllegalArgumentException("pool size must be positive");
+        _maxSize = maxSize;
+    }
+
+
+    /**
+     * get an environment from the pool, creating a new one if none is idle and
+     * the pool is not full yet, or waiting for one to be released otherwise.
+     * @return GRBEnv
+     * @throws GRBException if a new environment cannot be created (eg no
+     * license available)
+     * @throws InterruptedException if the thread is interrupted while waiting
+     * @throws IllegalStateException if the pool has been closed
+     */
+    public GRBEnv acquire() throws GRBException, InterruptedException {
+        final long start = System.currentTimeMillis();
+        synchronized (this) {
+            while (true) {
+                if (_isClosed)
+                    throw new IllegalStateException("GRBEnvPool is closed");
+                if (!_idle.isEmpty()) {
+                    GRBEnv env = _idle.pop();
+                    recordCheckout(start);
+                    return env;
+                }
+                if (_numCreated<_maxSize) break;
+                wait();
+            }
+            ++_numCreated;  // reserve the slot while creating the env
+        }
+        try {
+            GRBEnv env = new GRBEnv();
+            synchronized (this) {
+                recordCheckout(start);
+            }
+            return env;
+        }
+        catch (GRBException e) {
+            synchronized (this) {
+                --_numCreated;
+                notifyAll();
+            }
+            throw e;
+        }
+    }
+
+
+    /**
+     * returns the given environment (obtained via <CODE>acquire()</CODE>) to
+     * the pool. If the pool has been closed in the meantime, the environment
+     * is disposed instead.
+     * @param env GRBEnv may be null in which case the call is a no-op
+     */
+    public void release(GRBEnv env) {
+        if (env==null) return;
+        synchronized (this) {
+            if (!_isClosed) {
+                _idle.push(env);
+                notifyAll();
+                return;
+            }
+            --_numCreated;
+        }
+        dispose(env);
+    }
+
+
+    /**
+     * disposes all idle environments and marks the pool as closed, so that
+     * environments currently in use are disposed when released. Calling this
+     * method more than once has no further effect.
+     */
+    @Override
+    public void close() {
+        ArrayDeque<GRBEnv> envs;
+        synchronized (this) {
+            if (_isClosed) return;
+            _isClosed = true;
+            envs = new ArrayDeque<>(_idle);
+            _numCreated -= _idle.size();
+            _idle.clear();
+            notifyAll();
+        }
+        for (GRBEnv env : envs) dispose(env);
+    }
+
+
+    /**
+     * get the max number of environments in this pool.
+     * @return int
+     */
+    public int getMaxSize() { return _maxSize; }
+
+
+    /**
+     * get the number of environments created and not yet disposed.
+     * @return int
+     */
+    public synchronized int getNumEnvs() { return _numCreated; }
+
+
+    /**
+     * get the number of successful calls to <CODE>acquire()</CODE> so far.
+     * @return long
+     */
+    public synchronized long getNumCheckouts() { return _numCheckouts; }
+
+
+    /**
+     * get the total msecs spent in (successful) <CODE>acquire()</CODE> calls
+     * so far, including the creation of new environments and any waiting.
+     * @return long
+     */
+    public synchronized long getTotalCheckoutTime() {
+        return _totalCheckoutTime;
+    }
+
+
+    private void recordCheckout(long start) {
+        ++_numCheckouts;
+        _totalCheckoutTime += System.currentTimeMillis()-start;
+    }
+
+
+    private static void dispose(GRBEnv env) {
+        try {
+            env.dispose();
+        }
+        catch (GRBException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,584 @@
+package edu.acg.itss;
+
+import gurobi.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * <CODE>ScheduleSolver</CODE> that passes the model to GUROBI through its Java
+ * API (the model is added variable by variable and row by row, without any
+ * intermediate LP file). Requires a GUROBI license on the machine where it
+ * runs. The GUROBI environments are taken from a <CODE>GRBEnvPool</CODE>, so
+ * that the license check-out and environment start-up costs are paid only
+ * once per environment rather than once per optimization; the time each call
+ * waited for its environment is reported via 
+ * <CODE>MIPSolution.getSetupTime()</CODE>. The object is thread-safe, and up
+ * to the pool size many optimizations may run concurrently.
+ * <p>If so asked (see <CODE>setKeepLastModel()</CODE>), the solver keeps the
+ * GUROBI model (and its environment) after each optimization, and when asked
+ * to solve the same <CODE>MIPModel</CODE> again, it only applies the changes
+ * made since the model's base was marked (see 
+ * <CODE>MIPModel.markBase()</CODE>): the variable bounds and objective 
+ * coefficients are updated, and the rows beyond the base are removed and 
+ * re-added. This is the case of the
+ * successive runs of the <CODE>MainGUI</CODE> for the same student. The MIP
+ * start of the model, if any, is always passed to GUROBI.
+ * <p>The time limit and MIP gap set are passed to GUROBI as the parameters 
+ * "TimeLimit" and "MIPGap" of every optimization.
+ * <p>If the <CODE>MIPModel</CODE> has prioritized objectives (see 
+ * <CODE>MIPModel.addObjectiveN()</CODE>), they are passed to GUROBI as its
+ * multiple objectives, and GUROBI optimizes them in lexicographic order in
+ * place of the objective of the model; the objective value of the solution
+ * returned is still that of the objective of the model (the weighted sum of
+ * the prioritized objectives), and its bound equals its value only when all
+ * prioritized objectives are proven optimal.
+ * <p>Every optimization runs with a <CODE>GRBCallback</CODE> that reports its
+ * progress to the listener set (if any), and aborts it when 
+ * <CODE>cancel()</CODE> is called.
+ * @author itc
+ */
+public class GurobiScheduleSolver implements ScheduleSolver {
+    private static final long _PROGRESS_INTERVAL_MSECS = 1000;
+    private final GRBEnvPool _pool;
+    private final boolean _ownsPool;
+    private boolean _keepLastModel = false;
+    /**
+     * the model kept between optimizations; null while it is being solved
+     * (the solve owns it until it ends). Guarded by this object's lock, which
+     * is never held while a model is being built or solved.
+     */
+    private KeptModel _lastModel = null;
+    /**
+     * the number of calls to <CODE>releaseLastModel()</CODE> so far: a model
+     * solved while this number changes is disposed instead of kept.
+     */
+    private long _numReleases = 0;
+    /**
+     * serializes the optimizations of the kept model.
+     */
+    private final Object _solveLock = new Object();
+    private volatile double _timeLimit = Double.POSITIVE_INFINITY;
+    private volatile double _mipGap = 1.e-4;  // GUROBI's default
+    private volatile SolverProgressListener _listener = null;
+    /**
+     * the number of calls to <CODE>cancel()</CODE> so far: an optimization is
+     * aborted when this number changes after it started.
+     */
+    private final AtomicLong _numCancels = new AtomicLong();
+
+    /**
+     * public no-arg constructor creates a private pool of a single 
+     * environment, that is disposed when this solver is closed.
+     */
+    public GurobiScheduleSolver() {
+        _pool = new GRBEnvPool(1);
+        _ownsPool = true;
+    }
+
+
+    /**
+     * public constructor for solvers sharing the given pool, which is NOT
+     * closed when this solver is closed.
+     * @param pool GRBEnvPool
+     */
+    public GurobiScheduleSolver(GRBEnvPool pool) {
+        _pool = pool;
+        _ownsPool = false;
+    }
+
+
+    /**
+     * return "gurobi".
+     * @return String
+     */
+    @Override
+    public String getName() { return "gurobi"; }
+
+
+    /**
+     * set the time limit (in seconds) of each optimization.
+     * @param secs double
+     */
+    @Override
+    public void setTimeLimit(double secs) { _timeLimit = secs; }
+
+
+    /**
+     * set the relative MIP gap at which optimizations stop.
+     * @param gap double
+     */
+    @Override
+    public void setMIPGap(double gap) { _mipGap = gap; }
+
+
+    /**
+     * set the listener to notify of the progress of the optimizations.
+     * @param listener SolverProgressListener may be null
+     */
+    @Override
+    public void setProgressListener(SolverProgressListener listener) {
+        _listener = listener;
+    }
+
+
+    /**
+     * aborts the optimizations currently running (via their callbacks).
+     */
+    @Override
+    public void cancel() {
+        _numCancels.incrementAndGet();
+    }
+
+
+    /**
+     * disposes the model kept (if any), and closes the pool of environments,
+     * if it was created by this object.
+     */
+    @Override
+    public void close() {
+        releaseLastModel();
+        if (_ownsPool) _pool.close();
+    }
+
+
+    /**
+     * set whether the GUROBI model of the last optimization is kept, so that
+     * solving the same <CODE>MIPModel</CODE> again only applies the changes
+     * beyond its base. The kept model holds one environment of the pool until
+     * another model is solved, or <CODE>releaseLastModel()</CODE> or 
+     * <CODE>close()</CODE> is called; optimizations of this solver are then
+     * serialized. Neither this method, nor <CODE>releaseLastModel()</CODE>, 
+     * <CODE>cancel()</CODE> or <CODE>close()</CODE>, wait for the running
+     * optimization to end.
+     * @param keep boolean
+     */
+    public synchronized void setKeepLastModel(boolean keep) {
+        _keepLastModel = keep;
+        if (!keep) releaseLastModel();
+    }
+
+
+    /**
+     * disposes the GUROBI model kept from the last optimization (if any) and
+     * returns its environment to the pool. If the kept model is being solved,
+     * it is disposed as soon as its optimization ends.
+     */
+    public synchronized void releaseLastModel() {
+        ++_numReleases;
+        if (_lastModel!=null) _lastModel.dispose(_pool);
+        _lastModel = null;
+    }
+
+
+    /**
+     * get the pool of environments this solver uses.
+     * @return GRBEnvPool
+     */
+    public GRBEnvPool getEnvPool() { return _pool; }
+
+
+    /**
+     * solves the given model with GUROBI, using an environment from the pool.
+     * @param mipmodel MIPModel
+     * @return MIPSolution
+     * @throws SolverException wrapping any <CODE>GRBException</CODE> thrown, 
+     * or if the thread is interrupted while waiting for an environment
+     */
+    @Override
+    public MIPSolution solve(MIPModel mipmodel) throws SolverException {
+        final long cancels = _numCancels.get();
+        final boolean keep;
+        synchronized (this) {
+            keep = _keepLastModel;
+        }
+        if (keep) return solveKept(mipmodel, cancels);
+        final long checkout_start = System.currentTimeMillis();
+        GRBEnv env = null;
+        GRBModel model = null;
+        try {
+            env = _pool.acquire();
+            final long start = System.currentTimeMillis();
+            model = new GRBModel(env);
+            GRBVar[] vars = addModel(model, mipmodel);
+            setObjectivesN(model, vars, mipmodel);
+            if (mipmodel.hasStart()) {
+                setStart(model, vars, mipmodel);
+                model.update();
+            }
+            setParams(model);
+            model.setCallback(new ProgressCallback(start, cancels));
+            model.optimize();
+            return getSolution(model, vars, mipmodel, start, checkout_start);
+        }
+        catch (GRBException e) {
+            throw new SolverException("GUROBI failed with error code "+
+                                      e.getErrorCode()+": "+e.getMessage(), e);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SolverException("interrupted while waiting for a "+
+                                      "GUROBI environment", e);
+        }
+        finally {
+            if (model!=null) model.dispose();
+            _pool.release(env);
+        }
+    }
+
+
+    /**
+     * solves the given model re-using the GUROBI model kept from the last
+     * optimization if it was created for the same <CODE>MIPModel</CODE> with
+     * the same base. The kept model is taken out of <CODE>_lastModel</CODE>
+     * while it is solved, and put back afterwards unless 
+     * <CODE>releaseLastModel()</CODE> was called in the meantime.
+     * @param mipmodel MIPModel
+     * @param cancels long the number of calls to <CODE>cancel()</CODE> when
+     * <CODE>solve()</CODE> was called
+     * @return MIPSolution
+     * @throws SolverException
+     */
+    private MIPSolution solveKept(MIPModel mipmodel, long cancels) 
+        throws SolverException {
+        synchronized (_solveLock) {
+            final long checkout_start = System.currentTimeMillis();
+            final int base = Math.max(0, mipmodel.getNumBaseRows());
+            KeptModel k;
+            final long releases;
+            synchronized (this) {
+                k = _lastModel;
+                _lastModel = null;
+                releases = _numReleases;
+            }
+            try {
+                if (k==null || mipmodel!=k._mipModel || 
+                    base!=k._numBaseRows || 
+                    mipmodel.getNumVars()!=k._vars.length) {
+                    if (k!=null) k.dispose(_pool);
+                    k = null;
+                    final GRBEnv env = _pool.acquire();
+                    try {
+                        k = new KeptModel(mipmodel, base, env, 
+                                          new GRBModel(env));
+                    }
+                    finally {
+                        if (k==null) _pool.release(env);
+                    }
+                    k._vars = addVars(k._model, mipmodel);
+                    addRows(k._model, k._vars, mipmodel, 0, base);
+                }
+                else {  // apply the changes since the base
+                    k._model.set(GRB.DoubleAttr.LB, k._vars, 
+                                 mipmodel.getLBs());
+                    k._model.set(GRB.DoubleAttr.UB, k._vars, 
+                                 mipmodel.getUBs());
+                    // dropping the multiple objectives leaves the single one
+                    if (k._numObjectivesN>0) 
+                        k._model.set(GRB.IntAttr.NumObj, 0);
+                    k._model.set(GRB.DoubleAttr.Obj, k._vars, 
+                                 mipmodel.getObjCoeffs());
+                    for (GRBConstr c : k._constrs) k._model.remove(c);
+                }
+                final long start = System.currentTimeMillis();
+                k._constrs = addRows(k._model, k._vars, mipmodel, base, 
+                                     mipmodel.getNumRows());
+                setObjectivesN(k._model, k._vars, mipmodel);
+                k._numObjectivesN = mipmodel.getNumObjectivesN();
+                setStart(k._model, k._vars, mipmodel);
+                k._model.update();
+                setParams(k._model);
+                k._model.setCallback(new ProgressCallback(start, cancels));
+                k._model.optimize();
+                final MIPSolution sol = getSolution(k._model, k._vars, 
+                                                    mipmodel, start, 
+                                                    checkout_start);
+                synchronized (this) {
+                    if (_keepLastModel && _numReleases==releases) {
+                        _lastModel = k;
+                        k = null;
+                    }
+                }
+                return sol;
+            }
+            catch (GRBException e) {
+                throw new SolverException("GUROBI failed with error code "+
+                                          e.getErrorCode()+": "+
+                                          e.getMessage(), e);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SolverException("interrupted while waiting for a "+
+                                          "GUROBI environment", e);
+            }
+            finally {
+                if (k!=null) k.dispose(_pool);  // not kept
+            }
+        }
+    }
+
+
+    /**
+     * reads the results of the optimization of the given GUROBI model. The
+     * values of the variables are read in a single call, as the variables are
+     * indexed as in the <CODE>MIPModel</CODE>.
+     * @param model GRBModel
+     * @param vars GRBVar[]
+     * @param mipmodel MIPModel the model solved
+     * @param start long the time the model started to be built
+     * @param checkoutStart long the time the environment was asked for
+     * @return MIPSolution
+     * @throws GRBException
+     */
+    private static MIPSolution getSolution(GRBModel model, GRBVar[] vars, 
+                                           MIPModel mipmodel, long start, 
+                                           long checkoutStart)
+        throws GRBException {
+        final MIPSolution.Status status =
+                getStatus(model.get(GRB.IntAttr.Status));
+        double[] values = null;
+        double obj = 0.0;
+        long extract_usecs = 0;
+        if (model.get(GRB.IntAttr.SolCount)>0) {
+            final long extract_start = System.nanoTime();
+            values = model.get(GRB.DoubleAttr.X, vars);
+            extract_usecs = (System.nanoTime()-extract_start)/1000;
+            if (mipmodel.getNumObjectivesN()==0) 
+                obj = model.get(GRB.DoubleAttr.ObjVal);
+            else {  // ObjVal is that of the first of the objectives
+                for (int j=0; j<values.length; j++)
+                    obj += mipmodel.getObjCoeff(j)*values[j];
+            }
+        }
+        double bound = status==MIPSolution.Status.INFEASIBLE ?
+                         MIPModel.INFINITY : -MIPModel.INFINITY;
+        if (values!=null) {
+            if (mipmodel.getNumObjectivesN()==0)
+                bound = model.get(GRB.DoubleAttr.ObjBound);
+            else if (status==MIPSolution.Status.OPTIMAL) bound = obj;
+        }
+        final long nodes = (long) model.get(GRB.DoubleAttr.NodeCount);
+        return new MIPSolution(status, values, obj, bound, nodes,
+                               System.currentTimeMillis()-start,
+                               start-checkoutStart, extract_usecs);
+    }
+
+
+    /**
+     * passes the prioritized objectives of the given <CODE>MIPModel</CODE>,
+     * if any, to GUROBI as its multiple objectives.
+     * @param model GRBModel
+     * @param vars GRBVar[]
+     * @param mipmodel MIPModel
+     * @throws GRBException
+     */
+    private static void setObjectivesN(GRBModel model, GRBVar[] vars,
+                                       MIPModel mipmodel) throws GRBException {
+        final int num_objs = mipmodel.getNumObjectivesN();
+        for (int k=0; k<num_objs; k++) {
+            GRBLinExpr expr = new GRBLinExpr();
+            expr.addTerms(mipmodel.getObjNCoeffs(k), vars);
+            model.setObjectiveN(expr, k, mipmodel.getObjNPriority(k), 1.0,
+                                mipmodel.getObjNAbsTol(k),
+                                mipmodel.getObjNRelTol(k),
+                                mipmodel.getObjNName(k));
+        }
+    }
+
+
+    /**
+     * passes the time limit and MIP gap of this solver to the given model.
+     * @param model GRBModel
+     * @throws GRBException
+     */
+    private void setParams(GRBModel model) throws GRBException {
+        model.set(GRB.DoubleParam.TimeLimit, 
+                  Double.isInfinite(_timeLimit) ? GRB.INFINITY : _timeLimit);
+        model.set(GRB.DoubleParam.MIPGap, _mipGap);
+    }
+
+
+    /**
+     * passes the MIP start of the given <CODE>MIPModel</CODE> to GUROBI (all
+     * start values are cleared if the model has none).
+     * @param model GRBModel
+     * @param vars GRBVar[]
+     * @param mipmodel MIPModel
+     * @throws GRBException
+     */
+    private static void setStart(GRBModel model, GRBVar[] vars, 
+                                 MIPModel mipmodel) throws GRBException {
+        double[] start = new double[vars.length];
+        for (int j=0; j<vars.length; j++) {
+            final double v = mipmodel.getStart(j);
+            start[j] = Double.isNaN(v) ? GRB.UNDEFINED : v;
+        }
+        model.set(GRB.DoubleAttr.Start, vars, start);
+    }
+
+
+    /**
+     * adds all variables and constraints of the given <CODE>MIPModel</CODE>
+     * to the (empty) GUROBI model.
+     * @param model GRBModel
+     * @param mipmodel MIPModel
+     * @return GRBVar[] the GUROBI variables, indexed as in the
+     * <CODE>MIPModel</CODE>
+     * @throws GRBException
+     */
+    static GRBVar[] addModel(GRBModel model, MIPModel mipmodel)
+        throws GRBException {
+        GRBVar[] vars = addVars(model, mipmodel);
+        addRows(model, vars, mipmodel, 0, mipmodel.getNumRows());
+        model.update();
+        return vars;
+    }
+
+
+    /**
+     * adds all variables of the given <CODE>MIPModel</CODE> to the (empty)
+     * GUROBI model.
+     * @param model GRBModel
+     * @param mipmodel MIPModel
+     * @return GRBVar[] the GUROBI variables, indexed as in the
+     * <CODE>MIPModel</CODE>
+     * @throws GRBException
+     */
+    private static GRBVar[] addVars(GRBModel model, MIPModel mipmodel)
+        throws GRBException {
+        return model.addVars(mipmodel.getLBs(), mipmodel.getUBs(),
+                             mipmodel.getObjCoeffs(), mipmodel.getVarTypes(),
+                             mipmodel.getVarNames());
+    }
+
+
+    /**
+     * adds the rows from, ..., to-1 of the given <CODE>MIPModel</CODE> to the
+     * GUROBI model.
+     * @param model GRBModel
+     * @param vars GRBVar[] the GUROBI variables, indexed as in the
+     * <CODE>MIPModel</CODE>
+     * @param mipmodel MIPModel
+     * @param from int
+     * @param to int
+     * @return GRBConstr[] the constraints added
+     * @throws GRBException
+     */
+    private static GRBConstr[] addRows(GRBModel model, GRBVar[] vars,
+                                       MIPModel mipmodel, int from, int to)
+        throws GRBException {
+        GRBConstr[] constrs = new GRBConstr[to-from];
+        for (int r=from; r<to; r++) {
+            final int b = mipmodel.getRowBegin(r);
+            final int len = mipmodel.getRowEnd(r) - b;
+            GRBVar[] rvars = new GRBVar[len];
+            double[] rcoeffs = new double[len];
+            for (int p=0; p<len; p++) {
+                rvars[p] = vars[mipmodel.getTermVar(b+p)];
+                rcoeffs[p] = mipmodel.getTermCoeff(b+p);
+            }
+            GRBLinExpr expr = new GRBLinExpr();
+            expr.addTerms(rcoeffs, rvars);
+            constrs[r-from] = model.addConstr(expr, mipmodel.getSense(r), 
+                                              mipmodel.getRHS(r), "c"+(r+1));
+        }
+        return constrs;
+    }
+
+
+    /**
+     * maps GUROBI optimization status codes to <CODE>MIPSolution</CODE>
+     * statuses.
+     * @param grbstatus int
+     * @return MIPSolution.Status
+     */
+    static MIPSolution.Status getStatus(int grbstatus) {
+        switch (grbstatus) {
+            case GRB.Status.OPTIMAL: return MIPSolution.Status.OPTIMAL;
+            case GRB.Status.INFEASIBLE: return MIPSolution.Status.INFEASIBLE;
+            case GRB.Status.UNBOUNDED: return MIPSolution.Status.UNBOUNDED;
+            case GRB.Status.TIME_LIMIT: return MIPSolution.Status.TIME_LIMIT;
+            case GRB.Status.NODE_LIMIT: return MIPSolution.Status.NODE_LIMIT;
+            case GRB.Status.SUBOPTIMAL: return MIPSolution.Status.SUBOPTIMAL;
+            case GRB.Status.INTERRUPTED: 
+                return MIPSolution.Status.INTERRUPTED;
+            default: return MIPSolution.Status.OTHER;
+        }
+    }
+
+
+    /**
+     * the GUROBI model kept between optimizations of the same 
+     * <CODE>MIPModel</CODE>, with the environment it holds.
+     */
+    private static final class KeptModel {
+        private final MIPModel _mipModel;
+        private final int _numBaseRows;
+        private final GRBEnv _env;
+        private final GRBModel _model;
+        private GRBVar[] _vars = null;
+        private GRBConstr[] _constrs = null;  // the rows beyond the base
+        private int _numObjectivesN = 0;
+
+        private KeptModel(MIPModel mipModel, int numBaseRows, GRBEnv env,
+                          GRBModel model) {
+            _mipModel = mipModel;
+            _numBaseRows = numBaseRows;
+            _env = env;
+            _model = model;
+        }
+
+        /**
+         * disposes the model and returns its environment to the given pool.
+         * @param pool GRBEnvPool
+         */
+        private void dispose(GRBEnvPool pool) {
+            _model.dispose();
+            pool.release(_env);
+        }
+    }
+
+
+    /**
+     * the callback of an optimization: aborts it if <CODE>cancel()</CODE> is
+     * called after it started, and reports its progress to the listener (if
+     * any) from the MIP callbacks, when a better solution is found and 
+     * otherwise at most once a second.
+     */
+    private final class ProgressCallback extends GRBCallback {
+        private final long _start;
+        private final long _cancelsAtStart;
+        private long _lastReport;
+        private double _lastIncumbent = MIPModel.INFINITY;
+
+        private ProgressCallback(long start, long cancelsAtStart) {
+            _start = start;
+            _cancelsAtStart = cancelsAtStart;
+            _lastReport = start;
+        }
+
+        @Override
+        protected void callback() {
+            if (_numCancels.get()!=_cancelsAtStart) {
+                abort();
+                return;
+            }
+            final SolverProgressListener listener = _listener;
+            if (listener==null || where!=GRB.CB_MIP) return;
+            try {
+                final long now = System.currentTimeMillis();
+                final double inc = getDoubleInfo(GRB.CB_MIP_OBJBST);
+                if (inc>=_lastIncumbent && 
+                    now-_lastReport<_PROGRESS_INTERVAL_MSECS) return;
+                _lastReport = now;
+                _lastIncumbent = inc;
+                listener.progress(inc, getDoubleInfo(GRB.CB_MIP_OBJBND),
+                                  (long) getDoubleInfo(GRB.CB_MIP_NODCNT),
+                                  now-_start);
+            }
+            catch (GRBException e) {
+                System.err.println("GurobiScheduleSolver: cannot get "+
+                                   "progress info: "+e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package edu.acg.itss;
+
+import java.util.*;
+
+
+/**
+ * minimal parser for JSON text (RFC 8259), enough for the student records
+ * read by the batch planner without pulling a JSON library into the project.
+ * Objects are returned as <CODE>LinkedHashMap&lt;String, Object&gt;</CODE>,
+ * arrays as <CODE>ArrayList&lt;Object&gt;</CODE>, strings as
+ * <CODE>String</CODE>, numbers as <CODE>Double</CODE>, true/false as
+ * <CODE>Boolean</CODE> and null as null. The class also offers the inverse
+ * operation of quoting a string as a JSON string literal.
+ * @author itc
+ */
+public final class JSONParser {
+    private final String _text;
+    private int _pos = 0;
+
+
+    private JSONParser(String text) {
+        _text = text;
+    }
+
+
+    /**
+     * parses the given JSON text.
+     * @param text String
+     * @return Object the JSON value (see class description)
+     * @throws IllegalArgumentException if the text is not valid JSON
+     */
+    public static Object parse(String text) {
+        JSONParser p = new JSONParser(text);
+        Object val = p.parseValue();
+        p.skipWhitespace();
+        if (p._pos<text.length()) throw p.error("unexpected trailing text");
+        return val;
+    }
+
+
+    /**
+     * return the given string as a JSON string literal, ie in double quotes
+     * and with all necessary characters escaped.
+     * @param s String
+     * @return String "null" if s is null
+     */
+    public static String quote(String s) {
+        if (s==null) return "null";
+        StringBuilder sb = new StringBuilder(s.length()+2);
+        sb.append('"');
+        for (int i=0; i<s.length(); i++) {
+            final char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c<0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        sb.append('"');
+        return sb.toString();
+    }
+
+
+    private Object parseValue() {
+        skipWhitespace();
+        if (_pos>=_text.length()) throw error("unexpected end of text");
+        final char c = _text.charAt(_pos);
+        switch (c) {
+            case '{': return parseObject();
+            case '[': return parseArray();
+            case '"': return parseString();
+            case 't': expect("true"); return Boolean.TRUE;
+            case 'f': expect("false"); return Boolean.FALSE;
+            case 'n': expect("null"); return null;
+            default:
+                if (c=='-' || (c>='0' && c<='9')) return parseNumber();
+                throw error("unexpected character '"+c+"'");
+        }
+    }
+
+
+    private Map<String, Object> parseObject() {
+        Map<String, Object> obj = new LinkedHashMap<>();
+        ++_pos;  // skip {
+        skipWhitespace();
+        if (peek()=='}') {
+            ++_pos;
+            return obj;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek()!='"') throw error("expected object key");
+            String key = parseString();
+            skipWhitespace();
+            if (peek()!=':') throw error("expected ':'");
+            ++_pos;
+            obj.put(key, parseValue());
+            skipWhitespace();
+            final char c = peek();
+            ++_pos;
+            if (c=='}') return obj;
+            if (c!=',') throw error("expected ',' or '}'");
+        }
+    }
+
+
+    private List<Object> parseArray() {
+        List<Object> arr = new ArrayList<>();
+        ++_pos;  // skip [
+        skipWhitespace();
+        if (peek()==']') {
+            ++_pos;
+            return arr;
+        }
+        while (true) {
+            arr.add(parseValue());
+            skipWhitespace();
+            final char c = peek();
+            ++_pos;
+            if (c==']') return arr;
+            if (c!=',') throw error("expected ',' or ']'");
+        }
+    }
+
+
+    private String parseString() {
+        StringBuilder sb = new StringBuilder();
+        ++_pos;  // skip opening quote
+        while (true) {
+            if (_pos>=_text.length()) throw error("unterminated string");
+            final char c = _text.charAt(_pos++);
+            if (c=='"') return sb.toString();
+            if (c!='\\') {
+                sb.append(c);
+                continue;
+            }
+            if (_pos>=_text.length()) throw error("unterminated string");
+            final char e = _text.charAt(_pos++);
+            switch (e) {
+                case '"': sb.append('"'); break;
+                case '\\': sb.append('\\'); break;
+                case '/': sb.append('/'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'u':
+                    if (_pos+4>_text.length()) throw error("bad \\u escape");
+                    try {
+                        sb.append((char) Integer.parseInt(
+                                           _text.substring(_pos, _pos+4), 16));
+                    }
+                    catch (NumberFormatException ex) {
+                        throw error("bad \\u escape");
+                    }
+                    _pos += 4;
+                    break;
+                default: throw error("bad escape '\\"+e+"'");
+            }
+        }
+    }
+
+
+    private Double parseNumber() {
+        final int start = _pos;
+        while (_pos<_text.length() &&
+               "+-0123456789.eE".indexOf(_text.charAt(_pos))>=0) ++_pos;
+        try {
+            return Double.valueOf(_text.substring(start, _pos));
+        }
+        catch (NumberFormatException e) {
+            throw error("bad number");
+        }
+    }
+
+
+    private void expect(String word) {
+        if (!_text.startsWith(word, _pos)) throw error("expected "+word);
+        _pos += word.length();
+    }
+
+
+    private char peek() {
+        if (_pos>=_text.length()) throw error("unexpected end of text");
+        return _text.charAt(_pos);
+    }
+
+
+    private void skipWhitespace() {
+        while (_pos<_text.length() &&
+               Character.isWhitespace(_text.charAt(_pos))) ++_pos;
+    }
+
+
+    private IllegalArgumentException error(String msg) {
+        return new IllegalArgumentException("JSON error at position "+_pos+
+                                            ": "+msg);
+    }
+}
@@ -0,0 +1,159 @@
+package edu.acg.itss;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+
+/**
+ * minimal emitter of LP-format text, used by <CODE>MIPModel.writeLP()</CODE>.
+ * Text is encoded (as UTF-8) directly into a fixed-size byte buffer that is
+ * written to the underlying channel whenever it fills up, so that writing a
+ * model of any size needs no memory beyond the buffer: integers are appended
+ * digit by digit, integral coefficients (the vast majority) without going
+ * through <CODE>Double.toString()</CODE>, and strings (such as the variable
+ * names kept by the model) character by character, so that no temporary
+ * String is ever created for a term. The output is the same as that of
+ * <CODE>PrintWriter.print()</CODE> for the same values.
+ * <p>Not thread-safe.
+ * @author itc
+ */
+final class LPWriter {
+    private static final int _BUF_SIZE = 1<<16;
+    private final WritableByteChannel _out;
+    private final byte[] _buf = new byte[_BUF_SIZE];
+    private final ByteBuffer _bb = ByteBuffer.wrap(_buf);
+    private int _pos = 0;
+    /**
+     * scratch space for the digits of a long.
+     */
+    private final byte[] _digits = new byte[20];
+
+
+    /**
+     * package constructor.
+     * @param out WritableByteChannel it is neither flushed nor closed by this
+     * object; call <CODE>flush()</CODE> when done
+     */
+    LPWriter(WritableByteChannel out) {
+        _out = out;
+    }
+
+
+    /**
+     * append a single ASCII character.
+     * @param c char
+     * @return LPWriter this
+     * @throws IOException
+     */
+    LPWriter write(char c) throws IOException {
+        if (_pos==_BUF_SIZE) drain();
+        _buf[_pos++] = (byte) c;
+        return this;
+    }
+
+
+    /**
+     * append a string.
+     * @param s String
+     * @return LPWriter this
+     * @throws IOException
+     */
+    LPWriter write(String s) throws IOException {
+        final int len = s.length();
+        for (int k=0; k<len; k++) {
+            final char c = s.charAt(k);
+            if (c<0x80) {
+                if (_pos==_BUF_SIZE) drain();
+                _buf[_pos++] = (byte) c;
+            }
+            else {  // rare: UTF-8 multi-byte sequence
+                int cp = c;
+                if (Character.isHighSurrogate(c) && k+1<len &&
+                    Character.isLowSurrogate(s.charAt(k+1))) {
+                    cp = Character.toCodePoint(c, s.charAt(++k));
+                }
+                writeCodePoint(cp);
+            }
+        }
+        return this;
+    }
+
+
+    /**
+     * append the decimal digits of a long.
+     * @param v long
+     * @return LPWriter this
+     * @throws IOException
+     */
+    LPWriter write(long v) throws IOException {
+        if (v==Long.MIN_VALUE) return write(Long.toString(v));
+        if (v<0) {
+            write('-');
+            v = -v;
+        }
+        int n = 0;
+        do {
+            _digits[n++] = (byte) ('0' + v%10);
+            v /= 10;
+        } while (v>0);
+        if (_pos+n>_BUF_SIZE) drain();
+        while (n>0) _buf[_pos++] = _digits[--n];
+        return this;
+    }
+
+
+    /**
+     * append a double exactly as <CODE>Double.toString(v)</CODE> would, eg
+     * "3.0", "-0.001" or "1.0E100".
+     * @param v double
+     * @return LPWriter this
+     * @throws IOException
+     */
+    LPWriter write(double v) throws IOException {
+        // Double.toString() uses plain notation "<int>.0" for the integral
+        // values in (-1e7, 1e7)
+        if (v==Math.rint(v) && Math.abs(v)<1.e7) {
+            if (v==0.0 && Double.doubleToRawLongBits(v)!=0) write('-');
+            write((long) v);
+            write('.');
+            return write('0');
+        }
+        return write(Double.toString(v));
+    }
+
+
+    /**
+     * writes out whatever is buffered.
+     * @throws IOException
+     */
+    void flush() throws IOException {
+        drain();
+    }
+
+
+    private void writeCodePoint(int cp) throws IOException {
+        if (_pos+4>_BUF_SIZE) drain();
+        if (cp<0x800) {
+            _buf[_pos++] = (byte) (0xC0 | (cp >> 6));
+        }
+        else if (cp<0x10000) {
+            _buf[_pos++] = (byte) (0xE0 | (cp >> 12));
+            _buf[_pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+        }
+        else {
+            _buf[_pos++] = (byte) (0xF0 | (cp >> 18));
+            _buf[_pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+            _buf[_pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+        }
+        _buf[_pos++] = (byte) (0x80 | (cp & 0x3F));
+    }
+
+
+    private void drain() throws IOException {
+        _bb.clear();
+        _bb.limit(_pos);
+        while (_bb.hasRemaining()) _out.write(_bb);
+        _pos = 0;
+    }
+}
@@ -8,22 +8,34 @@ import java.util.*;
 /**
  * class creates and handles the student course scheduling Mixed Integer 
  * Programming problem, passing it to a MIP solver (SCIP or GUROBI) to solve. It 
- * creates the problem in a .lp formatted file, and as such, is the most complex
- * class of the entire application, maintaining the logic for creating all 
- * constraints and objectives.
- * Notice that this class is only used by the <CODE>MainGUI</CODE> class of this
- * package, which in turn during start-up knows which directory contains the 
- * files to read from.
+ * creates the problem in memory (as a <CODE>MIPModel</CODE> object that is 
+ * loaded directly into the solver, and written in a .lp formatted file only in 
+ * debug mode), and as such, is the most complex class of the entire 
+ * application, maintaining the logic for creating all constraints and 
+ * objectives.
+ * The program data (courses, course groups and params) are taken from an
+ * immutable <CODE>Catalog</CODE>, and term numbers are computed with respect
+ * to an explicit <CODE>PlanningDate</CODE>, so that any number of handlers, 
+ * for the same or different programs, can create models concurrently. The 
+ * <CODE>MainGUI</CODE> class of this package uses a single handler that loads
+ * the catalog from the directory specified during start-up.
  * @author itc
  */
 public class MIPHandler {
+    private Catalog _catalog;
     private ScheduleParams _params;
+    private PlanningDate _date = PlanningDate.today();
     private PassedCourses _passed;
     private DesiredCourses _desired;  // PassedCourses & DesiredCourses classes
                                       // have exactly the same structure, and it
                                       // would be better to be represented by a
                                       // single class, say SpecialCourses or
                                       // smth like that.
+    /**
+     * the estimated grades of the student (from QARMA) above the minimum 
+     * threshold, by course-id.
+     */
+    private final HashMap<Integer, Float> _estimatedGrades = new HashMap<>();
     
     
     /**
@@ -44,13 +56,123 @@ public class MIPHandler {
     
     
     /**
-     * single constructor is a no-op.
+     * the result of the last call to <CODE>optimizeSchedule(MIPModel)</CODE>.
+     */
+    private MIPSolution _lastSolution = null;
+    
+    
+    /**
+     * the ids of the passed courses that are left out of the models as they
+     * only count for their credits (see <CODE>createMIPModel()</CODE>), and
+     * the sum of their credits.
+     */
+    private final BitSet _creditOnlyPassed = new BitSet();
+    private int _creditOnlyCredits = 0;
+    
+    
+    /**
+     * the last model created, and the arguments of 
+     * <CODE>createMIPModel()</CODE> that its base depends on: as long as these
+     * do not change, the base of the model is re-used and only the
+     * constraints for the student's preferences are re-created.
+     */
+    private MIPModel _lastModel = null;
+    private List<Object> _lastModelKey = null;
+    
+    
+    /**
+     * the canonical descriptions of the arguments of the last call to 
+     * <CODE>createMIPModel()</CODE> and of the last objective set, with the
+     * models they were given for: together they key the solutions of the 
+     * model in the plan cache of the catalog. The desired courses are 
+     * described by the terms each one is allowed in, as resolved by the last
+     * call to <CODE>addPreferenceConstraints()</CODE>, since these depend on
+     * the previous solution as well (see 
+     * <CODE>DesiredCourses.getAllowedTerms4Course()</CODE>).
+     */
+    private MIPModel _inputsModel = null;
+    private String _inputsKey = null;
+    private String _desiredKey = null;
+    private MIPModel _objModel = null;
+    private String _objKey = null;
+    
+    
+    /**
+     * whether to use cumulative variables in the models; null means use the
+     * schedule params.
+     */
+    private Boolean _cumulativeVars = null;
+    
+    
+    /**
+     * whether to give the models prioritized objectives; null means use the
+     * schedule params.
+     */
+    private Boolean _hierarchicalObjectives = null;
+    
+    
+    /**
+     * the name of the student in the names of the files written for the 
+     * models of this object; null means the name entered in the 
+     * <CODE>MainGUI</CODE>.
+     */
+    private String _studentName = null;
+    
+    
+    /**
+     * the solver used to solve the models created by this object.
+     */
+    private ScheduleSolver _solver = null;
+    
+    
+    /**
+     * the listener to the progress of the optimizations of the solver.
+     */
+    private SolverProgressListener _progressListener = null;
+    
+    
+    /**
+     * set by <CODE>cancelOptimization()</CODE> and cleared by 
+     * <CODE>resetCancelRequest()</CODE>, so that a cancel requested before 
+     * the solver starts (eg while the model is being built) is not lost.
+     */
+    private volatile boolean _cancelRequested = false;
+    
+    
+    /**
+     * the GUROBI environments reused across all optimizations of this object.
+     */
+    private GRBEnvPool _envPool = null;
+    
+    
+    /**
+     * no-arg constructor is a no-op; <CODE>readProblemData(studentName)</CODE>
+     * must be called before any model is created. The planning date is today
+     * unless set via <CODE>setPlanningDate()</CODE>.
      */
     public MIPHandler() {
         // no-op
     }
     
     
+    /**
+     * constructor for handlers that share the catalog of a program, as is the
+     * case in the batch planner. The passed and desired courses of the 
+     * student are the ones given to <CODE>createMIPModel()</CODE>, and no 
+     * student files are read.
+     * @param catalog Catalog
+     * @param date PlanningDate the date with respect to which terms are 
+     * numbered
+     */
+    public MIPHandler(Catalog catalog, PlanningDate date) {
+        _catalog = catalog;
+        _params = catalog.getParams();
+        _date = date;
+        _passed = new PassedCourses();
+        _desired = new DesiredCourses();
+    }
+    
+    
     /**
      * reads all data from files in the specified directory in the class
      * <CODE>MainGUI</CODE> as well as some optional files in the current 
@@ -60,7 +182,8 @@ public class MIPHandler {
      * schedule param file is "params.props".
      * The course data are read from file "cls.csv" (in the specific program 
      * directory currently in use). Details of this file's format are in the 
-     * javadocs for class <CODE>Course</CODE>.
+     * javadocs for class <CODE>Course</CODE>. All these files are loaded in a
+     * new <CODE>Catalog</CODE> (see <CODE>Catalog.load()</CODE>).
      * If the file "passedcourses_&lt;studentName&gt;.txt" exists in the current 
      * directory, it reads all course numbers the student has already passed: 
      * the file consists of course codes separated by semi-column. Desired 
@@ -68,19 +191,27 @@ public class MIPHandler {
      * to be read from the current directory too.
      * Finally, if the file "estimated_grades_&lt;studentName&gt;.txt" exists in 
      * the current dir, it reads all course numbers for which there exists an 
-     * estimate (from QARMA) of the grade the student is going to get, and sets 
-     * the appropriate field in the right <CODE>Course</CODE> objects (default 
-     * is zero which does not modify the problem at all), assuming the estimated 
-     * grade is above the minimum threshold set in property "MinGradeThres".
+     * estimate (from QARMA) of the grade the student is going to get, and 
+     * keeps the estimates (default is zero which does not modify the problem
+     * at all) that are above the minimum threshold set in property 
+     * "MinGradeThres".
      * @param studentName String the name of the student for whom the schedule 
      * is; this parameter is needed to allow multiple processes running the 
      * same application to run concurrently on the same machine (multiple 
      * windows of the <CODE>MainGUI</CODE> main class)
      */
     public void readProblemData(String studentName) {
-        final String dir2Files = MainGUI.getDir2Files();
-        _params = new ScheduleParams(dir2Files+"/params.props");
-        Course.readAllCoursesFromFile(dir2Files+"/cls.csv", _params.getSmax());
+        try {
+            _catalog = Catalog.load(MainGUI.getDir2Files());
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            System.exit(-1);
+        }
+        _params = _catalog.getParams();
+        _lastModel = null;  // the course ids may have changed
+        _lastModelKey = null;
+        _cid2tnoMap.clear();
         _passed = new PassedCourses();
         String passedcoursesfilename = "passedcourses_"+studentName+".txt";
         File psd = new File(passedcoursesfilename);
@@ -93,6 +224,7 @@ public class MIPHandler {
         if (dsd.exists()) {
             _desired.readDesiredCoursesFromFile(desiredcoursesfilename);
         }        
+        _estimatedGrades.clear();
         String estgradesfilename = "estimated_grades_"+studentName+".txt";
         File est = new File(estgradesfilename);
         if (est.exists()) {
@@ -102,10 +234,13 @@ public class MIPHandler {
                     String line = br.readLine();
                     if (line==null) break;  // EOF
                     String[] vals = line.split(",");
-                    Course c = Course.getCourseByCode(vals[0]);
+                    Course c = _catalog.getCourseByCode(vals[0]);
                     float val = Float.parseFloat(vals[1].trim());
+                    if (val<0 || val>4.0f) 
+                        throw new IllegalArgumentException("estimated grade "+
+                                                           "must be in [0,4]");
                     if (val >= thres) {
-                        c.setEstimatedGrade(val);
+                        _estimatedGrades.put(c.getId(), val);
                     }
                 }
             }
@@ -114,13 +249,6 @@ public class MIPHandler {
                 System.exit(-1);
             }
         }
-        File cur_dir = new File(dir2Files);
-        File[] cur_files = cur_dir.listFiles();
-        for (File f : cur_files) {
-            if (f.isFile() && f.getName().endsWith("grp")) {
-                CourseGroup.readCourseGroup(f.getAbsolutePath());
-            }
-        }
         // in case of data entry errors: remove any passed courses from the 
         // desired courses
         Iterator<String> desired_it = _desired.getDesiredCourseCodesIterator();
@@ -131,6 +259,102 @@ public class MIPHandler {
     }
     
     
+    /**
+     * set the name of the student in the names of the files written for the
+     * models of this object (see <CODE>getScheduleFileName()</CODE>), so that
+     * handlers planning different students in the same process (as in the 
+     * <CODE>BatchPlanner</CODE> or the <CODE>PlanningServer</CODE>) never 
+     * write to the same files. Characters other than letters, digits, '.', 
+     * '-' and '_' are replaced by '_'.
+     * @param name String
+     */
+    public void setStudentName(String name) {
+        _studentName = name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+    
+    
+    /**
+     * get the catalog of the program. Must have called 
+     * <CODE>readProblemData(studentName)</CODE> first, unless the catalog was
+     * given in the constructor.
+     * @return Catalog
+     */
+    public Catalog getCatalog() {
+        return _catalog;
+    }
+    
+    
+    /**
+     * get the date with respect to which terms are numbered.
+     * @return PlanningDate
+     */
+    public PlanningDate getPlanningDate() {
+        return _date;
+    }
+    
+    
+    /**
+     * set the date with respect to which terms are numbered in all models
+     * created and solutions described from now on.
+     * @param date PlanningDate
+     */
+    public void setPlanningDate(PlanningDate date) {
+        if (date==null) throw new IllegalArgumentException("null date");
+        _date = date;
+    }
+    
+    
+    /**
+     * check whether the models created use the cumulative "taken-by-term"
+     * variables y_{i,s} (see <CODE>MIPModel.addCumulativeVars()</CODE>) in
+     * the precedence constraints: the value set via 
+     * <CODE>setCumulativeVars()</CODE>, or else the property 
+     * "CumulativeVars" of the schedule params.
+     * @return boolean
+     */
+    public boolean getCumulativeVars() {
+        if (_cumulativeVars!=null) return _cumulativeVars;
+        return _params.getCumulativeVars();
+    }
+    
+    
+    /**
+     * set whether the models created from now on use the cumulative 
+     * "taken-by-term" variables y_{i,s} in the precedence constraints (the
+     * PREREQ, COREQ, LEVEL and capstone sections), overriding the schedule
+     * params. Both formulations describe the same schedules; the cumulative
+     * one has O(N*Smax) more variables and rows, but replaces the O(Smax^2)
+     * terms of the precedence sums of every course by O(Smax) terms.
+     * @param cumulative boolean
+     */
+    public void setCumulativeVars(boolean cumulative) {
+        _cumulativeVars = cumulative;
+    }
+    
+    
+    /**
+     * check whether the models created have prioritized objectives (see
+     * <CODE>setObjective()</CODE>): the value set via 
+     * <CODE>setHierarchicalObjectives()</CODE>, or else the property 
+     * "HierarchicalObjectives" of the schedule params.
+     * @return boolean
+     */
+    public boolean getHierarchicalObjectives() {
+        if (_hierarchicalObjectives!=null) return _hierarchicalObjectives;
+        return _params.getHierarchicalObjectives();
+    }
+    
+    
+    /**
+     * set whether the models created from now on have prioritized 
+     * objectives, overriding the schedule params.
+     * @param hierarchical boolean
+     */
+    public void setHierarchicalObjectives(boolean hierarchical) {
+        _hierarchicalObjectives = hierarchical;
+    }
+    
+    
     /**
      * get the schedule parameters object. Must have called 
      * <CODE>readProblemData(studentName)</CODE> first.
@@ -164,23 +388,53 @@ public class MIPHandler {
 
     
     /**
-     * creates a file "schedule_&lt;studentname&gt;_&lt;ts&gt;.lp" that 
-     * describes a MIP Programming problem of the student course scheduling 
-     * problem, with objective being a weighted combination of 
-     * time-to-completion, total-number-of-credits, 
-     * maximum-sum-of-course-difficulty-levels-per-semester and sum-of-grades. 
-     * Always last, with coefficient -0.001, is the objective to maximize 
-     * courses from designated program codes in the schedule params. The 
-     * objective to maximize individual student GPA is also present and is 
-     * implemented by maximizing the weighted sum of courses taken with weights 
-     * equal to the estimated grade of the course (assuming such estimates are 
-     * known, and only for courses for which the estimate is above 3.0/4.0). 
-     * Notice that these estimates, if they exist, are in the file 
+     * creates the MIP model of the student course scheduling problem in memory
+     * (see class <CODE>MIPModel</CODE>), with objective being a weighted
+     * combination of time-to-completion, total-number-of-credits,
+     * maximum-sum-of-course-difficulty-levels-per-semester and sum-of-grades.
+     * Always last, with coefficient -0.001, is the objective to maximize
+     * courses from designated program codes in the schedule params. The
+     * objective to maximize individual student GPA is also present and is
+     * implemented by maximizing the weighted sum of courses taken with weights
+     * equal to the estimated grade of the course (assuming such estimates are
+     * known, and only for courses for which the estimate is above 3.0/4.0).
+     * Notice that these estimates, if they exist, are in the file
      * "estimated_grades_&lt;studentName&gt;.txt".
-     * Notice that despite the fact that this class holds references to the 
-     * <CODE>[Passed | Desired]Courses</CODE> objects, the final say is whatever 
-     * is selected in the GUI, and this is why these two sets are passed in as 
+     * Notice that despite the fact that this class holds references to the
+     * <CODE>[Passed | Desired]Courses</CODE> objects, the final say is whatever
+     * is selected in the GUI, and this is why these two sets are passed in as
      * arguments to this method.
+     * <p>When called again with the same arguments except for the student's
+     * preferences (the max number of courses per term or during the thesis
+     * term, the summer terms off, the #courses constraints per term and the
+     * desired courses) and the objective coefficients, the model returned by
+     * the previous call is reset to its base and re-used, with only the 
+     * preference constraints re-created (see 
+     * <CODE>MIPModel.resetToBase()</CODE>) and the objective set again (see
+     * <CODE>setObjective()</CODE>). In any case, the last computed solution 
+     * (if any) is set as the MIP start of the model.
+     * <p>If <CODE>getHierarchicalObjectives()</CODE> is true, the model also
+     * gets the four objectives and the designated-programs one as separate
+     * prioritized objectives, so that solvers supporting them (GUROBI) 
+     * optimize them in lexicographic order instead of their weighted sum
+     * (see <CODE>setObjective()</CODE>).
+     * <p>Unless the property "NormalizePassedCourses" of the schedule params
+     * is false, the passed courses are normalized first, so that students 
+     * with equivalent histories get the same model (and thus the same entry
+     * in the plan cache, see <CODE>optimizeSchedule(MIPModel)</CODE>): 
+     * synonym codes are replaced by the codes of their courses (see 
+     * <CODE>Catalog.getCanonicalCode()</CODE>), and the passed courses that
+     * only count for their credits (see <CODE>Catalog.isCreditOnly()</CODE>)
+     * and are not offered in any term of the schedule, unless desired, are
+     * left out of the model, their total credits being subtracted from the 
+     * right-hand sides of the total-credits and capstone-credits rows 
+     * instead; so students whose passed courses differ only by such courses 
+     * of the same total credits get identical models. These courses are 
+     * still reported as passed in the schedules.
+     * <p>If the property "Debug" in the schedule params is true, the model is
+     * also written in LP format in the file
+     * "schedule_&lt;studentname&gt;_&lt;ts&gt;.lp" (see
+     * <CODE>getScheduleFileName()</CODE>).
      * @param isHonorStudent boolean whether the student is an honors student
      * @param maxNumCrsPerSem int student-imposed max num courses per semester
      * @param maxNumCrsDurThesis int student-imposed max num courses during the
@@ -194,11 +448,11 @@ public class MIPHandler {
      * @param numCoursesPerTrm2StrMap Map&lt;Integer tno, String constr&gt; may
      * have constraints on #courses to take on specific terms
      * @param passed Set&lt;String&gt; the set of courses the student has passed
-     * @param num_OU_cur_academic_year int the number of OU courses already 
+     * @param num_OU_cur_academic_year int the number of OU courses already
      * passed during the current academic year (0 if the next term is FALL)
      * @param desired Set&lt;String&gt; the set of courses the student wishes
      * to take; each string in the set may be either "ITC3160", or "ITC3160;"
-     * which indicates student doesn't want to take the course, or it may be 
+     * which indicates student doesn't want to take the course, or it may be
      * smth like "ITC3160;FA2022 SP2023" which indicates when student wants to
      * take the course
      * @param concentration String the chosen concentration area
@@ -207,1133 +461,1408 @@ public class MIPHandler {
      * (per semester)
      * @param Crcoeff int the coefficient for the total-sum-of-credits objective
      * @param Grcoeff int the coefficient for the expected-GPA objective
-     * @return String the name of the schedule lp-formatted file created; the 
-     * reason for the timestamp in the name of the file is so that multiple 
-     * application windows can be open at the same time without interfering with 
-     * one another
+     * @return MIPModel
      */
-    public String createMIPFile(boolean isHonorStudent,
-                                int maxNumCrsPerSem, int maxNumCrsDurThesis,
-                                boolean s1off, boolean s2off, boolean stoff,
-                                Map<Integer, String> numCoursesPerTrm2StrMap,
-                                Set<String> passed,int num_OU_cur_academic_year, 
-                                Set<String> desired,
-                                String concentration,
-                                int DNcoeff, int DLcoeff, int Crcoeff, 
-                                int Grcoeff) {
+    public MIPModel createMIPModel(boolean isHonorStudent,
+                                   int maxNumCrsPerSem, int maxNumCrsDurThesis,
+                                   boolean s1off, boolean s2off, boolean stoff,
+                                   Map<Integer, String> numCoursesPerTrm2StrMap,
+                                   Set<String> passed,
+                                   int num_OU_cur_academic_year,
+                                   Set<String> desired,
+                                   String concentration,
+                                   int DNcoeff, int DLcoeff, int Crcoeff,
+                                   int Grcoeff) {
         if (concentration==null || concentration.length()==0)
             throw new IllegalArgumentException("concentration area name "+
                                                "cannot be null or empty");
-        Set<String> discVarNames = new HashSet<>();  // needed when discipline
-                                                     // constraints are enforced
-        // 0. update data structures: the passed and desired arguments are the 
+        // 0. update data structures: the passed and desired arguments are the
         //    final word in this matter
         _passed.clear();
-        _passed.addAll(passed);
         _desired.clear();
         _desired.addAll(desired);
-        // 1. set the objective
-        StringBuffer prob = 
-                new StringBuffer("Minimize\nobj: "+DNcoeff+" D + "+
-                                 DLcoeff+" DL + ");
-        final int N = Course.getNumCourses();
+        normalizePassed(passed);
+        // everything but the student's preferences and the objective
+        final List<Object> key = 
+            Arrays.<Object>asList(isHonorStudent, getModelPassedKey(),
+                                  num_OU_cur_academic_year, concentration,
+                                  _date, getCumulativeVars());
+        MIPModel m = _lastModel;
+        if (m!=null && key.equals(_lastModelKey)) {
+            m.resetToBase();
+        }
+        else {
+            m = createBaseModel(isHonorStudent, num_OU_cur_academic_year,
+                                concentration);
+            m.markBase();
+            _lastModel = m;
+            _lastModelKey = key;
+        }
+        _inputsModel = null;
+        setObjective(m, DNcoeff, DLcoeff, Crcoeff, Grcoeff);
+        addPreferenceConstraints(m, isHonorStudent, 
+                                 maxNumCrsPerSem, maxNumCrsDurThesis,
+                                 s1off, s2off, stoff, numCoursesPerTrm2StrMap);
+        setMIPStart(m);
+        // the canonical description of the inputs, with the sets and maps in
+        // sorted order; the catalog version is implied as the plan cache
+        // belongs to the catalog
+        _inputsKey = isHonorStudent+";"+maxNumCrsPerSem+";"+
+                     maxNumCrsDurThesis+";"+s1off+";"+s2off+";"+stoff+";"+
+                     new TreeMap<>(numCoursesPerTrm2StrMap)+";"+
+                     getModelPassedKey()+";"+
+                     (_passed.size()<_params.getMinNumCourses4Sophomore())+
+                     ";"+num_OU_cur_academic_year+";"+
+                     _desiredKey+";"+concentration+";"+_date+";"+
+                     _params.getSmax()+";"+getCumulativeVars();
+        _inputsModel = m;
+        // in debug mode, write the problem as an LP format file as well
+        if (_params.getDebug()) {
+            try {
+                m.writeLP(getScheduleFileName());
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return m;
+    }
+
+
+    /**
+     * sets the objective of a model created by <CODE>createMIPModel()</CODE>
+     * to the weighted combination with the given coefficients (see 
+     * <CODE>createMIPModel()</CODE>), leaving its constraints unchanged, so
+     * that the same model can be solved for different weights, as in a 
+     * <CODE>ParetoSweep</CODE>.
+     * <p>If <CODE>getHierarchicalObjectives()</CODE> is true, each of the 
+     * four objectives with a non-zero coefficient is also added to the model
+     * as a prioritized objective (see <CODE>MIPModel.addObjectiveN()</CODE>)
+     * with priority the absolute value of its coefficient, so the larger the
+     * coefficient the earlier the objective is optimized, and objectives with
+     * equal coefficients are optimized together, as in the weighted sum. The
+     * designated-programs objective comes last, with priority 0. The 
+     * tolerances of the objectives are the properties "ObjNAbsTol" and 
+     * "ObjNRelTol" of the schedule params.
+     * @param m MIPModel
+     * @param DNcoeff int the coefficient for the shortest-time-to-completion
+     * @param DLcoeff int the coefficient for the max-sum-of-difficulty-levels
+     * (per semester)
+     * @param Crcoeff int the coefficient for the total-sum-of-credits objective
+     * @param Grcoeff int the coefficient for the expected-GPA objective
+     */
+    public void setObjective(MIPModel m, int DNcoeff, int DLcoeff, 
+                             int Crcoeff, int Grcoeff) {
+        final int N = _catalog.getNumCourses();
+        _objKey = DNcoeff+";"+DLcoeff+";"+Crcoeff+";"+Grcoeff+";"+
+                  getHierarchicalObjectives()+";"+_params.getObjNAbsTol()+";"+
+                  _params.getObjNRelTol()+";"+_params.getMinGradeThres()+";"+
+                  new TreeMap<>(_estimatedGrades);
+        _objModel = m;
+        m.setObjCoeff(m.getDVar(), DNcoeff);
+        m.setObjCoeff(m.getDLVar(), DLcoeff);
+        m.clearObjectivesN();
+        int dn_obj = -1, dl_obj = -1, cr_obj = -1, gr_obj = -1, pr_obj = -1;
+        if (getHierarchicalObjectives()) {
+            final double abs_tol = _params.getObjNAbsTol();
+            final double rel_tol = _params.getObjNRelTol();
+            if (DNcoeff!=0) {
+                dn_obj = m.addObjectiveN("finish", Math.abs(DNcoeff), 
+                                         abs_tol, rel_tol);
+                m.addObjNCoeff(dn_obj, m.getDVar(), DNcoeff);
+            }
+            if (DLcoeff!=0) {
+                dl_obj = m.addObjectiveN("difficulty", Math.abs(DLcoeff),
+                                         abs_tol, rel_tol);
+                m.addObjNCoeff(dl_obj, m.getDLVar(), DLcoeff);
+            }
+            if (Crcoeff!=0)
+                cr_obj = m.addObjectiveN("credits", Math.abs(Crcoeff),
+                                         abs_tol, rel_tol);
+            if (Grcoeff!=0)
+                gr_obj = m.addObjectiveN("grades", Math.abs(Grcoeff),
+                                         abs_tol, rel_tol);
+            pr_obj = m.addObjectiveN("programs", 0, abs_tol, rel_tol);
+        }
+        // designated program codes to maximize as last resort
+        Set<ProgramCodeStruct> designated_program_codes =
+                _params.getPrograms2Maximize();
         for (int i=0; i<N; i++) {
-            Course ci = Course.getCourseById(i);
+            Course ci = _catalog.getCourseById(i);
+            final int xi = m.getXiVar(i);
             double ival = ci.getCredits()*Crcoeff;
-            // designated program codes to maximize as last resort
-            Set<ProgramCodeStruct> designated_program_codes = 
-                    _params.getPrograms2Maximize();
+            if (cr_obj>=0) m.addObjNCoeff(cr_obj, xi, ival);
             for (ProgramCodeStruct pcs : designated_program_codes) {
-                /*
-                if (ci.getCode().startsWith("ITC") || 
-                    (ci.getCode().startsWith("MA") && 
-                     CourseGroup.getCourseGroupByName("LE-core-stat").
-                                   getGroupCodes().
-                                     contains(ci.getCode())==false))
-                    ival += _DOMAIN_COEFF_INCR;
-                */
                 if (ci.getCode().startsWith(pcs.getProgramCode())) {
-                    if (pcs.getException()!=null && 
+                    if (pcs.getException()!=null &&
                         pcs.getException().length()>0) {
-                        CourseGroup cg = 
-                          CourseGroup.getCourseGroupByName(pcs.getException());
-                        if (cg.getGroupCodes().contains(ci.getCode())==false) {
+                        CourseGroup cg =
+                          _catalog.getCourseGroupByName(pcs.getException());
+                        if (!cg.containsCourse(i)) {
                             ival += _DOMAIN_COEFF_INCR;
+                            if (pr_obj>=0) 
+                                m.addObjNCoeff(pr_obj, xi, _DOMAIN_COEFF_INCR);
                             break;  // the increment applies only once
                         }
                     }  // if there is exception group, ensure it's not in there
                     else {
                         ival += _DOMAIN_COEFF_INCR;  // if no exception, ensure
                                                      // ci's obj is incremented
+                        if (pr_obj>=0) 
+                            m.addObjNCoeff(pr_obj, xi, _DOMAIN_COEFF_INCR);
                         break;  // the increment applies only once
                     }
                 }
             }
             // add to the ival the value of the estimated grade multiplied by
             // the Grcoeff for the expected-GPA-max objective
-            if (ci.getEstimatedGrade()>=_params.getMinGradeThres()) {
-                ival += Grcoeff * ci.getEstimatedGrade();
-            }
-            prob.append(ival).append(" x_").append(i);
-            if (i<N-1) prob.append(" + ");
-            else prob.append("\n");
-        }
-        prob.append("\nSubject To\n");
-        // 2. now set the constraints
-        // 2.1 first, the D constraints
-        prob.append("\\ 1. D constraints\n");
-        int ccount = 1;  // constraint counter
-        final int Smax = _params.getSmax();
-        for (int i=0; i<N; i++) {
-            for (int s=1; s<=Smax; s++) {
-                prob.append("c").append(ccount).append(": ").
-                    append(s).
-                        append(" x_").append(i).append("_").append(s).
-                            append(" - D <= 0\n");
-                ++ccount;
-            }
-        }
-        // 2.1 continued, the DL constraints
-        prob.append("\\ 1. DL constraints\n");
-        for (int s=1; s<=Smax; s++) {
-            prob.append("c").append(ccount).append(": ");
-            ++ccount;
-            for (int i=0; i<N; i++) {
-                Course ci = Course.getCourseById(i);
-                final int dli = ci.getDifficultyLevel();
-                prob.append(dli).append(" x_").append(i).append("_").append(s);
-                if (i<N-1) prob.append(" + ");
-                else prob.append(" - DL <= 0\n");
-            }
-        }
-        // 2.2 second, the class availability constraints
-        prob.append("\\ 2. class availability constraints\n");
-        for (int i=0; i<N; i++) {
-            List<Integer> terms_offered = 
-                    Course.getCourseById(i).getTermsOffered(Smax);
-            // itc: HERE debug
-            prob.append("\\ course-"+i+" terms: ");
-            for (Integer t : terms_offered) prob.append(t+" ");
-            prob.append("\n");
-            // itc: HERE debug up to here
-            for (int s=1; s<=Smax; s++) {
-                final int ois = terms_offered.contains(s) ? 1 : 0;
-                prob.append("c").append(ccount).
-                    append(": x_").append(i).append("_").append(s).
-                        append(" <= ").
-                            append(ois).
-                                append("\n");
-                ++ccount;
+            final float est_grade = _estimatedGrades.getOrDefault(i, 0.0f);
+            if (est_grade>=_params.getMinGradeThres()) {
+                ival += Grcoeff * est_grade;
+                if (gr_obj>=0) m.addObjNCoeff(gr_obj, xi, Grcoeff*est_grade);
             }
+            m.setObjCoeff(xi, ival);
         }
-        // 2.3 third, prerequisite constraints
-        prob.append("\\ 3a. PREREQ constraints\n");
-        for (int i=0; i<N; i++) {
-            Course ci = Course.getCourseById(i);
-            Set<Set<String>> prereq_codes = ci.getPrereqs();
-            if (prereq_codes.size()>=1) {
-                for (int s=1;s<=Smax; s++) {
-                    int ks = Course.isSummerTerm(s) ? 3 : 1;
-                    if (s-ks<0 || prereq_codes.isEmpty()) continue;
-                    for (Set<String> ps : prereq_codes) {
-                        if (ps.isEmpty()) continue;
-                        prob.append("c"+ccount+": x_"+i+"_"+s); ++ccount;
-                        prob.append(" - ");
-                        Iterator<String> ps_it = ps.iterator();
-                        while (ps_it.hasNext()) {
-                            String crsi = ps_it.next();
-                            Course cj = Course.getCourseByCode(crsi);
-                            int j = 0;
-                            try {
-                                j = cj.getId();
-                            }
-                            catch (Exception e) {
-                                System.err.println("course w/ code "+crsi+
-                                                   " doesn't exist "+
-                                                   "(prereqs for "+ci+")");
-                                throw e;
-                            }
-                            for (int t=0; t<=s-ks; t++) {
-                                prob.append("x_"+j+"_"+t);
-                                if (t<s-ks) prob.append(" - ");
-                            }
-                            if (ps_it.hasNext()) prob.append(" - ");
-                            else prob.append(" <= 0\n");
-                        }
-                    }
-                }
-            }
+    }
+
+
+    /**
+     * sets the passed courses to the given ones, normalized as described in
+     * <CODE>createMIPModel()</CODE> (the desired courses must already be 
+     * set).
+     * @param passed Set&lt;String&gt;
+     */
+    private void normalizePassed(Set<String> passed) {
+        _creditOnlyPassed.clear();
+        _creditOnlyCredits = 0;
+        if (!_params.getNormalizePassedCourses()) {
+            _passed.addAll(passed);
+            return;
         }
-        // 2.3 third continued, co-requisite constraints
-        prob.append("\\ 3b. COREQ constraints\n");
-        for (int i=0; i<N; i++) {
-            Course ci = Course.getCourseById(i);
-            Set<String> coreq_codes = ci.getCoreqs();
-            if (coreq_codes.size()>=1) {
-                for (int s=1; s<=Smax; s++) {
-                    final int ks = Course.isSummerTerm(s) ? 3 : 1;
-                    if (coreq_codes.isEmpty()) continue;
-                    prob.append("c"+ccount+": x_"+i+"_"+s+" - "); ++ccount;
-                    Iterator<String> coreq_it = coreq_codes.iterator();
-                    while (coreq_it.hasNext()) {
-                        String codej = coreq_it.next();
-                        Course cj = Course.getCourseByCode(codej);
-                        int j = cj.getId();
-                        prob.append("x_"+j+"_"+s);
-                        if (s-ks>=0) prob.append(" - ");
-                        for (int t=0; t<=s-ks; t++) {
-                            prob.append("x_"+j+"_"+t);
-                            if (t<s-ks) prob.append(" - ");
-                        }
-                        if (coreq_it.hasNext()) prob.append(" - ");
-                        else prob.append(" <= 0\n");
-                    }
-                }
-            }
+        for (String code : passed) {
+            final String ccode = _catalog.getCanonicalCode(code);
+            _passed.addCourse(ccode!=null ? ccode : code);
         }
-        // 2.4 fourth, LEVEL constraints
-        CourseGroup level4 = CourseGroup.getCourseGroupByName("L4");
-        CourseGroup level5 = CourseGroup.getCourseGroupByName("L5");
-        CourseGroup level6 = CourseGroup.getCourseGroupByName("L6");
-        List<String> l4codes = level4.getGroupCodes();
-        List<String> l5codes = level5.getGroupCodes();
-        List<String> l6codes = level6.getGroupCodes();
-        // L-5 constraints: at least 4 level-4 courses must be passed
-        // before taking a level-5 course
-        prob.append("\\ 4a. L-5 constraints\n");
-        for (String l5cc : l5codes) {
-            Course l5crs = Course.getCourseByCode(l5cc);
-            int i = l5crs.getId();
-            for (int s=1; s<=Smax; s++) {
-                int ks = Course.isSummerTerm(s) ? 3 : 1;
-                prob.append("c"+ccount+": ");
-                ++ccount;
-                prob.append("4 x_"+i+"_"+s+" - ");
-                Iterator<String> l4codesit = l4codes.iterator();
-                while (l4codesit.hasNext()) {
-                    String js = l4codesit.next();
-                    Course l4crs = Course.getCourseByCode(js);
-                    int j = l4crs.getId();
-                    for (int t=0; t<=s-ks; t++) {
-                        prob.append("x_"+j+"_"+t);
-                        if (t<s-ks) prob.append(" - ");
-                        else {
-                            if (l4codesit.hasNext()) prob.append(" - ");
-                            else prob.append(" <= 0\n");
-                        }
-                    }
-                }
+        final int Smax = _params.getSmax();
+        final OfferedTerms offered = _catalog.getOfferedTerms(_date, Smax);
+        Iterator<String> pit = _passed.getPassedCourseCodesIterator();
+        while (pit.hasNext()) {
+            final String code = pit.next();
+            Course pc = _catalog.getCourseByCode(code);
+            if (pc==null || !_catalog.isCreditOnly(pc.getId()) ||
+                _desired.contains(code)) continue;
+            // had it not been passed, it could not be taken either
+            boolean is_offered = false;
+            for (int s=1; s<=Smax && !is_offered; s++) 
+                is_offered = offered.isOffered(pc.getId(), s);
+            if (!is_offered) {
+                _creditOnlyPassed.set(pc.getId());
+                _creditOnlyCredits += pc.getCredits();
             }
         }
-        // OTHER L-5 constraints: level-5 constraints for non-ITC level-5 
-        // classes
-        prob.append("\\ 4b. OTHER L-5 constraints\n");
-        Iterator<String> cgs_it = CourseGroup.getCourseGroupNameIterator();
-        Set<String> other_l5_cgs = new HashSet<>();
-        while (cgs_it.hasNext()) {
-            String cgs = cgs_it.next();
-            if (cgs.startsWith("L5-")) other_l5_cgs.add(cgs);
-        }
-        for (String ocgl5 : other_l5_cgs) {
-            final List<String> ol5codes = 
-                    CourseGroup.getCourseGroupByName(ocgl5).getGroupCodes();
-            for (String l5cc : ol5codes) {
-                Course l5crs = Course.getCourseByCode(l5cc);
-                int i = l5crs.getId();
-                for (int s=1; s<=Smax; s++) {
-                    int ks = Course.isSummerTerm(s) ? 3 : 1;
-                    prob.append("c"+ccount+": ");
-                    ++ccount;
-                    prob.append("4 x_"+i+"_"+s+" - ");
-                    Iterator<String> l4codesit = l4codes.iterator();
-                    while (l4codesit.hasNext()) {
-                        String js = l4codesit.next();
-                        Course l4crs = Course.getCourseByCode(js);
-                        int j = l4crs.getId();
-                        for (int t=0; t<=s-ks; t++) {
-                            prob.append("x_"+j+"_"+t);
-                            if (t<s-ks) prob.append(" - ");
-                            else {
-                                if (l4codesit.hasNext()) prob.append(" - ");
-                                else prob.append(" <= 0\n");
-                            }
-                        }
-                    }
-                }
-            }            
+    }
+
+
+    /**
+     * check whether the given course is a passed course that was left out of
+     * the last model created, as it only counts for its credits (see 
+     * <CODE>createMIPModel()</CODE>); such courses are taken in term 0 
+     * although their variables in the model are zero.
+     * @param courseId int
+     * @return boolean
+     */
+    public boolean isCreditOnlyPassed(int courseId) {
+        return _creditOnlyPassed.get(courseId);
+    }
+
+
+    /**
+     * return a canonical description of the passed courses as far as the
+     * model is concerned: the sorted codes of the passed courses in the 
+     * model, and the credits of the ones left out.
+     * @return String
+     */
+    private String getModelPassedKey() {
+        TreeSet<String> codes = new TreeSet<>();
+        Iterator<String> pit = _passed.getPassedCourseCodesIterator();
+        while (pit.hasNext()) {
+            final String code = pit.next();
+            Course pc = _catalog.getCourseByCode(code);
+            if (pc==null || !_creditOnlyPassed.get(pc.getId())) codes.add(code);
         }
-        // L-6 constraints
-        // first, ALL level-4 courses must be passed before taking a level-6
-        // course
-        prob.append("\\ 5a. L-6 constraints about L-4\n");
-        final int l4_num = l4codes.size();
-        for (String l6cc : l6codes) {
-            Course l6crs = Course.getCourseByCode(l6cc);
-            if (l6crs==null) {
-                System.err.println("L-6 course w/ code "+l6cc+" doesn't exist");
-                throw new NullPointerException();
-            }
-            int i = l6crs.getId();
-            for (int s=1; s<=Smax; s++) {
-                int ks = Course.isSummerTerm(s) ? 3 : 1;
-                prob.append("c"+ccount+": ");
-                ++ccount;
-                prob.append(l4_num+" x_"+i+"_"+s+" - ");
-                Iterator<String> l4codesit = l4codes.iterator();
-                while (l4codesit.hasNext()) {
-                    String js = l4codesit.next();
-                    Course l4crs = Course.getCourseByCode(js);
-                    int j = l4crs.getId();
-                    for (int t=0; t<=s-ks; t++) {
-                        prob.append("x_"+j+"_"+t);
-                        if (t<s-ks) prob.append(" - ");
-                        else {
-                            if (l4codesit.hasNext()) prob.append(" - ");
-                            else prob.append(" <= 0\n");
-                        }
-                    }
-                }
-            }
+        return codes+"+"+_creditOnlyCredits;
+    }
+
+
+    /**
+     * return the estimated grade of the student in the given course, as read
+     * from the file "estimated_grades_&lt;studentName&gt;.txt".
+     * @param courseId int
+     * @return float 0 if there is no estimate for the course
+     */
+    public float getEstimatedGrade(int courseId) {
+        return _estimatedGrades.getOrDefault(courseId, 0.0f);
+    }
+
+
+    /**
+     * creates the part of the model of <CODE>createMIPModel()</CODE> that 
+     * does not depend on the preferences of the student nor on the objective
+     * (the passed courses must already be in <CODE>_passed</CODE>).
+     * @param isHonorStudent boolean
+     * @param num_OU_cur_academic_year int
+     * @param concentration String
+     * @return MIPModel
+     */
+    private MIPModel createBaseModel(boolean isHonorStudent,
+                                     int num_OU_cur_academic_year,
+                                     String concentration) {
+        final int N = _catalog.getNumCourses();
+        final int Smax = _params.getSmax();
+        final boolean debug = _params.getDebug();
+        final TermCalendar cal = _date.getCalendar(Smax);
+        // 0. presolve: variables x_i_s fixed to zero are never created
+        MIPModel m = new MIPModel(N, Smax, computeLiveXVars(isHonorStudent), 
+                                  debug);
+        // 0.5 the cumulative "taken-by-term" variables, if requested, make
+        //     every precedence constraint below refer to a single variable
+        //     per course instead of one per term
+        if (getCumulativeVars()) {
+            m.addComment("0.5 cumulative y_i_s = y_i_s-1 + x_i_s definitions");
+            m.addCumulativeVars();
         }
-        // second, at least 4 level-5 courses must be passed before taking
-        // a level-6 course
-        prob.append("\\ 5b. L-6 constraints about L-5\n");
-        for (String l6cc : l6codes) {
-            Course l6crs = Course.getCourseByCode(l6cc);
-            int i = l6crs.getId();
-            for (int s=1; s<=Smax; s++) {
-                int ks = Course.isSummerTerm(s) ? 3 : 1;
-                prob.append("c"+ccount+": ");
-                ++ccount;
-                prob.append("4 x_"+i+"_"+s+" - ");
-                Iterator<String> l5codesit = l5codes.iterator();
-                while (l5codesit.hasNext()) {
-                    String js = l5codesit.next();
-                    Course l5crs = Course.getCourseByCode(js);
-                    int j = l5crs.getId();
-                    for (int t=0; t<=s-ks; t++) {
-                        prob.append("x_"+j+"_"+t);
-                        if (t<s-ks) prob.append(" - ");
-                        else {
-                            if (l5codesit.hasNext()) prob.append(" - ");
-                            else prob.append(" <= 0\n");
-                        }
-                    }
-                }
-            }
+        // the ids of the passed courses, for the group constraints below
+        final BitSet passed_ids = new BitSet(N);
+        Iterator<String> pit = _passed.getPassedCourseCodesIterator();
+        while (pit.hasNext()) {
+            final Course pc = _catalog.getCourseByCode(pit.next());
+            if (pc!=null) passed_ids.set(pc.getId());
         }
-        // done with LEVEL constraints
+        // 2. now set the constraints
+        // 2.1-2.4 the D and DL constraints, the class availability, the
+        //         prerequisite and co-requisite constraints, and the LEVEL
+        //         constraints do not depend on the student: they are copied
+        //         from the template the catalog keeps for the planning date
+        _catalog.getModelTemplate(_date, Smax).addTo(m);
         // 2.5 fifth, credit constraint
-        prob.append("\\ 6. total credit constraints\n");
+        m.addComment("6. total credit constraints");
         final int Tc = _params.getMinReqdTotalCredits();
-        prob.append("c"+ccount+": ");
-        ++ccount;
         for (int i=0; i<N; i++) {
-            final Course ci = Course.getCourseById(i);
-            final int credit_i = ci.getCredits();
-            prob.append(credit_i+" x_"+i);
-            if (i<N-1) prob.append(" + ");
-            else prob.append(" >= "+Tc+"\n");
-        }
-        // 2.6 sixth, LE constraint specifies the latest term number by which 
-        //     all LE course requirements must be met.
-        prob.append("\\ 6.5 LE upper term limit constraints\n");
-        CourseGroup legroup = CourseGroup.getCourseGroupByName("LE");
-        List<String> lecodes = legroup.getGroupCodes();
-        int maxleterm = _params.getMaxLETerm();
-        for (int s=maxleterm+1; s<=Smax; s++) {
-            for (String lecode : lecodes) {
-                Course lec = Course.getCourseByCode(lecode);
-                if (lec==null) {  // debug
-                    throw new IllegalArgumentException("course code "+lecode+
-                                                       " in LE group doesn't"+
-                                                       " exist...");
-                }
-                prob.append("c"+ccount+": "); ++ccount;
-                prob.append(" x_"+lec.getId()+"_"+s+" = 0\n");
-            }
+            final Course ci = _catalog.getCourseById(i);
+            m.addTerm(m.getXiVar(i), ci.getCredits());
         }
+        // the passed courses left out of the model count for their credits
+        m.endRow(MIPModel.GREATER_EQUAL, Tc-_creditOnlyCredits);
+        // 2.6 sixth, LE constraint specifies the latest term number by which
+        //     all LE course requirements must be met: the LE variables x_i_s
+        //     for the terms after it are eliminated by the presolve.
         // 2.7 seventh, semester credits constraint
-        prob.append("\\ 7. term credit constraints\n");
+        m.addComment("7. term credit constraints");
         final int max_sem_cr = _params.getCmax(isHonorStudent);
         final int max_summer_cr = _params.getSummerCmax(isHonorStudent);
         for (int s=1; s<=Smax; s++) {
-            if (Course.happensDuringSummer(s) && max_summer_cr>0) {
+            if (cal.happensDuringSummer(s) && max_summer_cr>0) {
                 // create constraint for all courses during summer months
                 // and skip the "normal" term credit constraint
-                prob.append("c"+ccount+": "); ++ccount;
                 int s2max = Math.min(Smax, s+2);
                 for (int s2=s; s2<=s2max; s2++) {
                     for (int i=0; i<N; i++) {
-                        int cicr = Course.getCourseById(i).getCredits();
-                        prob.append(cicr+" x_"+i+"_"+s2);
-                        if (i<N-1 || (i==N-1 && s2<s2max)) prob.append(" + ");
-                        else prob.append(" <= "+max_summer_cr+"\n");
+                        int cicr = _catalog.getCourseById(i).getCredits();
+                        m.addTerm(m.getXVar(i, s2), cicr);
                     }
                 }
+                m.endRow(MIPModel.LESS_EQUAL, max_summer_cr);
                 s = s2max;
             }
-            else if (!Course.happensDuringSummer(s)) {
+            else if (!cal.happensDuringSummer(s)) {
                 // the "normal" term credit constraint
-                prob.append("c"+ccount+": "); ++ccount;
                 for (int i=0; i<N; i++) {
-                    int cicr = Course.getCourseById(i).getCredits();
-                    prob.append(cicr+" x_"+i+"_"+s);
-                    if (i<N-1) prob.append(" + ");
-                    else prob.append(" <= "+max_sem_cr+"\n");
-                }
-            }
-        }
-        // semester max #courses constraint (freshman only)
-        if (_passed.size()<_params.getMinNumCourses4Sophomore()) {
-            // ignore this value if there is a specific value in the 
-            // outputs pane
-            String cons = numCoursesPerTrm2StrMap.get(1);
-            if (cons==null || cons.length()==0) { 
-                final int maxnumcoursesperterm = 
-                    _params.getMaxNumCoursesPerTerm4Freshmen();
-                final int maxterm = 1;  // constraint only applies to the 1st 
-                                        // upcoming term
-                prob.append("\\ 7.0 term #courses freshman constraints\n");
-                for (int s=1; s<=maxterm; s++) {
-                    prob.append("c"+ccount+": "); ++ccount;
-                    for (int i=0; i<N; i++) {
-                        prob.append(" x_"+i+"_"+s);
-                        if (i<N-1) prob.append(" + ");
-                        else prob.append(" <= "+maxnumcoursesperterm+"\n");
-                    }
-                }            
-            }
-        }
-        // semester max #courses constraint (student imposed)
-        prob.append("\\ 7.1 term #courses student desire constraints\n");
-        for (int s=1; s<=Smax; s++) {
-            // ignore this value if there is a specific value in the outputs 
-            // pane
-            String cons = numCoursesPerTrm2StrMap.get(1);
-            if (cons!=null && cons.length()>0) continue;             
-            prob.append("c"+ccount+": "); ++ccount;
-            for (int i=0; i<N; i++) {
-                prob.append(" x_"+i+"_"+s);
-                if (i<N-1) prob.append(" + ");
-                else prob.append(" <= "+maxNumCrsPerSem+"\n");
-            }
-        }
-        // add constraints for #courses on terms the student specified
-        Iterator<Integer> tit = numCoursesPerTrm2StrMap.keySet().iterator();
-        while (tit.hasNext()) {
-            int tno = tit.next();
-            String cons = numCoursesPerTrm2StrMap.get(tno);
-            if (cons==null || cons.length()==0) continue;
-            cons = cons.trim();
-            int numc = Integer.MIN_VALUE;
-            try {
-                numc = Integer.parseInt(cons);
-                cons = " = "+numc;
-            }
-            catch (NumberFormatException e) {
-                // ensure comparison operator and number have a space between
-                if (cons.matches("[<>]=[0-9]+")) {
-                    cons = cons.substring(0,2)+" "+cons.substring(2);
-                }
-                else if (cons.matches("[<>=][0-9]+")) {
-                    cons = cons.substring(0,1)+" "+cons.substring(1);
+                    int cicr = _catalog.getCourseById(i).getCredits();
+                    m.addTerm(m.getXVar(i, s), cicr);
                 }
-            }
-            // cannot send string as is to the constraint as strict inequalities
-            // "<" or ">" are not supported.
-            if (cons.startsWith("<") && !cons.startsWith("<=")) {
-                numc = Integer.parseInt(cons.substring(1));
-                cons = "<= " + (numc-1);
-            }
-            else if (cons.startsWith(">") && !cons.startsWith(">=")) {
-                numc = Integer.parseInt(cons.substring(1));
-                cons = ">= " + (numc+1);
-            }
-            prob.append("c"+ccount+": "); ++ccount;
-            for (int i=0; i<N; i++) {
-                prob.append(" x_"+i+"_"+tno);
-                if (i<N-1) prob.append(" + ");
-                else prob.append(" " + cons + "\n");
-            }
-        }
-        // thesis semester max #courses constraint (student imposed):
-        // Σ_{i!=θ} x_{i,s} <= σ x_{θ,s} + M(1-x_{θ,s})  forall s=1...Smax
-        --maxNumCrsDurThesis;
-        final int Mms = _params.getCmax(isHonorStudent) - maxNumCrsDurThesis;
-        Course thesis = Course.getCourseByCode(_params.getThesisCode());
-        int thesis_id = thesis.getId();
-        prob.append("\\ 7.2 THESIS term #courses student desire constraints\n");
-        for (int s=1; s<=Smax; s++) {
-            prob.append("c"+ccount+": "); ++ccount;
-            for (int i=0; i<N; i++) {
-                if (i!=thesis_id) prob.append(" x_"+i+"_"+s);
-                else prob.append(Mms + " x_"+i+"_"+s);
-                if (i<N-1) prob.append(" + ");
-                else prob.append(" <= "+_params.getCmax(isHonorStudent)+"\n");
+                m.endRow(MIPModel.LESS_EQUAL, max_sem_cr);
             }
         }
-        prob.append("\\ 7.5 summer max #concurrent-courses constraint\n");
+        m.addComment("7.5 summer max #concurrent-courses constraint");
         final int nmax = _params.getSummerConcNMax();
         for (int s=1; s<=Smax; s++) {
-            if (Course.happensDuringSummer(s) && nmax>=0 && s+2<=Smax) {
-                prob.append("c"+ccount+": "); ++ccount;
+            if (cal.happensDuringSummer(s) && nmax>=0 && s+2<=Smax) {
                 // create constraint for all courses during S1+ST
-                for (int i=0; i<N; i++) {
-                    prob.append("x_"+i+"_"+s+" + ");
-                }
                 int st = s+2;
                 for (int i=0; i<N; i++) {
-                    prob.append("x_"+i+"_"+st);
-                    if (i<N-1) prob.append(" + ");
-                    else prob.append(" <= "+nmax+"\n");
+                    m.addTerm(m.getXVar(i, s), 1);
+                    m.addTerm(m.getXVar(i, st), 1);
                 }
+                m.endRow(MIPModel.LESS_EQUAL, nmax);
                 // create constraint for all courses during S2+ST
                 int s2 = s+1;
-                prob.append("c"+ccount+": "); ++ccount;
-                for (int i=0; i<N; i++) {
-                    prob.append("x_"+i+"_"+s2+" + ");
-                }
                 for (int i=0; i<N; i++) {
-                    prob.append("x_"+i+"_"+st);
-                    if (i<N-1) prob.append(" + ");
-                    else prob.append(" <= "+nmax+"\n");
+                    m.addTerm(m.getXVar(i, s2), 1);
+                    m.addTerm(m.getXVar(i, st), 1);
                 }
+                m.endRow(MIPModel.LESS_EQUAL, nmax);
                 s += 2;
             }
         }
         // 2.8 eightth, x_i definition
-        prob.append("\\ 8. x_i variable constraints\n");
+        m.addComment("8. x_i variable constraints");
         for (int i=0; i<N; i++) {
-            prob.append("c"+ccount+": ");
-            ++ccount;
             for (int s=0; s<=Smax; s++) {
-                prob.append("x_"+i+"_"+s);
-                if (s<Smax) prob.append(" + ");
-                else prob.append(" - x_"+i+" = 0\n");
+                m.addTerm(m.getXVar(i, s), 1);
             }
+            m.addTerm(m.getXiVar(i), -1);
+            m.endRow(MIPModel.EQUAL, 0);
         }
         // 2.9 ninth, group credits and min num course definitions
         //     Notice that groups representing concentration areas are treated
         //     differently.
-        Iterator<String> gnamesit = CourseGroup.getCourseGroupNameIterator();
+        Iterator<String> gnamesit = _catalog.getCourseGroupNameIterator();
         while (gnamesit.hasNext()) {
             final String groupname = gnamesit.next();
-            final CourseGroup cg = CourseGroup.getCourseGroupByName(groupname);
+            final CourseGroup cg = _catalog.getCourseGroupByName(groupname);
             if (cg.isConcentrationArea()) continue;  // don't do anything here
             if (cg.isCapstoneProjectGroup()) continue;  // don't do anything now
             if (cg.isSoftOrderPrecedenceConstraint()) continue;  // same here
             if (cg.isOUConstraint()) continue;  // again!
-            prob.append("\\ group "+groupname+" constraints\n");
+            m.addComment("group "+groupname+" constraints");
             final int cgc = cg.getMinNumCreditsReqd();
             int cgn = cg.getMinNumCoursesReqd();
             if (cgn>=0) {
                 if (!cg.isCoursesReqdExact() && cgn>0) {  // normal constraint
-                    prob.append("c"+ccount+": ");
-                    ++ccount;
-                    List<String> crss = cg.getGroupCodes();
-                    Iterator<String> crss_it = crss.iterator();
-                    while (crss_it.hasNext()) {
-                        String crscode = crss_it.next();
-                        Course crs = Course.getCourseByCode(crscode);
-                        int crs_id = crs.getId();
-                        prob.append("x_"+crs_id);
-                        if (crss_it.hasNext()) prob.append(" + ");
-                        else prob.append(" >= "+cgn+"\n");
+                    for (int id : cg.getCourseIds()) {
+                        m.addTerm(m.getXiVar(id), 1);
                     }
+                    m.endRow(MIPModel.GREATER_EQUAL, cgn);
                 }
                 else if (cg.isCoursesReqdExact()) {  // XOR-type constraint
                     // remove from course-group every course that is already
-                    // passed, and for the remaining courses, make their sum 
+                    // passed, and for the remaining courses, make their sum
                     // equal to the remaining cgn_{+} number.
-                    Set<String> crss = new HashSet(cg.getGroupCodes());
-                    Iterator<String> crss_it = crss.iterator();
-                    while (crss_it.hasNext()) {
-                        String crscode = crss_it.next();
-                        if (_passed.contains(crscode)) { 
-                            crss_it.remove();
-                            --cgn; 
-                        }
-                    }
+                    BitSet crss = (BitSet) cg.getCourseIdSet().clone();
+                    final int ngrp = crss.cardinality();
+                    crss.andNot(passed_ids);
+                    cgn -= ngrp-crss.cardinality();
                     if (cgn<0) cgn = 0;
-                    if (crss.size()>0) {
+                    if (!crss.isEmpty()) {
                         // for the remaining courses in crss, act as original
-                        prob.append("c"+ccount+": ");
-                        ++ccount;
-                        crss_it = crss.iterator();
-                        while (crss_it.hasNext()) {
-                            String crscode = crss_it.next();
-                            Course crs = Course.getCourseByCode(crscode);
-                            // debug
-                            if (crs==null) {
-                                System.err.print("In group "+cg.getGroupName());
-                                System.err.println(": Course code "+crscode+
-                                                   " not found");
-                                throw new IllegalStateException("course miss");
-                            }
-                            int crs_id = crs.getId();
-                            prob.append("x_"+crs_id);
-                            if (crss_it.hasNext()) prob.append(" + ");
-                            else prob.append(" = "+cgn+"\n");
-                        }                        
+                        for (int id=crss.nextSetBit(0); id>=0; 
+                             id=crss.nextSetBit(id+1)) {
+                            m.addTerm(m.getXiVar(id), 1);
+                        }
+                        m.endRow(MIPModel.EQUAL, cgn);
                     }
                 }
                 else if (cg.isHoldsPerSemester()) {  // MAX-type constraint
                     // constraint holds for per every semester
-                    Set<String> crss = new HashSet(cg.getGroupCodes());
-                    int s2max = -1;
+                    final BitSet crss = cg.getCourseIdSet();
                     for (int s=1; s<=Smax; s++) {
-                        prob.append("c").append(ccount).append(": ");
-                        ++ccount;
-                        if (Course.happensDuringSummer(s)) {  
+                        if (cal.happensDuringSummer(s)) {
                             // this code assumes that s=1 is NEVER "S2" or "ST"
                             // terms.
-                            s2max = Math.min(Smax, s+2);
+                            int s2max = Math.min(Smax, s+2);
                             for (int s2=s; s2<=s2max; s2++) {
-                                Iterator<String> crss_it = crss.iterator();
-                                while (crss_it.hasNext()) {
-                                    String crs = crss_it.next();
-                                    Course c = Course.getCourseByCode(crs);
-                                    prob.append(" x_"+c.getId()+"_"+s);
-                                    if (!crss_it.hasNext() && s2==s2max) 
-                                        prob.append(" <= "+cgn+"\n");
-                                    else prob.append(" + ");
+                                for (int id=crss.nextSetBit(0); id>=0; 
+                                     id=crss.nextSetBit(id+1)) {
+                                    m.addTerm(m.getXVar(id, s2), 1);
                                 }
                             }
+                            m.endRow(MIPModel.LESS_EQUAL, cgn);
                             s = s2max;
                             continue;
                         }
-                        Iterator<String> crss_it = crss.iterator();
-                        while (crss_it.hasNext()) {
-                            String crs = crss_it.next();
-                            Course c = Course.getCourseByCode(crs);
-                            prob.append(" x_"+c.getId()+"_"+s);
-                            if (crss_it.hasNext()) prob.append(" + ");
-                            else prob.append(" <= "+cgn+"\n");
+                        for (int id=crss.nextSetBit(0); id>=0; 
+                             id=crss.nextSetBit(id+1)) {
+                            m.addTerm(m.getXVar(id, s), 1);
                         }
+                        m.endRow(MIPModel.LESS_EQUAL, cgn);
                     }
                 }
             }
             else {  // cgn < 0 implies constraint: x_i_1 +...+ x_j_Smax <= -cgn
                 cgn = -cgn;  // reverse sign
                 // remove from course-group every course that is already
-                // passed, and for the remaining courses, make their sum 
+                // passed, and for the remaining courses, make their sum
                 // less than or equal to the remaining cgn_{+} number.
-                Set<String> crss = new HashSet(cg.getGroupCodes());
-                Iterator<String> crss_it = crss.iterator();
-                while (crss_it.hasNext()) {
-                    String crscode = crss_it.next();
-                    if (_passed.contains(crscode)) { 
-                        crss_it.remove();
-                        --cgn; 
-                    }
-                }
+                BitSet crss = (BitSet) cg.getCourseIdSet().clone();
+                final int ngrp = crss.cardinality();
+                crss.andNot(passed_ids);
+                cgn -= ngrp-crss.cardinality();
                 if (cgn<0) cgn = 0;
-                if (!cg.isCoursesReqdExact() && !cg.isHoldsPerSemester() && 
+                if (!cg.isCoursesReqdExact() && !cg.isHoldsPerSemester() &&
                     cgn>0) {  // constraint asks for a maximum to be respected
-                    prob.append("c"+ccount+": ");
-                    ++ccount;
-                    crss_it = crss.iterator();
-                    while (crss_it.hasNext()) {
-                        String crscode = crss_it.next();
-                        Course crs = Course.getCourseByCode(crscode);
-                        int crs_id = crs.getId();
-                        prob.append("x_"+crs_id);
-                        if (crss_it.hasNext()) prob.append(" + ");
-                        else prob.append(" <= "+cgn+"\n");
+                    for (int id=crss.nextSetBit(0); id>=0; 
+                         id=crss.nextSetBit(id+1)) {
+                        m.addTerm(m.getXiVar(id), 1);
                     }
+                    m.endRow(MIPModel.LESS_EQUAL, cgn);
                 }
             }
             if (cgc>0) {
-                prob.append("c"+ccount+": ");
-                ++ccount;
-                List<String> crss = cg.getGroupCodes();
-                Iterator<String> crss_it = crss.iterator();
-                while (crss_it.hasNext()) {
-                    String crscode = crss_it.next();
-                    Course crs = Course.getCourseByCode(crscode);
-                    if (crs==null) {
-                        throw new IllegalStateException("for group constraint "+
-                                                        groupname+" course "+
-                                                        crscode+" not found");
-                    }
-                    int crs_id = crs.getId();
-                    int crs_cr = crs.getCredits();
-                    prob.append(crs_cr+" x_"+crs_id);
-                    if (crss_it.hasNext()) prob.append(" + ");
-                    else prob.append(" >= "+cgc+"\n");
-                }                
+                for (int id : cg.getCourseIds()) {
+                    m.addTerm(m.getXiVar(id), 
+                              _catalog.getCourseById(id).getCredits());
+                }
+                m.endRow(MIPModel.GREATER_EQUAL, cgc);
             }
             // #different disciplines constraint
             final int mnd = cg.getMinNumDisciplines();
             if (mnd>1) {
-                List<String> crss = cg.getGroupCodes();
-                HashMap<String, List<String>> discMap = new HashMap<>();
-                for (String cc : crss) {
-                    String disc_code = Course.getProgramCode(cc);
-                    discVarNames.add("w_"+disc_code);
+                HashMap<String, List<Integer>> discMap = new HashMap<>();
+                for (int id : cg.getCourseIds()) {
+                    String disc_code = 
+                        Course.getProgramCode(_catalog.getCourseById(id).
+                                                getCode());
                     if (!discMap.containsKey(disc_code)) {
-                        discMap.put(disc_code, new ArrayList<String>());
+                        discMap.put(disc_code, new ArrayList<Integer>());
                     }
-                    List<String> disc_courses = discMap.get(disc_code);
-                    disc_courses.add(cc);
+                    List<Integer> disc_courses = discMap.get(disc_code);
+                    disc_courses.add(id);
                 }
-                // now that we have all our disciplines, let's write the 
+                // now that we have all our disciplines, let's write the
                 // constraints. Basically, we need one binary variable for each
-                // discipline that is one if there is at least one course from 
-                // that discipline, and zero otherwise, and we need to set the 
-                // sum of these binary variables to being greater than the value 
+                // discipline that is one if there is at least one course from
+                // that discipline, and zero otherwise, and we need to set the
+                // sum of these binary variables to being greater than the value
                 // mnd above.
-                Iterator<String> disc_it = discMap.keySet().iterator();
-                while (disc_it.hasNext()) {
-                    String disc = disc_it.next();
-                    prob.append("c"+ccount+": ");
-                    ++ccount;
-                    List<String> disc_crss = discMap.get(disc);
+                for (String disc : discMap.keySet()) {
+                    final int w = m.getOrAddBinaryVar("w_"+disc);
+                    List<Integer> disc_crss = discMap.get(disc);
                     final int n = disc_crss.size();
-                    for (int i=0; i<n; i++) {
-                        String crs = disc_crss.get(i);
-                        Course c = Course.getCourseByCode(crs);
-                        prob.append("x_"+c.getId()+" ");
-                        if (i<disc_crss.size()-1) prob.append(" + ");
-                        else prob.append(" - "+n+" w_"+disc+" <= 0\n");
+                    for (int id : disc_crss) {
+                        m.addTerm(m.getXiVar(id), 1);
                     }
-                    prob.append("c"+ccount+": ");
-                    ++ccount;
-                    for (int i=0; i<n; i++) {
-                        String crs = disc_crss.get(i);
-                        Course c = Course.getCourseByCode(crs);
-                        prob.append("x_"+c.getId());
-                        if (i<disc_crss.size()-1) prob.append(" + ");
-                        else prob.append(" - "+" w_"+disc+" >= 0\n");
-                    }                    
+                    m.addTerm(w, -n);
+                    m.endRow(MIPModel.LESS_EQUAL, 0);
+                    for (int id : disc_crss) {
+                        m.addTerm(m.getXiVar(id), 1);
+                    }
+                    m.addTerm(w, -1);
+                    m.endRow(MIPModel.GREATER_EQUAL, 0);
                 }
                 // finally, the sum of the binary vars must be greater than mnd
-                prob.append("c"+ccount+": ");
-                ++ccount;
-                disc_it = discMap.keySet().iterator();
-                while (disc_it.hasNext()) {
-                    String d = disc_it.next();
-                    prob.append("w_"+d);
-                    if (disc_it.hasNext()) prob.append(" + ");
-                    else prob.append(" >= "+mnd+"\n");
-                }  
+                for (String d : discMap.keySet()) {
+                    m.addTerm(m.getOrAddBinaryVar("w_"+d), 1);
+                }
+                m.endRow(MIPModel.GREATER_EQUAL, mnd);
             }
         }
-        // 2.10 tenth, the passed courses
-        prob.append("\\ passed courses constraints\n");
+        // 2.10 tenth, the passed courses are fixed to one in term 0 (the
+        //      other x_i_0 are eliminated by the presolve)
         Iterator<String> passed_it = _passed.getPassedCourseCodesIterator();
         while (passed_it.hasNext()) {
             String pcode = passed_it.next();
-            prob.append("c"+ccount+": ");
-            ++ccount;
-            Course pc = Course.getCourseByCode(pcode);
-            int id = pc.getId();
-            prob.append("x_"+id+"_0 = 1\n");
-        }
-        prob.append("\\ forbid other x_i_0 <- 1 constraints\n");
-        for (int i=0; i<N; i++) {
-            Course ci = Course.getCourseById(i);
-            String ic = ci.getCode();
-            if (!passed.contains(ic)) {
-                prob.append("c"+ccount+": "); ++ccount;
-                prob.append("x_"+i+"_0 = 0\n");
-            }
-        }
-        // 2.11 eleventh, the desired courses
-        prob.append("\\ desired courses constraints\n");
-        Iterator<String> desired_it = _desired.getDesiredCourseCodesIterator();
-        while (desired_it.hasNext()) {
-            String dcode = desired_it.next();
-            Course dc = Course.getCourseByCode(dcode);
-            int cid = dc.getId();
-            int curTrm = 0;
-            if (_cid2tnoMap!=null) curTrm = _cid2tnoMap.getOrDefault(cid, 0);
-            Set<Integer> allowed_terms = _desired.getAllowedTerms4Course(dcode, 
-                                                                         curTrm,
-                                                                         Smax);
-            if (allowed_terms.size()==Smax) {  // all terms allowed
-                prob.append("c"+ccount+": ");
-                ++ccount;
-                int id = dc.getId();
-                prob.append("x_"+id+" = 1\n");
-            }
-            else if (allowed_terms.size()==0) {  // course is "disallowed"
-                prob.append("c"+ccount+": ");
-                ++ccount;
-                int id = dc.getId();
-                prob.append("x_"+id+" = 0\n");                
-            } 
-            else {  // to only allow course on the specified terms, disallow
-                    // every term not specified, and request x_id = 1
-                final int id = dc.getId();
-                prob.append("c"+ccount+": ");
-                ++ccount;
-                prob.append("x_"+id+" = 1\n"); 
-                // disallow not allowed semesters
-                for (int i=1; i<=Smax; i++) {
-                    if (!allowed_terms.contains(i)) {
-                        prob.append("c"+ccount+": "); ++ccount;
-                        prob.append("x_"+id+"_"+i+" = 0\n");
-                    }
-                }
-            }
-        }
-        // 2.12 twelfth, summer-terms off constraints
-        prob.append("\\ summer terms off constraints\n");
-        if (s1off) {
-            for (int s=1; s<=Smax; s++) {
-                if (Course.isSummerTerm(s+2)) {
-                    for (int i=0; i<N; i++) {
-                        prob.append("c").append(ccount).append(": ").
-                            append("x_").append(i).append("_").append(s).
-                                append(" = 0\n");
-                        ++ccount;
-                    }
-                }
-            }
-        }
-        if (s2off) {
-            for (int s=1; s<=Smax; s++) {
-                if (Course.isSummerTerm(s+1)) {
-                    for (int i=0; i<N; i++) {
-                        prob.append("c").append(ccount).append(": ").
-                            append("x_").append(i).append("_").append(s).
-                                append(" = 0\n");
-                        ++ccount;
-                    }
-                }
-            }
+            Course pc = _catalog.getCourseByCode(pcode);
+            if (_creditOnlyPassed.get(pc.getId())) continue;  // not in model
+            m.setBounds(m.getXVar(pc.getId(), 0), 1, 1);
         }
-        if (stoff) {
-            for (int s=1; s<=Smax; s++) {
-                if (Course.isSummerTerm(s)) {
-                    for (int i=0; i<N; i++) {
-                        prob.append("c").append(ccount).append(": ").
-                            append("x_").append(i).append("_").append(s).
-                                append(" = 0\n");
-                        ++ccount;
-                    }
-                }
-            }
-        }
-        // 2.13 thirteenth, the concentration area constraints can be split in 
-        //      more than one CourseGroup, all starting with the same name -in 
-        //      particular, the name of the "concentration" argument of the 
+        // 2.13 thirteenth, the concentration area constraints can be split in
+        //      more than one CourseGroup, all starting with the same name -in
+        //      particular, the name of the "concentration" argument of the
         //      method.
-        prob.append("\\ concentration "+concentration+" area constraints\n");
-        Iterator<String> conc_groups = CourseGroup.getCourseGroupNameIterator();
+        m.addComment("concentration "+concentration+" area constraints");
+        Iterator<String> conc_groups = _catalog.getCourseGroupNameIterator();
         while (conc_groups.hasNext()) {
             String conc_name = conc_groups.next();
             if (conc_name.startsWith(concentration)) {  // enforce constraint
-                CourseGroup ccg = CourseGroup.getCourseGroupByName(conc_name);
+                CourseGroup ccg = _catalog.getCourseGroupByName(conc_name);
                 if (!ccg.isConcentrationArea()) continue;  // bad name choice
                 int cgn = ccg.getMinNumCoursesReqd();
                 if (cgn>0) {
-                    List<String> ccodes = ccg.getGroupCodes();
-                    prob.append("c"+ccount+": "); ++ccount;
-                    Iterator<String> codes_it = ccodes.iterator();
-                    while (codes_it.hasNext()) {
-                        String code = codes_it.next();
-                        Course cc = Course.getCourseByCode(code);
-                        prob.append(" x_"+cc.getId()+" ");
-                        if (codes_it.hasNext()) prob.append("+ ");
-                        else prob.append(">= "+cgn+"\n");
+                    for (int id : ccg.getCourseIds()) {
+                        m.addTerm(m.getXiVar(id), 1);
                     }
+                    m.endRow(MIPModel.GREATER_EQUAL, cgn);
                 }
                 int cgc = ccg.getMinNumCreditsReqd();
                 if (cgc>0) {
-                    List<String> ccodes = ccg.getGroupCodes();
-                    prob.append("c"+ccount+": "); ++ccount;
-                    Iterator<String> codes_it = ccodes.iterator();
-                    while (codes_it.hasNext()) {
-                        String code = codes_it.next();
-                        Course cc = Course.getCourseByCode(code);
-                        prob.append(cc.getCredits()+" x_"+cc.getId()+" ");
-                        if (codes_it.hasNext()) prob.append("+ ");
-                        else prob.append(">= "+cgc+"\n");
-                    }                    
+                    for (int id : ccg.getCourseIds()) {
+                        m.addTerm(m.getXiVar(id), 
+                                  _catalog.getCourseById(id).getCredits());
+                    }
+                    m.endRow(MIPModel.GREATER_EQUAL, cgc);
                 }
             }
         }
         // 2.14 fourteenth, the capstone project group constraints
-        prob.append("\\ capstone project constraints\n");
-        gnamesit = CourseGroup.getCourseGroupNameIterator();
+        m.addComment("capstone project constraints");
+        gnamesit = _catalog.getCourseGroupNameIterator();
         while (gnamesit.hasNext()) {
             String gname = gnamesit.next();
-            CourseGroup cg = CourseGroup.getCourseGroupByName(gname);
+            CourseGroup cg = _catalog.getCourseGroupByName(gname);
             if (cg.isCapstoneProjectGroup()) {
+                final int cid = cg.getCourseIds()[0];
                 // first the total credits constraint for the capstone project
                 final int ncredits = cg.getMinNumCreditsReqd();
                 for (int s=1; s<=Smax; s++) {
-                    final int ks = Course.isSummerTerm(s) ? 3 : 1;
-                    if (s-ks<0) continue;
-                    prob.append("c").append(ccount).append(": ").
-                        append(ncredits).append(" x_");
-                    ++ccount;
-                    final Course c = Course.getCourseByCode(cg.getGroupCodes().
-                                                             iterator().next());
-                    final int cid = c.getId();
-                    prob.append(cid);
-                    prob.append("_").append(s).append(" - ");
-                    for (int t=0; t<=s-ks; t++) {
-                        for (int j=0; j<N; j++) {
-                            if (j==cid) continue;
-                            Course cj = Course.getCourseById(j);
-                            prob.append(cj.getCredits()).
-                                  append(" x_").append(j).append("_").append(t);
-                        }
-                        if (t<s-ks) prob.append(" - ");
-                        else prob.append(" <= 0\n");
+                    final int ks = cal.isSummerTerm(s) ? 3 : 1;
+                    if (s-ks<0 || m.getXVar(cid, s)<0) continue;
+                    m.addTerm(m.getXVar(cid, s), ncredits);
+                    for (int j=0; j<N; j++) {
+                        if (j==cid) continue;
+                        Course cj = _catalog.getCourseById(j);
+                        m.addTakenByTerms(j, s-ks, -cj.getCredits());
                     }
+                    m.endRow(MIPModel.LESS_EQUAL, _creditOnlyCredits);
                 }
-                // finally, the min number of concentration area courses 
+                // finally, the min number of concentration area courses
                 // constraint for the capstone project
                 final int ncourses = cg.getMinNumCoursesReqd();
-                Set<String> conc_courses = new HashSet<>();
-                Iterator<String> groups_it = 
-                        CourseGroup.getCourseGroupNameIterator();
+                BitSet conc_courses = new BitSet(N);
+                Iterator<String> groups_it =
+                        _catalog.getCourseGroupNameIterator();
                 while (groups_it.hasNext()) {
                   String gs_name = groups_it.next();
                   if (gs_name.startsWith(concentration)) {
-                      CourseGroup cg2 = 
-                              CourseGroup.getCourseGroupByName(gs_name);
-                      conc_courses.addAll(cg2.getGroupCodes());
+                      CourseGroup cg2 =
+                              _catalog.getCourseGroupByName(gs_name);
+                      conc_courses.or(cg2.getCourseIdSet());
                   }
                 }
                 for (int s=1; s<=Smax; s++) {
-                    final int ks = Course.isSummerTerm(s) ? 3 : 1;
-                    if (s-ks<0) continue;
-                    prob.append("c").append(ccount).append(": ").
-                        append(ncourses).append(" x_");
-                    ++ccount;
-                    final Course c = Course.getCourseByCode(cg.getGroupCodes().
-                                                             iterator().next());
-                    final int cid = c.getId();
-                    prob.append(cid);
-                    prob.append("_").append(s).append(" - ");
-                    for (int t=0; t<=s-ks; t++) {
-                        Iterator<String> cs_it = 
-                                conc_courses.iterator();
-                        while(cs_it.hasNext()) {
-                            String cs = cs_it.next();
-                            Course cc = Course.getCourseByCode(cs);
-                            final int j = cc.getId();
-                            if (j==cid) continue;
-                            prob.append(" x_").append(j).append("_").append(t);
-                            if (cs_it.hasNext() || t<s-ks) prob.append(" - ");
-                            else prob.append(" <= 0\n");
-                        }
+                    final int ks = cal.isSummerTerm(s) ? 3 : 1;
+                    if (s-ks<0 || m.getXVar(cid, s)<0) continue;
+                    m.addTerm(m.getXVar(cid, s), ncourses);
+                    for (int j=conc_courses.nextSetBit(0); j>=0; 
+                         j=conc_courses.nextSetBit(j+1)) {
+                        if (j==cid) continue;
+                        m.addTakenByTerms(j, s-ks, -1);
                     }
+                    m.endRow(MIPModel.LESS_EQUAL, 0);
                 }
             }
         }
         // 2.15 fifteenth, the soft-order precedence constraints
-        // notice that we don't enforce the "summer-term peculiarity" 
+        // notice that we don't enforce the "summer-term peculiarity"
         // that would normally ask for course cj not to be taken during
         // ST if ci was taken on S1 or S2 of the same year, as it doesn't
         // appear to be significant to impose this as well.
-        // Notice that for soft-order constraints, the number cn of minimum 
+        // Notice that for soft-order constraints, the number cn of minimum
         // courses has the meaning that it is the maximum distance in terms
-        // between ci and cj, so that if student takes both courses and 
+        // between ci and cj, so that if student takes both courses and
         // takes ci in term t, they must take course cj by t + cn
         // In case the student has already taken course ci (in term t=0),
         // the constraint becomes simply inactive.
-        prob.append("\\ soft-order precedence constraints\n");
-        gnamesit = CourseGroup.getCourseGroupNameIterator();
+        m.addComment("soft-order precedence constraints");
+        gnamesit = _catalog.getCourseGroupNameIterator();
         while (gnamesit.hasNext()) {
             String gname = gnamesit.next();
-            CourseGroup cg = CourseGroup.getCourseGroupByName(gname);
+            CourseGroup cg = _catalog.getCourseGroupByName(gname);
             if (cg.isSoftOrderPrecedenceConstraint()) {
-                prob.append("\\ soft-order constraint: "+gname+"\n");
-                List<String> codes = cg.getGroupCodes();
+                m.addComment("soft-order constraint: "+gname);
+                final int[] ids = cg.getCourseIds();
                 final int cn = cg.getMinNumCoursesReqd();
-                Course ci = Course.getCourseByCode(codes.get(0));
-                Course cj = Course.getCourseByCode(codes.get(1));
+                final int ci = ids[0];
+                final int cj = ids[1];
                 for (int s=1; s<=Smax; s++) {
+                    // the row is redundant if cj cannot be taken in term s
+                    if (m.getXVar(cj, s)<0) continue;
                     int cn2 = cn;
                     if (cn==0) cn2 = s;  // if cn is zero, there is no limit
-                                         // in the time-distance between the 
+                                         // in the time-distance between the
                                          // two courses
-                    prob.append("c"+ccount+": "); ++ccount;
-                    prob.append("x_"+cj.getId()+"_"+s+" ");
+                    m.addTerm(m.getXVar(cj, s), 1);
                     final int s0 = Math.max(0, s-cn2);
                     for (int t=s0; t<=s-1; t++) {
-                        prob.append(" - x_"+ci.getId()+"_"+t);
+                        m.addTerm(m.getXVar(ci, t), -1);
                     }
-                    prob.append(" + x_"+ci.getId());
-                    prob.append(" <= 1\n");
+                    m.addTerm(m.getXiVar(ci), 1);
+                    m.endRow(MIPModel.LESS_EQUAL, 1);
                 }
             }
         }
-        // 2.16 sixteenth, the OU constraints that ask for an upper limit of 
+        // 2.16 sixteenth, the OU constraints that ask for an upper limit of
         // OU courses taken every academic year (starting on a Fall term.)
-        prob.append("\\ OU max #courses per academic year constraint\n");
-        gnamesit = CourseGroup.getCourseGroupNameIterator();
+        m.addComment("OU max #courses per academic year constraint");
+        gnamesit = _catalog.getCourseGroupNameIterator();
         while (gnamesit.hasNext()) {
             String gname = gnamesit.next();
-            CourseGroup cg = CourseGroup.getCourseGroupByName(gname);
+            CourseGroup cg = _catalog.getCourseGroupByName(gname);
             if (cg.isOUConstraint()) {
-                List<String> codes = cg.getGroupCodes();
+                final int[] ids = cg.getCourseIds();
                 int cnmax = cg.getMinNumCoursesReqd();  // this is a max value
                 for (int s=1; s<=Smax; s++) {
-                    if (Course.isFallTerm(s)) {
-                        // for the min(s+4,Smax) terms, OU courses must be 
+                    if (cal.isFallTerm(s)) {
+                        // for the min(s+4,Smax) terms, OU courses must be
                         // no more than cnmax
                         int s_up_to = Math.min(s+4, Smax);
-                        prob.append("c"+ccount+": "); ++ccount;
                         for (int s2 = s; s2<=s_up_to; s2++) {
-                            for (int j=0; j<codes.size(); j++) {
-                                Course c = Course.getCourseByCode(codes.get(j));
-                                int cid = c.getId();
-                                prob.append("x_"+cid+"_"+s2+" ");
-                                if (j<codes.size()-1 || s2<s_up_to)
-                                    prob.append(" + ");
+                            for (int id : ids) {
+                                m.addTerm(m.getXVar(id, s2), 1);
                             }
                         }
-                        prob.append(" <= "+cnmax+"\n");
+                        m.endRow(MIPModel.LESS_EQUAL, cnmax);
                     }
                     else if (s==1) {  // constraints for current academic year
                         int cnmax2 = cnmax - num_OU_cur_academic_year;
-                        int s_next_ST = Course.nextFallTerm(s)-1;
-                        prob.append("c"+ccount+": "); ++ccount;
+                        int s_next_ST = cal.nextFallTerm(s)-1;
                         for (int s2 = s; s2<=s_next_ST; s2++) {
-                            for (int j=0; j<codes.size(); j++) {
-                                Course c = Course.getCourseByCode(codes.get(j));
-                                int cid = c.getId();
-                                prob.append("x_"+cid+"_"+s2+" ");
-                                if (j<codes.size()-1 || s2<s_next_ST)
-                                    prob.append(" + ");
+                            for (int id : ids) {
+                                m.addTerm(m.getXVar(id, s2), 1);
                             }
                         }
-                        prob.append(" <= "+cnmax2+"\n");                        
+                        m.endRow(MIPModel.LESS_EQUAL, cnmax2);
                     }
                 }
             }
-        }        
-        // 2.17 seventeenth, the honor-student constraints -only for non-honor 
-        //      students
+        }
+        // 2.17 seventeenth, the honor-student constraints -only for non-honor
+        //      students: the honor courses are fixed to zero (their x_i_s
+        //      variables are eliminated by the presolve)
         if (!isHonorStudent) {
-            CourseGroup honor_cg = 
-                    CourseGroup.getCourseGroupByName("HonorGroup");
+            CourseGroup honor_cg =
+                    _catalog.getCourseGroupByName("HonorGroup");
             if (honor_cg!=null) {
-                prob.append("\\ Honor Course constraints\n");
-                Iterator<String> cs_it = honor_cg.getGroupCodes().iterator();
-                while (cs_it.hasNext()) {
-                    String cs = cs_it.next();
-                    if (_passed.contains(cs)) continue;  // somehow, course has
-                                                         // been passed already
-                    Course ci = Course.getCourseByCode(cs);
-                    prob.append("x_"+ci.getId()+" = 0\n");
+                for (int id : honor_cg.getCourseIds()) {
+                    if (passed_ids.get(id)) continue;  // somehow, course has
+                                                       // been passed already
+                    m.setBounds(m.getXiVar(id), 0, 0);
                 }
             }
         }
-        // 2.18 eightteenth, the variable constraints
-        prob.append("Binary\n");
+        // 2.18 eightteenth, the variable types are already set in the model:
+        //      all x variables as well as the discipline variables w are
+        //      binary; variables "D" and "DL" are continuous.
+        return m;
+    }
+
+
+    /**
+     * the presolve of <CODE>createMIPModel()</CODE>: finds the variables
+     * x_{i,s} that may be 1 in some feasible schedule, so that the variables
+     * fixed to zero are never created (see <CODE>MIPModel</CODE>), nor are the
+     * constraints that would fix them. Variable x_{i,s} is eliminated if
+     * <ul>
+     * <li>s=0 and course i is not passed, or s&gt;0 and course i is passed
+     * (as x_i = Σ_s x_{i,s} is binary),
+     * <li>course i is not offered in term s,
+     * <li>course i is in group "HonorGroup" and the student is not an honors
+     * student (unless the course is passed),
+     * <li>course i is in group "LE" and s is after term "MaxLETerm".
+     * </ul>
+     * The disallowed terms of the desired courses are the student's 
+     * preferences, and are fixed by bounds instead, so that the base of the
+     * model is re-usable (see <CODE>createMIPModel()</CODE>). The passed 
+     * courses must already be in <CODE>_passed</CODE>.
+     * @param isHonorStudent boolean
+     * @return BitSet bit i*(Smax+1)+s is set iff x_{i,s} is not eliminated
+     */
+    private BitSet computeLiveXVars(boolean isHonorStudent) {
+        final int N = _catalog.getNumCourses();
+        final int Smax = _params.getSmax();
+        final OfferedTerms offered = _catalog.getOfferedTerms(_date, Smax);
+        int[] lastTerm = new int[N];  // the last term course i may be taken
+        Arrays.fill(lastTerm, Smax);
+        final int maxleterm = Math.max(0, _params.getMaxLETerm());
+        for (int id : _catalog.getCourseGroupByName("LE").getCourseIds()) {
+            lastTerm[id] = Math.min(Smax, maxleterm);
+        }
+        if (!isHonorStudent) {
+            CourseGroup honor_cg = _catalog.getCourseGroupByName("HonorGroup");
+            if (honor_cg!=null) {
+                for (int id : honor_cg.getCourseIds()) {
+                    lastTerm[id] = 0;
+                }
+            }
+        }
+        BitSet live = new BitSet(N*(Smax+1));
         for (int i=0; i<N; i++) {
-            prob.append("x_"+i+" ");
+            final int pos = i*(Smax+1);
+            if (_creditOnlyPassed.get(i)) continue;  // left out of the model
+            if (_passed.contains(_catalog.getCourseById(i).getCode())) {
+                live.set(pos);
+                continue;
+            }
+            for (int s=1; s<=lastTerm[i]; s++) {
+                if (offered.isOffered(i, s)) live.set(pos+s);
+            }
+        }
+        return live;
+    }
+
+
+    /**
+     * adds to the model the constraints that depend on the preferences of the
+     * student, ie the constraints on the number of courses per term, the
+     * desired courses, and the summer terms off (see 
+     * <CODE>createMIPModel()</CODE> for the arguments). The desired courses
+     * and the summer terms off only fix variables, and are therefore set as
+     * variable bounds rather than rows.
+     * @param m MIPModel
+     * @param isHonorStudent boolean
+     * @param maxNumCrsPerSem int
+     * @param maxNumCrsDurThesis int
+     * @param s1off boolean
+     * @param s2off boolean
+     * @param stoff boolean
+     * @param numCoursesPerTrm2StrMap Map&lt;Integer tno, String constr&gt;
+     */
+    private void addPreferenceConstraints(MIPModel m, boolean isHonorStudent,
+                                   int maxNumCrsPerSem, int maxNumCrsDurThesis,
+                                   boolean s1off, boolean s2off, boolean stoff,
+                                   Map<Integer, String> numCoursesPerTrm2StrMap)
+    {
+        final int N = _catalog.getNumCourses();
+        final int Smax = _params.getSmax();
+        final TermCalendar cal = _date.getCalendar(Smax);
+        // semester max #courses constraint (freshman only)
+        if (_passed.size()<_params.getMinNumCourses4Sophomore()) {
+            // ignore this value if there is a specific value in the
+            // outputs pane
+            String cons = numCoursesPerTrm2StrMap.get(1);
+            if (cons==null || cons.length()==0) {
+                final int maxnumcoursesperterm =
+                    _params.getMaxNumCoursesPerTerm4Freshmen();
+                final int maxterm = 1;  // constraint only applies to the 1st
+                                        // upcoming term
+                m.addComment("7.0 term #courses freshman constraints");
+                for (int s=1; s<=maxterm; s++) {
+                    for (int i=0; i<N; i++) {
+                        m.addTerm(m.getXVar(i, s), 1);
+                    }
+                    m.endRow(MIPModel.LESS_EQUAL, maxnumcoursesperterm);
+                }
+            }
+        }
+        // semester max #courses constraint (student imposed)
+        m.addComment("7.1 term #courses student desire constraints");
+        for (int s=1; s<=Smax; s++) {
+            // ignore this value if there is a specific value in the outputs
+            // pane
+            String cons = numCoursesPerTrm2StrMap.get(1);
+            if (cons!=null && cons.length()>0) continue;
+            for (int i=0; i<N; i++) {
+                m.addTerm(m.getXVar(i, s), 1);
+            }
+            m.endRow(MIPModel.LESS_EQUAL, maxNumCrsPerSem);
+        }
+        // add constraints for #courses on terms the student specified
+        Iterator<Integer> tit = numCoursesPerTrm2StrMap.keySet().iterator();
+        while (tit.hasNext()) {
+            int tno = tit.next();
+            String cons = numCoursesPerTrm2StrMap.get(tno);
+            if (cons==null || cons.trim().length()==0) continue;
+            if (tno<1 || tno>Smax) continue;  // no such term in the model
+            cons = cons.replace(" ", "");
+            // strict inequalities "<" or ">" are not supported by MIP solvers,
+            // so they are converted to the equivalent "<=" or ">=" ones.
+            char sense = MIPModel.EQUAL;
+            int numc;
+            try {
+                if (cons.startsWith("<=") || cons.startsWith(">=")) {
+                    sense = cons.charAt(0);
+                    numc = Integer.parseInt(cons.substring(2));
+                }
+                else if (cons.startsWith("<")) {
+                    sense = MIPModel.LESS_EQUAL;
+                    numc = Integer.parseInt(cons.substring(1)) - 1;
+                }
+                else if (cons.startsWith(">")) {
+                    sense = MIPModel.GREATER_EQUAL;
+                    numc = Integer.parseInt(cons.substring(1)) + 1;
+                }
+                else if (cons.startsWith("=")) {
+                    numc = Integer.parseInt(cons.substring(1));
+                }
+                else numc = Integer.parseInt(cons);
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException("cannot parse #courses "+
+                                                   "constraint '"+cons+
+                                                   "' for term "+tno);
+            }
+            for (int i=0; i<N; i++) {
+                m.addTerm(m.getXVar(i, tno), 1);
+            }
+            m.endRow(sense, numc);
+        }
+        // thesis semester max #courses constraint (student imposed):
+        // Σ_{i!=θ} x_{i,s} <= σ x_{θ,s} + M(1-x_{θ,s})  forall s=1...Smax
+        --maxNumCrsDurThesis;
+        final int Mms = _params.getCmax(isHonorStudent) - maxNumCrsDurThesis;
+        Course thesis = _catalog.getCourseByCode(_params.getThesisCode());
+        int thesis_id = thesis.getId();
+        m.addComment("7.2 THESIS term #courses student desire constraints");
+        for (int s=1; s<=Smax; s++) {
+            for (int i=0; i<N; i++) {
+                if (i!=thesis_id) m.addTerm(m.getXVar(i, s), 1);
+                else m.addTerm(m.getXVar(i, s), Mms);
+            }
+            m.endRow(MIPModel.LESS_EQUAL, _params.getCmax(isHonorStudent));
+        }
+        // 2.11 eleventh, the desired courses
+        m.addComment("desired courses constraints");
+        TreeMap<String, Set<Integer>> desired_terms = new TreeMap<>();
+        Iterator<String> desired_it = _desired.getDesiredCourseCodesIterator();
+        while (desired_it.hasNext()) {
+            String dcode = desired_it.next();
+            Course dc = _catalog.getCourseByCode(dcode);
+            final int id = dc.getId();
+            int curTrm = 0;
+            if (_cid2tnoMap!=null) curTrm = _cid2tnoMap.getOrDefault(id, 0);
+            Set<Integer> allowed_terms = _desired.getAllowedTerms4Course(dcode,
+                                                                         curTrm,
+                                                                         Smax,
+                                                                         _date);
+            desired_terms.put(dcode, new TreeSet<>(allowed_terms));
+            if (allowed_terms.size()==Smax) {  // all terms allowed
+                fixVariable(m, m.getXiVar(id), 1);
+            }
+            else if (allowed_terms.size()==0) {  // course is "disallowed"
+                fixVariable(m, m.getXiVar(id), 0);
+            }
+            else {  // to only allow course on the specified terms, disallow
+                    // every term not specified, and request x_id = 1
+                fixVariable(m, m.getXiVar(id), 1);
+                // disallow not allowed semesters
+                for (int i=1; i<=Smax; i++) {
+                    if (!allowed_terms.contains(i)) {
+                        fixVariable(m, m.getXVar(id, i), 0);
+                    }
+                }
+            }
+        }
+        _desiredKey = desired_terms.toString();
+        // 2.12 twelfth, summer-terms off constraints
+        m.addComment("summer terms off constraints");
+        for (int s=1; s<=Smax; s++) {
+            if ((s1off && cal.isSummerTerm(s+2)) ||
+                (s2off && cal.isSummerTerm(s+1)) ||
+                (stoff && cal.isSummerTerm(s))) {
+                for (int i=0; i<N; i++) {
+                    fixVariable(m, m.getXVar(i, s), 0);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * fixes the given variable to the given value by setting its bounds, 
+     * unless its bounds already exclude the value (or the variable was
+     * eliminated), in which case the (then infeasible) row var = val is added
+     * instead.
+     * @param m MIPModel
+     * @param var int
+     * @param val double
+     */
+    private static void fixVariable(MIPModel m, int var, double val) {
+        if (var<0) {  // an eliminated variable, already fixed to zero
+            if (val!=0.0) m.endRow(MIPModel.EQUAL, val);  // ie 0 = val
+            return;
+        }
+        if (val<m.getLB(var) || val>m.getUB(var)) {
+            m.addTerm(var, 1);
+            m.endRow(MIPModel.EQUAL, val);
+        }
+        else m.setBounds(var, val, val);
+    }
+
+
+    /**
+     * sets the last computed solution (if any) as the MIP start of the model,
+     * so that a re-run for the same student starts from the schedule shown.
+     * @param m MIPModel
+     */
+    private void setMIPStart(MIPModel m) {
+        if (_cid2tnoMap.isEmpty()) return;
+        final int N = m.getNumCourses();
+        final int Smax = m.getSmax();
+        for (int i=0; i<N; i++) {
+            final int tno = _cid2tnoMap.getOrDefault(i, -1);
             for (int s=0; s<=Smax; s++) {
-                prob.append("x_"+i+"_"+s+" ");
+                final int xis = m.getXVar(i, s);
+                if (xis>=0) m.setStart(xis, s==tno ? 1 : 0);
             }
-            prob.append("\n");
+            m.setStart(m.getXiVar(i), 
+                       tno>=0 && !_creditOnlyPassed.get(i) ? 1 : 0);
         }
-        for (String v : discVarNames) {
-            prob.append(v+" ");
+    }
+
+
+    /**
+     * creates a file "schedule_&lt;studentname&gt;_&lt;ts&gt;.lp" that
+     * describes the MIP Programming problem of the student course scheduling
+     * problem in LP format. The model is the one created by
+     * <CODE>createMIPModel()</CODE>, whose docs describe all arguments.
+     * @param isHonorStudent boolean
+     * @param maxNumCrsPerSem int
+     * @param maxNumCrsDurThesis int
+     * @param s1off boolean
+     * @param s2off boolean
+     * @param stoff boolean
+     * @param numCoursesPerTrm2StrMap Map&lt;Integer tno, String constr&gt;
+     * @param passed Set&lt;String&gt;
+     * @param num_OU_cur_academic_year int
+     * @param desired Set&lt;String&gt;
+     * @param concentration String
+     * @param DNcoeff int
+     * @param DLcoeff int
+     * @param Crcoeff int
+     * @param Grcoeff int
+     * @return String the name of the schedule lp-formatted file created; the
+     * reason for the timestamp in the name of the file is so that multiple
+     * application windows can be open at the same time without interfering with
+     * one another
+     */
+    public String createMIPFile(boolean isHonorStudent,
+                                int maxNumCrsPerSem, int maxNumCrsDurThesis,
+                                boolean s1off, boolean s2off, boolean stoff,
+                                Map<Integer, String> numCoursesPerTrm2StrMap,
+                                Set<String> passed,int num_OU_cur_academic_year,
+                                Set<String> desired,
+                                String concentration,
+                                int DNcoeff, int DLcoeff, int Crcoeff,
+                                int Grcoeff) {
+        MIPModel m = createMIPModel(isHonorStudent,
+                                    maxNumCrsPerSem, maxNumCrsDurThesis,
+                                    s1off, s2off, stoff,
+                                    numCoursesPerTrm2StrMap,
+                                    passed, num_OU_cur_academic_year,
+                                    desired, concentration,
+                                    DNcoeff, DLcoeff, Crcoeff, Grcoeff);
+        String schedfile = getScheduleFileName();
+        if (!_params.getDebug()) {  // else the file is already written
+            try {
+                m.writeLP(schedfile);
+            }
+            catch (Exception e) {
+                e.printStackTrace();
+                System.exit(-1);
+            }
         }
-        // variable "Dx" and "G" can be continuous, so it's not declared at all
-        // 2.19 finally, the END delimiter of all LP files
-        prob.append("\nEnd");
-        
-        // 3. write the problem as an LP format file called 
-        //    "schedule_<studentName>_<ts>.lp"
-        //    where <studentName> is the name of the student (entered as user-
-        //    input in the beginning of the program, and <ts> is the timestamp 
-        //    of the app start-time. This is done so that more than one 
-        //    application (MainGUI) windows can be open at the same time.
+        return schedfile;
+    }
+
+
+    /**
+     * return the name "schedule_&lt;studentName&gt;_&lt;ts&gt;.lp" of the file
+     * where the LP-formatted model is written, where &lt;studentName&gt; is
+     * the name of the student (see <CODE>setStudentName()</CODE>; by default
+     * the name entered as user-input in the beginning of the program), and
+     * &lt;ts&gt; is the timestamp of the app start-time. This is done so that
+     * more than one application (MainGUI) windows can be open at the same 
+     * time. The "result_vars" files of the solutions are named after this 
+     * file too (see <CODE>optimizeSchedule()</CODE>).
+     * @return String
+     */
+    public String getScheduleFileName() {
         final long now = MainGUI._startTime;
-        final String stname = MainGUI._studentName;
-        String schedfile = "schedule_"+stname+"_"+now+".lp";
-        try (PrintWriter pw = new PrintWriter(new FileWriter(schedfile))) {
-            pw.print(prob);
-            pw.flush();
+        final String stname = _studentName!=null ? _studentName : 
+                                                   MainGUI._studentName;
+        return "schedule_"+stname+"_"+now+".lp";
+    }
+
+
+    /**
+     * solves the given model with the solver specified in the schedule params
+     * (see <CODE>ScheduleParams.getSolverName()</CODE>) and returns the 
+     * results in a String to be displayed in the output area. If the 
+     * "DumpResultVars" property of the schedule params is true, the non-zero
+     * variable values also get written (in the background, see class 
+     * <CODE>ResultVarsWriter</CODE>) in file 
+     * "schedule_&lt;studentname&gt;_&lt;ts&gt;.lp.result_vars.out" (with 
+     * ".gz" appended if "DumpResultVarsGzip" is true). If the
+     * optimization stops before the schedule is proven optimal (because it 
+     * reached the "TimeLimit" of the schedule params, or was cancelled via 
+     * <CODE>cancelOptimization()</CODE>), the best schedule found (if any) 
+     * is returned, marked as such and with its MIP gap.
+     * <p>If the model is the last one created by <CODE>createMIPModel()</CODE>
+     * (and its objective was last set by it or by <CODE>setObjective()</CODE>),
+     * its optimal solution is kept in the plan cache of the catalog (see
+     * class <CODE>PlanCache</CODE>) under a hash of all the arguments it was
+     * created from, the objective and the planning date, and is then taken 
+     * from there, without calling the solver, whenever a model is created 
+     * from the same arguments again (eg for another student with the same
+     * passed and desired courses).
+     * @param mipmodel MIPModel the model created by
+     * <CODE>createMIPModel()</CODE>
+     * @return String the schedule to write in the outputs area
+     * @throws SolverException if the solver fails to solve the problem
+     * @throws IOException if some I/O error occurs
+     */
+    public String optimizeSchedule(MIPModel mipmodel)
+        throws SolverException, IOException {
+        _cid2tnoMap.clear();
+        _lastSolution = null;
+        final PlanCache cache = _catalog.getPlanCache();
+        final String key = getPlanKey(mipmodel);
+        MIPSolution solution = key!=null ? 
+                                 cache.get(key, mipmodel.getNumVars()) : null;
+        if (solution==null && _cancelRequested) {
+            solution = new MIPSolution(MIPSolution.Status.INTERRUPTED, null,
+                                       0.0, -MIPModel.INFINITY, 0, 0);
         }
-        catch (Exception e) {
-            e.printStackTrace();
-            System.exit(-1);
+        else if (solution==null) {
+            solution = getSolver().solve(mipmodel);
+            if (key!=null) cache.put(key, solution);
         }
-        // 4. the end!.
-        return schedfile;
+        else if (_params.getDebug()) {
+            System.err.println("MIPHandler: schedule taken from the plan "+
+                               "cache, "+cache);
+        }
+        // add the objective of the passed courses left out of the model
+        double obj_offset = 0.0;
+        for (int p=_creditOnlyPassed.nextSetBit(0); p>=0;
+             p=_creditOnlyPassed.nextSetBit(p+1)) 
+            obj_offset += mipmodel.getObjCoeff(mipmodel.getXiVar(p));
+        if (obj_offset!=0.0 && solution.hasSolution()) {
+            solution = new MIPSolution(solution.getStatus(), 
+                                       solution.getValues(),
+                                       solution.getObjectiveValue()+obj_offset,
+                                       solution.getBestBound()+obj_offset,
+                                       solution.getNodeCount(),
+                                       solution.getSolveTime(),
+                                       solution.getSetupTime(),
+                                       solution.getExtractTime());
+        }
+        _lastSolution = solution;
+        final MIPSolution.Status status = solution.getStatus();
+        if (!solution.hasSolution()) {
+            if (status==MIPSolution.Status.INTERRUPTED)
+                return "Optimization cancelled before any schedule was found";
+            if (status==MIPSolution.Status.TIME_LIMIT)
+                return "Time limit reached before any schedule was found";
+            return "Model infeasible (or could not be solved)";
+        }
+        final String header = getStatusLine(status, solution.getMIPGap());
+        final int N = mipmodel.getNumCourses();
+        final int Smax = mipmodel.getSmax();
+        // the solution as an N x (Smax+1) 0/1 matrix, read off the values by
+        // the indices of the variables x_{i,s} in the model
+        final long extract_start = System.nanoTime();
+        int[][] sol = new int[N][Smax+1];
+        for (int i=0; i<N; i++) {
+            for (int s=0; s<=Smax; s++) {
+                final int xis = mipmodel.getXVar(i, s);
+                if (xis>=0) sol[i][s] = (int) Math.round(solution.getValue(xis));
+            }
+        }
+        if (_params.getDebug()) {
+            System.err.println("MIPHandler: solution of "+
+                               mipmodel.getNumVars()+" vars read in "+
+                               solution.getExtractTime()+" usecs, schedule "+
+                               "extracted in "+
+                               (System.nanoTime()-extract_start)/1000+
+                               " usecs");
+        }
+        if (_params.getDumpResultVars()) {
+            ResultVarsWriter.write(getScheduleFileName()+".result_vars.out", 
+                                   mipmodel, solution, 
+                                   _params.getDumpResultVarsGzip());
+        }
+        return header+getScheduleDescription(sol, solution.getSolveTime(), 
+                                             solution.getSetupTime());
     }
-    
-    
+
+
+    /**
+     * return the key of the given model in the plan cache of the catalog: the
+     * canonical descriptions of the inputs and the objective of the model,
+     * plus the name of the solver and the MIP gap and time limit of the 
+     * schedule params (that the solvers of <CODE>createSolver()</CODE> are
+     * set with), so that a plan is never served to a request that would be
+     * solved differently.
+     * @param mipmodel MIPModel
+     * @return String null if the cache is disabled, or if the model was not
+     * created by the last call to <CODE>createMIPModel()</CODE>
+     */
+    private String getPlanKey(MIPModel mipmodel) {
+        if (!_catalog.getPlanCache().isEnabled() || mipmodel!=_inputsModel ||
+            mipmodel!=_objModel) return null;
+        return PlanCache.hash(_inputsKey+"\n"+_objKey+"\n"+
+                              getSolver().getName()+";"+_params.getMIPGap()+
+                              ";"+_params.getTimeLimit());
+    }
+
+
+    /**
+     * get the solver to use, creating it on first call according to the 
+     * "Solver" property of the schedule params: "gurobi" (the default) or
+     * "bnb" for the pure-Java <CODE>BranchAndBoundSolver</CODE>. Must have 
+     * called <CODE>readProblemData(studentName)</CODE> first. A GUROBI solver
+     * keeps its last model, as successive models of this object mostly share
+     * their base (see <CODE>createMIPModel()</CODE>).
+     * @return ScheduleSolver
+     */
+    public synchronized ScheduleSolver getSolver() {
+        if (_solver==null) {
+            final boolean gurobi = 
+                "gurobi".equalsIgnoreCase(_params.getSolverName());
+            _solver = createSolver(_params, gurobi ? getEnvPool() : null);
+            if (gurobi) ((GurobiScheduleSolver) _solver).setKeepLastModel(true);
+            _solver.setProgressListener(_progressListener);
+        }
+        return _solver;
+    }
+
+
+    /**
+     * set the listener to notify of the progress of the optimizations of 
+     * <CODE>optimizeSchedule(MIPModel)</CODE>.
+     * @param listener SolverProgressListener may be null
+     */
+    public synchronized void setProgressListener(
+            SolverProgressListener listener) {
+        _progressListener = listener;
+        if (_solver!=null) _solver.setProgressListener(listener);
+    }
+
+
+    /**
+     * stops the optimization currently running in 
+     * <CODE>optimizeSchedule(MIPModel)</CODE> (if any), which then returns
+     * the best schedule found so far. If no optimization is running yet (eg
+     * the model is still being built), the next calls to
+     * <CODE>optimizeSchedule(MIPModel)</CODE> return at once with status 
+     * <CODE>INTERRUPTED</CODE> (unless the schedule is in the plan cache), 
+     * until <CODE>resetCancelRequest()</CODE> is called. May be called from 
+     * any thread.
+     */
+    public synchronized void cancelOptimization() {
+        _cancelRequested = true;
+        if (_solver!=null) _solver.cancel();
+    }
+
+
+    /**
+     * clears any cancel requested by <CODE>cancelOptimization()</CODE>; to be
+     * called when a new run starts, before it can be cancelled.
+     */
+    public void resetCancelRequest() {
+        _cancelRequested = false;
+    }
+
+
     /**
-     * solves the model in file "schedule_&lt;studentname&gt;_&lt;ts&gt;.lp" and 
-     * returns the results in a String to be displayed in the output area. 
-     * Variable values get written in file 
+     * creates the solver specified by the "Solver" property of the given 
+     * params: "gurobi" for a <CODE>GurobiScheduleSolver</CODE> using the 
+     * given pool, or "bnb" for the pure-Java 
+     * <CODE>BranchAndBoundSolver</CODE>. The time limit and MIP gap of the
+     * solver are set from the "TimeLimit" and "MIPGap" properties.
+     * @param params ScheduleParams
+     * @param envPool GRBEnvPool only used by the "gurobi" solver
+     * @return ScheduleSolver
+     * @throws IllegalStateException if the property names an unknown solver
+     */
+    public static ScheduleSolver createSolver(ScheduleParams params,
+                                              GRBEnvPool envPool) {
+        final String name = params.getSolverName();
+        ScheduleSolver solver;
+        if ("bnb".equalsIgnoreCase(name)) 
+            solver = new BranchAndBoundSolver();
+        else if ("gurobi".equalsIgnoreCase(name)) 
+            solver = new GurobiScheduleSolver(envPool);
+        else 
+            throw new IllegalStateException("unknown Solver "+name+
+                                            " in params.props");
+        solver.setTimeLimit(params.getTimeLimit());
+        solver.setMIPGap(params.getMIPGap());
+        return solver;
+    }
+
+
+    /**
+     * set the solver to use in subsequent calls to 
+     * <CODE>optimizeSchedule(MIPModel)</CODE>, overriding the "Solver" 
+     * property of the schedule params.
+     * @param solver ScheduleSolver
+     */
+    public synchronized void setSolver(ScheduleSolver solver) {
+        _solver = solver;
+        if (_solver!=null && _progressListener!=null) 
+            _solver.setProgressListener(_progressListener);
+    }
+
+
+    /**
+     * get the pool of GUROBI environments used by this object, creating it on
+     * first call with the size specified in the "GurobiEnvPoolSize" property
+     * of the schedule params. Environments are only created when first needed,
+     * so the pool costs nothing if GUROBI is never called.
+     * @return GRBEnvPool
+     */
+    public synchronized GRBEnvPool getEnvPool() {
+        if (_envPool==null) 
+            _envPool = new GRBEnvPool(_params.getGurobiEnvPoolSize());
+        return _envPool;
+    }
+
+
+    /**
+     * cancels any running optimization, releases the resources held by the
+     * solver and disposes all GUROBI environments of this object. Should be
+     * called when no more schedules are to be computed (eg when the 
+     * application exits).
+     */
+    public synchronized void close() {
+        if (_solver!=null) {
+            _solver.cancel();
+            _solver.close();
+            _solver = null;
+        }
+        if (_envPool!=null) {
+            _envPool.close();
+            _envPool = null;
+        }
+    }
+
+
+    /**
+     * solves the model in file "schedule_&lt;studentname&gt;_&lt;ts&gt;.lp" and
+     * returns the results in a String to be displayed in the output area.
+     * Variable values get written as in 
+     * <CODE>optimizeSchedule(MIPModel)</CODE>, in file
      * "schedule_&lt;studentname&gt;_&lt;ts&gt;.lp.result_vars.out".
      * @param schedfile String the name of the file containing the schedule for
      * this problem
      * @return String the schedule to write in the outputs area
      * @throws GRBException if GUROBI fails to solve the problem
      * @throws IOException if some I/O error occurs
+     * @throws InterruptedException if interrupted while waiting for a GUROBI
+     * environment from the pool
      */
-    public String optimizeSchedule(String schedfile) 
-        throws GRBException, IOException {
+    public String optimizeSchedule(String schedfile)
+        throws GRBException, IOException, InterruptedException {
         _cid2tnoMap.clear();
-        long start = System.currentTimeMillis();
-        GRBEnv env = new GRBEnv();
-        GRBModel model = new GRBModel(env, schedfile);
-        model.optimize();
-        int optimstatus = model.get(GRB.IntAttr.Status);
-        if (optimstatus!=GRB.Status.OPTIMAL) {
-            return "Model infeasible (or could not be solved)";
+        synchronized (this) {
+            // the model kept by the solver may hold the only environment
+            if (_solver instanceof GurobiScheduleSolver)
+                ((GurobiScheduleSolver) _solver).releaseLastModel();
+        }
+        final long checkout_start = System.currentTimeMillis();
+        final GRBEnvPool pool = getEnvPool();
+        GRBEnv env = pool.acquire();
+        GRBModel model = null;
+        try {
+            long start = System.currentTimeMillis();
+            model = new GRBModel(env, schedfile);
+            final double tlim = _params.getTimeLimit();
+            model.set(GRB.DoubleParam.TimeLimit, 
+                      Double.isInfinite(tlim) ? GRB.INFINITY : tlim);
+            model.set(GRB.DoubleParam.MIPGap, _params.getMIPGap());
+            model.optimize();
+            if (model.get(GRB.IntAttr.SolCount)==0) {
+                return "Model infeasible (or could not be solved)";
+            }
+            final String header = 
+                getStatusLine(GurobiScheduleSolver.getStatus(
+                                model.get(GRB.IntAttr.Status)),
+                              MIPSolution.getMIPGap(
+                                model.get(GRB.DoubleAttr.ObjVal),
+                                model.get(GRB.DoubleAttr.ObjBound)));
+            long dur = System.currentTimeMillis()-start;
+            final int N = _catalog.getNumCourses();
+            final int Smax = _params.getSmax();
+            int[][] sol = new int[N][Smax+1];
+            // the order of the variables read from the file is that of their
+            // first appearance in it, so the x_i_s are found by their names; 
+            // names and values are read in a single call each
+            final GRBVar[] vars = model.getVars();
+            final String[] vnames = model.get(GRB.StringAttr.VarName, vars);
+            final double[] vvals = model.get(GRB.DoubleAttr.X, vars);
+            for (int j=0; j<vars.length; j++) {
+                final String vname = vnames[j];
+                int vval = (int) vvals[j];
+                if (vval==1 && vname.startsWith("x_")) {
+                    final int us = vname.indexOf('_', 2);
+                    if (us<0) continue;  // it's x_i, not x_i_s
+                    int vid = Integer.parseInt(vname.substring(2, us));
+                    int termno = Integer.parseInt(vname.substring(us+1));
+                    sol[vid][termno] = 1;
+                }
+            }
+            if (_params.getDumpResultVars()) {
+                ResultVarsWriter.write(schedfile+".result_vars.out", vnames,
+                                       vvals, 
+                                       _params.getDumpResultVarsGzip());
+            }
+            return header+getScheduleDescription(sol, dur, 
+                                                 start-checkout_start);
+        }
+        finally {
+            if (model!=null) model.dispose();
+            pool.release(env);
+        }
+    }
+
+
+    /**
+     * return the line to write above a schedule found with the given 
+     * status: empty if the schedule is optimal, otherwise why the 
+     * optimization stopped early, and how far from optimal the schedule may
+     * be.
+     * @param status MIPSolution.Status
+     * @param gap double the relative MIP gap of the schedule
+     * @return String
+     */
+    private static String getStatusLine(MIPSolution.Status status, 
+                                        double gap) {
+        String why;
+        switch (status) {
+            case OPTIMAL: return "";
+            case TIME_LIMIT: why = "Time limit reached"; break;
+            case NODE_LIMIT: why = "Node limit reached"; break;
+            case SUBOPTIMAL: why = "Schedule not proven optimal"; break;
+            case INTERRUPTED: why = "Optimization cancelled"; break;
+            default: why = "Optimization stopped ("+status+")";
         }
-        long dur = System.currentTimeMillis()-start;
-        String dstr = "Schedule computed in "+dur+" msecs.\n";
+        return String.format("%s: best schedule found so far (gap %.2f%%).\n",
+                             why, 100*gap);
+    }
+
+
+    /**
+     * stores the given solution as the last optimal solution, and returns its
+     * description to be displayed in the output area.
+     * @param sol int[][] the values of the variables x_{i,s}
+     * @param dur long the msecs it took to compute the schedule
+     * @param setupDur long the msecs it took to get a solver environment
+     * @return String
+     */
+    private String getScheduleDescription(int[][] sol, long dur, 
+                                          long setupDur) {
+        _cid2tnoMap.clear();
+        // the passed courses left out of the model were taken all the same
+        for (int p=_creditOnlyPassed.nextSetBit(0); p>=0;
+             p=_creditOnlyPassed.nextSetBit(p+1)) sol[p][0] = 1;
+        String dstr = "Schedule computed in "+dur+" msecs (solver set-up "+
+                      setupDur+" msecs).\n";
         int num_credits_taken = 0;
         int num_credits_to_take = 0;
         int total_credits = 0;
         HashMap<Integer, List<String>> sem_courses_map = new HashMap<>();
         StringBuffer sb = new StringBuffer();
         sb.append(dstr);
-        PrintWriter pwr = 
-                new PrintWriter(new FileWriter(schedfile+".result_vars.out"));
-        // get the names of all variables of the form "x_i" that are set to 1
-        Set<Integer> all_sol_varids = new HashSet<>();
-        for (GRBVar v : model.getVars()) {
-            String vname = v.get(GRB.StringAttr.VarName);
-            int vval = (int) v.get(GRB.DoubleAttr.X);
-            if (vval==1) {
-                String[] xcomps = vname.split("_");
-                if (xcomps.length==2 && vname.startsWith("x")) 
-                    all_sol_varids.add(Integer.parseInt(xcomps[1]));
+        // get the ids of all courses in the solution, and the courses they
+        // strictly require for the desired courses
+        BitSet all_sol_varids = new BitSet(sol.length);
+        for (int i=0; i<sol.length; i++) {
+            for (int s=0; s<sol[i].length; s++) {
+                if (sol[i][s]==1) all_sol_varids.set(i);
             }
         }
-        for (GRBVar v : model.getVars()) {
-            String vname = v.get(GRB.StringAttr.VarName);
-            int vval = (int) v.get(GRB.DoubleAttr.X);
-            pwr.println(vname+"="+vval);
-            if (vval==1) {
-                // parse name
-                String[] xcomps = vname.split("_");
-                if (xcomps.length<3) 
-                    continue;  // it's not the x_i_s vars that we want 
-                int vid = Integer.parseInt(xcomps[1].trim());
-                int termno = Integer.parseInt(xcomps[2].trim());
+        List<Integer> desired_ids = new ArrayList<>();
+        Iterator<String> dit = _desired.getDesiredCourseCodesIterator();
+        while (dit.hasNext()) {
+            desired_ids.add(_catalog.getCourseByCode(dit.next()).getId());
+        }
+        BitSet required = _catalog.getRequisites().
+            getStrictlyRequired(desired_ids.stream().mapToInt(i -> i).toArray(),
+                                all_sol_varids);
+        for (int vid=0; vid<sol.length; vid++) {
+            for (int termno=0; termno<sol[vid].length; termno++) {
+                if (sol[vid][termno]!=1) continue;
                 _cid2tnoMap.put(vid, termno);  // add variable to solution map
-                Course cv = Course.getCourseById(vid);
+                Course cv = _catalog.getCourseById(vid);
                 if (termno>=1) num_credits_to_take += cv.getCredits();
                 else num_credits_taken += cv.getCredits();
                 total_credits += cv.getCredits();
                 String course_descr = cv.getScheduleDisplayName();
                 if (course_descr==null || course_descr.length()<=1 ||
-                    _desired.contains(cv.getCode()) || 
-                    cv.isRequired4Desired(_desired, all_sol_varids))  
+                    _desired.contains(cv.getCode()) || required.get(vid))
                     // if user selected course or if course is needed for such
                     // course, show it with full name in schedule
                     course_descr = cv.toString();
-                // String term_desc = Course.getTermNameByTermNo(termno);
-                //sb.append(term_desc).append(course_descr).append("\n");
                 List<String> sem_courses = sem_courses_map.get(termno);
                 if (sem_courses==null) {
                     sem_courses = new ArrayList<>();
@@ -1342,16 +1871,15 @@ public class MIPHandler {
                 sem_courses.add(course_descr);
             }
         }
-        pwr.flush();
-        pwr.close();
         final int Smax = _params.getSmax();
+        final TermCalendar cal = _date.getCalendar(Smax);
         sb.append("\n----- Credits Taken So Far\t: "+num_credits_taken);
         sb.append("\n----- Credits To Take Yet\t: "+num_credits_to_take);
         sb.append("\n----- TOTAL CREDITS OVERALL\t: "+total_credits+"\n");
         for (int s=1; s<=Smax; s++) {
             List<String> crs_lst = sem_courses_map.get(s);
             if (crs_lst!=null) {
-                String sem_descr="     --- "+Course.getTermNameByTermNo(s)+
+                String sem_descr="     --- "+cal.getTermNameByTermNo(s)+
                                  " ---\n";
                 sb.append(sem_descr);
                 for (String c : crs_lst) sb.append(c+"\n");
@@ -1360,18 +1888,30 @@ public class MIPHandler {
         sb.append("End\n");
         return sb.toString();
     }
-    
-    
+
+
     /**
      * return a copy of the last computed solution. The solution is returned as
      * a map from course-id (not course-code), to the term-number during which
      * the course is to be taken; if a course-id does not appear in the map keys
-     * the course is not part of the optimal schedule. See the static method
-     * <CODE>Course.getTermNameByTermNo()</CODE> for a method to obtain the 
+     * the course is not part of the optimal schedule. See the method
+     * <CODE>PlanningDate.getTermNameByTermNo()</CODE> for a method to obtain the
      * full name of a term (such as "FA2022") given its term number.
      * @return HashMap&lt;Integer, Integer&gt;
      */
     public HashMap<Integer, Integer> getLastOptimalSolution() {
         return new HashMap<>(_cid2tnoMap);
     }
+
+
+    /**
+     * return the result of the last call to 
+     * <CODE>optimizeSchedule(MIPModel)</CODE>, with its status, objective 
+     * value and times.
+     * @return MIPSolution null if no model was solved yet, or if the last 
+     * optimization failed
+     */
+    public MIPSolution getLastMIPSolution() {
+        return _lastSolution;
+    }
 }
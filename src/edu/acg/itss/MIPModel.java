@@ -0,0 +1,909 @@
+package edu.acg.itss;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+
+/**
+ * in-memory, solver-independent representation of the student course
+ * scheduling Mixed Integer Programming problem that <CODE>MIPHandler</CODE>
+ * creates. Variables are identified by their (contiguous, zero-based) index,
+ * and constraints (rows) are stored in Compressed Sparse Row form: the terms of
+ * row r occupy positions <CODE>getRowBegin(r)...getRowEnd(r)-1</CODE> of the
+ * term arrays. The variables x_{i,s}, x_i, D and DL are created by the
+ * constructor, and their indices are available through the
+ * <CODE>getXVar(i,s)</CODE>, <CODE>getXiVar(i)</CODE>, <CODE>getDVar()</CODE>
+ * and <CODE>getDLVar()</CODE> methods, so that no variable name is ever needed
+ * to build or to read back a model. Variable names exist only so that the model
+ * can be written in LP format (eg for debugging purposes).
+ * <p>Variables x_{i,s} that can never be 1 (eg because course i is not offered
+ * in term s) may be eliminated when the model is constructed (see
+ * <CODE>MIPHandler.computeLiveXVars()</CODE>): they are then never created,
+ * <CODE>getXVar(i,s)</CODE> returns -1 for them, and terms in them are
+ * ignored by <CODE>addTerm()</CODE>, as the variables are fixed to zero.
+ * <p>Optionally, the model may also have the cumulative ("taken-by-term")
+ * variables y_{i,s} = x_{i,0} + ... + x_{i,s} (see 
+ * <CODE>addCumulativeVars()</CODE>), so that the precedence constraints that
+ * sum the x_{i,t} of a course over all terms up to some term s need a single 
+ * term y_{i,s} instead of s+1 terms.
+ * <p>Rows are built one at a time: any number of calls to
+ * <CODE>addTerm(var, coeff)</CODE> followed by a call to
+ * <CODE>endRow(sense, rhs)</CODE>. If the same variable is added more than once
+ * in the same row, its coefficients are summed up (as the LP format does).
+ * <p>A model may be re-used for a sequence of closely related problems (such
+ * as the successive runs of the <CODE>MainGUI</CODE> for the same student,
+ * where only the student's preferences change): <CODE>markBase()</CODE>
+ * declares the rows and variable bounds built so far as the base of the
+ * model, and <CODE>resetToBase()</CODE> drops every row added, and restores
+ * every bound changed, since then. Solvers may thus keep their own copy of
+ * the base between solves (see <CODE>GurobiScheduleSolver</CODE>), and only
+ * apply the rest of the model. A model may also carry a MIP start, ie
+ * initial values for (some of) its variables, eg the previous solution.
+ * <p>The model is always a minimization problem. Besides its objective, it
+ * may declare several prioritized objectives (see <CODE>addObjectiveN()</CODE>)
+ * to be optimized in lexicographic order by the solvers that support them 
+ * (GUROBI, see <CODE>GurobiScheduleSolver</CODE>); the objective of the 
+ * model is then the weighted sum of them, which the other solvers optimize
+ * instead.
+ * @author itc
+ */
+public class MIPModel {
+    /**
+     * constraint sense "&le;" (same as <CODE>GRB.LESS_EQUAL</CODE>).
+     */
+    public static final char LESS_EQUAL = '<';
+    /**
+     * constraint sense "&ge;" (same as <CODE>GRB.GREATER_EQUAL</CODE>).
+     */
+    public static final char GREATER_EQUAL = '>';
+    /**
+     * constraint sense "=" (same as <CODE>GRB.EQUAL</CODE>).
+     */
+    public static final char EQUAL = '=';
+    /**
+     * binary variable type (same as <CODE>GRB.BINARY</CODE>).
+     */
+    public static final char BINARY = 'B';
+    /**
+     * continuous variable type (same as <CODE>GRB.CONTINUOUS</CODE>).
+     */
+    public static final char CONTINUOUS = 'C';
+    /**
+     * the value used for infinite bounds (same as <CODE>GRB.INFINITY</CODE>).
+     */
+    public static final double INFINITY = 1.e100;
+
+    /**
+     * number of courses N; courses are indexed 0...N-1 as their ids.
+     */
+    private final int _numCourses;
+    /**
+     * maximum term number; terms are indexed 0...Smax, 0 being the "past".
+     */
+    private final int _Smax;
+    /**
+     * the index of variable x_{i,s} is found at position i*(Smax+1)+s, and is
+     * -1 if the variable was eliminated.
+     */
+    private final int[] _xIdx;
+    private final int _numXVars;
+    /**
+     * the index of variable y_{i,s} is found at position i*(Smax+1)+s; it is
+     * the index of y_{i,s-1} if x_{i,s} was eliminated, and -1 if all of
+     * x_{i,0},...,x_{i,s} were eliminated. Null unless 
+     * <CODE>addCumulativeVars()</CODE> was called.
+     */
+    private int[] _yIdx = null;
+    /**
+     * the index of variable x_i is found at position i.
+     */
+    private final int[] _xiIdx;
+    private final int _dVar;
+    private final int _dlVar;
+    /**
+     * extra (named) variables such as the discipline variables "w_ITC".
+     */
+    private final HashMap<String, Integer> _extraVarsMap = new HashMap<>();
+
+    // variables data
+    private int _numVars = 0;
+    private String[] _varNames = new String[1024];
+    private char[] _varTypes = new char[1024];
+    private double[] _lb = new double[1024];
+    private double[] _ub = new double[1024];
+    private double[] _obj = new double[1024];
+
+    // rows data in CSR form
+    private int _numRows = 0;
+    private int[] _rowStart = new int[1024];  // _rowStart[0] is always 0
+    private char[] _senses = new char[1024];
+    private double[] _rhs = new double[1024];
+    private int _nnz = 0;
+    private int[] _termVars = new int[16384];
+    private double[] _termCoeffs = new double[16384];
+
+    /**
+     * when false, <CODE>addComment(text)</CODE> is a no-op.
+     */
+    private final boolean _keepComments;
+    /**
+     * the row index before which each comment is to be written.
+     */
+    private final List<Integer> _commentRows = new ArrayList<>();
+    private final List<String> _comments = new ArrayList<>();
+
+    // the base of the model (see markBase())
+    private int _numBaseRows = -1;
+    private int _numBaseVars;
+    private int _numBaseComments;
+    private double[] _baseLB;
+    private double[] _baseUB;
+    /**
+     * the MIP start values, <CODE>Double.NaN</CODE> for variables without a
+     * start value; null if no start value is set.
+     */
+    private double[] _start = null;
+    /**
+     * the prioritized objectives, if any.
+     */
+    private final List<ObjectiveN> _objectivesN = new ArrayList<>();
+
+
+    /**
+     * public constructor creates the variables x_{i,s} for i=0...N-1 and
+     * s=0...Smax, x_i for i=0...N-1 (all binary) as well as the continuous
+     * non-negative variables D and DL. All objective coefficients are zero.
+     * @param numCourses int the number of courses N
+     * @param Smax int the maximum term number
+     * @param keepComments boolean if false, comments are ignored
+     */
+    public MIPModel(int numCourses, int Smax, boolean keepComments) {
+        this(numCourses, Smax, null, keepComments);
+    }
+
+
+    /**
+     * public constructor creates only the variables x_{i,s} whose bit 
+     * i*(Smax+1)+s is set in <CODE>liveXVars</CODE>, all variables x_i, and
+     * the variables D and DL. All objective coefficients are zero.
+     * @param numCourses int the number of courses N
+     * @param Smax int the maximum term number
+     * @param liveXVars BitSet the variables x_{i,s} to create; if null, all of
+     * them are created
+     * @param keepComments boolean if false, comments are ignored
+     */
+    public MIPModel(int numCourses, int Smax, BitSet liveXVars, 
+                    boolean keepComments) {
+        _numCourses = numCourses;
+        _Smax = Smax;
+        _keepComments = keepComments;
+        _dVar = addVar("D", CONTINUOUS, 0.0, INFINITY);
+        _dlVar = addVar("DL", CONTINUOUS, 0.0, INFINITY);
+        _xiIdx = new int[numCourses];
+        for (int i=0; i<numCourses; i++) {
+            _xiIdx[i] = addVar("x_"+i, BINARY, 0.0, 1.0);
+        }
+        _xIdx = new int[numCourses*(Smax+1)];
+        int numx = 0;
+        for (int i=0; i<numCourses; i++) {
+            for (int s=0; s<=Smax; s++) {
+                final int pos = i*(Smax+1)+s;
+                if (liveXVars==null || liveXVars.get(pos)) {
+                    _xIdx[pos] = addVar("x_"+i+"_"+s, BINARY, 0.0, 1.0);
+                    ++numx;
+                }
+                else _xIdx[pos] = -1;
+            }
+        }
+        _numXVars = numx;
+        _rowStart[0] = 0;
+    }
+
+
+    /**
+     * add a new variable to the model.
+     * @param name String
+     * @param type char one of <CODE>BINARY, CONTINUOUS</CODE>
+     * @param lb double
+     * @param ub double
+     * @return int the index of the new variable
+     */
+    private int addVar(String name, char type, double lb, double ub) {
+        if (_numVars==_varNames.length) {
+            final int len = 2*_numVars;
+            _varNames = Arrays.copyOf(_varNames, len);
+            _varTypes = Arrays.copyOf(_varTypes, len);
+            _lb = Arrays.copyOf(_lb, len);
+            _ub = Arrays.copyOf(_ub, len);
+            _obj = Arrays.copyOf(_obj, len);
+        }
+        _varNames[_numVars] = name;
+        _varTypes[_numVars] = type;
+        _lb[_numVars] = lb;
+        _ub[_numVars] = ub;
+        _obj[_numVars] = 0.0;
+        return _numVars++;
+    }
+
+
+    /**
+     * return the index of the binary variable with the given name, creating it
+     * first if it doesn't exist yet. Used for variables other than x_{i,s},
+     * x_i, D and DL, such as the discipline variables "w_ITC".
+     * @param name String
+     * @return int
+     */
+    public int getOrAddBinaryVar(String name) {
+        Integer v = _extraVarsMap.get(name);
+        if (v==null) {
+            v = addVar(name, BINARY, 0.0, 1.0);
+            _extraVarsMap.put(name, v);
+        }
+        return v;
+    }
+
+
+    /**
+     * return the index of the variable x_{i,s}.
+     * @param i int the course id
+     * @param s int the term number in {0,...,Smax}
+     * @return int -1 if the variable was eliminated (ie is fixed to zero)
+     */
+    public int getXVar(int i, int s) {
+        return _xIdx[i*(_Smax+1)+s];
+    }
+
+
+    /**
+     * creates the continuous variables y_{i,s} in [0,1] for i=0...N-1 and 
+     * s=0...Smax, together with the rows that define them:
+     * y_{i,s} - y_{i,s-1} - x_{i,s} = 0 (y_{i,-1} being zero), ie
+     * y_{i,s} = Σ_{t=0}^{s} x_{i,t}, which is one iff course i is taken by
+     * term s. No variable y_{i,s} is created if x_{i,s} was eliminated, as
+     * it equals y_{i,s-1} then. Must not be called while a row is being 
+     * built, nor more than once.
+     * @throws IllegalStateException if the variables already exist
+     */
+    public void addCumulativeVars() {
+        if (_yIdx!=null) 
+            throw new IllegalStateException("cumulative vars already exist");
+        final int[] yidx = new int[_numCourses*(_Smax+1)];
+        for (int i=0; i<_numCourses; i++) {
+            int prev = -1;
+            for (int s=0; s<=_Smax; s++) {
+                final int pos = i*(_Smax+1)+s;
+                final int x = _xIdx[pos];
+                if (x>=0) {
+                    final int y = addVar("y_"+i+"_"+s, CONTINUOUS, 0.0, 1.0);
+                    addTerm(y, 1);
+                    addTerm(prev, -1);
+                    addTerm(x, -1);
+                    endRow(EQUAL, 0);
+                    prev = y;
+                }
+                yidx[pos] = prev;
+            }
+        }
+        _yIdx = yidx;
+    }
+
+
+    /**
+     * check whether the model has the cumulative variables y_{i,s}.
+     * @return boolean
+     */
+    public boolean hasCumulativeVars() { return _yIdx!=null; }
+
+
+    /**
+     * return the index of the variable y_{i,s} = Σ_{t=0}^{s} x_{i,t}.
+     * @param i int the course id
+     * @param s int the term number in {0,...,Smax}
+     * @return int -1 if the variable is zero (ie all x_{i,t}, t&le;s were
+     * eliminated)
+     * @throws IllegalStateException if <CODE>addCumulativeVars()</CODE> was
+     * not called
+     */
+    public int getYVar(int i, int s) {
+        if (_yIdx==null) 
+            throw new IllegalStateException("no cumulative vars in model");
+        return _yIdx[i*(_Smax+1)+s];
+    }
+
+
+    /**
+     * adds the terms coeff*x_{j,t} for t=0...s to the row being built, ie the
+     * terms that count whether course j is taken by term s: if the model has
+     * the cumulative variables y_{j,s} (see <CODE>addCumulativeVars()</CODE>),
+     * this is the single term coeff*y_{j,s}, otherwise the (up to) s+1 terms
+     * coeff*x_{j,t}. No-op if s &lt; 0.
+     * @param j int the course id
+     * @param s int the last term
+     * @param coeff double
+     */
+    public void addTakenByTerms(int j, int s, double coeff) {
+        if (s<0) return;
+        if (_yIdx!=null) {
+            addTerm(_yIdx[j*(_Smax+1)+s], coeff);
+            return;
+        }
+        for (int t=0; t<=s; t++) {
+            addTerm(_xIdx[j*(_Smax+1)+t], coeff);
+        }
+    }
+
+
+    /**
+     * return the index of the variable x_i.
+     * @param i int the course id
+     * @return int
+     */
+    public int getXiVar(int i) {
+        return _xiIdx[i];
+    }
+
+
+    /**
+     * return the index of the variable D (the last term any course is taken).
+     * @return int
+     */
+    public int getDVar() {
+        return _dVar;
+    }
+
+
+    /**
+     * return the index of the variable DL (the max difficulty sum in a term).
+     * @return int
+     */
+    public int getDLVar() {
+        return _dlVar;
+    }
+
+
+    /**
+     * set the objective function coefficient of the given variable.
+     * @param var int
+     * @param coeff double
+     */
+    public void setObjCoeff(int var, double coeff) {
+        _obj[var] = coeff;
+    }
+
+
+    /**
+     * adds a new (empty) objective to the prioritized objectives of the model:
+     * solvers that support them optimize the objectives of higher priority 
+     * first, and then the next ones without degrading the optimal value of
+     * any previous objective by more than its tolerances. Objectives of the
+     * same priority are added up.
+     * @param name String
+     * @param priority int
+     * @param absTol double the absolute degradation allowed
+     * @param relTol double the relative degradation allowed
+     * @return int the index of the new objective
+     */
+    public int addObjectiveN(String name, int priority, double absTol,
+                             double relTol) {
+        _objectivesN.add(new ObjectiveN(name, priority, absTol, relTol));
+        return _objectivesN.size()-1;
+    }
+
+
+    /**
+     * adds the given coefficient to that of the given variable in the given
+     * prioritized objective.
+     * @param k int the index of the objective
+     * @param var int
+     * @param coeff double
+     */
+    public void addObjNCoeff(int k, int var, double coeff) {
+        ObjectiveN o = _objectivesN.get(k);
+        if (o._coeffs.length<=var)
+            o._coeffs = Arrays.copyOf(o._coeffs, 
+                                      Math.max(var+1, _varNames.length));
+        o._coeffs[var] += coeff;
+    }
+
+
+    /**
+     * removes all prioritized objectives.
+     */
+    public void clearObjectivesN() {
+        _objectivesN.clear();
+    }
+
+
+    /**
+     * return the number of prioritized objectives.
+     * @return int
+     */
+    public int getNumObjectivesN() { return _objectivesN.size(); }
+
+
+    /**
+     * return the name of the given prioritized objective.
+     * @param k int
+     * @return String
+     */
+    public String getObjNName(int k) { return _objectivesN.get(k)._name; }
+
+
+    /**
+     * return the priority of the given prioritized objective.
+     * @param k int
+     * @return int
+     */
+    public int getObjNPriority(int k) { return _objectivesN.get(k)._priority; }
+
+
+    /**
+     * return the absolute tolerance of the given prioritized objective.
+     * @param k int
+     * @return double
+     */
+    public double getObjNAbsTol(int k) { return _objectivesN.get(k)._absTol; }
+
+
+    /**
+     * return the relative tolerance of the given prioritized objective.
+     * @param k int
+     * @return double
+     */
+    public double getObjNRelTol(int k) { return _objectivesN.get(k)._relTol; }
+
+
+    /**
+     * return the coefficients of all variables in the given prioritized
+     * objective.
+     * @param k int
+     * @return double[] of length <CODE>getNumVars()</CODE>
+     */
+    public double[] getObjNCoeffs(int k) {
+        return Arrays.copyOf(_objectivesN.get(k)._coeffs, _numVars);
+    }
+
+
+    /**
+     * add the term coeff*var to the row currently being built. Zero
+     * coefficients, as well as eliminated variables (index -1), are ignored.
+     * @param var int
+     * @param coeff double
+     */
+    public void addTerm(int var, double coeff) {
+        if (coeff==0.0 || var<0) return;
+        if (_nnz==_termVars.length) {
+            _termVars = Arrays.copyOf(_termVars, 2*_nnz);
+            _termCoeffs = Arrays.copyOf(_termCoeffs, 2*_nnz);
+        }
+        _termVars[_nnz] = var;
+        _termCoeffs[_nnz] = coeff;
+        ++_nnz;
+    }
+
+
+    /**
+     * completes the row currently being built.
+     * @param sense char one of <CODE>LESS_EQUAL, GREATER_EQUAL, EQUAL</CODE>
+     * @param rhs double
+     * @return int the index of the row just completed
+     */
+    public int endRow(char sense, double rhs) {
+        if (_numRows+1==_rowStart.length) {
+            final int len = 2*_rowStart.length;
+            _rowStart = Arrays.copyOf(_rowStart, len);
+            _senses = Arrays.copyOf(_senses, len);
+            _rhs = Arrays.copyOf(_rhs, len);
+        }
+        _senses[_numRows] = sense;
+        _rhs[_numRows] = rhs;
+        ++_numRows;
+        _rowStart[_numRows] = _nnz;
+        return _numRows-1;
+    }
+
+
+    /**
+     * adds a comment line to be written right before the next row when the
+     * model is written in LP format. No-op unless the model was constructed
+     * with <CODE>keepComments</CODE> set to true.
+     * @param text String
+     */
+    public void addComment(String text) {
+        if (!_keepComments) return;
+        _commentRows.add(_numRows);
+        _comments.add(text);
+    }
+
+
+    /**
+     * set the bounds of the given variable.
+     * @param var int
+     * @param lb double
+     * @param ub double
+     */
+    public void setBounds(int var, double lb, double ub) {
+        _lb[var] = lb;
+        _ub[var] = ub;
+    }
+
+
+    /**
+     * declares all rows and variable bounds of the model so far as its base,
+     * which <CODE>resetToBase()</CODE> restores.
+     */
+    public void markBase() {
+        _numBaseRows = _numRows;
+        _numBaseVars = _numVars;
+        _numBaseComments = _comments.size();
+        _baseLB = Arrays.copyOf(_lb, _numVars);
+        _baseUB = Arrays.copyOf(_ub, _numVars);
+    }
+
+
+    /**
+     * removes all rows added since the last call to <CODE>markBase()</CODE>,
+     * restores the variable bounds to their values at that time, and clears
+     * the MIP start.
+     * @throws IllegalStateException if <CODE>markBase()</CODE> was never
+     * called, or if variables were added after it
+     */
+    public void resetToBase() {
+        if (_numBaseRows<0) 
+            throw new IllegalStateException("model has no base");
+        if (_numVars!=_numBaseVars)
+            throw new IllegalStateException("variables added after the base");
+        _numRows = _numBaseRows;
+        _nnz = _rowStart[_numRows];
+        while (_comments.size()>_numBaseComments) {
+            _comments.remove(_comments.size()-1);
+            _commentRows.remove(_commentRows.size()-1);
+        }
+        System.arraycopy(_baseLB, 0, _lb, 0, _numVars);
+        System.arraycopy(_baseUB, 0, _ub, 0, _numVars);
+        _start = null;
+    }
+
+
+    /**
+     * return the number of rows in the base of the model.
+     * @return int -1 if <CODE>markBase()</CODE> was never called
+     */
+    public int getNumBaseRows() { return _numBaseRows; }
+
+
+    /**
+     * set the MIP start value of the given variable.
+     * @param var int
+     * @param val double
+     */
+    public void setStart(int var, double val) {
+        if (_start==null) {
+            _start = new double[_numVars];
+            Arrays.fill(_start, Double.NaN);
+        }
+        _start[var] = val;
+    }
+
+
+    /**
+     * check whether any MIP start value is set.
+     * @return boolean
+     */
+    public boolean hasStart() { return _start!=null; }
+
+
+    /**
+     * return the MIP start value of the given variable.
+     * @param var int
+     * @return double <CODE>Double.NaN</CODE> if no start value is set
+     */
+    public double getStart(int var) {
+        return _start!=null && var<_start.length ? _start[var] : Double.NaN;
+    }
+
+
+    /**
+     * return the number of courses N.
+     * @return int
+     */
+    public int getNumCourses() { return _numCourses; }
+
+
+    /**
+     * return the maximum term number Smax.
+     * @return int
+     */
+    public int getSmax() { return _Smax; }
+
+
+    /**
+     * return the total number of variables in the model.
+     * @return int
+     */
+    public int getNumVars() { return _numVars; }
+
+
+    /**
+     * return the number of variables x_{i,s} that were not eliminated.
+     * @return int
+     */
+    public int getNumXVars() { return _numXVars; }
+
+
+    /**
+     * return the total number of constraints (rows) in the model.
+     * @return int
+     */
+    public int getNumRows() { return _numRows; }
+
+
+    /**
+     * return the total number of non-zero terms in the constraints.
+     * @return int
+     */
+    public int getNumNonZeros() { return _nnz; }
+
+
+    /**
+     * return the name of the given variable.
+     * @param var int
+     * @return String such as "x_12_3"
+     */
+    public String getVarName(int var) { return _varNames[var]; }
+
+
+    /**
+     * return the type of the given variable.
+     * @param var int
+     * @return char one of <CODE>BINARY, CONTINUOUS</CODE>
+     */
+    public char getVarType(int var) { return _varTypes[var]; }
+
+
+    /**
+     * return the lower bound of the given variable.
+     * @param var int
+     * @return double
+     */
+    public double getLB(int var) { return _lb[var]; }
+
+
+    /**
+     * return the upper bound of the given variable.
+     * @param var int
+     * @return double
+     */
+    public double getUB(int var) { return _ub[var]; }
+
+
+    /**
+     * return the objective coefficient of the given variable.
+     * @param var int
+     * @return double
+     */
+    public double getObjCoeff(int var) { return _obj[var]; }
+
+
+    /**
+     * return the position of the first term of row r.
+     * @param r int
+     * @return int
+     */
+    public int getRowBegin(int r) { return _rowStart[r]; }
+
+
+    /**
+     * return the position right after the last term of row r.
+     * @param r int
+     * @return int
+     */
+    public int getRowEnd(int r) { return _rowStart[r+1]; }
+
+
+    /**
+     * return the variable of the term at position p.
+     * @param p int
+     * @return int
+     */
+    public int getTermVar(int p) { return _termVars[p]; }
+
+
+    /**
+     * return the coefficient of the term at position p.
+     * @param p int
+     * @return double
+     */
+    public double getTermCoeff(int p) { return _termCoeffs[p]; }
+
+
+    /**
+     * return the sense of row r.
+     * @param r int
+     * @return char one of <CODE>LESS_EQUAL, GREATER_EQUAL, EQUAL</CODE>
+     */
+    public char getSense(int r) { return _senses[r]; }
+
+
+    /**
+     * return the right-hand-side of row r.
+     * @param r int
+     * @return double
+     */
+    public double getRHS(int r) { return _rhs[r]; }
+
+
+    /**
+     * return a copy of the lower bounds of all variables.
+     * @return double[]
+     */
+    public double[] getLBs() { return Arrays.copyOf(_lb, _numVars); }
+
+
+    /**
+     * return a copy of the upper bounds of all variables.
+     * @return double[]
+     */
+    public double[] getUBs() { return Arrays.copyOf(_ub, _numVars); }
+
+
+    /**
+     * return a copy of the objective coefficients of all variables.
+     * @return double[]
+     */
+    public double[] getObjCoeffs() { return Arrays.copyOf(_obj, _numVars); }
+
+
+    /**
+     * return a copy of the types of all variables.
+     * @return char[]
+     */
+    public char[] getVarTypes() { return Arrays.copyOf(_varTypes, _numVars); }
+
+
+    /**
+     * return a copy of the names of all variables.
+     * @return String[]
+     */
+    public String[] getVarNames() { return Arrays.copyOf(_varNames, _numVars); }
+
+
+    /**
+     * writes this model in LP format in the given file.
+     * @param filename String
+     * @throws IOException if writing to the file fails
+     */
+    public void writeLP(String filename) throws IOException {
+        try (FileChannel ch = 
+                FileChannel.open(Paths.get(filename), 
+                                 StandardOpenOption.WRITE,
+                                 StandardOpenOption.CREATE,
+                                 StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeLP(ch);
+        }
+    }
+
+
+    /**
+     * writes this model in LP format to the given channel (eg 
+     * <CODE>Channels.newChannel(outputStream)</CODE>), through a fixed-size
+     * buffer (see class <CODE>LPWriter</CODE>), so that no memory 
+     * proportional to the size of the model is needed. The channel is not
+     * closed.
+     * @param out WritableByteChannel
+     * @throws IOException if writing to the channel fails
+     */
+    public void writeLP(WritableByteChannel out) throws IOException {
+        LPWriter w = new LPWriter(out);
+        if (_objectivesN.isEmpty()) {
+            w.write("Minimize\nobj:");
+            boolean first = true;
+            for (int v=0; v<_numVars; v++) {
+                if (_obj[v]==0.0) continue;
+                if (!first) w.write(" +");
+                w.write(' ').write(_obj[v]).write(' ').write(_varNames[v]);
+                first = false;
+            }
+            w.write('\n');
+        }
+        else {  // GUROBI's LP format for prioritized objectives
+            w.write("Minimize multi-objectives\n");
+            for (ObjectiveN o : _objectivesN) {
+                w.write(o._name).write(": Priority=").write(o._priority);
+                w.write(" Weight=1 AbsTol=").write(o._absTol);
+                w.write(" RelTol=").write(o._relTol).write('\n');
+                final int n = Math.min(o._coeffs.length, _numVars);
+                boolean empty = true;
+                for (int v=0; v<n; v++) {
+                    final double c = o._coeffs[v];
+                    if (c==0.0) continue;
+                    w.write(c<0 ? " - " : " + ");
+                    w.write(Math.abs(c)).write(' ').write(_varNames[v]);
+                    empty = false;
+                }
+                if (empty) w.write(" 0 ").write(_varNames[0]);
+                w.write('\n');
+            }
+        }
+        w.write("\nSubject To\n");
+        int ci = 0;
+        for (int r=0; r<_numRows; r++) {
+            while (ci<_commentRows.size() && _commentRows.get(ci)==r) {
+                w.write("\\ ").write(_comments.get(ci++)).write('\n');
+            }
+            w.write('c').write(r+1).write(':');
+            for (int p=_rowStart[r]; p<_rowStart[r+1]; p++) {
+                final double c = _termCoeffs[p];
+                w.write(c<0 ? " - " : " + ");
+                w.write(Math.abs(c)).write(' ').write(_varNames[_termVars[p]]);
+            }
+            if (_rowStart[r]==_rowStart[r+1]) {
+                w.write(" 0 ").write(_varNames[0]);
+            }
+            final char sense = _senses[r];
+            if (sense==EQUAL) w.write(" = ");
+            else w.write(sense).write("= ");
+            w.write(_rhs[r]).write('\n');
+        }
+        while (ci<_comments.size()) {
+            w.write("\\ ").write(_comments.get(ci++)).write('\n');
+        }
+        // variables are non-negative by default in the LP format, so only
+        // bounds that differ from the default need be written
+        w.write("Bounds\n");
+        for (int v=0; v<_numVars; v++) {
+            final double defub = _varTypes[v]==BINARY ? 1.0 : INFINITY;
+            if (_lb[v]!=0.0 || _ub[v]!=defub) {
+                w.write(_lb[v]).write(" <= ").write(_varNames[v]).write(" <= ");
+                if (_ub[v]<INFINITY) w.write(_ub[v]);
+                else w.write("+inf");
+                w.write('\n');
+            }
+        }
+        // LP readers may reset the bounds of the variables in the Binary
+        // section to [0,1], so binary variables whose bounds were tightened
+        // (eg passed courses fixed to one, or disallowed terms fixed to 
+        // zero) are declared general integers instead, keeping their bounds
+        w.write("Binary\n");
+        boolean tightened = false;
+        for (int v=0; v<_numVars; v++) {
+            if (_varTypes[v]!=BINARY) continue;
+            if (_lb[v]==0.0 && _ub[v]==1.0) w.write(_varNames[v]).write('\n');
+            else tightened = true;
+        }
+        if (tightened) {
+            w.write("General\n");
+            for (int v=0; v<_numVars; v++) {
+                if (_varTypes[v]==BINARY && (_lb[v]!=0.0 || _ub[v]!=1.0))
+                    w.write(_varNames[v]).write('\n');
+            }
+        }
+        w.write("End\n");
+        w.flush();
+    }
+
+
+    /**
+     * a prioritized objective: its coefficients are indexed by variable, and
+     * the array may be shorter than the number of variables.
+     */
+    private static final class ObjectiveN {
+        private final String _name;
+        private final int _priority;
+        private final double _absTol;
+        private final double _relTol;
+        private double[] _coeffs = new double[0];
+
+        private ObjectiveN(String name, int priority, double absTol, 
+                           double relTol) {
+            _name = name;
+            _priority = priority;
+            _absTol = absTol;
+            _relTol = relTol;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package edu.acg.itss;
+
+import java.util.Arrays;
+
+
+/**
+ * immutable result of solving a <CODE>MIPModel</CODE> via a
+ * <CODE>ScheduleSolver</CODE>. Variable values are indexed exactly as the
+ * variables of the model that was solved, so that the value of x_{i,s} is
+ * obtained as <CODE>getValue(model.getXVar(i,s))</CODE> (unless the variable
+ * was eliminated, in which case its value is zero).
+ * @author itc
+ */
+public class MIPSolution {
+    /**
+     * the possible outcomes of an optimization.
+     */
+    public enum Status {
+        /**
+         * an optimal solution was found (within the solver's MIP gap).
+         */
+        OPTIMAL,
+        /**
+         * the model was proven infeasible.
+         */
+        INFEASIBLE,
+        /**
+         * the model was proven unbounded.
+         */
+        UNBOUNDED,
+        /**
+         * the time limit was reached; a solution may or may not be available.
+         */
+        TIME_LIMIT,
+        /**
+         * the node limit was reached; a solution may or may not be available.
+         */
+        NODE_LIMIT,
+        /**
+         * the search completed but optimality could not be proven (eg due to
+         * numerical trouble); a solution may or may not be available.
+         */
+        SUBOPTIMAL,
+        /**
+         * the optimization was cancelled (see 
+         * <CODE>ScheduleSolver.cancel()</CODE>); a solution may or may not be
+         * available.
+         */
+        INTERRUPTED,
+        /**
+         * any other outcome.
+         */
+        OTHER
+    }
+
+    private final Status _status;
+    private final double[] _values;  // null if no solution is available
+    private final double _objValue;
+    private final double _bestBound;
+    private final long _nodeCount;
+    private final long _solveTimeMsecs;
+    private final long _setupTimeMsecs;
+    private final long _extractTimeUsecs;
+
+
+    /**
+     * public constructor.
+     * @param status Status
+     * @param values double[] the values of all model variables, or null if no
+     * solution is available (the array is not copied)
+     * @param objValue double the objective value of the solution (ignored if
+     * there is no solution)
+     * @param bestBound double the best lower bound on the optimal objective
+     * value known to the solver
+     * @param nodeCount long the number of branch-and-bound nodes explored
+     * @param solveTimeMsecs long the wall-clock time of the optimization
+     */
+    public MIPSolution(Status status, double[] values, double objValue,
+                       double bestBound, long nodeCount, long solveTimeMsecs) {
+        this(status, values, objValue, bestBound, nodeCount, solveTimeMsecs, 0);
+    }
+
+
+    /**
+     * public constructor for solvers that need to set up an environment
+     * (eg check out a license) before they can optimize.
+     * @param status Status
+     * @param values double[] the values of all model variables, or null if no
+     * solution is available (the array is not copied)
+     * @param objValue double the objective value of the solution (ignored if
+     * there is no solution)
+     * @param bestBound double the best lower bound on the optimal objective
+     * value known to the solver
+     * @param nodeCount long the number of branch-and-bound nodes explored
+     * @param solveTimeMsecs long the wall-clock time of the optimization
+     * @param setupTimeMsecs long the wall-clock time spent before the
+     * optimization could start, eg waiting for a solver environment
+     */
+    public MIPSolution(Status status, double[] values, double objValue,
+                       double bestBound, long nodeCount, long solveTimeMsecs,
+                       long setupTimeMsecs) {
+        this(status, values, objValue, bestBound, nodeCount, solveTimeMsecs,
+             setupTimeMsecs, 0);
+    }
+
+
+    /**
+     * public constructor for solvers that must read the values of the 
+     * variables back from native code.
+     * @param status Status
+     * @param values double[] the values of all model variables, or null if no
+     * solution is available (the array is not copied)
+     * @param objValue double the objective value of the solution (ignored if
+     * there is no solution)
+     * @param bestBound double the best lower bound on the optimal objective
+     * value known to the solver
+     * @param nodeCount long the number of branch-and-bound nodes explored
+     * @param solveTimeMsecs long the wall-clock time of the optimization
+     * @param setupTimeMsecs long the wall-clock time spent before the
+     * optimization could start, eg waiting for a solver environment
+     * @param extractTimeUsecs long the micro-seconds it took to read the
+     * values of the variables from the solver
+     */
+    public MIPSolution(Status status, double[] values, double objValue,
+                       double bestBound, long nodeCount, long solveTimeMsecs,
+                       long setupTimeMsecs, long extractTimeUsecs) {
+        _status = status;
+        _values = values;
+        _objValue = values!=null ? objValue : Double.NaN;
+        _bestBound = bestBound;
+        _nodeCount = nodeCount;
+        _solveTimeMsecs = solveTimeMsecs;
+        _setupTimeMsecs = setupTimeMsecs;
+        _extractTimeUsecs = extractTimeUsecs;
+    }
+
+
+    /**
+     * get the status of the optimization.
+     * @return Status
+     */
+    public Status getStatus() { return _status; }
+
+
+    /**
+     * check whether a (feasible) solution is available, which is always the
+     * case when the status is <CODE>OPTIMAL</CODE>, and may be the case for
+     * the limit statuses.
+     * @return boolean
+     */
+    public boolean hasSolution() { return _values!=null; }
+
+
+    /**
+     * get the value of the given variable in the solution.
+     * @param var int the index of the variable in the model
+     * @return double
+     * @throws IllegalStateException if no solution is available
+     */
+    public double getValue(int var) {
+        if (_values==null)
+            throw new IllegalStateException("no solution available ("+
+                                            _status+")");
+        return _values[var];
+    }
+
+
+    /**
+     * get a copy of the values of all variables in the solution.
+     * @return double[] null if no solution is available
+     */
+    public double[] getValues() {
+        return _values!=null ? Arrays.copyOf(_values, _values.length) : null;
+    }
+
+
+    /**
+     * get the objective value of the solution, or NaN if there is none.
+     * @return double
+     */
+    public double getObjectiveValue() { return _objValue; }
+
+
+    /**
+     * get the best lower bound on the optimal objective value.
+     * @return double
+     */
+    public double getBestBound() { return _bestBound; }
+
+
+    /**
+     * get the relative MIP gap |obj-bound|/|obj| of the solution, or infinity
+     * if there is no solution.
+     * @return double
+     */
+    public double getMIPGap() {
+        if (_values==null) return Double.POSITIVE_INFINITY;
+        return getMIPGap(_objValue, _bestBound);
+    }
+
+
+    /**
+     * get the relative MIP gap |obj-bound|/|obj| of a solution with the given
+     * objective value, eg as reported to a 
+     * <CODE>SolverProgressListener</CODE>.
+     * @param obj double infinity (or <CODE>MIPModel.INFINITY</CODE>) if there
+     * is no solution
+     * @param bound double
+     * @return double infinity if there is no solution
+     */
+    public static double getMIPGap(double obj, double bound) {
+        if (obj>=MIPModel.INFINITY) return Double.POSITIVE_INFINITY;
+        final double diff = Math.abs(obj - bound);
+        if (diff==0.0) return 0.0;
+        return diff / Math.max(Math.abs(obj), 1.e-10);
+    }
+
+
+    /**
+     * get the number of branch-and-bound nodes explored.
+     * @return long
+     */
+    public long getNodeCount() { return _nodeCount; }
+
+
+    /**
+     * get the msecs the optimization took.
+     * @return long
+     */
+    public long getSolveTime() { return _solveTimeMsecs; }
+
+
+    /**
+     * get the msecs spent before the optimization could start (eg checking 
+     * out a GUROBI environment from a <CODE>GRBEnvPool</CODE>); zero for 
+     * solvers that need no set-up. Not included in <CODE>getSolveTime()</CODE>.
+     * @return long
+     */
+    public long getSetupTime() { return _setupTimeMsecs; }
+
+
+    /**
+     * get the micro-seconds it took to read the values of the variables from
+     * the solver (included in <CODE>getSolveTime()</CODE>); zero for solvers
+     * that compute them in Java.
+     * @return long
+     */
+    public long getExtractTime() { return _extractTimeUsecs; }
+
+
+    /**
+     * return a one-line description of this solution.
+     * @return String
+     */
+    @Override
+    public String toString() {
+        return "MIPSolution[status="+_status+", obj="+_objValue+", bound="+
+               _bestBound+", nodes="+_nodeCount+", time="+_solveTimeMsecs+
+               "ms, setup="+_setupTimeMsecs+"ms, extract="+_extractTimeUsecs+
+               "us]";
+    }
+}
@@ -1,14 +1,18 @@
 package edu.acg.itss;
 
-import gurobi.GRBException;
 import java.awt.Cursor;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import javax.swing.*;
 import javax.swing.text.*;
 import java.io.*;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * main entry point to the ACG SCORER application. The application allows 
@@ -68,6 +72,18 @@ public class MainGUI extends javax.swing.JFrame {
      */
     private final DefaultListModel _concAreasModel = new DefaultListModel();
     private final MIPHandler _miphdlr = new MIPHandler();
+    /**
+     * the (daemon) thread that creates and solves the MIP models, off the
+     * event dispatch thread.
+     */
+    private final ExecutorService _runExecutor = 
+        Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "MainGUI-run");
+                t.setDaemon(true);
+                return t;
+            }
+        });
     
     /**
      * maintains for each course-id in the solution the text-field that has
@@ -90,7 +106,7 @@ public class MainGUI extends javax.swing.JFrame {
     /**
      * same as above, but holds as values the strings that were typed in each
      * text-box, and is given as input to the 
-     * <CODE>MIPHandler.createMIPFile()</CODE> method.
+     * <CODE>MIPHandler.createMIPModel()</CODE> method.
      */
     private final HashMap<Integer, String> _numCoursesPerTerm2StrMap = 
         new HashMap<>();
@@ -145,6 +161,29 @@ public class MainGUI extends javax.swing.JFrame {
         this._curDateTxtFld.setText(Integer.toString(cur_day)+"/"+
                                     Integer.toString(cur_mon)+"/"+
                                     Integer.toString(cur_year));
+        // show the progress of the optimizations in the outputs area
+        _miphdlr.setProgressListener(new SolverProgressListener() {
+            public void progress(double incumbentObj, double bestBound, 
+                                 long nodeCount, long elapsedMsecs) {
+                String inc = incumbentObj<MIPModel.INFINITY ? 
+                    String.format("%.2f (gap %.2f%%)", incumbentObj, 
+                                  100*MIPSolution.getMIPGap(incumbentObj, 
+                                                            bestBound)) :
+                    "none yet";
+                showProgressText(String.format(
+                    "MIP model created.\nOptimizing for %d secs: "+
+                    "best schedule objective %s, bound %.2f, %d nodes.\n"+
+                    "Hit CANCEL to stop with the best schedule found so far.",
+                    elapsedMsecs/1000, inc, bestBound, nodeCount));
+            }
+        });
+        // dispose the GUROBI environments (releasing their licenses) on exit
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                _miphdlr.close();
+            }
+        });
     }
     
     
@@ -168,10 +207,11 @@ public class MainGUI extends javax.swing.JFrame {
         }
         
         String program_code = _miphdlr.getScheduleParams().getProgramCode();
-        Iterator<String> codes = Course.getAllCodesIterator();
+        final Catalog catalog = _miphdlr.getCatalog();
+        Iterator<String> codes = catalog.getAllCodesIterator();
         while (codes.hasNext()) {
             String c = codes.next();
-            Course crs = Course.getCourseByCode(c);
+            Course crs = catalog.getCourseByCode(c);
             if (c.startsWith(program_code)) {
                 CodeNameAllowedTerms cnat = 
                         new CodeNameAllowedTerms(crs.getCode(), crs.getName(), 
@@ -180,7 +220,7 @@ public class MainGUI extends javax.swing.JFrame {
             }
             _classListModel.addElement(crs);
         }
-        Set<String> conc_areas = CourseGroup.getAllConcentrationAreas();
+        Set<String> conc_areas = catalog.getAllConcentrationAreas();
         for (String name: conc_areas) this._concAreasModel.addElement(name);
     }
     
@@ -223,6 +263,7 @@ public class MainGUI extends javax.swing.JFrame {
         _concNamesList = new javax.swing.JList<>();
         jLabel2 = new javax.swing.JLabel();
         _runBtn = new javax.swing.JButton();
+        _cancelBtn = new javax.swing.JButton();
         jLabel3 = new javax.swing.JLabel();
         jScrollPane5 = new javax.swing.JScrollPane();
         _desiredCoursesList = new javax.swing.JList<>();
@@ -330,6 +371,14 @@ public class MainGUI extends javax.swing.JFrame {
             }
         });
 
+        _cancelBtn.setText("CANCEL");
+        _cancelBtn.setEnabled(false);
+        _cancelBtn.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                _cancelBtnActionPerformed(evt);
+            }
+        });
+
         jLabel3.setText("Select Desired Courses To Take:");
 
         _desiredCoursesList.setModel(_itcClassListModel);
@@ -410,7 +459,9 @@ public class MainGUI extends javax.swing.JFrame {
                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                                 .addComponent(_curDateTxtFld, javax.swing.GroupLayout.PREFERRED_SIZE, 125, javax.swing.GroupLayout.PREFERRED_SIZE)
                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                                .addComponent(_runBtn, javax.swing.GroupLayout.PREFERRED_SIZE, 73, javax.swing.GroupLayout.PREFERRED_SIZE))
+                                .addComponent(_runBtn, javax.swing.GroupLayout.PREFERRED_SIZE, 73, javax.swing.GroupLayout.PREFERRED_SIZE)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                                .addComponent(_cancelBtn, javax.swing.GroupLayout.PREFERRED_SIZE, 83, javax.swing.GroupLayout.PREFERRED_SIZE))
                             .addGroup(_inputsPanelLayout.createSequentialGroup()
                                 .addComponent(jScrollPane3, javax.swing.GroupLayout.PREFERRED_SIZE, 200, javax.swing.GroupLayout.PREFERRED_SIZE)
                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
@@ -478,6 +529,7 @@ public class MainGUI extends javax.swing.JFrame {
                         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, 19, Short.MAX_VALUE)
                         .addGroup(_inputsPanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                             .addComponent(_runBtn)
+                            .addComponent(_cancelBtn)
                             .addComponent(_curDateTxtFld, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                             .addComponent(_curDateLbl)))
                     .addComponent(jScrollPane5)))
@@ -568,27 +620,27 @@ public class MainGUI extends javax.swing.JFrame {
 
     
     private void _exitMenuItemMousePressed(java.awt.event.MouseEvent evt) {//GEN-FIRST:event__exitMenuItemMousePressed
-        // TODO add your handling code here:
+        _miphdlr.close();
         System.exit(0);
     }//GEN-LAST:event__exitMenuItemMousePressed
 
     
     private void _runBtnActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event__runBtnActionPerformed
-        // create the MIP model, and then execute the GUROBI optimizer
-        // to solve the model and write the results to the output area. During
-        // this time, the GUI will be un-responsive.
+        // create the MIP model, and then execute the optimizer to solve the 
+        // model and write the results to the output area. Both run in the 
+        // background thread of _runExecutor, and the CANCEL button stops the
+        // optimizer with the best schedule found so far.
         // before anything else, set current date
-        String cur_date = this._curDateTxtFld.getText();
-        String[] cds = cur_date.split("/");
-        CurrentDate._curDay = Integer.parseInt(cds[0]);
-        CurrentDate._curMonth = Integer.parseInt(cds[1]);
-        CurrentDate._curYear = Integer.parseInt(cds[2]);
+        final PlanningDate date = 
+                PlanningDate.parse(this._curDateTxtFld.getText());
+        _miphdlr.setPlanningDate(date);
+        final Catalog catalog = _miphdlr.getCatalog();
         final int Smax = _miphdlr.getScheduleParams().getSmax();
         // check if the first planning semester is a FALL term, and if it's not
         // then ask for the number of passed OU courses during the current 
         // academic year
         // int passed_OU_in_cur_academic_year = 0;
-        while (!Course.isFallTerm(1) && _passed_OU_in_cur_academic_year==-1) {
+        while (!date.isFallTerm(1) && _passed_OU_in_cur_academic_year==-1) {
             String num_str = 
                     JOptionPane.showInputDialog("#OU courses already taken "+
                                                 "during current academic year");
@@ -654,232 +706,329 @@ public class MainGUI extends javax.swing.JFrame {
                                this._maxNumCrsPerSemFld.getText()+
                                " will stay at Integer.MAX_VALUE instead");
         }
-        String schedfile = null;
-        if (this._shortestComplTimeBtn.isSelected()) {
-            schedfile = _miphdlr.createMIPFile(isHonor, 
-                                               max_crs_per_sem, 
-                                               max_num_courses_dur_thesis,
-                                               s1off, s2off, stoff, 
-                                               _numCoursesPerTerm2StrMap, 
-                                               passed_codes, 
-                                               _passed_OU_in_cur_academic_year,
-                                               desired_codes, 
-                                               concentration_name,
-                                               1000, 100, 1, 10);
+        final int[] weights;
+        if (this._shortestComplTimeBtn.isSelected()) 
+            weights = new int[]{1000, 100, 1, 10};
+        else if (this._diffiBalanceBtn.isSelected())
+            weights = new int[]{1, 100, 10, 1000};
+        else weights = null;
+        // the rest runs in the background, so that the GUI stays responsive
+        // and the optimization can be cancelled
+        final String conc_name = concentration_name;
+        final int max_crs = max_crs_per_sem;
+        final int max_crs_dur_thesis = max_num_courses_dur_thesis;
+        final int passed_OU = _passed_OU_in_cur_academic_year;
+        final HashMap<Integer, String> num_crs_per_term = 
+            new HashMap<>(_numCoursesPerTerm2StrMap);
+        final String solver_name = _miphdlr.getScheduleParams().getSolverName();
+        final String schedfile = _miphdlr.getScheduleFileName();
+        this._runBtn.setEnabled(false);
+        _miphdlr.resetCancelRequest();
+        this._cancelBtn.setEnabled(true);
+        this._outputsArea.setText("Creating MIP model...");
+        _runExecutor.submit(new Runnable() {
+            public void run() {
+                String result = null;
+                boolean solved = false;
+                try {
+                    MIPModel mipmodel = null;
+                    if (weights!=null) {
+                        mipmodel = _miphdlr.createMIPModel(isHonor,
+                                                           max_crs,
+                                                           max_crs_dur_thesis,
+                                                           s1off, s2off, 
+                                                           stoff,
+                                                           num_crs_per_term,
+                                                           passed_codes,
+                                                           passed_OU,
+                                                           desired_codes,
+                                                           conc_name,
+                                                           weights[0], 
+                                                           weights[1],
+                                                           weights[2], 
+                                                           weights[3]);
+                    }
+                    showProgressText("MIP model created.\nNow running "+
+                                     solver_name);
+                    result = _miphdlr.optimizeSchedule(mipmodel);
+                    solved = true;
+                }
+                catch (SolverException e) {
+                    result = "Solver threw SolverException: "+
+                             e.getLocalizedMessage();
+                    if (_miphdlr.getScheduleParams().getDebug())
+                        result += "\nMIP program should be in file ./"+
+                                  schedfile;
+                    else 
+                        result += "\nset Debug=true in params.props to have "+
+                                  "the MIP program written in file ./"+
+                                  schedfile;
+                }
+                catch(IOException e) {
+                    result = "Printing into file ./"+schedfile+
+                             ".result_vars.out fail?";            
+                }
+                catch (Exception e) {
+                    result = "oops...";
+                    e.printStackTrace();
+                }
+                final String res = result;
+                final boolean show_schedule = solved;
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        runFinished(res, show_schedule, date, catalog, Smax);
+                    }
+                });
+            }
+        });
+    }//GEN-LAST:event__runBtnActionPerformed
+
+
+    /**
+     * called in the event dispatch thread when a run started by the RUN 
+     * button is over: writes the result in the outputs area, and shows the
+     * schedule computed (if any) in the output text pane.
+     * @param result String
+     * @param showSchedule boolean false if the optimization failed
+     * @param date PlanningDate the date of the run
+     * @param catalog Catalog the catalog of the run
+     * @param Smax int the maximum term number of the run
+     */
+    private void runFinished(String result, boolean showSchedule, 
+                             PlanningDate date, Catalog catalog, int Smax) {
+        if (showSchedule) {
+            try {
+                showSchedule(date, catalog, Smax);
+            }
+            catch (Exception e) {
+                result = "oops...";
+                e.printStackTrace();
+            }
         }
-        else if (this._diffiBalanceBtn.isSelected()) {
-            schedfile = _miphdlr.createMIPFile(isHonor, 
-                                               max_crs_per_sem, 
-                                               max_num_courses_dur_thesis,
-                                               s1off, s2off, stoff, 
-                                               _numCoursesPerTerm2StrMap,
-                                               passed_codes, 
-                                               _passed_OU_in_cur_academic_year,
-                                               desired_codes, 
-                                               concentration_name,
-                                               1, 100, 10, 1000);            
+        this._outputsArea.setText(result);
+        // now enable menu items as well
+        this._saveScheduleMenuItem.setEnabled(true);
+        this._runBtn.setEnabled(true);
+        this._cancelBtn.setEnabled(false);
+        // done, reset the cursor to normal
+        this.setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
+    }
+
+
+    /**
+     * writes the last optimal solution of the MIP handler in the output text
+     * pane, with text-fields for the user to enter their preferences for each
+     * term and course.
+     * @param date PlanningDate
+     * @param catalog Catalog
+     * @param Smax int
+     * @throws BadLocationException should not happen
+     */
+    private void showSchedule(final PlanningDate date, final Catalog catalog,
+                              final int Smax) 
+        throws BadLocationException {
+        // write result to output editor-pane too
+        HashMap<Integer, Integer> solnmap = 
+                _miphdlr.getLastOptimalSolution();
+        this._outputTextPane.setText("");  // reset the output text pane
+        _varTermsMap.clear();
+        _numCoursesPerTerm2FldMap.clear();
+        StyledDocument doc = this._outputTextPane.getStyledDocument();
+        SimpleAttributeSet attr = new SimpleAttributeSet();
+        /* below is example code for adding widgets in JTextPane
+        for (String dat : data ) {
+            doc.insertString(doc.getLength(), dat, attr );
+            tp.setCaretPosition(tp.getDocument().getLength());
+            tp.insertComponent(new JButton("Click"));
+            doc.insertString(doc.getLength(), "\n", attr );
         }
-        this._outputsArea.setText(schedfile+" created.\nNow running GUROBI");
-        String result = null;
-        try {
-            //final String program_code = 
-            //        _miphdlr.getScheduleParams().getProgramCode();
-            result = _miphdlr.optimizeSchedule(schedfile);
-            // write result to output editor-pane too
-            HashMap<Integer, Integer> solnmap = 
-                    _miphdlr.getLastOptimalSolution();
-            this._outputTextPane.setText("");  // reset the output text pane
-            _varTermsMap.clear();
-            _numCoursesPerTerm2FldMap.clear();
-            StyledDocument doc = this._outputTextPane.getStyledDocument();
-            SimpleAttributeSet attr = new SimpleAttributeSet();
-            /* below is example code for adding widgets in JTextPane
-            for (String dat : data ) {
-                doc.insertString(doc.getLength(), dat, attr );
-                tp.setCaretPosition(tp.getDocument().getLength());
-                tp.insertComponent(new JButton("Click"));
-                doc.insertString(doc.getLength(), "\n", attr );
+        setLocationRelativeTo(null);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setVisible(true);            
+        */            
+        // write courses per semester
+        Iterator<Integer> vid_it = solnmap.keySet().iterator();
+        // we need tree-map to have the keys in sorted asc order
+        TreeMap<Integer, Set<Integer>> crss_by_trm_map = new TreeMap<>();
+        while (vid_it.hasNext()) {
+            int vid = vid_it.next();
+            int tno = solnmap.get(vid);
+            if (tno<=0) continue;  // don't show courses already taken
+            Set<Integer> crs = crss_by_trm_map.get(tno);
+            if (crs==null) {
+                crs = new HashSet<>();
+                crss_by_trm_map.put(tno, crs);
             }
-            setLocationRelativeTo(null);
-            setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-            setVisible(true);            
-            */            
-            // write courses per semester
-            Iterator<Integer> vid_it = solnmap.keySet().iterator();
-            // we need tree-map to have the keys in sorted asc order
-            TreeMap<Integer, Set<Integer>> crss_by_trm_map = new TreeMap<>();
-            while (vid_it.hasNext()) {
-                int vid = vid_it.next();
-                int tno = solnmap.get(vid);
-                if (tno<=0) continue;  // don't show courses already taken
-                Set<Integer> crs = crss_by_trm_map.get(tno);
-                if (crs==null) {
-                    crs = new HashSet<>();
-                    crss_by_trm_map.put(tno, crs);
-                }
-                crs.add(vid);
+            crs.add(vid);
+        }
+        Iterator<Integer> term_it = crss_by_trm_map.keySet().iterator();
+        while (term_it.hasNext()) {
+            int tno = term_it.next();
+            String tname = date.getTermNameByTermNo(tno);
+            doc.insertString(doc.getLength(), "--- "+tname+" --- ", attr);
+            doc.insertString(doc.getLength(), " #Courses for Term: ", attr);
+            this._outputTextPane.setCaretPosition(this._outputTextPane.
+                                                      getDocument().
+                                                          getLength());
+            JTextField tfld2 = new JTextField("");
+            tfld2.setToolTipText(
+                        "Enter #Courses constraint for this term "+
+                        "eg '<=3' or '2'");
+            // show constraint value if there exists one
+            if (_numCoursesPerTerm2StrMap.containsKey(tno)) {
+                tfld2.setText(_numCoursesPerTerm2StrMap.get(tno));
             }
-            Iterator<Integer> term_it = crss_by_trm_map.keySet().iterator();
-            while (term_it.hasNext()) {
-                int tno = term_it.next();
-                String tname = Course.getTermNameByTermNo(tno);
-                doc.insertString(doc.getLength(), "--- "+tname+" --- ", attr);
-                doc.insertString(doc.getLength(), " #Courses for Term: ", attr);
+            _numCoursesPerTerm2FldMap.put(tno, tfld2);
+            this._outputTextPane.insertComponent(tfld2);
+            doc.insertString(doc.getLength(), "\n", attr);
+            
+            Set<Integer> cids = crss_by_trm_map.get(tno);
+            for (int cid : cids) {
+                Course c = catalog.getCourseById(cid);
+                // ignore courses that are not ITC or MATH
+                // this can be modeled by querying if the course belongs
+                // to a particular CourseGroup, say the 
+                // "EditableTimeCoursesGroup", but it'd be a lot of work to
+                // create such group file containing all ITC and MA courses.
+                // below, we use just the program-code string
+                //if (!c.getCode().startsWith(program_code)) continue;
+                String term = date.getTermNameByTermNo(tno);
+                String info = c.getCode()+" "+c.getName()+" Prefer Terms: ";
+                doc.insertString(doc.getLength(), info, attr);
                 this._outputTextPane.setCaretPosition(this._outputTextPane.
-                                                          getDocument().
-                                                              getLength());
-                JTextField tfld2 = new JTextField("");
-                tfld2.setToolTipText(
-                            "Enter #Courses constraint for this term "+
-                            "eg '<=3' or '2'");
-                // show constraint value if there exists one
-                if (_numCoursesPerTerm2StrMap.containsKey(tno)) {
-                    tfld2.setText(_numCoursesPerTerm2StrMap.get(tno));
-                }
-                _numCoursesPerTerm2FldMap.put(tno, tfld2);
-                this._outputTextPane.insertComponent(tfld2);
+                                                        getDocument().
+                                                          getLength());
+                JTextField tfld = new JTextField("");
+                tfld.setToolTipText(
+                        "Enter terms to allow separated by space or '-' to"+
+                        " indicate undesired course or 'allotherterms' to"+
+                        " indicate any other term OK; eg 'FA2022 SP2023'");
+                _varTermsMap.put(cid, tfld);
+                this._outputTextPane.insertComponent(tfld);
                 doc.insertString(doc.getLength(), "\n", attr);
-                
-                Set<Integer> cids = crss_by_trm_map.get(tno);
-                for (int cid : cids) {
-                    Course c = Course.getCourseById(cid);
-                    // ignore courses that are not ITC or MATH
-                    // this can be modeled by querying if the course belongs
-                    // to a particular CourseGroup, say the 
-                    // "EditableTimeCoursesGroup", but it'd be a lot of work to
-                    // create such group file containing all ITC and MA courses.
-                    // below, we use just the program-code string
-                    //if (!c.getCode().startsWith(program_code)) continue;
-                    String term = Course.getTermNameByTermNo(tno);
-                    String info = c.getCode()+" "+c.getName()+" Prefer Terms: ";
-                    doc.insertString(doc.getLength(), info, attr);
-                    this._outputTextPane.setCaretPosition(this._outputTextPane.
-                                                            getDocument().
-                                                              getLength());
-                    JTextField tfld = new JTextField("");
-                    tfld.setToolTipText(
-                            "Enter terms to allow separated by space or '-' to"+
-                            " indicate undesired course or 'allotherterms' to"+
-                            " indicate any other term OK; eg 'FA2022 SP2023'");
-                    _varTermsMap.put(cid, tfld);
-                    this._outputTextPane.insertComponent(tfld);
-                    doc.insertString(doc.getLength(), "\n", attr);
-                }
             }
-            JButton btn = new JButton("Change Terms");
-            btn.addActionListener(new ActionListener() {
-                public void actionPerformed(ActionEvent c) {
-                    _numCoursesPerTerm2StrMap.clear();
-                    Iterator<Integer> tit = 
-                        _numCoursesPerTerm2FldMap.keySet().iterator();
-                    while (tit.hasNext()) {
-                        int tno = tit.next();
-                        JTextField tfld = _numCoursesPerTerm2FldMap.get(tno);
-                        _numCoursesPerTerm2StrMap.put(tno, tfld.getText());
-                    }
-                    Iterator<Integer> vit = _varTermsMap.keySet().iterator();
-                    List<Integer> sel_inds = new ArrayList<>();
-                    while (vit.hasNext()) {
-                        int vid = vit.next();
-                        int cur_termno = 
-                                _miphdlr.getLastOptimalSolution().get(vid);
-                        JTextField vfld = _varTermsMap.get(vid);
-                        if (vfld.getText().length()>0) {
-                            String terms = vfld.getText().trim();
-                            if (terms.length()>0) {
-                                Course cv = Course.getCourseById(vid);
-                                if ("-".equals(terms)) {  // undesired course
-                                    terms = "";
-                                }
-                                else if (!CodeNameAllowedTerms.
-                                             prefferedTermsAllowed(cv.getCode(), 
-                                                                   terms,
-                                                                   cur_termno,
-                                                                   Smax)){
-                                    terms = "";  // indicates course is not 
-                                                 // offered during terms
-                                }
-                                // search to find where in _itcClassListModel
-                                // is the given course; if not found (LE course)
-                                // add it to the model
-                                int sz = _itcClassListModel.getSize();
-                                boolean found = false;
-                                for (int i=0; i<sz; i++) {
-                                    CodeNameAllowedTerms mi = 
-                                            (CodeNameAllowedTerms) 
-                                              _itcClassListModel.get(i);
-                                    if (mi._code.equals(cv.getCode())) {
-                                        CodeNameAllowedTerms new_cnat = 
-                                                new CodeNameAllowedTerms(
-                                                        cv.getCode(), 
-                                                        cv.getName(), 
-                                                        terms);
-                                        _itcClassListModel.set(i, new_cnat);
-                                        sel_inds.add(i);
-                                        found = true;
-                                        break;
-                                    }
-                                }
-                                if (!found) {  // course not in major program
-                                        CodeNameAllowedTerms new_cnat = 
-                                                new CodeNameAllowedTerms(
-                                                        cv.getCode(), 
-                                                        cv.getName(), 
-                                                        terms);                                    
-                                    _itcClassListModel.addElement(new_cnat);
-                                    sel_inds.add(_itcClassListModel.size()-1);
+        }
+        JButton btn = new JButton("Change Terms");
+        btn.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent c) {
+                _numCoursesPerTerm2StrMap.clear();
+                Iterator<Integer> tit = 
+                    _numCoursesPerTerm2FldMap.keySet().iterator();
+                while (tit.hasNext()) {
+                    int tno = tit.next();
+                    JTextField tfld = _numCoursesPerTerm2FldMap.get(tno);
+                    _numCoursesPerTerm2StrMap.put(tno, tfld.getText());
+                }
+                Iterator<Integer> vit = _varTermsMap.keySet().iterator();
+                List<Integer> sel_inds = new ArrayList<>();
+                while (vit.hasNext()) {
+                    int vid = vit.next();
+                    int cur_termno = 
+                            _miphdlr.getLastOptimalSolution().get(vid);
+                    JTextField vfld = _varTermsMap.get(vid);
+                    if (vfld.getText().length()>0) {
+                        String terms = vfld.getText().trim();
+                        if (terms.length()>0) {
+                            Course cv = catalog.getCourseById(vid);
+                            if ("-".equals(terms)) {  // undesired course
+                                terms = "";
+                            }
+                            else if (!CodeNameAllowedTerms.
+                                         prefferedTermsAllowed(cv.getCode(), 
+                                                               terms,
+                                                               cur_termno,
+                                                               Smax,
+                                                               catalog,
+                                                               date)){
+                                terms = "";  // indicates course is not 
+                                             // offered during terms
+                            }
+                            // search to find where in _itcClassListModel
+                            // is the given course; if not found (LE course)
+                            // add it to the model
+                            int sz = _itcClassListModel.getSize();
+                            boolean found = false;
+                            for (int i=0; i<sz; i++) {
+                                CodeNameAllowedTerms mi = 
+                                        (CodeNameAllowedTerms) 
+                                          _itcClassListModel.get(i);
+                                if (mi._code.equals(cv.getCode())) {
+                                    CodeNameAllowedTerms new_cnat = 
+                                            new CodeNameAllowedTerms(
+                                                    cv.getCode(), 
+                                                    cv.getName(), 
+                                                    terms);
+                                    _itcClassListModel.set(i, new_cnat);
+                                    sel_inds.add(i);
+                                    found = true;
+                                    break;
                                 }
                             }
+                            if (!found) {  // course not in major program
+                                    CodeNameAllowedTerms new_cnat = 
+                                            new CodeNameAllowedTerms(
+                                                    cv.getCode(), 
+                                                    cv.getName(), 
+                                                    terms);                                    
+                                _itcClassListModel.addElement(new_cnat);
+                                sel_inds.add(_itcClassListModel.size()-1);
+                            }
                         }
                     }
-                    // highlight also the indices for courses to change in 
-                    // _desiredCoursesList
-                    int[] indices = _desiredCoursesList.getSelectedIndices();
-                    for (int ind : indices) {
-                        if (!sel_inds.contains(ind)) sel_inds.add(ind);
-                    }
-                    indices = new int[sel_inds.size()];
-                    for (int i=0; i<indices.length; i++) 
-                        indices[i] = sel_inds.get(i);
-                    _desiredCoursesList.setSelectedIndices(indices);
                 }
-            });
-            this._outputTextPane.insertComponent(btn);
-            JButton btn2 = new JButton("Reset Desired Courses/Terms");
-            btn2.addActionListener(new ActionListener() {
-                public void actionPerformed(ActionEvent c) {
-                    int sz = _itcClassListModel.getSize();
-                    for (int i=0; i<sz; i++) {
-                        CodeNameAllowedTerms mi = 
-                            (CodeNameAllowedTerms) _itcClassListModel.get(i);
-                            CodeNameAllowedTerms new_cnat = 
-                                    new CodeNameAllowedTerms(mi._code, 
-                                                             mi._title, 
-                                                             "allterms");
-                                        _itcClassListModel.set(i, new_cnat);
-                    }
-                    _desiredCoursesList.clearSelection();
-                }   
-            });
-            this._outputTextPane.insertComponent(btn2);
-        }
-        catch (GRBException e) {
-            result = "GUROBI threw GRBException: "+e.getLocalizedMessage();
-            result += "\nMIP program should be in file ./"+schedfile;
-        }
-        catch(IOException e) {
-            result = "Printing into file ./"+schedfile+".result_vars.out fail?";            
-        }
-        catch (Exception e) {
-            result = "oops...";
-            e.printStackTrace();
-        }
-        this._outputsArea.setText(result);
-        // now enable menu items as well
-        this._saveScheduleMenuItem.setEnabled(true);
-        // done, reset the cursor to normal
-        this.setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
-    }//GEN-LAST:event__runBtnActionPerformed
+                // highlight also the indices for courses to change in 
+                // _desiredCoursesList
+                int[] indices = _desiredCoursesList.getSelectedIndices();
+                for (int ind : indices) {
+                    if (!sel_inds.contains(ind)) sel_inds.add(ind);
+                }
+                indices = new int[sel_inds.size()];
+                for (int i=0; i<indices.length; i++) 
+                    indices[i] = sel_inds.get(i);
+                _desiredCoursesList.setSelectedIndices(indices);
+            }
+        });
+        this._outputTextPane.insertComponent(btn);
+        JButton btn2 = new JButton("Reset Desired Courses/Terms");
+        btn2.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent c) {
+                int sz = _itcClassListModel.getSize();
+                for (int i=0; i<sz; i++) {
+                    CodeNameAllowedTerms mi = 
+                        (CodeNameAllowedTerms) _itcClassListModel.get(i);
+                        CodeNameAllowedTerms new_cnat = 
+                                new CodeNameAllowedTerms(mi._code, 
+                                                         mi._title, 
+                                                         "allterms");
+                                    _itcClassListModel.set(i, new_cnat);
+                }
+                _desiredCoursesList.clearSelection();
+            }   
+        });
+        this._outputTextPane.insertComponent(btn2);
+    }
+
+
+    /**
+     * shows the given text in the outputs area; may be called from any 
+     * thread.
+     * @param text String
+     */
+    private void showProgressText(final String text) {
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                _outputsArea.setText(text);
+            }
+        });
+    }
+
+
+    private void _cancelBtnActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event__cancelBtnActionPerformed
+        // the optimization returns its best schedule so far, that runFinished()
+        // then shows as usual
+        _miphdlr.cancelOptimization();
+        this._cancelBtn.setEnabled(false);
+    }//GEN-LAST:event__cancelBtnActionPerformed
 
     
     private void _shortestComplTimeBtnActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event__shortestComplTimeBtnActionPerformed
@@ -988,7 +1137,7 @@ public class MainGUI extends javax.swing.JFrame {
                     if (line==null) break;
                     String[] cs = line.split(";");
                     for (String code : cs) {
-                        Course c = Course.getCourseByCode(code);
+                        Course c = _miphdlr.getCatalog().getCourseByCode(code);
                         cids.add(c.getId());
                     }
                 }
@@ -1014,7 +1163,7 @@ public class MainGUI extends javax.swing.JFrame {
                     if (line==null) break;
                     String[] cs = line.split(";");
                     String ccode = cs[0];
-                    Course ci = Course.getCourseByCode(ccode);
+                    Course ci = _miphdlr.getCatalog().getCourseByCode(ccode);
                     if (ci!=null) {
                         int id = ci.getId();
                         cids.add(id);
@@ -1061,8 +1210,7 @@ public class MainGUI extends javax.swing.JFrame {
                                 " edu.acg.itss.CourseEditor "+
                                 MainGUI._dir2Files);
             int retval = p.waitFor();  // wait until the CourseEditor terminates
-            if (retval==0) {
-                Course.reset();
+            if (retval==0) {  // re-loads the catalog
                 populateCourseListModels();
             }
             else throw new IllegalStateException("process failed");
@@ -1090,9 +1238,7 @@ public class MainGUI extends javax.swing.JFrame {
                                 " edu.acg.itss.CourseGroupEditor "+
                                 MainGUI._dir2Files);
             int retval = p.waitFor();  // wait until the CourseEditor terminates
-            if (retval==0) {
-                Course.reset();
-                CourseGroup.reset();
+            if (retval==0) {  // re-loads the catalog
                 populateCourseListModels();
             }
             else throw new IllegalStateException("process failed");
@@ -1151,6 +1297,7 @@ public class MainGUI extends javax.swing.JFrame {
     }
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JButton _cancelBtn;
     private javax.swing.JList<String> _concNamesList;
     private javax.swing.JLabel _curDateLbl;
     private javax.swing.JTextField _curDateTxtFld;
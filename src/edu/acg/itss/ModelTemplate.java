@@ -0,0 +1,654 @@
+package edu.acg.itss;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.stream.IntStream;
+
+
+/**
+ * immutable template of the rows of the MIP models of a program that do not
+ * depend on the student: the D and DL constraints, the prerequisite and
+ * co-requisite constraints and the LEVEL constraints (sections 2.1 to 2.4 of
+ * <CODE>MIPHandler.createMIPModel()</CODE>), which only depend on the
+ * catalog, the planning date and Smax. The template is built once per
+ * (catalog, date, Smax) (see <CODE>Catalog.getModelTemplate()</CODE>), and
+ * copied into the model of every student by <CODE>addTo()</CODE>, that only
+ * has to map the template terms to the variables of the model. The sections
+ * of the template are built concurrently, each one in its own block of rows.
+ * <p>The rows are kept in Compressed Sparse Row form, just like in
+ * <CODE>MIPModel</CODE>, except that a term refers to one of x_{i,s}, D, DL,
+ * or the "taken-by-term" sum x_{i,0}+...+x_{i,s} (see
+ * <CODE>MIPModel.addTakenByTerms()</CODE>), so that the same template serves
+ * both formulations of the models. As the variables x_{i,s} a model
+ * eliminates depend on the student (see
+ * <CODE>MIPHandler.computeLiveXVars()</CODE>), every row may also have a
+ * guard variable x_{i,s}: the row is not copied into a model that eliminated
+ * its guard, as the row then holds trivially.
+ * <p>A template may also be written to, and read back from, a binary file
+ * (see <CODE>save()</CODE> and <CODE>load()</CODE>), so that it survives
+ * the JVM; the file carries the fingerprint of the inputs the template was
+ * built from (see <CODE>fingerprint()</CODE>), so a stale file is never
+ * used.
+ * @author itc
+ */
+public final class ModelTemplate {
+    private static final int _MAGIC = 0x4D544D50;  // "MTMP"
+    private static final int _VERSION = 1;
+    private final long _fingerprint;
+    private final int _numCourses;
+    private final int _smax;
+    private final int _numRows;
+    private final int[] _rowStart;
+    /**
+     * the code of the guard x_{i,s} of every row, or -1 for no guard.
+     */
+    private final int[] _rowGuards;
+    private final char[] _senses;
+    private final double[] _rhs;
+    /**
+     * the term codes: i*(Smax+1)+s for x_{i,s}, NX+i*(Smax+1)+s for the
+     * taken-by-term sum of course i up to term s, 2*NX for D and 2*NX+1 for
+     * DL, where NX is N*(Smax+1).
+     */
+    private final int[] _termCodes;
+    private final double[] _termCoeffs;
+    /**
+     * comment i is written before template row _commentRows[i].
+     */
+    private final int[] _commentRows;
+    private final String[] _comments;
+
+
+    private ModelTemplate(long fingerprint, int numCourses, int Smax,
+                          int numRows, int[] rowStart, int[] rowGuards,
+                          char[] senses, double[] rhs,
+                          int[] termCodes, double[] termCoeffs,
+                          int[] commentRows, String[] comments) {
+        _fingerprint = fingerprint;
+        _numCourses = numCourses;
+        _smax = Smax;
+        _numRows = numRows;
+        _rowStart = rowStart;
+        _rowGuards = rowGuards;
+        _senses = senses;
+        _rhs = rhs;
+        _termCodes = termCodes;
+        _termCoeffs = termCoeffs;
+        _commentRows = commentRows;
+        _comments = comments;
+    }
+
+
+    /**
+     * builds the template of the given catalog for the given date. Comments
+     * are kept only if the catalog is in debug mode (see
+     * <CODE>ScheduleParams.getDebug()</CODE>).
+     * @param catalog Catalog
+     * @param date PlanningDate
+     * @param Smax int
+     * @return ModelTemplate
+     * @throws IllegalStateException if a prerequisite is not a course of the
+     * catalog
+     * @throws NullPointerException if a LEVEL group or course is missing
+     */
+    static ModelTemplate create(Catalog catalog, PlanningDate date, int Smax) {
+        final boolean debug = catalog.getParams().getDebug();
+        final int n = catalog.getNumCourses();
+        // every section builds its own block of rows in the common fork-join
+        // pool; the blocks are then concatenated in section order, so the
+        // template is the same as if the sections were built one after the
+        // other
+        Builder[] blocks = IntStream.range(0, Builder.NUM_SECTIONS).
+                             parallel().
+                             mapToObj(k -> {
+                                 Builder b = new Builder(n, Smax, debug);
+                                 b.buildSection(k, catalog, date);
+                                 return b;
+                             }).
+                             toArray(Builder[]::new);
+        Builder all = blocks[0];
+        for (int k=1; k<blocks.length; k++) all.append(blocks[k]);
+        return all.toTemplate(fingerprint(catalog, date, Smax));
+    }
+
+
+    /**
+     * return a 64-bit hash of everything a template depends on: the
+     * prerequisites, co-requisites and difficulty levels of all courses, the
+     * LEVEL groups, the date and Smax (and, in debug mode, the terms the
+     * courses are offered, that appear in the comments).
+     * @param catalog Catalog
+     * @param date PlanningDate
+     * @param Smax int
+     * @return long
+     */
+    static long fingerprint(Catalog catalog, PlanningDate date, int Smax) {
+        final boolean debug = catalog.getParams().getDebug();
+        StringBuilder sb = new StringBuilder();
+        sb.append(_VERSION).append(';').append(catalog.getNumCourses()).
+           append(';').append(Smax).append(';').append(date).append(';').
+           append(debug).append('\n');
+        for (int i=0; i<catalog.getNumCourses(); i++) {
+            Course ci = catalog.getCourseById(i);
+            sb.append(ci.getCode()).append(';').
+               append(ci.getDifficultyLevel()).append(';');
+            for (Set<String> ps : ci.getPrereqs()) {
+                sb.append(new TreeSet<>(ps)).append(',');
+            }
+            sb.append(';').append(new TreeSet<>(ci.getCoreqs()));
+            if (debug) sb.append(';').append(ci.getTermsOffered(Smax, date));
+            sb.append('\n');
+        }
+        Iterator<String> it = catalog.getCourseGroupNameIterator();
+        while (it.hasNext()) {
+            final String name = it.next();
+            if (name.equals("L4") || name.equals("L5") || name.equals("L6") ||
+                name.startsWith("L5-")) {
+                sb.append(name).append(';').
+                   append(catalog.getCourseGroupByName(name).getGroupCodes()).
+                   append('\n');
+            }
+        }
+        // 64-bit FNV-1a
+        long h = 0xcbf29ce484222325L;
+        for (int k=0; k<sb.length(); k++) {
+            h ^= sb.charAt(k);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+
+    /**
+     * get the fingerprint of the inputs this template was built from.
+     * @return long
+     */
+    public long getFingerprint() { return _fingerprint; }
+
+
+    /**
+     * get the max term number the template was built for.
+     * @return int
+     */
+    public int getSmax() { return _smax; }
+
+
+    /**
+     * get the number of rows of the template (a model may get fewer of them,
+     * see <CODE>addTo()</CODE>).
+     * @return int
+     */
+    public int getNumRows() { return _numRows; }
+
+
+    /**
+     * adds the rows (and comments) of this template to the given model,
+     * except for the rows whose guard variable the model eliminated.
+     * @param m MIPModel must have as many courses and terms as the template,
+     * and no row being built
+     * @throws IllegalArgumentException if the model has a different number of
+     * courses or a different Smax
+     */
+    public void addTo(MIPModel m) {
+        if (m.getNumCourses()!=_numCourses || m.getSmax()!=_smax)
+            throw new IllegalArgumentException("model has "+
+                                               m.getNumCourses()+
+                                               " courses and Smax="+
+                                               m.getSmax()+", template has "+
+                                               _numCourses+" and "+_smax);
+        final int s1 = _smax+1;
+        final int nx = _numCourses*s1;
+        int ci = 0;
+        for (int r=0; r<_numRows; r++) {
+            while (ci<_commentRows.length && _commentRows[ci]==r) {
+                m.addComment(_comments[ci++]);
+            }
+            final int g = _rowGuards[r];
+            if (g>=0 && m.getXVar(g/s1, g%s1)<0) continue;
+            for (int p=_rowStart[r]; p<_rowStart[r+1]; p++) {
+                final int code = _termCodes[p];
+                final double c = _termCoeffs[p];
+                if (code<nx) m.addTerm(m.getXVar(code/s1, code%s1), c);
+                else if (code<2*nx) {
+                    m.addTakenByTerms((code-nx)/s1, (code-nx)%s1, c);
+                }
+                else if (code==2*nx) m.addTerm(m.getDVar(), c);
+                else m.addTerm(m.getDLVar(), c);
+            }
+            m.endRow(_senses[r], _rhs[r]);
+        }
+        while (ci<_comments.length) m.addComment(_comments[ci++]);
+    }
+
+
+    /**
+     * writes this template in the given file, in a binary format that only
+     * <CODE>load()</CODE> reads: a header, then each array of the template
+     * in one piece, so that it can be read back with bulk reads. The file is
+     * first written under a temporary name, and then renamed, so that
+     * concurrent readers never see a partial file.
+     * @param file File
+     * @throws IOException
+     */
+    public void save(File file) throws IOException {
+        File tmp = new File(file.getPath()+"."+System.nanoTime()+".tmp");
+        try (DataOutputStream out =
+                new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            final int nnz = _rowStart[_numRows];
+            out.writeInt(_MAGIC);
+            out.writeInt(_VERSION);
+            out.writeLong(_fingerprint);
+            out.writeInt(_numCourses);
+            out.writeInt(_smax);
+            out.writeInt(_numRows);
+            out.writeInt(nnz);
+            out.writeInt(_comments.length);
+            for (int r=0; r<=_numRows; r++) out.writeInt(_rowStart[r]);
+            for (int r=0; r<_numRows; r++) out.writeInt(_rowGuards[r]);
+            for (int r=0; r<_numRows; r++) out.writeChar(_senses[r]);
+            for (int r=0; r<_numRows; r++) out.writeDouble(_rhs[r]);
+            for (int p=0; p<nnz; p++) out.writeInt(_termCodes[p]);
+            for (int p=0; p<nnz; p++) out.writeDouble(_termCoeffs[p]);
+            for (int k=0; k<_comments.length; k++) {
+                out.writeInt(_commentRows[k]);
+                out.writeUTF(_comments[k]);
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("cannot rename "+tmp+" to "+file);
+        }
+    }
+
+
+    /**
+     * reads a template written by <CODE>save()</CODE>.
+     * @param file File
+     * @param fingerprint long the fingerprint of the inputs the template is
+     * sought for
+     * @return ModelTemplate null if the file holds a template built from
+     * other inputs (or by another version of this class)
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    public static ModelTemplate load(File file, long fingerprint)
+            throws IOException {
+        final ByteBuffer bb = 
+            ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        try {
+            if (bb.getInt()!=_MAGIC || bb.getInt()!=_VERSION ||
+                bb.getLong()!=fingerprint) return null;
+            final int n = bb.getInt();
+            final int smax = bb.getInt();
+            final int nrows = bb.getInt();
+            final int nnz = bb.getInt();
+            final int ncomments = bb.getInt();
+            if (n<0 || smax<0 || nrows<0 || nnz<0 || ncomments<0)
+                throw new IOException("corrupt template file "+file);
+            int[] row_start = new int[nrows+1];
+            bb.asIntBuffer().get(row_start);
+            bb.position(bb.position()+4*(nrows+1));
+            int[] guards = new int[nrows];
+            bb.asIntBuffer().get(guards);
+            bb.position(bb.position()+4*nrows);
+            char[] senses = new char[nrows];
+            bb.asCharBuffer().get(senses);
+            bb.position(bb.position()+2*nrows);
+            double[] rhs = new double[nrows];
+            bb.asDoubleBuffer().get(rhs);
+            bb.position(bb.position()+8*nrows);
+            int[] codes = new int[nnz];
+            bb.asIntBuffer().get(codes);
+            bb.position(bb.position()+4*nnz);
+            double[] coeffs = new double[nnz];
+            bb.asDoubleBuffer().get(coeffs);
+            bb.position(bb.position()+8*nnz);
+            final int maxcode = 2*n*(smax+1)+1;
+            for (int p=0; p<nnz; p++) {
+                if (codes[p]<0 || codes[p]>maxcode)
+                    throw new IOException("corrupt template file "+file);
+            }
+            DataInputStream in = 
+                new DataInputStream(
+                    new ByteArrayInputStream(bb.array(), bb.position(),
+                                             bb.remaining()));
+            int[] comment_rows = new int[ncomments];
+            String[] comments = new String[ncomments];
+            for (int k=0; k<ncomments; k++) {
+                comment_rows[k] = in.readInt();
+                comments[k] = in.readUTF();
+            }
+            return new ModelTemplate(fingerprint, n, smax, nrows, row_start,
+                                     guards, senses, rhs, codes, coeffs,
+                                     comment_rows, comments);
+        }
+        catch (BufferUnderflowException e) {
+            throw new IOException("truncated template file "+file);
+        }
+    }
+
+
+    /**
+     * auxiliary class builds the rows of a template, the same way the rows of
+     * a <CODE>MIPModel</CODE> are built.
+     */
+    private static final class Builder {
+        /**
+         * the number of sections, see <CODE>buildSection()</CODE>.
+         */
+        static final int NUM_SECTIONS = 9;
+        private final int _n;
+        private final int _smax;
+        private final boolean _keepComments;
+        private int _numRows = 0;
+        private int _nnz = 0;
+        private int[] _rowStart = new int[1024];
+        private int[] _rowGuards = new int[1024];
+        private char[] _senses = new char[1024];
+        private double[] _rhs = new double[1024];
+        private int[] _termCodes = new int[8192];
+        private double[] _termCoeffs = new double[8192];
+        private final List<Integer> _commentRows = new ArrayList<>();
+        private final List<String> _comments = new ArrayList<>();
+
+
+        Builder(int n, int Smax, boolean keepComments) {
+            _n = n;
+            _smax = Smax;
+            _keepComments = keepComments;
+        }
+
+
+        private int x(int i, int s) { return i*(_smax+1)+s; }
+
+
+        /**
+         * builds section k (0 &le; k &lt; <CODE>NUM_SECTIONS</CODE>) of the
+         * rows of sections 2.1 to 2.4 of 
+         * <CODE>MIPHandler.createMIPModel()</CODE>.
+         */
+        void buildSection(int k, Catalog catalog, PlanningDate date) {
+            final int N = _n;
+            final int Smax = _smax;
+            final int nx = N*(Smax+1);
+            final TermCalendar cal = date.getCalendar(Smax);
+            switch (k) {
+                case 0: {
+                    // 2.1 first, the D constraints
+                    addComment("1. D constraints");
+                    for (int i=0; i<N; i++) {
+                        for (int s=1; s<=Smax; s++) {
+                            addTerm(x(i, s), s);
+                            addTerm(2*nx, -1);
+                            endRow(x(i, s), MIPModel.LESS_EQUAL, 0);
+                        }
+                    }
+                    break;
+                }
+                case 1: {
+                    // 2.1 continued, the DL constraints
+                    addComment("1. DL constraints");
+                    for (int s=1; s<=Smax; s++) {
+                        for (int i=0; i<N; i++) {
+                            Course ci = catalog.getCourseById(i);
+                            addTerm(x(i, s), ci.getDifficultyLevel());
+                        }
+                        addTerm(2*nx+1, -1);
+                        endRow(-1, MIPModel.LESS_EQUAL, 0);
+                    }
+                    break;
+                }
+                case 2: {
+                    // 2.2 second, the class availability constraints: the 
+                    //     variables x_i_s for the terms s course i is not 
+                    //     offered in are eliminated by the presolve, so there
+                    //     are no rows to add
+                    if (!_keepComments) break;
+                    addComment("2. class availability "+
+                               "(eliminated variables)");
+                    for (int i=0; i<N; i++) {
+                        addComment("course-"+i+" terms: "+
+                                   catalog.getCourseById(i).
+                                       getTermsOffered(Smax, date));
+                    }
+                    break;
+                }
+                case 3: {
+                    // 2.3 third, prerequisite constraints
+                    addComment("3a. PREREQ constraints");
+                    for (int i=0; i<N; i++) {
+                        Course ci = catalog.getCourseById(i);
+                        Set<Set<String>> prereq_codes = ci.getPrereqs();
+                        if (prereq_codes.isEmpty()) continue;
+                        for (int s=1;s<=Smax; s++) {
+                            int ks = cal.isSummerTerm(s) ? 3 : 1;
+                            if (s-ks<0) continue;
+                            for (Set<String> ps : prereq_codes) {
+                                if (ps.isEmpty()) continue;
+                                addTerm(x(i, s), 1);
+                                for (String crsi : ps) {
+                                    Course cj = catalog.getCourseByCode(crsi);
+                                    if (cj==null) {
+                                        System.err.println("course w/ code "+
+                                                           crsi+
+                                                           " doesn't exist "+
+                                                           "(prereqs for "+
+                                                           ci+")");
+                                        throw new IllegalStateException(
+                                                    "course miss");
+                                    }
+                                    addTerm(nx+x(cj.getId(), s-ks), -1);
+                                }
+                                endRow(x(i, s), MIPModel.LESS_EQUAL, 0);
+                            }
+                        }
+                    }
+                    break;
+                }
+                case 4: {
+                    // 2.3 third continued, co-requisite constraints
+                    addComment("3b. COREQ constraints");
+                    for (int i=0; i<N; i++) {
+                        Course ci = catalog.getCourseById(i);
+                        Set<String> coreq_codes = ci.getCoreqs();
+                        if (coreq_codes.isEmpty()) continue;
+                        for (int s=1; s<=Smax; s++) {
+                            final int ks = cal.isSummerTerm(s) ? 3 : 1;
+                            addTerm(x(i, s), 1);
+                            for (String codej : coreq_codes) {
+                                Course cj = catalog.getCourseByCode(codej);
+                                int j = cj.getId();
+                                addTerm(x(j, s), -1);
+                                if (s-ks>=0) addTerm(nx+x(j, s-ks), -1);
+                            }
+                            endRow(x(i, s), MIPModel.LESS_EQUAL, 0);
+                        }
+                    }
+                    break;
+                }
+                default: {
+                    buildLevelSection(k, catalog, cal);
+                    break;
+                }
+            }
+        }
+
+
+        /**
+         * the sections of the 2.4 LEVEL constraints.
+         */
+        private void buildLevelSection(int k, Catalog catalog, 
+                                       TermCalendar cal) {
+            CourseGroup level4 = catalog.getCourseGroupByName("L4");
+            CourseGroup level5 = catalog.getCourseGroupByName("L5");
+            CourseGroup level6 = catalog.getCourseGroupByName("L6");
+            final int[] l4ids = level4.getCourseIds();
+            final int[] l5ids = level5.getCourseIds();
+            final int[] l6ids = level6.getCourseIds();
+            if (k==5) {
+                // L-5 constraints: at least 4 level-4 courses must be passed
+                // before taking a level-5 course
+                addComment("4a. L-5 constraints");
+                for (int l5id : l5ids) {
+                    addLevelConstraints(cal, l5id, 4, l4ids);
+                }
+            }
+            else if (k==6) {
+                // OTHER L-5 constraints: level-5 constraints for non-ITC 
+                // level-5 classes
+                addComment("4b. OTHER L-5 constraints");
+                Iterator<String> cgs_it = catalog.getCourseGroupNameIterator();
+                Set<String> other_l5_cgs = new HashSet<>();
+                while (cgs_it.hasNext()) {
+                    String cgs = cgs_it.next();
+                    if (cgs.startsWith("L5-")) other_l5_cgs.add(cgs);
+                }
+                for (String ocgl5 : other_l5_cgs) {
+                    final int[] ol5ids =
+                        catalog.getCourseGroupByName(ocgl5).getCourseIds();
+                    for (int l5id : ol5ids) {
+                        addLevelConstraints(cal, l5id, 4, l4ids);
+                    }
+                }
+            }
+            else if (k==7) {
+                // L-6 constraints
+                // first, ALL level-4 courses must be passed before taking a
+                // level-6 course
+                addComment("5a. L-6 constraints about L-4");
+                final int l4_num = l4ids.length;
+                for (int l6id : l6ids) {
+                    addLevelConstraints(cal, l6id, l4_num, l4ids);
+                }
+            }
+            else {
+                // second, at least 4 level-5 courses must be passed before 
+                // taking a level-6 course
+                addComment("5b. L-6 constraints about L-5");
+                for (int l6id : l6ids) {
+                    addLevelConstraints(cal, l6id, 4, l5ids);
+                }
+            }
+        }
+
+
+        /**
+         * the LEVEL constraints for the course with the given id: for every
+         * term s, at least <CODE>minNum</CODE> courses from the given
+         * lower-level courses must have been passed before the course can be
+         * taken in term s, ie
+         * minNum x_{i,s} - Σ_{j in lowerLevelIds} Σ_{t=0}^{s-ks} x_{j,t}
+         * &le; 0 where ks is 3 if term s is a Summer Term and 1 otherwise.
+         */
+        private void addLevelConstraints(TermCalendar cal, int i, int minNum,
+                                         int[] lowerLevelIds) {
+            final int nx = _n*(_smax+1);
+            for (int s=1; s<=_smax; s++) {
+                int ks = cal.isSummerTerm(s) ? 3 : 1;
+                addTerm(x(i, s), minNum);
+                if (s-ks>=0) {
+                    for (int j : lowerLevelIds) {
+                        addTerm(nx+x(j, s-ks), -1);
+                    }
+                }
+                endRow(x(i, s), MIPModel.LESS_EQUAL, 0);
+            }
+        }
+
+
+        private void addComment(String text) {
+            if (!_keepComments) return;
+            _commentRows.add(_numRows);
+            _comments.add(text);
+        }
+
+
+        private void addTerm(int code, double coeff) {
+            if (coeff==0.0) return;
+            if (_nnz==_termCodes.length) {
+                _termCodes = Arrays.copyOf(_termCodes, 2*_nnz);
+                _termCoeffs = Arrays.copyOf(_termCoeffs, 2*_nnz);
+            }
+            _termCodes[_nnz] = code;
+            _termCoeffs[_nnz] = coeff;
+            ++_nnz;
+        }
+
+
+        private void endRow(int guard, char sense, double rhs) {
+            if (_numRows+1==_rowStart.length) {
+                final int len = 2*_rowStart.length;
+                _rowStart = Arrays.copyOf(_rowStart, len);
+                _rowGuards = Arrays.copyOf(_rowGuards, len);
+                _senses = Arrays.copyOf(_senses, len);
+                _rhs = Arrays.copyOf(_rhs, len);
+            }
+            _rowGuards[_numRows] = guard;
+            _senses[_numRows] = sense;
+            _rhs[_numRows] = rhs;
+            ++_numRows;
+            _rowStart[_numRows] = _nnz;
+        }
+
+
+        /**
+         * appends the rows and comments of the given builder after the ones
+         * of this builder, renumbering them.
+         */
+        void append(Builder other) {
+            final int row_off = _numRows;
+            final int nnz_off = _nnz;
+            for (int k=0; k<other._comments.size(); k++) {
+                _commentRows.add(row_off+other._commentRows.get(k));
+                _comments.add(other._comments.get(k));
+            }
+            final int numrows = _numRows+other._numRows;
+            if (numrows+1>_rowStart.length) {
+                final int len = numrows+1;
+                _rowStart = Arrays.copyOf(_rowStart, len);
+                _rowGuards = Arrays.copyOf(_rowGuards, len);
+                _senses = Arrays.copyOf(_senses, len);
+                _rhs = Arrays.copyOf(_rhs, len);
+            }
+            System.arraycopy(other._rowGuards, 0, _rowGuards, row_off, 
+                             other._numRows);
+            System.arraycopy(other._senses, 0, _senses, row_off, 
+                             other._numRows);
+            System.arraycopy(other._rhs, 0, _rhs, row_off, other._numRows);
+            for (int r=1; r<=other._numRows; r++) {
+                _rowStart[row_off+r] = nnz_off+other._rowStart[r];
+            }
+            final int nnz = _nnz+other._nnz;
+            if (nnz>_termCodes.length) {
+                _termCodes = Arrays.copyOf(_termCodes, nnz);
+                _termCoeffs = Arrays.copyOf(_termCoeffs, nnz);
+            }
+            System.arraycopy(other._termCodes, 0, _termCodes, nnz_off, 
+                             other._nnz);
+            System.arraycopy(other._termCoeffs, 0, _termCoeffs, nnz_off, 
+                             other._nnz);
+            _numRows = numrows;
+            _nnz = nnz;
+        }
+
+
+        ModelTemplate toTemplate(long fingerprint) {
+            int[] comment_rows = new int[_commentRows.size()];
+            for (int k=0; k<comment_rows.length; k++) {
+                comment_rows[k] = _commentRows.get(k);
+            }
+            return new ModelTemplate(fingerprint, _n, _smax, _numRows,
+                                     Arrays.copyOf(_rowStart, _numRows+1),
+                                     Arrays.copyOf(_rowGuards, _numRows),
+                                     Arrays.copyOf(_senses, _numRows),
+                                     Arrays.copyOf(_rhs, _numRows),
+                                     Arrays.copyOf(_termCodes, _nnz),
+                                     Arrays.copyOf(_termCoeffs, _nnz),
+                                     comment_rows,
+                                     _comments.toArray(new String[0]));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package edu.acg.itss;
+
+import java.util.List;
+
+
+/**
+ * immutable table of the terms in which each course of a catalog is offered,
+ * with respect to a given planning date. For every course, the table keeps a
+ * bit-mask (a run of <CODE>long</CODE> words, one bit per term number in
+ * [1, Smax]) so that the question "is course i offered in term s?", asked
+ * N*Smax times for every model built by
+ * <CODE>MIPHandler.createMIPModel()</CODE>, needs neither the re-parsing of
+ * the terms-offered string of the course nor any allocation. Term numbers
+ * beyond Smax, as well as the current term (term number 0), are never
+ * considered offered.
+ * <p>Tables are obtained from <CODE>Catalog.getOfferedTerms()</CODE>, which
+ * builds a table once per planning date and shares it among all callers;
+ * as both the catalog and the date are immutable, a table never needs to be
+ * invalidated.
+ * @author itc
+ */
+public final class OfferedTerms {
+    private final int _smax;
+    /**
+     * the number of long words per course.
+     */
+    private final int _words;
+    /**
+     * the masks of all courses one after the other: bit s of the mask of
+     * course i is bit (s &amp; 63) of word i*_words + (s &gt;&gt; 6).
+     */
+    private final long[] _bits;
+
+
+    /**
+     * package constructor parses the terms-offered strings of all courses of
+     * the catalog (see <CODE>Course.getTermsOffered(Smax, date)</CODE>).
+     * @param catalog Catalog
+     * @param date PlanningDate
+     * @param Smax int the maximum term number of the schedules to plan
+     */
+    OfferedTerms(Catalog catalog, PlanningDate date, int Smax) {
+        final int n = catalog.getNumCourses();
+        _smax = Smax;
+        _words = (Smax >> 6) + 1;
+        _bits = new long[n*_words];
+        for (int i=0; i<n; i++) {
+            List<Integer> terms =
+                catalog.getCourseById(i).getTermsOffered(Smax, date);
+            final int off = i*_words;
+            for (int s : terms) {
+                if (s>0 && s<=Smax) _bits[off + (s >> 6)] |= 1L << (s & 63);
+            }
+        }
+    }
+
+
+    /**
+     * get the max term number the table was built for.
+     * @return int
+     */
+    public int getSmax() { return _smax; }
+
+
+    /**
+     * check whether the course with the given id is offered in the given term.
+     * @param courseId int
+     * @param termno int
+     * @return boolean false if termno is not in [1, Smax]
+     */
+    public boolean isOffered(int courseId, int termno) {
+        if (termno<=0 || termno>_smax) return false;
+        return (_bits[courseId*_words + (termno >> 6)] &
+                (1L << (termno & 63))) != 0;
+    }
+}
@@ -0,0 +1,408 @@
+package edu.acg.itss;
+
+import java.util.*;
+
+
+/**
+ * solves the model of one student for many vectors of objective weights
+ * (DNcoeff, DLcoeff, Crcoeff, Grcoeff) (see
+ * <CODE>MIPHandler.createMIPModel()</CODE>), to show advisors the trade-offs
+ * between the four terms of the objective: the completion term D, the
+ * difficulty load DL, the total credits and the expected grades. The model
+ * is built once; between solves only its objective coefficients change (see
+ * <CODE>MIPHandler.setObjective()</CODE>), and every solve is warm-started
+ * from the solution of the previous one, which is feasible as the
+ * constraints do not change. With a <CODE>GurobiScheduleSolver</CODE> that
+ * keeps its last model, GUROBI re-uses its model too.
+ * <p>The weights are either given as a list (eg a grid, see
+ * <CODE>grid()</CODE>), or refined adaptively: between any two consecutive
+ * weight vectors whose schedules differ in any of the four terms, the
+ * (component-wise geometric) mean vector is solved as well, until no new
+ * vectors arise or a maximum number of solves is reached. The Pareto front
+ * of the points computed is returned by <CODE>getParetoFront()</CODE>; all
+ * four terms are minimized, as they are by the objective of the model for
+ * positive weights.
+ * <p>Usage:
+ * <CODE>java edu.acg.itss.ParetoSweep &lt;programdir&gt; &lt;studentjson&gt;
+ * [dd/mm/yyyy(today)] [maxsolves(16)]</CODE> where studentjson is a student
+ * record in JSON (see class <CODE>StudentRecord</CODE>).
+ * @author itc
+ */
+public final class ParetoSweep {
+    private final MIPHandler _handler;
+    private final ScheduleSolver _solver;
+
+
+    /**
+     * public constructor.
+     * @param handler MIPHandler the handler that created the models to sweep
+     * @param solver ScheduleSolver
+     */
+    public ParetoSweep(MIPHandler handler, ScheduleSolver solver) {
+        _handler = handler;
+        _solver = solver;
+    }
+
+
+    /**
+     * solves the given model for each of the given weight vectors, in order.
+     * The objective and MIP start of the model are left as set for the last
+     * vector.
+     * @param model MIPModel created by <CODE>createMIPModel()</CODE> of the
+     * handler of this object
+     * @param weights List&lt;int[]&gt; each array holds DNcoeff, DLcoeff,
+     * Crcoeff and Grcoeff in this order
+     * @return List&lt;Point&gt; the points computed, in the order of the
+     * weights
+     * @throws SolverException if the solver fails
+     */
+    public List<Point> run(MIPModel model, List<int[]> weights)
+        throws SolverException {
+        List<Point> points = new ArrayList<>();
+        for (int[] w : weights) points.add(solve(model, w));
+        return points;
+    }
+
+
+    /**
+     * solves the given model for the given weight vectors, and then for the
+     * means of consecutive vectors whose points differ, as described in the
+     * class docs, up to the given number of solves. The objective and MIP
+     * start of the model are left as set for the last vector solved.
+     * @param model MIPModel created by <CODE>createMIPModel()</CODE> of the
+     * handler of this object
+     * @param weights List&lt;int[]&gt; the initial weight vectors
+     * @param maxSolves int the max number of solves (including the initial
+     * vectors)
+     * @return List&lt;Point&gt; the points computed, ordered as their weights
+     * would be by the refinement (each mean between its two vectors)
+     * @throws SolverException if the solver fails
+     */
+    public List<Point> runAdaptive(MIPModel model, List<int[]> weights,
+                                   int maxSolves) throws SolverException {
+        List<Point> points = new ArrayList<>();
+        Set<List<Integer>> tried = new HashSet<>();
+        for (int[] w : weights) {
+            if (points.size()>=maxSolves) return points;
+            if (tried.add(asList(w))) points.add(solve(model, w));
+        }
+        boolean refined = true;
+        while (refined && points.size()<maxSolves) {
+            refined = false;
+            for (int k=0; k+1<points.size() && points.size()<maxSolves; k++) {
+                final Point p = points.get(k);
+                final Point q = points.get(k+1);
+                if (p.sameTerms(q)) continue;
+                final int[] mid = mean(p._weights, q._weights);
+                if (!tried.add(asList(mid))) continue;
+                points.add(k+1, solve(model, mid));
+                refined = true;
+                ++k;  // (mid, q) is refined in the next pass
+            }
+        }
+        return points;
+    }
+
+
+    /**
+     * return the weight vectors of the cartesian product of the given values.
+     * @param DNcoeffs int[]
+     * @param DLcoeffs int[]
+     * @param Crcoeffs int[]
+     * @param Grcoeffs int[]
+     * @return List&lt;int[]&gt;
+     */
+    public static List<int[]> grid(int[] DNcoeffs, int[] DLcoeffs,
+                                   int[] Crcoeffs, int[] Grcoeffs) {
+        List<int[]> weights = new ArrayList<>();
+        for (int dn : DNcoeffs)
+            for (int dl : DLcoeffs)
+                for (int cr : Crcoeffs)
+                    for (int gr : Grcoeffs)
+                        weights.add(new int[]{dn, dl, cr, gr});
+        return weights;
+    }
+
+
+    /**
+     * return the points with a schedule that are not dominated by any other
+     * point, ie for which no other point is at least as good in all four
+     * terms and better in one. Of several points with the same terms, only
+     * the first is returned.
+     * @param points List&lt;Point&gt;
+     * @return List&lt;Point&gt; in the order of the given list
+     */
+    public static List<Point> getParetoFront(List<Point> points) {
+        List<Point> front = new ArrayList<>();
+        for (Point p : points) {
+            if (!p.hasSchedule()) continue;
+            boolean keep = true;
+            for (Point q : points) {
+                if (q!=p && q.hasSchedule() && q.dominates(p)) {
+                    keep = false;
+                    break;
+                }
+            }
+            for (Point f : front) {
+                if (f.sameTerms(p)) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) front.add(p);
+        }
+        return front;
+    }
+
+
+    /**
+     * sets the objective of the model for the given weights, solves it, and
+     * sets its solution (if any) as the MIP start of the next solve.
+     * @param model MIPModel
+     * @param w int[]
+     * @return Point
+     * @throws SolverException
+     */
+    private Point solve(MIPModel model, int[] w) throws SolverException {
+        _handler.setObjective(model, w[0], w[1], w[2], w[3]);
+        final MIPSolution sol = _solver.solve(model);
+        if (!sol.hasSolution()) return new Point(w, sol, null, 0, 0, 0, 0, 0);
+        final int nv = model.getNumVars();
+        for (int j=0; j<nv; j++) model.setStart(j, sol.getValue(j));
+        final Catalog catalog = _handler.getCatalog();
+        final float thres = _handler.getScheduleParams().getMinGradeThres();
+        final int N = model.getNumCourses();
+        final int Smax = model.getSmax();
+        int[] terms = new int[N];
+        int credits = 0;
+        double grade_points = 0.0;
+        int num_graded = 0;
+        for (int i=0; i<N; i++) {
+            terms[i] = -1;
+            for (int s=0; s<=Smax; s++) {
+                final int xis = model.getXVar(i, s);
+                if (xis>=0 && Math.round(sol.getValue(xis))==1) terms[i] = s;
+            }
+            if (_handler.isCreditOnlyPassed(i)) terms[i] = 0;
+            else if (Math.round(sol.getValue(model.getXiVar(i)))!=1) continue;
+            credits += catalog.getCourseById(i).getCredits();
+            final float est = _handler.getEstimatedGrade(i);
+            if (est>=thres) {
+                grade_points += est;
+                ++num_graded;
+            }
+        }
+        return new Point(w, sol, terms,
+                         Math.round(sol.getValue(model.getDVar())),
+                         Math.round(sol.getValue(model.getDLVar())),
+                         credits, grade_points, num_graded);
+    }
+
+
+    private static List<Integer> asList(int[] w) {
+        return Arrays.asList(w[0], w[1], w[2], w[3]);
+    }
+
+
+    /**
+     * the component-wise geometric mean of two weight vectors (the
+     * arithmetic mean where either weight is not positive), as weights vary
+     * by orders of magnitude.
+     * @param a int[]
+     * @param b int[]
+     * @return int[]
+     */
+    private static int[] mean(int[] a, int[] b) {
+        int[] m = new int[a.length];
+        for (int k=0; k<a.length; k++) {
+            m[k] = a[k]>0 && b[k]>0 ?
+                     (int) Math.round(Math.sqrt((double) a[k]*b[k])) :
+                     (a[k]+b[k])/2;
+        }
+        return m;
+    }
+
+
+    /**
+     * the outcome of the solve for one weight vector.
+     */
+    public static final class Point {
+        private final int[] _weights;
+        private final MIPSolution _solution;
+        private final int[] _terms;
+        private final long _completionTerm;
+        private final long _difficultyLoad;
+        private final int _credits;
+        private final double _gradePoints;
+        private final int _numGraded;
+
+        private Point(int[] weights, MIPSolution solution, int[] terms,
+                      long completionTerm, long difficultyLoad, int credits,
+                      double gradePoints, int numGraded) {
+            _weights = weights.clone();
+            _solution = solution;
+            _terms = terms;
+            _completionTerm = completionTerm;
+            _difficultyLoad = difficultyLoad;
+            _credits = credits;
+            _gradePoints = gradePoints;
+            _numGraded = numGraded;
+        }
+
+        /**
+         * get the weights DNcoeff, DLcoeff, Crcoeff and Grcoeff.
+         * @return int[] a copy
+         */
+        public int[] getWeights() { return _weights.clone(); }
+
+        /**
+         * get the solution of the solver.
+         * @return MIPSolution
+         */
+        public MIPSolution getSolution() { return _solution; }
+
+        /**
+         * check whether the solver found a schedule.
+         * @return boolean
+         */
+        public boolean hasSchedule() { return _terms!=null; }
+
+        /**
+         * get the term number in which each course is taken.
+         * @return int[] indexed by course id, -1 for courses not taken; null
+         * if there is no schedule
+         */
+        public int[] getSchedule() {
+            return _terms!=null ? _terms.clone() : null;
+        }
+
+        /**
+         * get the term of completion, ie the value of D.
+         * @return long
+         */
+        public long getCompletionTerm() { return _completionTerm; }
+
+        /**
+         * get the max sum of difficulty levels of a term, ie the value of DL.
+         * @return long
+         */
+        public long getDifficultyLoad() { return _difficultyLoad; }
+
+        /**
+         * get the total credits of the courses taken.
+         * @return int
+         */
+        public int getCredits() { return _credits; }
+
+        /**
+         * get the sum of the estimated grades of the courses taken (only of
+         * the estimates counted by the objective, see
+         * <CODE>ScheduleParams.getMinGradeThres()</CODE>).
+         * @return double
+         */
+        public double getGradePoints() { return _gradePoints; }
+
+        /**
+         * get the mean estimated grade of the courses counted by
+         * <CODE>getGradePoints()</CODE>.
+         * @return double NaN if there are no such courses
+         */
+        public double getExpectedGPA() {
+            return _numGraded>0 ? _gradePoints/_numGraded : Double.NaN;
+        }
+
+        private boolean sameTerms(Point p) {
+            if (_terms==null || p._terms==null) return _terms==p._terms;
+            return _completionTerm==p._completionTerm &&
+                   _difficultyLoad==p._difficultyLoad &&
+                   _credits==p._credits && _gradePoints==p._gradePoints;
+        }
+
+        private boolean dominates(Point p) {
+            if (_completionTerm>p._completionTerm ||
+                _difficultyLoad>p._difficultyLoad ||
+                _credits>p._credits || _gradePoints>p._gradePoints)
+                return false;
+            return !sameTerms(p);
+        }
+
+        /**
+         * return a one-line description of the point.
+         * @return String
+         */
+        @Override
+        public String toString() {
+            final String w = "weights="+Arrays.toString(_weights);
+            if (_terms==null) return w+" status="+_solution.getStatus();
+            return w+" status="+_solution.getStatus()+" D="+_completionTerm+
+                   " DL="+_difficultyLoad+" credits="+_credits+
+                   String.format(" gpa=%.2f", getExpectedGPA())+
+                   " solveMsecs="+_solution.getSolveTime();
+        }
+    }
+
+
+    /**
+     * invoke as:
+     * <CODE>java edu.acg.itss.ParetoSweep &lt;programdir&gt;
+     * &lt;studentjson&gt; [dd/mm/yyyy(today)] [maxsolves(16)]</CODE>.
+     * Starts from the two objectives of the GUI and the four vectors that
+     * favor each term, and prints all points computed, marking those of the
+     * Pareto front with a '*'.
+     * @param args String[]
+     */
+    public static void main(String[] args) {
+        if (args.length<2) {
+            System.err.println("usage: java edu.acg.itss.ParetoSweep "+
+                               "<programdir> <studentjson> [dd/mm/yyyy] "+
+                               "[maxsolves]");
+            System.exit(-1);
+        }
+        final PlanningDate date = args.length>2 ?
+                                    PlanningDate.parse(args[2]) :
+                                    PlanningDate.today();
+        final int max_solves = args.length>3 ? Integer.parseInt(args[3]) : 16;
+        Catalog catalog = null;
+        try {
+            catalog = Catalog.load(args[0]);
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            System.exit(-1);
+        }
+        final ScheduleParams params = catalog.getParams();
+        GRBEnvPool pool = null;
+        if ("gurobi".equalsIgnoreCase(params.getSolverName()))
+            pool = new GRBEnvPool(params.getGurobiEnvPoolSize());
+        ScheduleSolver solver = MIPHandler.createSolver(params, pool);
+        if (solver instanceof GurobiScheduleSolver)
+            ((GurobiScheduleSolver) solver).setKeepLastModel(true);
+        try {
+            StudentRecord r = StudentRecord.fromJSONLine(args[1]);
+            MIPHandler h = new MIPHandler(catalog, date);
+            h.setStudentName(r.getName());
+            MIPModel m = r.createMIPModel(h);
+            List<int[]> weights = Arrays.asList(new int[]{1000, 1, 1, 1},
+                                                new int[]{1000, 100, 1, 10},
+                                                new int[]{1, 1000, 1, 1},
+                                                new int[]{1, 100, 10, 1000},
+                                                new int[]{1, 1, 1, 1000},
+                                                new int[]{1, 1, 1000, 1});
+            ParetoSweep sweep = new ParetoSweep(h, solver);
+            List<Point> points = sweep.runAdaptive(m, weights, max_solves);
+            List<Point> front = getParetoFront(points);
+            for (Point p : points)
+                System.out.println((front.contains(p) ? "* " : "  ")+p);
+            System.out.println(points.size()+" points, "+front.size()+
+                               " on the Pareto front");
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            System.exit(-1);
+        }
+        finally {
+            solver.close();
+            if (pool!=null) pool.close();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package edu.acg.itss;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+
+/**
+ * bounded cache of the solutions of MIP models, keyed by a canonical hash of
+ * all the inputs the models were created from (see
+ * <CODE>MIPHandler.optimizeSchedule(MIPModel)</CODE>), so that students
+ * with identical planning requests, as is often the case in the same cohort,
+ * get their schedule without calling the solver again. Only solutions proven
+ * optimal are cached, in sparse form (the indices and values of their
+ * non-zero variables), and the cache is bounded by the total (approximate)
+ * size in bytes of its entries: when this size is exceeded, the least
+ * recently used entries are evicted. The numbers of hits, misses and
+ * evictions are kept for monitoring. Every <CODE>Catalog</CODE> has its own
+ * cache (see <CODE>Catalog.getPlanCache()</CODE>), so that entries never
+ * outlive the catalog version they were computed for. Thread-safe.
+ * @author itc
+ */
+public final class PlanCache {
+    /**
+     * the approximate size in bytes of an entry besides its key and values.
+     */
+    private static final int _ENTRY_OVERHEAD = 96;
+    private final long _maxBytes;
+    private final LinkedHashMap<String, Entry> _entries =
+        new LinkedHashMap<>(16, 0.75f, true);
+    private long _numBytes = 0;
+    private long _numHits = 0;
+    private long _numMisses = 0;
+    private long _numEvictions = 0;
+
+
+    /**
+     * public constructor.
+     * @param maxBytes long the max total size of the entries; if zero (or
+     * negative) the cache is disabled
+     */
+    public PlanCache(long maxBytes) {
+        _maxBytes = maxBytes;
+    }
+
+
+    /**
+     * check whether the cache may hold any entries.
+     * @return boolean
+     */
+    public boolean isEnabled() { return _maxBytes>0; }
+
+
+    /**
+     * return the canonical hash (the hex SHA-256 digest) of the given
+     * canonical description of the inputs of a model, to be used as key.
+     * @param canonical String
+     * @return String
+     */
+    public static String hash(String canonical) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] dig = md.digest(canonical.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(2*dig.length);
+            for (byte b : dig) sb.append(String.format("%02x", b & 0xff));
+            return sb.toString();
+        }
+        catch (NoSuchAlgorithmException e) {  // cannot happen in Java 8+
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    /**
+     * return the solution cached under the given key, if any. The solution
+     * returned has the values, objective value and node count of the cached
+     * one, and zero solve and set-up times.
+     * @param key String
+     * @param numVars int the number of variables of the model
+     * @return MIPSolution null if there is no such solution
+     */
+    public MIPSolution get(String key, int numVars) {
+        Entry e;
+        synchronized (this) {
+            e = _entries.get(key);
+            if (e==null || e._numVars!=numVars) {
+                ++_numMisses;
+                return null;
+            }
+            ++_numHits;
+        }
+        double[] values = new double[numVars];
+        for (int k=0; k<e._vars.length; k++) values[e._vars[k]] = e._vals[k];
+        return new MIPSolution(MIPSolution.Status.OPTIMAL, values, e._obj,
+                               e._bound, e._nodeCount, 0);
+    }
+
+
+    /**
+     * caches the given solution under the given key, if it is proven optimal
+     * and the cache is large enough to hold it, evicting the least recently
+     * used entries as needed.
+     * @param key String
+     * @param sol MIPSolution
+     */
+    public void put(String key, MIPSolution sol) {
+        if (!isEnabled() || sol.getStatus()!=MIPSolution.Status.OPTIMAL ||
+            !sol.hasSolution()) return;
+        final double[] values = sol.getValues();
+        int nnz = 0;
+        for (double v : values) if (v!=0.0) ++nnz;
+        int[] vars = new int[nnz];
+        double[] vals = new double[nnz];
+        nnz = 0;
+        for (int j=0; j<values.length; j++) {
+            if (values[j]!=0.0) {
+                vars[nnz] = j;
+                vals[nnz++] = values[j];
+            }
+        }
+        Entry e = new Entry(values.length, vars, vals, sol.getObjectiveValue(),
+                            sol.getBestBound(), sol.getNodeCount(),
+                            _ENTRY_OVERHEAD+2L*key.length()+12L*nnz);
+        if (e._numBytes>_maxBytes) return;
+        synchronized (this) {
+            Entry old = _entries.put(key, e);
+            if (old!=null) _numBytes -= old._numBytes;
+            _numBytes += e._numBytes;
+            Iterator<Entry> it = _entries.values().iterator();
+            while (_numBytes>_maxBytes) {
+                _numBytes -= it.next()._numBytes;
+                it.remove();
+                ++_numEvictions;
+            }
+        }
+    }
+
+
+    /**
+     * removes all entries (the counters are kept).
+     */
+    public synchronized void clear() {
+        _entries.clear();
+        _numBytes = 0;
+    }
+
+
+    /**
+     * get the number of entries.
+     * @return int
+     */
+    public synchronized int size() { return _entries.size(); }
+
+
+    /**
+     * get the approximate total size in bytes of the entries.
+     * @return long
+     */
+    public synchronized long getNumBytes() { return _numBytes; }
+
+
+    /**
+     * get the number of lookups that found a solution.
+     * @return long
+     */
+    public synchronized long getNumHits() { return _numHits; }
+
+
+    /**
+     * get the number of lookups that found no solution.
+     * @return long
+     */
+    public synchronized long getNumMisses() { return _numMisses; }
+
+
+    /**
+     * get the number of entries evicted to keep the size within its bound.
+     * @return long
+     */
+    public synchronized long getNumEvictions() { return _numEvictions; }
+
+
+    /**
+     * return the counters and size of the cache as a JSON object.
+     * @return String
+     */
+    public synchronized String toJSON() {
+        return "{\"entries\":"+_entries.size()+",\"bytes\":"+_numBytes+
+               ",\"maxBytes\":"+_maxBytes+",\"hits\":"+_numHits+
+               ",\"misses\":"+_numMisses+",\"evictions\":"+_numEvictions+"}";
+    }
+
+
+    /**
+     * return a one-line description of the cache.
+     * @return String
+     */
+    @Override
+    public String toString() {
+        return "PlanCache"+toJSON();
+    }
+
+
+    /**
+     * a cached solution in sparse form.
+     */
+    private static final class Entry {
+        private final int _numVars;
+        private final int[] _vars;
+        private final double[] _vals;
+        private final double _obj;
+        private final double _bound;
+        private final long _nodeCount;
+        private final long _numBytes;
+
+        private Entry(int numVars, int[] vars, double[] vals, double obj,
+                      double bound, long nodeCount, long numBytes) {
+            _numVars = numVars;
+            _vars = vars;
+            _vals = vals;
+            _obj = obj;
+            _bound = bound;
+            _nodeCount = nodeCount;
+            _numBytes = numBytes;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package edu.acg.itss;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+
+/**
+ * immutable date (day-of-month, month, year) with respect to which a schedule
+ * is planned. Term number 0 is the term the date falls in, and term numbers
+ * 1, 2, ... are the terms that follow it, in the order Spring (SP), Summer-1
+ * (S1), Summer-2 (S2), Summer-Term (ST) and Fall (FA); the term lookups are
+ * answered by the <CODE>TermCalendar</CODE> of the date. Unlike the static
+ * fields of <CODE>CurrentDate</CODE>, a <CODE>PlanningDate</CODE> is passed
+ * explicitly to the objects that need it (eg <CODE>MIPHandler</CODE>), so that
+ * schedules for different dates can be computed concurrently.
+ * @author itc
+ */
+public final class PlanningDate {
+    private final int _day;
+    private final int _month;
+    private final int _year;
+    /**
+     * the calendar of the terms following this date, built when first needed.
+     */
+    private volatile TermCalendar _calendar = null;
+
+
+    /**
+     * public constructor.
+     * @param day int day of month in [1, 31]
+     * @param month int in [1, 12]
+     * @param year int eg 2024
+     * @throws IllegalArgumentException if the arguments do not form a valid
+     * date
+     */
+    public PlanningDate(int day, int month, int year) {
+        try {
+            LocalDate.of(year, month, day);
+        }
+        catch (DateTimeException e) {
+            throw new IllegalArgumentException("invalid date "+day+"/"+month+
+                                               "/"+year);
+        }
+        _day = day;
+        _month = month;
+        _year = year;
+    }
+
+
+    /**
+     * return the planning date of today.
+     * @return PlanningDate
+     */
+    public static PlanningDate today() {
+        LocalDate now = LocalDate.now();
+        return new PlanningDate(now.getDayOfMonth(), now.getMonthValue(),
+                                now.getYear());
+    }
+
+
+    /**
+     * parses a date in the format "dd/mm/yyyy" (as in the <CODE>MainGUI</CODE>
+     * text-field).
+     * @param date String such as "15/9/2024"
+     * @return PlanningDate
+     * @throws IllegalArgumentException if the string cannot be parsed
+     */
+    public static PlanningDate parse(String date) {
+        String[] cds = date.trim().split("/");
+        if (cds.length!=3)
+            throw new IllegalArgumentException("date "+date+
+                                               " not in dd/mm/yyyy format");
+        try {
+            return new PlanningDate(Integer.parseInt(cds[0].trim()),
+                                    Integer.parseInt(cds[1].trim()),
+                                    Integer.parseInt(cds[2].trim()));
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("date "+date+
+                                               " not in dd/mm/yyyy format");
+        }
+    }
+
+
+    /**
+     * get the day of month.
+     * @return int
+     */
+    public int getDay() { return _day; }
+
+
+    /**
+     * get the month.
+     * @return int in [1, 12]
+     */
+    public int getMonth() { return _month; }
+
+
+    /**
+     * get the year.
+     * @return int
+     */
+    public int getYear() { return _year; }
+
+
+    /**
+     * return the calendar of the terms following this date, built on first 
+     * call and then shared by all callers (a calendar built for a larger 
+     * Smax is returned if one exists).
+     * @param Smax int the maximum term number of the schedules to plan
+     * @return TermCalendar
+     */
+    public TermCalendar getCalendar(int Smax) {
+        TermCalendar cal = _calendar;
+        if (cal==null || cal.getSmax()<Smax) {
+            cal = new TermCalendar(this, Smax);
+            _calendar = cal;  // a race only builds an equal calendar twice
+        }
+        return cal;
+    }
+
+
+    /**
+     * return an int representing the term (semester) from this date that the
+     * course will be offered.
+     * @param term String must be in the format "S12023" meaning "Summer-1" of
+     * 2023.
+     * @return int &ge; 0
+     */
+    public int getTermNo(String term) {
+        return getCalendar(0).getTermNo(term);
+    }
+
+
+    /**
+     * check whether a given term in the range [0, ..., Smax] is a summer term
+     * (ST). Notice that Summer Term is not the same as Summer1 or Summer2.
+     * @param termno int
+     * @return boolean true iff termno corresponds to ST
+     * @throws IllegalArgumentException if termno &lt; 0
+     */
+    public boolean isSummerTerm(int termno) {
+        return getCalendar(0).isSummerTerm(termno);
+    }
+
+
+    /**
+     * check whether a given term in the range [1, ..., Smax] is a fall term
+     * (FA).
+     * @param termno int
+     * @return boolean true iff termno corresponds to FA
+     * @throws IllegalArgumentException if termno &le; 0
+     */
+    public boolean isFallTerm(int termno) {
+        return getCalendar(0).isFallTerm(termno);
+    }
+
+
+    /**
+     * return the first fall (FA) term after termno.
+     * @param termno int
+     * @return int
+     * @throws IllegalArgumentException if termno &lt; 0
+     */
+    public int nextFallTerm(int termno) {
+        return getCalendar(0).nextFallTerm(termno);
+    }
+
+
+    /**
+     * check if the term indexed by the input argument occurs during summer, ie
+     * whether the term is "S1", "S2" or "ST" term.
+     * @param termno int
+     * @return boolean true iff the term happens during summer months
+     */
+    public boolean happensDuringSummer(int termno) {
+        return getCalendar(0).happensDuringSummer(termno);
+    }
+
+
+    /**
+     * reverse functionality of the <CODE>getTermNo(String term)</CODE> method.
+     * @param termno int
+     * @return String such as "FA2022".
+     */
+    public String getTermNameByTermNo(int termno) {
+        return getCalendar(0).getTermNameByTermNo(termno);
+    }
+
+
+    /**
+     * two planning dates are equal iff they denote the same day.
+     * @param other Object
+     * @return boolean
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof PlanningDate)) return false;
+        PlanningDate o = (PlanningDate) other;
+        return _day==o._day && _month==o._month && _year==o._year;
+    }
+
+
+    /**
+     * consistent with <CODE>equals()</CODE>.
+     * @return int
+     */
+    @Override
+    public int hashCode() {
+        return (_year*100 + _month)*100 + _day;
+    }
+
+
+    /**
+     * return the date in "dd/mm/yyyy" format.
+     * @return String
+     */
+    @Override
+    public String toString() {
+        return _day+"/"+_month+"/"+_year;
+    }
+}
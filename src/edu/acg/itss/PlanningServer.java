@@ -0,0 +1,474 @@
+package edu.acg.itss;
+
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * headless HTTP/JSON service that plans the schedules of single students, for
+ * clients such as the student portal or the registrar's batch jobs, using the
+ * HTTP server of the JDK (<CODE>com.sun.net.httpserver</CODE>). The catalogs
+ * of the programs served are loaded once, before the server starts, and the
+ * optimizations run on a bounded pool of worker threads; requests arriving
+ * when all workers are busy and the queue of the pool is full are rejected
+ * with status 503. The service answers:
+ * <ul>
+ * <li>POST /plan/&lt;program&gt;: the body is a JSON object with the keys of
+ * a <CODE>StudentRecord</CODE> (eg "passed", "desired", "concentration",
+ * "honors", "s1off", "objective"), where "name" is optional, plus an optional
+ * "date" (dd/mm/yyyy, default today) of planning. The schedule is computed
+ * as in the <CODE>MainGUI</CODE>, by 
+ * <CODE>MIPHandler.optimizeSchedule()</CODE>, and the reply is
+ * <pre>
+ * {"student":"...","program":"IT","status":"OPTIMAL","objective":16420.97,
+ *  "gap":0.0,"modelMsecs":12,"solveMsecs":340,"latencyMsecs":355,
+ *  "schedule":[{"term":"FA2024","courses":["ITC1070","ITC2088"]},...],
+ *  "text":"..."}
+ * </pre>
+ * (in a single line), where the status is that of the optimization (see
+ * <CODE>MIPSolution.Status</CODE>), the schedule lists the courses to take
+ * by term (as in <CODE>MIPHandler.getLastOptimalSolution()</CODE>) and 
+ * "text" is the description the <CODE>MainGUI</CODE> would show. Requests
+ * that cannot be parsed get status 400 and unknown programs 404, with an
+ * "error" message.
+ * <li>GET /programs: the names of the programs served.
+ * <li>GET /metrics: the number of requests served, rejected and failed, and
+ * the median, 99th percentile and max latencies of the recent requests (see
+ * class <CODE>Metrics</CODE>), and the counters of the plan cache of every
+ * program (see class <CODE>PlanCache</CODE>).
+ * </ul>
+ * The solvers are given to the constructor, one per program, so that the
+ * service can be tested locally with a stub solver; they must be thread-safe
+ * if the pool has more than one thread, and must not keep their last model.
+ * <p>Usage:
+ * <CODE>java edu.acg.itss.PlanningServer &lt;port&gt; &lt;numthreads&gt;
+ * &lt;programdir&gt; [programdir2 ...]</CODE>, where each program is served
+ * under the name of its directory (eg "IT"), and its solver is the one
+ * specified in its params.props file.
+ * @author itc
+ */
+public class PlanningServer {
+    private static final int _MAX_BODY_LENGTH = 1<<20;
+    private final Map<String, Catalog> _catalogs;
+    private final Map<String, ScheduleSolver> _solvers;
+    private final ThreadPoolExecutor _workers;
+    private final HttpServer _server;
+    private final Metrics _metrics = new Metrics();
+    /**
+     * the number of planning requests accepted so far, that numbers the files
+     * written for the models of the requests.
+     */
+    private final AtomicLong _numRequests = new AtomicLong();
+
+
+    /**
+     * public constructor creates (but does not start) the server.
+     * @param port int the port to listen to; 0 picks a free one (see
+     * <CODE>getPort()</CODE>)
+     * @param catalogs Map&lt;String, Catalog&gt; the catalogs of the programs
+     * served, by program name
+     * @param solvers Map&lt;String, ScheduleSolver&gt; the solvers of the
+     * programs, by program name
+     * @param numThreads int the number of worker threads
+     * @param queueSize int the max number of requests waiting for a worker
+     * @throws IOException if the port cannot be bound
+     * @throws IllegalArgumentException if a program has no solver
+     */
+    public PlanningServer(int port, Map<String, Catalog> catalogs,
+                          Map<String, ScheduleSolver> solvers,
+                          int numThreads, int queueSize) throws IOException {
+        if (numThreads<=0)
+            throw new IllegalArgumentException("numThreads must be positive");
+        for (String prog : catalogs.keySet()) {
+            if (solvers.get(prog)==null)
+                throw new IllegalArgumentException("no solver for program "+
+                                                   prog);
+        }
+        _catalogs = new TreeMap<>(catalogs);
+        _solvers = new HashMap<>(solvers);
+        _workers = new ThreadPoolExecutor(numThreads, numThreads,
+                                          0, TimeUnit.MILLISECONDS,
+                                          new ArrayBlockingQueue<Runnable>(
+                                                Math.max(1, queueSize)));
+        _server = HttpServer.create(new InetSocketAddress(port), 0);
+        // the http threads only parse requests and wait for the workers
+        _server.setExecutor(Executors.newCachedThreadPool());
+        _server.createContext("/plan/", new HttpHandler() {
+            public void handle(HttpExchange ex) throws IOException {
+                handlePlan(ex);
+            }
+        });
+        _server.createContext("/programs", new HttpHandler() {
+            public void handle(HttpExchange ex) throws IOException {
+                StringBuilder sb = new StringBuilder("[");
+                for (String prog : _catalogs.keySet()) {
+                    if (sb.length()>1) sb.append(',');
+                    sb.append(JSONParser.quote(prog));
+                }
+                send(ex, 200, sb.append(']').toString());
+            }
+        });
+        _server.createContext("/metrics", new HttpHandler() {
+            public void handle(HttpExchange ex) throws IOException {
+                StringBuilder sb = new StringBuilder(_metrics.toJSON());
+                sb.setLength(sb.length()-1);
+                sb.append(",\"planCaches\":{");
+                for (Map.Entry<String, Catalog> e : _catalogs.entrySet()) {
+                    if (sb.charAt(sb.length()-1)!='{') sb.append(',');
+                    sb.append(JSONParser.quote(e.getKey())).append(':').
+                       append(e.getValue().getPlanCache().toJSON());
+                }
+                send(ex, 200, sb.append("}}").toString());
+            }
+        });
+    }
+
+
+    /**
+     * starts serving requests in the background.
+     */
+    public void start() {
+        _server.start();
+    }
+
+
+    /**
+     * stops the server, waiting at most the given number of seconds for the
+     * requests being served to complete. The solvers are not closed.
+     * @param delaySecs int
+     */
+    public void stop(int delaySecs) {
+        _server.stop(delaySecs);
+        _workers.shutdownNow();
+        ((ExecutorService) _server.getExecutor()).shutdownNow();
+    }
+
+
+    /**
+     * get the port the server listens to.
+     * @return int
+     */
+    public int getPort() { return _server.getAddress().getPort(); }
+
+
+    /**
+     * get the request metrics of this server.
+     * @return Metrics
+     */
+    public Metrics getMetrics() { return _metrics; }
+
+
+    /**
+     * serves a POST /plan/&lt;program&gt; request.
+     * @param ex HttpExchange
+     * @throws IOException
+     */
+    private void handlePlan(HttpExchange ex) throws IOException {
+        final long start = System.currentTimeMillis();
+        if (!"POST".equals(ex.getRequestMethod())) {
+            ex.getResponseHeaders().set("Allow", "POST");
+            _metrics.addError();
+            sendError(ex, 405, "use POST");
+            return;
+        }
+        final String prog =
+            ex.getRequestURI().getPath().substring("/plan/".length());
+        final Catalog catalog = _catalogs.get(prog);
+        if (catalog==null) {
+            _metrics.addError();
+            sendError(ex, 404, "unknown program "+prog);
+            return;
+        }
+        final StudentRecord rec;
+        final PlanningDate date;
+        try {
+            Object o = JSONParser.parse(readBody(ex));
+            if (!(o instanceof Map))
+                throw new IllegalArgumentException("not a JSON object");
+            @SuppressWarnings("unchecked")
+            Map<String, Object> m = new HashMap<>((Map<String, Object>) o);
+            if (m.get("name")==null) m.put("name", "anonymous");
+            date = m.get("date")!=null ?
+                     PlanningDate.parse(m.get("date").toString()) :
+                     PlanningDate.today();
+            rec = StudentRecord.fromMap(m);
+        }
+        catch (IllegalArgumentException e) {
+            _metrics.addError();
+            sendError(ex, 400, e.getMessage());
+            return;
+        }
+        Future<String> res;
+        try {
+            res = _workers.submit(new Callable<String>() {
+                public String call() throws Exception {
+                    return plan(prog, catalog, rec, date, start);
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            _metrics.addRejected();
+            sendError(ex, 503, "all workers busy, try again later");
+            return;
+        }
+        try {
+            final String reply = res.get();
+            send(ex, 200, reply);
+            _metrics.addServed(System.currentTimeMillis()-start);
+        }
+        catch (ExecutionException e) {
+            System.err.println("PlanningServer: "+rec.getName()+" failed: "+
+                               e.getCause());
+            _metrics.addError();
+            sendError(ex, 500, String.valueOf(e.getCause()));
+        }
+        catch (InterruptedException e) {
+            res.cancel(true);
+            Thread.currentThread().interrupt();
+            _metrics.addError();
+            sendError(ex, 503, "server shutting down");
+        }
+    }
+
+
+    /**
+     * computes the schedule of the given student.
+     * @param prog String
+     * @param catalog Catalog
+     * @param rec StudentRecord
+     * @param date PlanningDate
+     * @param start long the time the request arrived
+     * @return String the JSON reply
+     * @throws SolverException
+     * @throws IOException
+     */
+    private String plan(String prog, Catalog catalog, StudentRecord rec,
+                        PlanningDate date, long start)
+        throws SolverException, IOException {
+        final long model_start = System.currentTimeMillis();
+        MIPHandler handler = new MIPHandler(catalog, date);
+        handler.setSolver(_solvers.get(prog));
+        // concurrent requests may have the same student name
+        handler.setStudentName(rec.getName()+"_"+prog+"_"+
+                               _numRequests.incrementAndGet());
+        MIPModel model = rec.createMIPModel(handler);
+        final long solve_start = System.currentTimeMillis();
+        final String text = handler.optimizeSchedule(model);
+        final long end = System.currentTimeMillis();
+        // courses per term, skipping the courses already taken (term 0)
+        TreeMap<Integer, List<String>> terms = new TreeMap<>();
+        for (Map.Entry<Integer, Integer> e :
+                handler.getLastOptimalSolution().entrySet()) {
+            if (e.getValue()<1) continue;
+            List<String> crss = terms.get(e.getValue());
+            if (crss==null) {
+                crss = new ArrayList<>();
+                terms.put(e.getValue(), crss);
+            }
+            crss.add(catalog.getCourseById(e.getKey()).getCode());
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"student\":").append(JSONParser.quote(rec.getName()));
+        sb.append(",\"program\":").append(JSONParser.quote(prog));
+        final MIPSolution sol = handler.getLastMIPSolution();
+        sb.append(",\"status\":\"").append(sol.getStatus()).append('"');
+        if (sol.hasSolution()) {
+            sb.append(",\"objective\":").append(sol.getObjectiveValue());
+            sb.append(",\"gap\":").append(sol.getMIPGap());
+        }
+        sb.append(",\"modelMsecs\":").append(solve_start-model_start);
+        sb.append(",\"solveMsecs\":").append(end-solve_start);
+        sb.append(",\"latencyMsecs\":").append(end-start);
+        sb.append(",\"schedule\":[");
+        boolean first = true;
+        for (Map.Entry<Integer, List<String>> e : terms.entrySet()) {
+            if (!first) sb.append(',');
+            first = false;
+            sb.append("{\"term\":");
+            sb.append(JSONParser.quote(date.getTermNameByTermNo(e.getKey())));
+            sb.append(",\"courses\":[");
+            List<String> crss = e.getValue();
+            Collections.sort(crss);
+            for (int k=0; k<crss.size(); k++) {
+                if (k>0) sb.append(',');
+                sb.append(JSONParser.quote(crss.get(k)));
+            }
+            sb.append("]}");
+        }
+        sb.append("],\"text\":").append(JSONParser.quote(text)).append('}');
+        return sb.toString();
+    }
+
+
+    private static String readBody(HttpExchange ex) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (InputStream is = ex.getRequestBody()) {
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n=is.read(buf))>0) {
+                bos.write(buf, 0, n);
+                if (bos.size()>_MAX_BODY_LENGTH)
+                    throw new IllegalArgumentException("request too long");
+            }
+        }
+        return new String(bos.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+
+    private static void sendError(HttpExchange ex, int code, String msg)
+        throws IOException {
+        send(ex, code, "{\"error\":"+JSONParser.quote(msg)+"}");
+    }
+
+
+    private static void send(HttpExchange ex, int code, String json)
+        throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type",
+                                    "application/json; charset=utf-8");
+        ex.sendResponseHeaders(code, body.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+
+    /**
+     * the request-level metrics of a server: the numbers of requests served,
+     * failed (with any status other than 200 or 503) and rejected (with
+     * status 503, as all workers were busy), and the latencies of the last
+     * <CODE>_WINDOW</CODE> requests served, from their arrival to the moment
+     * their reply was sent. Thread-safe.
+     */
+    public static final class Metrics {
+        private static final int _WINDOW = 1024;
+        private final long[] _latencies = new long[_WINDOW];
+        private int _numLatencies = 0;
+        private long _numServed = 0;
+        private long _numErrors = 0;
+        private long _numRejected = 0;
+        private long _maxLatency = 0;
+        private long _totalLatency = 0;
+
+        private synchronized void addServed(long latency) {
+            _latencies[(int) (_numServed % _WINDOW)] = latency;
+            _numLatencies = Math.min(_numLatencies+1, _WINDOW);
+            ++_numServed;
+            _totalLatency += latency;
+            _maxLatency = Math.max(_maxLatency, latency);
+        }
+
+        private synchronized void addError() {
+            ++_numErrors;
+        }
+
+        private synchronized void addRejected() {
+            ++_numRejected;
+        }
+
+        /**
+         * get the number of requests served successfully.
+         * @return long
+         */
+        public synchronized long getNumServed() { return _numServed; }
+
+        /**
+         * get the number of requests that failed.
+         * @return long
+         */
+        public synchronized long getNumErrors() { return _numErrors; }
+
+        /**
+         * get the number of requests rejected as all workers were busy.
+         * @return long
+         */
+        public synchronized long getNumRejected() { return _numRejected; }
+
+        /**
+         * get the given percentile (nearest-rank) of the latencies of the
+         * last requests served.
+         * @param p double in (0, 100]
+         * @return long msecs, or -1 if no request was served yet
+         */
+        public synchronized long getLatencyPercentile(double p) {
+            if (_numLatencies==0) return -1;
+            long[] lats = Arrays.copyOf(_latencies, _numLatencies);
+            Arrays.sort(lats);
+            int idx = (int) Math.ceil(p/100.0*lats.length) - 1;
+            idx = Math.max(0, Math.min(idx, lats.length-1));
+            return lats[idx];
+        }
+
+        /**
+         * return the metrics as a JSON object.
+         * @return String
+         */
+        public synchronized String toJSON() {
+            return "{\"served\":"+_numServed+",\"errors\":"+_numErrors+
+                   ",\"rejected\":"+_numRejected+
+                   ",\"meanLatencyMsecs\":"+
+                   (_numServed>0 ? _totalLatency/_numServed : 0)+
+                   ",\"p50LatencyMsecs\":"+getLatencyPercentile(50)+
+                   ",\"p99LatencyMsecs\":"+getLatencyPercentile(99)+
+                   ",\"maxLatencyMsecs\":"+_maxLatency+"}";
+        }
+
+        /**
+         * return a one-line description of the metrics.
+         * @return String
+         */
+        @Override
+        public String toString() {
+            return toJSON();
+        }
+    }
+
+
+    /**
+     * invoke as:
+     * <CODE>java edu.acg.itss.PlanningServer &lt;port&gt; &lt;numthreads&gt;
+     * &lt;programdir&gt; [programdir2 ...]</CODE>.
+     * @param args String[]
+     */
+    public static void main(String[] args) {
+        if (args.length<3) {
+            System.err.println("usage: java edu.acg.itss.PlanningServer "+
+                               "<port> <numthreads> <programdir> "+
+                               "[programdir2 ...]");
+            System.exit(-1);
+        }
+        final int port = Integer.parseInt(args[0]);
+        final int num_threads = Integer.parseInt(args[1]);
+        Map<String, Catalog> catalogs = new HashMap<>();
+        Map<String, ScheduleSolver> solvers = new HashMap<>();
+        GRBEnvPool pool = null;
+        try {
+            for (int i=2; i<args.length; i++) {
+                Catalog catalog = Catalog.load(args[i]);
+                final ScheduleParams params = catalog.getParams();
+                if (pool==null &&
+                    "gurobi".equalsIgnoreCase(params.getSolverName()))
+                    pool = new GRBEnvPool(params.getGurobiEnvPoolSize());
+                final String prog = new File(args[i]).getAbsoluteFile().
+                                      getName();
+                catalogs.put(prog, catalog);
+                solvers.put(prog, MIPHandler.createSolver(params, pool));
+            }
+            PlanningServer server = new PlanningServer(port, catalogs,
+                                                       solvers, num_threads,
+                                                       4*num_threads);
+            server.start();
+            System.err.println("PlanningServer: serving "+catalogs.keySet()+
+                               " on port "+server.getPort());
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            System.exit(-1);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package edu.acg.itss;
+
+import java.util.*;
+
+
+/**
+ * immutable prerequisite/co-requisite graph of the courses of a catalog,
+ * with the transitive closure of the requirements of every course computed
+ * once, when the catalog is created. The requirement sets of every course
+ * (each prerequisite disjunction, and each co-requisite as a singleton set)
+ * are kept as arrays of course ids, and the set of all courses a course
+ * requires, directly or not, as a bit-set indexed by course id; so the
+ * question "does course i require course j?" is a single bit test, and the
+ * courses strictly required by a schedule (see
+ * <CODE>getStrictlyRequired()</CODE>) are found in a single pass over the
+ * graph, with every course visited at most once.
+ * <p>Requirement codes that are not courses of the catalog are ignored (with
+ * a warning), as is any cycle of requirements.
+ * @author itc
+ */
+public final class Requisites {
+    /**
+     * _reqSets[i] are the requirement sets of course i, as course ids.
+     */
+    private final int[][][] _reqSets;
+    /**
+     * _ancestors[i] has bit j set iff course i requires course j.
+     */
+    private final BitSet[] _ancestors;
+
+
+    /**
+     * package constructor builds the graph and its transitive closure.
+     * @param catalog Catalog
+     */
+    Requisites(Catalog catalog) {
+        final int n = catalog.getNumCourses();
+        _reqSets = new int[n][][];
+        for (int i=0; i<n; i++) {
+            Course ci = catalog.getCourseById(i);
+            List<int[]> sets = new ArrayList<>();
+            for (Set<String> ps : ci.getPrereqs()) {
+                int[] ids = toIds(catalog, ci, ps);
+                if (ids.length>0) sets.add(ids);
+            }
+            for (String cr : ci.getCoreqs()) {
+                int[] ids = toIds(catalog, ci, Collections.singleton(cr));
+                if (ids.length>0) sets.add(ids);
+            }
+            _reqSets[i] = sets.toArray(new int[0][]);
+        }
+        _ancestors = new BitSet[n];
+        byte[] state = new byte[n];
+        for (int i=0; i<n; i++) computeAncestors(i, state);
+    }
+
+
+    /**
+     * check whether a course requires another, ie whether the latter is a
+     * prerequisite or co-requisite of the former, or of a course the former
+     * requires, even if only inside a disjunction of possible courses to take
+     * (see <CODE>Course.requiresCourse()</CODE>).
+     * @param courseId int
+     * @param reqId int
+     * @return boolean
+     */
+    public boolean requires(int courseId, int reqId) {
+        return _ancestors[courseId].get(reqId);
+    }
+
+
+    /**
+     * return the ids of all courses the given course requires.
+     * @param courseId int
+     * @return BitSet a copy
+     */
+    public BitSet getRequired(int courseId) {
+        return (BitSet) _ancestors[courseId].clone();
+    }
+
+
+    /**
+     * return the courses that are strictly required, given the courses of a
+     * schedule, for any of the given courses that are in the schedule. The
+     * requirement is taken in the strict sense of
+     * <CODE>Course.isRequired4Desired()</CODE>: course x is strictly required
+     * for course c if for some requirement set R of c, either x is in R and
+     * no other course of R is in the schedule, or x is strictly required for
+     * every course of R. For example if ITC2205 requires ITC2088 AND (ITC2197
+     * OR ITC3234), ITC2088 is always strictly required, but ITC2197 only if
+     * ITC3234 is not in the schedule.
+     * @param courseIds int[] the courses whose requirements are sought (eg
+     * the desired courses); the ones not in the schedule are ignored
+     * @param schedule BitSet the ids of the courses in the schedule
+     * @return BitSet the ids of the strictly required courses
+     */
+    public BitSet getStrictlyRequired(int[] courseIds, BitSet schedule) {
+        BitSet[] memo = new BitSet[_reqSets.length];
+        BitSet result = new BitSet(_reqSets.length);
+        for (int c : courseIds) {
+            if (schedule.get(c)) result.or(strictlyRequired(c, schedule, memo));
+        }
+        return result;
+    }
+
+
+    /**
+     * computes (once per course) the courses strictly required for course c.
+     * A course found on the stack (a cycle) contributes the empty set.
+     * @param c int
+     * @param schedule BitSet
+     * @param memo BitSet[]
+     * @return BitSet
+     */
+    private BitSet strictlyRequired(int c, BitSet schedule, BitSet[] memo) {
+        if (memo[c]!=null) return memo[c];
+        memo[c] = new BitSet(0);  // guards against cycles
+        BitSet res = new BitSet(_reqSets.length);
+        for (int[] rs : _reqSets[c]) {
+            if (rs.length==1) res.set(rs[0]);
+            else {
+                // x in rs is needed iff no other course of rs is scheduled
+                int num_in_sched = 0;
+                int in_sched = -1;
+                for (int x : rs) {
+                    if (schedule.get(x)) {
+                        ++num_in_sched;
+                        in_sched = x;
+                    }
+                }
+                if (num_in_sched==0) {
+                    for (int x : rs) res.set(x);
+                }
+                else if (num_in_sched==1) res.set(in_sched);
+            }
+            // courses needed by every course of rs
+            BitSet all = (BitSet) strictlyRequired(rs[0], schedule, memo).
+                                    clone();
+            for (int k=1; k<rs.length && !all.isEmpty(); k++) {
+                all.and(strictlyRequired(rs[k], schedule, memo));
+            }
+            res.or(all);
+        }
+        memo[c] = res;
+        return res;
+    }
+
+
+    private BitSet computeAncestors(int i, byte[] state) {
+        if (state[i]==2) return _ancestors[i];
+        if (state[i]==1) {
+            System.err.println("Requisites: requirements cycle at course id "+
+                               i+" ignored");
+            return new BitSet(0);
+        }
+        state[i] = 1;
+        BitSet anc = new BitSet(_reqSets.length);
+        for (int[] rs : _reqSets[i]) {
+            for (int j : rs) {
+                anc.set(j);
+                anc.or(computeAncestors(j, state));
+            }
+        }
+        _ancestors[i] = anc;
+        state[i] = 2;
+        return anc;
+    }
+
+
+    private static int[] toIds(Catalog catalog, Course c, Set<String> codes) {
+        int[] ids = new int[codes.size()];
+        int n = 0;
+        for (String code : codes) {
+            Course r = catalog.getCourseByCode(code);
+            if (r==null) {
+                System.err.println("Requisites: course "+code+" required by "+
+                                   c.getCode()+" doesn't exist, ignored");
+                continue;
+            }
+            ids[n++] = r.getId();
+        }
+        return Arrays.copyOf(ids, n);
+    }
+}
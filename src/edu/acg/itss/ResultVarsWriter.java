@@ -0,0 +1,133 @@
+package edu.acg.itss;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * writes the values of the variables of solved models in "result_vars" files
+ * on a single background thread, so that schedules are returned without
+ * waiting for the disk. The files are sparse: only the variables whose
+ * (rounded) values are non-zero are written, one "name=value" line each, as
+ * all other variables are zero. Files may also be gzip-compressed. Whether
+ * the files are written at all is controlled by the properties
+ * "DumpResultVars" and "DumpResultVarsGzip" of the schedule params (see
+ * <CODE>MIPHandler.optimizeSchedule()</CODE>).
+ * <p>The names and values to write are copied before the methods return,
+ * so the models may be modified right after. The background thread exits
+ * when idle, and does not keep the JVM alive once all files are written;
+ * files still pending when <CODE>System.exit()</CODE> is called are lost.
+ * @author itc
+ */
+final class ResultVarsWriter {
+    private static final ThreadPoolExecutor _EXECUTOR =
+        new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+                               new LinkedBlockingQueue<Runnable>(),
+                               new ThreadFactory() {
+                                   public Thread newThread(Runnable r) {
+                                       return new Thread(r,
+                                                         "ResultVarsWriter");
+                                   }
+                               });
+    static {
+        _EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+
+    private ResultVarsWriter() {
+        // no-op
+    }
+
+
+    /**
+     * schedules the writing of the non-zero values of the variables of the
+     * given model.
+     * @param filename String the file to write; ".gz" is appended to it if
+     * <CODE>gzip</CODE> is true
+     * @param model MIPModel
+     * @param solution MIPSolution must have a solution
+     * @param gzip boolean
+     */
+    static void write(String filename, MIPModel model, MIPSolution solution,
+                      boolean gzip) {
+        final int nv = model.getNumVars();
+        List<String> names = new ArrayList<>();
+        List<Long> values = new ArrayList<>();
+        for (int j=0; j<nv; j++) {
+            final long v = Math.round(solution.getValue(j));
+            if (v!=0) {
+                names.add(model.getVarName(j));
+                values.add(v);
+            }
+        }
+        submit(filename, names, values, gzip);
+    }
+
+
+    /**
+     * schedules the writing of the non-zero values among the given ones.
+     * @param filename String the file to write; ".gz" is appended to it if
+     * <CODE>gzip</CODE> is true
+     * @param names String[] the names of the variables
+     * @param vals double[] the values of the variables, in the same order
+     * @param gzip boolean
+     */
+    static void write(String filename, String[] names, double[] vals,
+                      boolean gzip) {
+        List<String> nz_names = new ArrayList<>();
+        List<Long> values = new ArrayList<>();
+        for (int j=0; j<vals.length; j++) {
+            final long v = Math.round(vals[j]);
+            if (v!=0) {
+                nz_names.add(names[j]);
+                values.add(v);
+            }
+        }
+        submit(filename, nz_names, values, gzip);
+    }
+
+
+    private static void submit(final String filename,
+                               final List<String> names,
+                               final List<Long> values, final boolean gzip) {
+        final String fname = gzip ? filename+".gz" : filename;
+        _EXECUTOR.execute(new Runnable() {
+            public void run() {
+                OutputStream os = null;
+                try {
+                    os = new FileOutputStream(fname);
+                    if (gzip) os = new GZIPOutputStream(os, 1<<16);
+                    try (Writer w = new BufferedWriter(
+                                        new OutputStreamWriter(os, "UTF-8"),
+                                        1<<16)) {
+                        os = null;  // closed by w
+                        for (int k=0; k<names.size(); k++) {
+                            w.write(names.get(k));
+                            w.write('=');
+                            w.write(Long.toString(values.get(k)));
+                            w.write('\n');
+                        }
+                    }
+                }
+                catch (IOException e) {
+                    System.err.println("ResultVarsWriter: cannot write "+
+                                       fname+" ("+e.getMessage()+")");
+                    if (os!=null) {
+                        try {
+                            os.close();
+                        }
+                        catch (IOException e2) {
+                            // ignore
+                        }
+                    }
+                }
+            }
+        });
+    }
+}
@@ -199,6 +199,190 @@ public class ScheduleParams {
     }
     
     
+    /**
+     * return the value of the property "Debug", or false if not found in the
+     * properties file. In debug mode, the MIP model of every schedule is also
+     * written to disk in LP format.
+     * @return boolean
+     */
+    public boolean getDebug() {
+        return Boolean.parseBoolean(_props.getProperty("Debug", "false"));
+    }
+    
+    
+    /**
+     * return the value of the property "CumulativeVars", or false if not 
+     * found in the properties file. If true, the MIP models use the 
+     * cumulative "taken-by-term" variables y_{i,s} in the precedence 
+     * constraints (see <CODE>MIPModel.addCumulativeVars()</CODE>).
+     * @return boolean
+     */
+    public boolean getCumulativeVars() {
+        return Boolean.parseBoolean(_props.getProperty("CumulativeVars", 
+                                                       "false"));
+    }
+    
+    
+    /**
+     * return the value of the property "NormalizePassedCourses", or true if 
+     * not found in the properties file. If true, the passed courses of the
+     * students are normalized before their MIP models are created, so that 
+     * students with equivalent histories get the same models (see 
+     * <CODE>MIPHandler.createMIPModel()</CODE>).
+     * @return boolean
+     */
+    public boolean getNormalizePassedCourses() {
+        return Boolean.parseBoolean(_props.getProperty("NormalizePassedCourses",
+                                                       "true").trim());
+    }
+    
+    
+    /**
+     * return the value of the property "HierarchicalObjectives", or false if
+     * not found in the properties file. If true, the MIP models also have the
+     * objectives of the schedules as separate prioritized objectives, that 
+     * GUROBI optimizes in lexicographic order instead of their weighted sum
+     * (see <CODE>MIPHandler.setObjective()</CODE>).
+     * @return boolean
+     */
+    public boolean getHierarchicalObjectives() {
+        return Boolean.parseBoolean(_props.getProperty("HierarchicalObjectives",
+                                                       "false").trim());
+    }
+    
+    
+    /**
+     * return the value of the property "ObjNAbsTol", ie the amount by which 
+     * the optimal value of a prioritized objective may degrade when the 
+     * objectives of lower priority are optimized. Default is 1.e-6 (as in
+     * GUROBI) if the property is not found in the properties file.
+     * @return double
+     */
+    public double getObjNAbsTol() {
+        return Double.parseDouble(_props.getProperty("ObjNAbsTol", "1.e-6").
+                                    trim());
+    }
+    
+    
+    /**
+     * return the value of the property "ObjNRelTol", ie the fraction by which
+     * the optimal value of a prioritized objective may degrade when the 
+     * objectives of lower priority are optimized. Default is 0 (as in GUROBI)
+     * if the property is not found in the properties file.
+     * @return double
+     */
+    public double getObjNRelTol() {
+        return Double.parseDouble(_props.getProperty("ObjNRelTol", "0").
+                                    trim());
+    }
+    
+    
+    /**
+     * return the value of the property "DumpResultVars", or false if not 
+     * found in the properties file. If true, the non-zero values of the 
+     * variables of every schedule computed are written to disk in a 
+     * "result_vars" file (see class <CODE>ResultVarsWriter</CODE>).
+     * @return boolean
+     */
+    public boolean getDumpResultVars() {
+        return Boolean.parseBoolean(_props.getProperty("DumpResultVars", 
+                                                       "false").trim());
+    }
+    
+    
+    /**
+     * return the value of the property "DumpResultVarsGzip", or false if not
+     * found in the properties file. If true, the "result_vars" files (if 
+     * any, see <CODE>getDumpResultVars()</CODE>) are gzip-compressed.
+     * @return boolean
+     */
+    public boolean getDumpResultVarsGzip() {
+        return Boolean.parseBoolean(_props.getProperty("DumpResultVarsGzip", 
+                                                       "false").trim());
+    }
+    
+    
+    /**
+     * return the value of the property "ModelCacheDir", ie the directory
+     * where the templates of the student-independent rows of the MIP models
+     * are kept across runs (see <CODE>Catalog.getModelTemplate()</CODE>), or
+     * null if the property is not found in the properties file, in which
+     * case templates are only kept in memory.
+     * @return String may be null
+     */
+    public String getModelCacheDir() {
+        final String dir = _props.getProperty("ModelCacheDir");
+        return dir==null || dir.trim().length()==0 ? null : dir.trim();
+    }
+    
+    
+    /**
+     * return the value of the property "Solver" that names the MIP solver to
+     * use: "gurobi" (the default if the property is not found in the file) or
+     * "bnb" for the pure-Java branch-and-bound solver that needs no license.
+     * @return String
+     */
+    public String getSolverName() {
+        return _props.getProperty("Solver", "gurobi").trim();
+    }
+    
+    
+    /**
+     * return the value of the property "PlanCacheKB", ie the max total size
+     * in KB of the solutions kept in the cache of the catalog of the program
+     * (see class <CODE>PlanCache</CODE>), so that identical planning requests
+     * are not solved again. Default is 4096 if the property is not found in
+     * the properties file; 0 disables the cache.
+     * @return long
+     */
+    public long getPlanCacheKB() {
+        return Long.parseLong(_props.getProperty("PlanCacheKB", "4096").
+                                trim());
+    }
+    
+    
+    /**
+     * return the value of the property "GurobiEnvPoolSize", ie the max number
+     * of GUROBI environments (and thus licenses) kept alive for reuse across
+     * optimizations, which is also the max number of GUROBI optimizations 
+     * that may run concurrently. Default is 1 if the property is not found in
+     * the properties file.
+     * @return int
+     */
+    public int getGurobiEnvPoolSize() {
+        return Integer.parseInt(_props.getProperty("GurobiEnvPoolSize", "1").
+                                  trim());
+    }
+    
+    
+    /**
+     * return the value of the property "TimeLimit", ie the max number of 
+     * seconds each optimization may run, after which the best schedule 
+     * found so far is returned. No limit if the property is not found in the 
+     * properties file.
+     * @return double <CODE>Double.POSITIVE_INFINITY</CODE> if there is no
+     * limit
+     */
+    public double getTimeLimit() {
+        final String tl = _props.getProperty("TimeLimit");
+        return tl==null || tl.trim().length()==0 ? 
+                 Double.POSITIVE_INFINITY : Double.parseDouble(tl.trim());
+    }
+    
+    
+    /**
+     * return the value of the property "MIPGap", ie the relative gap between
+     * the objective value of the best schedule found and the best bound at
+     * which optimizations stop. Default is 1.e-4 (as in GUROBI) if the 
+     * property is not found in the properties file.
+     * @return double
+     */
+    public double getMIPGap() {
+        return Double.parseDouble(_props.getProperty("MIPGap", "1.e-4").
+                                    trim());
+    }
+    
+    
     /**
      * returns the value of a parameter given its name.
      * @param paramName String
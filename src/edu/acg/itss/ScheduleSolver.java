@@ -0,0 +1,74 @@
+package edu.acg.itss;
+
+
+/**
+ * interface for the MIP solvers that can solve the student course scheduling
+ * problems created by <CODE>MIPHandler</CODE> as <CODE>MIPModel</CODE> objects.
+ * Two implementations exist: <CODE>GurobiScheduleSolver</CODE> that passes the
+ * model to GUROBI (and thus requires a GUROBI license on the machine where it
+ * runs), and <CODE>BranchAndBoundSolver</CODE>, a pure-Java LP-based
+ * branch-and-bound solver with no external dependencies, intended for batch
+ * (eg nightly regression) runs on machines without a GUROBI license.
+ * The solver to use is specified by the "Solver" property in the schedule
+ * params file (see <CODE>ScheduleParams.getSolverName()</CODE>).
+ * @author itc
+ */
+public interface ScheduleSolver {
+    /**
+     * solves the given model.
+     * @param model MIPModel
+     * @return MIPSolution the status of the optimization as well as the values
+     * of all model variables (indexed as in the model) if a solution was found
+     * @throws SolverException if the underlying solver fails
+     */
+    public MIPSolution solve(MIPModel model) throws SolverException;
+
+
+    /**
+     * set the time limit (in seconds) of each optimization; an optimization
+     * that reaches it returns the best solution found (if any) with status
+     * <CODE>TIME_LIMIT</CODE>.
+     * @param secs double <CODE>Double.POSITIVE_INFINITY</CODE> for no limit
+     */
+    public void setTimeLimit(double secs);
+
+
+    /**
+     * set the relative MIP gap at which optimizations stop (see 
+     * <CODE>MIPSolution.getMIPGap()</CODE>).
+     * @param gap double
+     */
+    public void setMIPGap(double gap);
+
+
+    /**
+     * set the listener to notify of the progress of the optimizations of
+     * this solver.
+     * @param listener SolverProgressListener may be null for none
+     */
+    public void setProgressListener(SolverProgressListener listener);
+
+
+    /**
+     * stops the optimizations of this solver that are currently running as
+     * soon as possible: each returns the best solution it found so far (if
+     * any) with status <CODE>INTERRUPTED</CODE>. Optimizations started after
+     * this call are not affected. May be called from any thread.
+     */
+    public void cancel();
+
+
+    /**
+     * return a short name for this solver (eg "gurobi") to be used in
+     * messages and reports.
+     * @return String
+     */
+    public String getName();
+
+
+    /**
+     * releases any resources (eg GUROBI environments and licenses) held by
+     * this solver. The solver must not be used after this call.
+     */
+    public void close();
+}
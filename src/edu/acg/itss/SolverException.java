@@ -0,0 +1,33 @@
+package edu.acg.itss;
+
+
+/**
+ * checked exception thrown by <CODE>ScheduleSolver</CODE> implementations when
+ * a model cannot be solved due to an error of the underlying solver (eg a
+ * missing license for GUROBI, or numerical trouble), as opposed to the model
+ * simply being infeasible, which is reported via the status of the returned
+ * <CODE>MIPSolution</CODE>.
+ * @author itc
+ */
+public class SolverException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+
+    /**
+     * public constructor.
+     * @param msg String
+     */
+    public SolverException(String msg) {
+        super(msg);
+    }
+
+
+    /**
+     * public constructor wrapping the exception of the underlying solver.
+     * @param msg String
+     * @param cause Throwable
+     */
+    public SolverException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+}
@@ -0,0 +1,26 @@
+package edu.acg.itss;
+
+
+/**
+ * listener to the progress of the optimizations of a
+ * <CODE>ScheduleSolver</CODE> (see
+ * <CODE>ScheduleSolver.setProgressListener()</CODE>). The solver calls the
+ * listener from the thread that runs the optimization, every time it finds a
+ * better solution and otherwise about once a second, so listeners that
+ * update a GUI must pass the values on to the event dispatch thread (eg via
+ * <CODE>SwingUtilities.invokeLater()</CODE>), and must return quickly.
+ * @author itc
+ */
+public interface SolverProgressListener {
+    /**
+     * reports the state of the optimization in progress.
+     * @param incumbentObj double the objective value of the best solution
+     * found so far, or <CODE>MIPModel.INFINITY</CODE> if none yet
+     * @param bestBound double the best lower bound on the optimal objective
+     * value known so far
+     * @param nodeCount long the number of branch-and-bound nodes explored
+     * @param elapsedMsecs long the msecs since the optimization started
+     */
+    public void progress(double incumbentObj, double bestBound,
+                         long nodeCount, long elapsedMsecs);
+}
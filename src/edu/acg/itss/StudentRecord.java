@@ -0,0 +1,329 @@
+package edu.acg.itss;
+
+import java.util.*;
+
+
+/**
+ * immutable description of the planning request of a single student, ie all
+ * the inputs the <CODE>MainGUI</CODE> collects from its widgets before calling
+ * <CODE>MIPHandler.createMIPModel()</CODE>. Records are read by the
+ * <CODE>BatchPlanner</CODE> from CSV or JSONL files, where they are described
+ * by the following keys (only "name" and "concentration" are required):
+ * <ul>
+ * <li>name: the name of the student
+ * <li>concentration: the concentration area
+ * <li>honors: true iff the student is an honors student (default false)
+ * <li>passed: the codes of the courses passed
+ * <li>desired: the desired courses, each in the format of the
+ * <CODE>DesiredCourses.addAll()</CODE> method, eg "ITC3160", "ITC3160;" (NOT
+ * to take) or "ITC3160;FA2022 SP2023"
+ * <li>maxCoursesPerTerm: max number of courses per term (default no limit)
+ * <li>maxCoursesDuringThesis: max number of courses during the term of the
+ * thesis (default 1)
+ * <li>s1off, s2off, stoff: true iff the student wants no courses in Summer-1,
+ * Summer-2, or Summer-Term respectively (default false)
+ * <li>ouPassed: the number of OU courses passed in the current academic year
+ * (default 0)
+ * <li>objective: "shortest" for shortest completion time (the default) or
+ * "balance" for difficulty balance, the two objectives offered by the GUI
+ * </ul>
+ * In JSON the lists are arrays of strings; in CSV they are a single field
+ * whose items are separated by '|'.
+ * @author itc
+ */
+public final class StudentRecord {
+    private final String _name;
+    private final String _concentration;
+    private final boolean _isHonor;
+    private final Set<String> _passed;
+    private final Set<String> _desired;
+    private final int _maxCoursesPerTerm;
+    private final int _maxCoursesDuringThesis;
+    private final boolean _s1off;
+    private final boolean _s2off;
+    private final boolean _stoff;
+    private final int _numOUPassed;
+    private final String _objective;
+
+
+    /**
+     * public constructor.
+     * @param name String
+     * @param concentration String
+     * @param isHonor boolean
+     * @param passed Set&lt;String&gt; copied
+     * @param desired Set&lt;String&gt; copied
+     * @param maxCoursesPerTerm int
+     * @param maxCoursesDuringThesis int
+     * @param s1off boolean
+     * @param s2off boolean
+     * @param stoff boolean
+     * @param numOUPassed int
+     * @param objective String "shortest" or "balance"
+     * @throws IllegalArgumentException if name or concentration are null or
+     * empty, or if the objective is unknown
+     */
+    public StudentRecord(String name, String concentration, boolean isHonor,
+                         Set<String> passed, Set<String> desired,
+                         int maxCoursesPerTerm, int maxCoursesDuringThesis,
+                         boolean s1off, boolean s2off, boolean stoff,
+                         int numOUPassed, String objective) {
+        if (name==null || name.length()==0)
+            throw new IllegalArgumentException("student name missing");
+        if (concentration==null || concentration.length()==0)
+            throw new IllegalArgumentException("concentration missing for "+
+                                               name);
+        if (!"shortest".equals(objective) && !"balance".equals(objective))
+            throw new IllegalArgumentException("unknown objective "+
+                                               objective+" for "+name);
+        _name = name;
+        _concentration = concentration;
+        _isHonor = isHonor;
+        _passed = Collections.unmodifiableSet(new HashSet<>(passed));
+        _desired = Collections.unmodifiableSet(new HashSet<>(desired));
+        _maxCoursesPerTerm = maxCoursesPerTerm;
+        _maxCoursesDuringThesis = maxCoursesDuringThesis;
+        _s1off = s1off;
+        _s2off = s2off;
+        _stoff = stoff;
+        _numOUPassed = numOUPassed;
+        _objective = objective;
+    }
+
+
+    /**
+     * creates a record from the given key-value map, as obtained by parsing a
+     * JSON object (see <CODE>JSONParser</CODE>) or a CSV line. Values may be
+     * of the proper type (Boolean, Number, List) or strings to be parsed.
+     * @param m Map&lt;String, Object&gt;
+     * @return StudentRecord
+     * @throws IllegalArgumentException if a value cannot be parsed or a
+     * required key is missing
+     */
+    public static StudentRecord fromMap(Map<String, ?> m) {
+        return new StudentRecord(getString(m, "name", null),
+                                 getString(m, "concentration", null),
+                                 getBoolean(m, "honors"),
+                                 getSet(m, "passed"),
+                                 getSet(m, "desired"),
+                                 getInt(m, "maxCoursesPerTerm",
+                                        Integer.MAX_VALUE),
+                                 getInt(m, "maxCoursesDuringThesis", 1),
+                                 getBoolean(m, "s1off"),
+                                 getBoolean(m, "s2off"),
+                                 getBoolean(m, "stoff"),
+                                 getInt(m, "ouPassed", 0),
+                                 getString(m, "objective", "shortest"));
+    }
+
+
+    /**
+     * creates a record from a line of a CSV file with the given header. Fields
+     * are separated by commas (no quoting is supported), and empty fields
+     * take their default values.
+     * @param header String[] the keys of the columns, from the first line of
+     * the file
+     * @param line String
+     * @return StudentRecord
+     * @throws IllegalArgumentException if the line cannot be parsed
+     */
+    public static StudentRecord fromCSVLine(String[] header, String line) {
+        String[] vals = line.split(",", -1);
+        if (vals.length>header.length)
+            throw new IllegalArgumentException("too many fields in line: "+
+                                               line);
+        Map<String, String> m = new HashMap<>();
+        for (int i=0; i<vals.length; i++) {
+            final String v = vals[i].trim();
+            if (v.length()>0) m.put(header[i].trim(), v);
+        }
+        return fromMap(m);
+    }
+
+
+    /**
+     * creates a record from a line of a JSONL file.
+     * @param line String a JSON object
+     * @return StudentRecord
+     * @throws IllegalArgumentException if the line cannot be parsed
+     */
+    public static StudentRecord fromJSONLine(String line) {
+        Object o = JSONParser.parse(line);
+        if (!(o instanceof Map))
+            throw new IllegalArgumentException("not a JSON object: "+line);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> m = (Map<String, Object>) o;
+        return fromMap(m);
+    }
+
+
+    /**
+     * return a copy of this record with the given concentration area instead
+     * of this record's one, as used by <CODE>ConcentrationComparison</CODE>.
+     * @param concentration String
+     * @return StudentRecord
+     * @throws IllegalArgumentException if concentration is null or empty
+     */
+    public StudentRecord withConcentration(String concentration) {
+        return new StudentRecord(_name, concentration, _isHonor, _passed,
+                                 _desired, _maxCoursesPerTerm,
+                                 _maxCoursesDuringThesis, _s1off, _s2off,
+                                 _stoff, _numOUPassed, _objective);
+    }
+
+
+    /**
+     * get the name of the student.
+     * @return String
+     */
+    public String getName() { return _name; }
+
+
+    /**
+     * get the concentration area.
+     * @return String
+     */
+    public String getConcentration() { return _concentration; }
+
+
+    /**
+     * check whether the student is an honors student.
+     * @return boolean
+     */
+    public boolean isHonor() { return _isHonor; }
+
+
+    /**
+     * get the (unmodifiable) set of codes of the passed courses.
+     * @return Set&lt;String&gt;
+     */
+    public Set<String> getPassed() { return _passed; }
+
+
+    /**
+     * get the (unmodifiable) set of desired courses.
+     * @return Set&lt;String&gt;
+     */
+    public Set<String> getDesired() { return _desired; }
+
+
+    /**
+     * get the max number of courses per term.
+     * @return int
+     */
+    public int getMaxCoursesPerTerm() { return _maxCoursesPerTerm; }
+
+
+    /**
+     * get the max number of courses during the thesis term.
+     * @return int
+     */
+    public int getMaxCoursesDuringThesis() { return _maxCoursesDuringThesis; }
+
+
+    /**
+     * check whether the student wants no courses in Summer-1.
+     * @return boolean
+     */
+    public boolean isS1Off() { return _s1off; }
+
+
+    /**
+     * check whether the student wants no courses in Summer-2.
+     * @return boolean
+     */
+    public boolean isS2Off() { return _s2off; }
+
+
+    /**
+     * check whether the student wants no courses in Summer-Term.
+     * @return boolean
+     */
+    public boolean isSTOff() { return _stoff; }
+
+
+    /**
+     * get the number of OU courses passed in the current academic
+     * year.
+     * @return int
+     */
+    public int getNumOUPassed() { return _numOUPassed; }
+
+
+    /**
+     * get the objective, "shortest" or "balance".
+     * @return String
+     */
+    public String getObjective() { return _objective; }
+
+
+    /**
+     * creates the MIP model of this student's request, with the same
+     * objective coefficients the <CODE>MainGUI</CODE> uses for the chosen
+     * objective.
+     * @param handler MIPHandler
+     * @return MIPModel
+     */
+    public MIPModel createMIPModel(MIPHandler handler) {
+        final boolean shortest = "shortest".equals(_objective);
+        return handler.createMIPModel(_isHonor, _maxCoursesPerTerm,
+                                      _maxCoursesDuringThesis,
+                                      _s1off, _s2off, _stoff,
+                                      new HashMap<Integer, String>(),
+                                      _passed, _numOUPassed, _desired,
+                                      _concentration,
+                                      shortest ? 1000 : 1, 100,
+                                      shortest ? 1 : 10,
+                                      shortest ? 10 : 1000);
+    }
+
+
+    private static String getString(Map<String, ?> m, String key,
+                                    String defVal) {
+        Object v = m.get(key);
+        return v!=null ? v.toString().trim() : defVal;
+    }
+
+
+    private static boolean getBoolean(Map<String, ?> m, String key) {
+        Object v = m.get(key);
+        if (v==null) return false;
+        if (v instanceof Boolean) return (Boolean) v;
+        final String s = v.toString().trim();
+        if ("true".equalsIgnoreCase(s) || "1".equals(s)) return true;
+        if ("false".equalsIgnoreCase(s) || "0".equals(s)) return false;
+        throw new IllegalArgumentException("cannot parse "+key+"="+s);
+    }
+
+
+    private static int getInt(Map<String, ?> m, String key, int defVal) {
+        Object v = m.get(key);
+        if (v==null) return defVal;
+        if (v instanceof Number) return ((Number) v).intValue();
+        try {
+            return Integer.parseInt(v.toString().trim());
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("cannot parse "+key+"="+v);
+        }
+    }
+
+
+    private static Set<String> getSet(Map<String, ?> m, String key) {
+        Set<String> ret = new HashSet<>();
+        Object v = m.get(key);
+        if (v==null) return ret;
+        if (v instanceof Collection) {
+            for (Object o : (Collection<?>) v) {
+                if (o!=null && o.toString().trim().length()>0)
+                    ret.add(o.toString().trim());
+            }
+        }
+        else {
+            for (String s : v.toString().split("\\|")) {
+                if (s.trim().length()>0) ret.add(s.trim());
+            }
+        }
+        return ret;
+    }
+}
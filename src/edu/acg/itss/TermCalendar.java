@@ -0,0 +1,304 @@
+package edu.acg.itss;
+
+
+/**
+ * immutable table of the terms following a planning date. Term number 0 is
+ * the term the date falls in, and for every term number s in [0, Smax+5] the
+ * calendar stores, in flat arrays, the season (see the constants below), the
+ * year, the name (eg "FA2024"), whether the term is a summer term (ST), a fall
+ * term, or happens during the summer (S1, S2 or ST), and the next fall term,
+ * so that every lookup in the loops over all terms of
+ * <CODE>MIPHandler.createMIPModel()</CODE> and
+ * <CODE>Course.getTermsOffered()</CODE> is a single array access. The reverse
+ * lookup from season and year to term number is O(1) as well. Term numbers
+ * beyond the table are computed on the fly.
+ * <p>A calendar is built once per <CODE>PlanningDate</CODE> (see
+ * <CODE>PlanningDate.getCalendar()</CODE>) and shared by all courses and
+ * constraint sections. Seasons follow each other in the order Spring (SP),
+ * Summer-1 (S1), Summer-2 (S2), Summer-Term (ST) and Fall (FA); the current
+ * term is Spring from Jan. 6 until the end of May, Summer-Term from Jun. 1
+ * until the end of August, and Fall from Sep. 1 until Jan. 5.
+ * @author itc
+ */
+public final class TermCalendar {
+    /**
+     * season number of Spring ("SP").
+     */
+    public static final int SPRING = 1;
+    /**
+     * season number of Summer-1 ("S1").
+     */
+    public static final int SUMMER1 = 2;
+    /**
+     * season number of Summer-2 ("S2").
+     */
+    public static final int SUMMER2 = 3;
+    /**
+     * season number of Summer-Term ("ST").
+     */
+    public static final int SUMMER_TERM = 4;
+    /**
+     * season number of Fall ("FA").
+     */
+    public static final int FALL = 5;
+
+    private static final String[] _SEASON_NAMES =
+        {null, "SP", "S1", "S2", "ST", "FA"};
+    private static final int _SUMMER_TERM_FLAG = 1;
+    private static final int _FALL_FLAG = 2;
+    private static final int _DURING_SUMMER_FLAG = 4;
+
+    private final int _smax;
+    /**
+     * the season of term number 0.
+     */
+    private final int _curSeason;
+    /**
+     * the year of the planning date.
+     */
+    private final int _curYear;
+    private final int[] _season;
+    private final int[] _year;
+    private final int[] _flags;
+    private final int[] _nextFall;
+    private final String[] _names;
+    /**
+     * the term number of each season (by season number) of the year of the
+     * planning date, which is zero for the seasons already started.
+     */
+    private final int[] _sameYearTermNo = new int[6];
+
+
+    /**
+     * public constructor.
+     * @param date PlanningDate
+     * @param Smax int the maximum term number of the schedules to plan
+     */
+    public TermCalendar(PlanningDate date, int Smax) {
+        if (Smax<0) throw new IllegalArgumentException("Smax="+Smax+" < 0");
+        final int day = date.getDay();
+        final int month = date.getMonth();
+        _smax = Smax;
+        _curYear = date.getYear();
+        if (month==1) _curSeason = day<6 ? FALL : SPRING;
+        else if (month < 6) _curSeason = SPRING;
+        else if (month < 9) _curSeason = SUMMER_TERM;
+        else _curSeason = FALL;
+        _sameYearTermNo[FALL] = month<6 ? 4 : month<9 ? 1 : 0;
+        _sameYearTermNo[SPRING] = 0;
+        _sameYearTermNo[SUMMER1] = month<6 ? 1 : 0;
+        _sameYearTermNo[SUMMER2] = month<7 ? 2 : 0;
+        _sameYearTermNo[SUMMER_TERM] = month<6 ? 3 : 0;
+        // the next fall term of Smax is at most Smax+5
+        final int n = Smax+6;
+        _season = new int[n];
+        _year = new int[n];
+        _flags = new int[n];
+        _nextFall = new int[n];
+        _names = new String[n];
+        for (int s=0; s<n; s++) {
+            _season[s] = computeSeason(s);
+            _year[s] = computeYear(s);
+            _names[s] = _SEASON_NAMES[_season[s]]+_year[s];
+            if (_season[s]==SUMMER_TERM) _flags[s] |= _SUMMER_TERM_FLAG;
+            if (_season[s]==FALL) _flags[s] |= _FALL_FLAG;
+            if (_season[s]>=SUMMER1 && _season[s]<=SUMMER_TERM)
+                _flags[s] |= _DURING_SUMMER_FLAG;
+        }
+        for (int s=0; s<n; s++) {
+            _nextFall[s] = s + (_season[s]==FALL ? 5 : FALL-_season[s]);
+        }
+    }
+
+
+    /**
+     * get the max term number the calendar was built for. Term numbers up to
+     * Smax+5 are looked up in the tables.
+     * @return int
+     */
+    public int getSmax() { return _smax; }
+
+
+    /**
+     * get the season of the given term.
+     * @param termno int
+     * @return int one of <CODE>SPRING, SUMMER1, SUMMER2, SUMMER_TERM,
+     * FALL</CODE>
+     * @throws IllegalArgumentException if termno &lt; 0
+     */
+    public int getSeason(int termno) {
+        if (termno>=0 && termno<_season.length) return _season[termno];
+        checkTermNo(termno);
+        return computeSeason(termno);
+    }
+
+
+    /**
+     * get the year of the given term.
+     * @param termno int
+     * @return int
+     * @throws IllegalArgumentException if termno &lt; 0
+     */
+    public int getYear(int termno) {
+        if (termno>=0 && termno<_year.length) return _year[termno];
+        checkTermNo(termno);
+        return computeYear(termno);
+    }
+
+
+    /**
+     * return the name of the given term.
+     * @param termno int
+     * @return String such as "FA2022"
+     * @throws IllegalArgumentException if termno &lt; 0
+     */
+    public String getTermNameByTermNo(int termno) {
+        if (termno>=0 && termno<_names.length) return _names[termno];
+        checkTermNo(termno);
+        return _SEASON_NAMES[computeSeason(termno)]+computeYear(termno);
+    }
+
+
+    /**
+     * return the number of the given term, ie the number of terms from the
+     * planning date until the term, or zero if the term has already started.
+     * @param term String must be in the format "S12023" meaning "Summer-1" of
+     * 2023
+     * @return int &ge; 0
+     * @throws IllegalArgumentException if the term cannot be parsed
+     */
+    public int getTermNo(String term) {
+        if (term.length()<3)
+            throw new IllegalArgumentException("cannot parse term "+term);
+        try {
+            return getTermNo(getSeasonByName(term.substring(0, 2)),
+                             Integer.parseInt(term.substring(2)));
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("cannot parse term "+term);
+        }
+    }
+
+
+    /**
+     * return the number of the term of the given season and year, or zero if
+     * the term has already started.
+     * @param season int one of <CODE>SPRING, SUMMER1, SUMMER2, SUMMER_TERM,
+     * FALL</CODE>
+     * @param year int
+     * @return int &ge; 0
+     */
+    public int getTermNo(int season, int year) {
+        if (season<SPRING || season>FALL)
+            throw new IllegalArgumentException("unknown season "+season);
+        if (year<_curYear) return 0;
+        if (year==_curYear) return _sameYearTermNo[season];
+        return (year-_curYear)*5 + season - _curSeason;
+    }
+
+
+    /**
+     * check whether a given term is a summer term (ST). Notice that Summer
+     * Term is not the same as Summer1 or Summer2.
+     * @param termno int
+     * @return boolean true iff termno corresponds to ST
+     * @throws IllegalArgumentException if termno &lt; 0
+     */
+    public boolean isSummerTerm(int termno) {
+        if (termno>=0 && termno<_flags.length)
+            return (_flags[termno] & _SUMMER_TERM_FLAG)!=0;
+        return getSeason(termno)==SUMMER_TERM;
+    }
+
+
+    /**
+     * check whether a given term is a fall term (FA).
+     * @param termno int
+     * @return boolean true iff termno corresponds to FA
+     * @throws IllegalArgumentException if termno &le; 0
+     */
+    public boolean isFallTerm(int termno) {
+        if (termno>0 && termno<_flags.length)
+            return (_flags[termno] & _FALL_FLAG)!=0;
+        checkTermNo(termno-1);
+        return getSeason(termno)==FALL;
+    }
+
+
+    /**
+     * check if the given term occurs during summer, ie whether the term is
+     * "S1", "S2" or "ST" term.
+     * @param termno int
+     * @return boolean true iff the term happens during summer months
+     * @throws IllegalArgumentException if termno &lt; 0
+     */
+    public boolean happensDuringSummer(int termno) {
+        if (termno>=0 && termno<_flags.length)
+            return (_flags[termno] & _DURING_SUMMER_FLAG)!=0;
+        final int season = getSeason(termno);
+        return season>=SUMMER1 && season<=SUMMER_TERM;
+    }
+
+
+    /**
+     * return the first fall (FA) term after termno.
+     * @param termno int
+     * @return int
+     * @throws IllegalArgumentException if termno &lt; 0
+     */
+    public int nextFallTerm(int termno) {
+        if (termno>=0 && termno<_nextFall.length) return _nextFall[termno];
+        final int season = getSeason(termno);
+        return termno + (season==FALL ? 5 : FALL-season);
+    }
+
+
+    /**
+     * return 1 for Spring ("SP"), 2 for Summer1 ("S1"), 3, for Summer2 ("S2"),
+     * 4 for Summer Term ("ST"), and 5 for Fall ("FA").
+     * @param name String
+     * @return int
+     * @throws IllegalArgumentException if the season is unknown
+     */
+    public static int getSeasonByName(String name) {
+        switch (name) {
+            case "SP": return SPRING;
+            case "S1": return SUMMER1;
+            case "S2": return SUMMER2;
+            case "ST": return SUMMER_TERM;
+            case "FA": return FALL;
+            default:
+                throw new IllegalArgumentException("unknown season "+name);
+        }
+    }
+
+
+    /**
+     * return "SP" for 1, "S1" for 2, "S2" for 3, "ST" for 4, and "FA" for 5.
+     * @param season int
+     * @return String
+     * @throws IllegalArgumentException if the season is unknown
+     */
+    public static String getSeasonName(int season) {
+        if (season<SPRING || season>FALL)
+            throw new IllegalArgumentException("unknown season "+season);
+        return _SEASON_NAMES[season];
+    }
+
+
+    private int computeSeason(int termno) {
+        return (_curSeason-1+termno)%5 + 1;
+    }
+
+
+    private int computeYear(int termno) {
+        return _curYear + (_curSeason-1+termno)/5;
+    }
+
+
+    private static void checkTermNo(int termno) {
+        if (termno < 0)
+            throw new IllegalArgumentException("termno="+termno+
+                                               " must be non-negative...");
+    }
+}
@@ -0,0 +1,79 @@
+package edu.acg.itss.tests;
+
+import edu.acg.itss.*;
+import java.io.*;
+
+
+/**
+ * tests the parsing of student records by the <CODE>BatchPlanner</CODE>, and,
+ * if a program directory is given, runs a small batch of students with the
+ * pure-Java solver.
+ * Usage: <CODE>java edu.acg.itss.tests.BatchPlannerTest [programdir
+ * [timelimit(10)]]</CODE>
+ * @author itc
+ */
+public class BatchPlannerTest {
+    public static void main(String[] args) throws Exception {
+        // 1. JSONL and CSV records
+        StudentRecord r1 = StudentRecord.fromJSONLine(
+            "{\"name\":\"st \\\"1\\\"\",\"concentration\":\"Games\","+
+            "\"honors\":true,\"passed\":[\"ITC1070\",\"ITC2088\"],"+
+            "\"desired\":[\"ITC3160;FA2026 SP2027\",\"ITC2197;\"],"+
+            "\"maxCoursesPerTerm\":5,\"s2off\":true}");
+        check(r1.getName().equals("st \"1\""), "name");
+        check(r1.isHonor() && r1.isS2Off() && !r1.isS1Off(), "booleans");
+        check(r1.getPassed().size()==2, "passed");
+        check(r1.getDesired().contains("ITC3160;FA2026 SP2027") &&
+              r1.getDesired().contains("ITC2197;"), "desired");
+        check(r1.getMaxCoursesPerTerm()==5 &&
+              r1.getMaxCoursesDuringThesis()==1, "ints");
+        check(r1.getObjective().equals("shortest"), "objective");
+        String[] header = "name,concentration,passed,desired,objective".
+                            split(",");
+        StudentRecord r2 = StudentRecord.fromCSVLine(header,
+            "st2,User Experience,ITC1070|ITC2088,ITC3160;FA2026,balance");
+        check(r2.getConcentration().equals("User Experience"), "csv conc");
+        check(r2.getPassed().size()==2 && r2.getDesired().size()==1,
+              "csv lists");
+        check(r2.getObjective().equals("balance"), "csv objective");
+        boolean threw = false;
+        try {
+            StudentRecord.fromCSVLine(header, "st3,,,,");
+        }
+        catch (IllegalArgumentException e) {
+            threw = true;
+        }
+        check(threw, "missing concentration");
+        System.out.println("record parsing OK");
+        // 2. a small batch
+        if (args.length==0) return;
+        Catalog catalog = Catalog.load(args[0]);
+        check(Course.getNumCourses()==0, "catalog independent of statics");
+        String conc = catalog.getAllConcentrationAreas().iterator().next();
+        BranchAndBoundSolver solver = new BranchAndBoundSolver();
+        solver.setTimeLimit(args.length>1 ? Double.parseDouble(args[1]) : 10);
+        BatchPlanner planner = new BatchPlanner(catalog, PlanningDate.today(),
+                                                solver, 2);
+        String input = "{\"name\":\"a\",\"concentration\":\""+conc+"\"}\n"+
+                       "{\"name\":\"b\",\"concentration\":\""+conc+"\","+
+                       "\"objective\":\"balance\"}\n"+
+                       "{\"name\":\"c\"}\n";
+        StringWriter sw = new StringWriter();
+        BatchPlanner.Summary summary =
+            planner.run(new BufferedReader(new StringReader(input)), false,
+                        new PrintWriter(sw));
+        System.out.print(sw);
+        System.out.println(summary);
+        check(summary.getNumStudents()==3 && summary.getNumErrors()==1,
+              "batch counts");
+        check(sw.toString().split("\n").length==3, "one line per student");
+    }
+
+
+    private static void check(boolean cond, String what) {
+        if (!cond) {
+            System.err.println("FAILED: "+what);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package edu.acg.itss.tests;
+
+import edu.acg.itss.*;
+import java.util.Random;
+
+
+/**
+ * tests the <CODE>BranchAndBoundSolver</CODE> class on random small models
+ * (with the structure of the scheduling models: binary x_{i,s}, x_i and the
+ * continuous D that is the max term number of any course taken) whose optimal
+ * objective value is found by complete enumeration of the x_{i,s} variables.
+ * Each model is then solved again with its optimal solution as MIP start.
+ * Usage: <CODE>java edu.acg.itss.tests.BranchAndBoundSolverTest [numModels]
+ * [seed]</CODE>
+ * @author itc
+ */
+public class BranchAndBoundSolverTest {
+    public static void main(String[] args) throws SolverException {
+        final int num_models = args.length>0 ? Integer.parseInt(args[0]) : 200;
+        final long seed = args.length>1 ? Long.parseLong(args[1]) : 7;
+        Random rnd = new Random(seed);
+        int num_failed = 0;
+        for (int t=0; t<num_models; t++) {
+            final int N = 2 + rnd.nextInt(3);  // 2...4 courses
+            final int Smax = 1 + rnd.nextInt(3);  // 1...3 terms
+            final int nrows = 1 + rnd.nextInt(5);
+            // 1. the random model
+            MIPModel m = new MIPModel(N, Smax, false);
+            m.setObjCoeff(m.getDVar(), rnd.nextInt(5));
+            for (int i=0; i<N; i++) m.setObjCoeff(m.getXiVar(i),
+                                                  rnd.nextInt(11)-5);
+            // D constraints
+            for (int i=0; i<N; i++) {
+                for (int s=1; s<=Smax; s++) {
+                    m.addTerm(m.getXVar(i, s), s);
+                    m.addTerm(m.getDVar(), -1);
+                    m.endRow(MIPModel.LESS_EQUAL, 0);
+                }
+            }
+            // x_i definitions
+            for (int i=0; i<N; i++) {
+                for (int s=0; s<=Smax; s++) m.addTerm(m.getXVar(i, s), 1);
+                m.addTerm(m.getXiVar(i), -1);
+                m.endRow(MIPModel.EQUAL, 0);
+            }
+            // random rows on the x_{i,s}
+            final char[] senses = {MIPModel.LESS_EQUAL, MIPModel.GREATER_EQUAL,
+                                   MIPModel.EQUAL};
+            int[][][] coeffs = new int[nrows][N][Smax+1];
+            for (int r=0; r<nrows; r++) {
+                for (int i=0; i<N; i++) {
+                    for (int s=0; s<=Smax; s++) {
+                        if (rnd.nextInt(3)==0) {
+                            coeffs[r][i][s] = rnd.nextInt(7)-3;
+                            m.addTerm(m.getXVar(i, s), coeffs[r][i][s]);
+                        }
+                    }
+                }
+                m.endRow(senses[r % 3], rnd.nextInt(5)-1);
+            }
+            // 2. enumeration
+            double best = Double.POSITIVE_INFINITY;
+            final int nx = N*(Smax+1);
+            for (int mask=0; mask<(1<<nx); mask++) {
+                boolean ok = true;
+                for (int i=0; i<N && ok; i++) {  // x_i <= 1
+                    int cnt = 0;
+                    for (int s=0; s<=Smax; s++)
+                        if ((mask & (1<<(i*(Smax+1)+s)))!=0) ++cnt;
+                    ok = cnt<=1;
+                }
+                for (int r=0; r<nrows && ok; r++) {
+                    int lhs = 0;
+                    for (int i=0; i<N; i++)
+                        for (int s=0; s<=Smax; s++)
+                            if ((mask & (1<<(i*(Smax+1)+s)))!=0)
+                                lhs += coeffs[r][i][s];
+                    final double rhs = m.getRHS(m.getNumRows()-nrows+r);
+                    final char sense = senses[r % 3];
+                    ok = sense==MIPModel.LESS_EQUAL ? lhs<=rhs :
+                         sense==MIPModel.GREATER_EQUAL ? lhs>=rhs : lhs==rhs;
+                }
+                if (!ok) continue;
+                double obj = 0.0;
+                int D = 0;
+                for (int i=0; i<N; i++) {
+                    for (int s=0; s<=Smax; s++) {
+                        if ((mask & (1<<(i*(Smax+1)+s)))!=0) {
+                            obj += m.getObjCoeff(m.getXiVar(i));
+                            D = Math.max(D, s);
+                        }
+                    }
+                }
+                obj += m.getObjCoeff(m.getDVar())*D;
+                best = Math.min(best, obj);
+            }
+            // 3. compare
+            BranchAndBoundSolver bnb = new BranchAndBoundSolver();
+            bnb.setMIPGap(0.0);
+            MIPSolution sol = bnb.solve(m);
+            boolean pass;
+            if (Double.isInfinite(best))
+                pass = sol.getStatus()==MIPSolution.Status.INFEASIBLE;
+            else
+                pass = sol.getStatus()==MIPSolution.Status.OPTIMAL &&
+                       Math.abs(sol.getObjectiveValue()-best)<1.e-6;
+            // 4. with the optimal solution as MIP start, the optimum must be
+            //    found before any node is explored
+            if (pass && sol.hasSolution()) {
+                for (int j=0; j<m.getNumVars(); j++) 
+                    m.setStart(j, sol.getValue(j));
+                bnb.setNodeLimit(0);
+                MIPSolution sol2 = bnb.solve(m);
+                pass = sol2.hasSolution() &&
+                       Math.abs(sol2.getObjectiveValue()-best)<1.e-6;
+            }
+            if (!pass) {
+                ++num_failed;
+                System.err.println("model #"+t+" (N="+N+", Smax="+Smax+
+                                   "): expected "+best+", got "+sol);
+            }
+        }
+        System.out.println((num_models-num_failed)+"/"+num_models+
+                           " models solved correctly");
+        if (num_failed>0) System.exit(1);
+    }
+}
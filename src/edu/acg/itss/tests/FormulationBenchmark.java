@@ -0,0 +1,93 @@
+package edu.acg.itss.tests;
+
+import edu.acg.itss.*;
+import java.util.*;
+
+
+/**
+ * compares the default formulation of the MIP models with the one using the
+ * cumulative "taken-by-term" variables y_{i,s} (see
+ * <CODE>MIPHandler.setCumulativeVars()</CODE>): for every concentration area
+ * of the program, it builds the model of a student with the given passed
+ * courses in both formulations, and prints the model sizes, the time to build
+ * each model (best of 5 builds) and the time to solve it, checking that both
+ * formulations reach the same objective value when both are solved to
+ * optimality. The solver is the pure-Java branch-and-bound solver, unless
+ * "gurobi" is given as the solver argument.
+ * Usage: <CODE>java edu.acg.itss.tests.FormulationBenchmark programdir
+ * [timelimit(30)] [date(today)] [passedcodes(none, separated by ',')]
+ * [solver(bnb)]</CODE>
+ * @author itc
+ */
+public class FormulationBenchmark {
+    public static void main(String[] args) throws Exception {
+        if (args.length<1) {
+            System.err.println("usage: java edu.acg.itss.tests."+
+                               "FormulationBenchmark programdir "+
+                               "[timelimit] [dd/mm/yyyy] [passedcodes] "+
+                               "[solver]");
+            System.exit(-1);
+        }
+        Catalog catalog = Catalog.load(args[0]);
+        final double tlim = args.length>1 ? Double.parseDouble(args[1]) : 30;
+        PlanningDate date = args.length>2 ? PlanningDate.parse(args[2]) :
+                                            PlanningDate.today();
+        String passed = "";
+        if (args.length>3 && args[3].trim().length()>0) {
+            passed = ",\"passed\":[\""+args[3].trim().replace(",", "\",\"")+
+                     "\"]";
+        }
+        final boolean gurobi = args.length>4 && args[4].equals("gurobi");
+        boolean ok = true;
+        for (String conc : new TreeSet<>(catalog.getAllConcentrationAreas())) {
+            StudentRecord r = StudentRecord.fromJSONLine(
+                "{\"name\":\"bench\",\"concentration\":\""+conc+"\""+passed+
+                "}");
+            double[] objs = new double[2];
+            MIPSolution.Status[] stats = new MIPSolution.Status[2];
+            for (int f=0; f<2; f++) {
+                final boolean cumulative = f==1;
+                MIPModel m = null;
+                long best = Long.MAX_VALUE;
+                for (int k=0; k<5; k++) {
+                    // a new handler every time, so that no model is re-used
+                    MIPHandler h = new MIPHandler(catalog, date);
+                    h.setCumulativeVars(cumulative);
+                    long start = System.nanoTime();
+                    m = r.createMIPModel(h);
+                    best = Math.min(best, System.nanoTime()-start);
+                }
+                ScheduleSolver solver;
+                if (gurobi) solver = new GurobiScheduleSolver();
+                else {
+                    BranchAndBoundSolver bnb = new BranchAndBoundSolver();
+                    bnb.setTimeLimit(tlim);
+                    solver = bnb;
+                }
+                MIPSolution sol = solver.solve(m);
+                solver.close();
+                stats[f] = sol.getStatus();
+                objs[f] = sol.hasSolution() ? sol.getObjectiveValue() :
+                                              Double.NaN;
+                System.out.println(conc+" "+
+                                   (cumulative ? "cumulative" : "default")+
+                                   ": vars="+m.getNumVars()+
+                                   " rows="+m.getNumRows()+
+                                   " nnz="+m.getNumNonZeros()+
+                                   " build="+best/1000000+" msecs"+
+                                   " status="+sol.getStatus()+
+                                   " obj="+objs[f]+
+                                   " solve="+sol.getSolveTime()+" msecs");
+            }
+            if (stats[0]==MIPSolution.Status.OPTIMAL &&
+                stats[1]==MIPSolution.Status.OPTIMAL &&
+                Math.abs(objs[0]-objs[1])>1.e-6*Math.max(1,
+                                                         Math.abs(objs[0]))) {
+                System.err.println("FAILED: different optimal values for "+
+                                   conc);
+                ok = false;
+            }
+        }
+        if (!ok) System.exit(1);
+    }
+}
@@ -0,0 +1,150 @@
+package edu.acg.itss.tests;
+
+import edu.acg.itss.*;
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+
+/**
+ * tests the <CODE>PlanningServer</CODE> locally, with a stub solver that
+ * returns the lower bounds of the variables as the optimal solution (so that
+ * only the courses already passed are in the schedule). Without arguments,
+ * only the error replies and the metrics are checked; given a program
+ * directory, a few students of the program are planned as well.
+ * Usage: <CODE>java edu.acg.itss.tests.PlanningServerTest
+ * [programdir]</CODE>
+ * @author itc
+ */
+public class PlanningServerTest {
+    public static void main(String[] args) throws Exception {
+        Map<String, Catalog> catalogs = new HashMap<>();
+        Map<String, ScheduleSolver> solvers = new HashMap<>();
+        StubSolver stub = new StubSolver();
+        String conc = null;
+        if (args.length>0) {
+            Catalog catalog = Catalog.load(args[0]);
+            catalogs.put("P", catalog);
+            solvers.put("P", stub);
+            conc = catalog.getAllConcentrationAreas().iterator().next();
+        }
+        PlanningServer server = new PlanningServer(0, catalogs, solvers, 2, 2);
+        server.start();
+        final String url = "http://localhost:"+server.getPort();
+        try {
+            check(post(url+"/plan/XX", "{}")[0].equals("404"), "404");
+            check(get(url+"/plan/P")[0].equals("405"), "405");
+            check(get(url+"/programs")[1].equals(args.length>0 ?
+                                                   "[\"P\"]" : "[]"),
+                  "programs");
+            if (conc!=null) {
+                check(post(url+"/plan/P", "{\"honors\":tru")[0].equals("400"),
+                      "400");
+                String[] r = post(url+"/plan/P",
+                                  "{\"name\":\"a\",\"concentration\":\""+
+                                  conc+"\",\"date\":\"1/10/2026\"}");
+                System.out.println(r[1]);
+                check(r[0].equals("200"), "200");
+                Object o = JSONParser.parse(r[1]);
+                check(o instanceof Map, "JSON reply");
+                Map<?, ?> m = (Map<?, ?>) o;
+                check("a".equals(m.get("student")) &&
+                      "OPTIMAL".equals(m.get("status")) &&
+                      m.get("schedule") instanceof List, "reply keys");
+                r = post(url+"/plan/P", "{\"concentration\":\""+conc+"\","+
+                         "\"objective\":\"balance\"}");
+                check(r[0].equals("200") && r[1].contains("\"anonymous\""),
+                      "default name");
+                check(stub._numSolves==2, "solves");
+                // the same request again is served from the plan cache
+                r = post(url+"/plan/P", "{\"name\":\"b\",\"concentration\":"+
+                         "\""+conc+"\",\"date\":\"1/10/2026\"}");
+                check(r[0].equals("200") && stub._numSolves==2, "cached");
+                PlanCache cache = catalogs.get("P").getPlanCache();
+                check(cache.getNumHits()==1 && cache.getNumMisses()==2,
+                      "cache counters");
+                check(server.getMetrics().getNumServed()==3, "served");
+            }
+            final String metrics = get(url+"/metrics")[1];
+            System.out.println(metrics);
+            check(server.getMetrics().getNumErrors()==(conc!=null ? 3 : 2),
+                  "errors");
+            check(JSONParser.parse(metrics) instanceof Map, "metrics");
+        }
+        finally {
+            server.stop(0);
+        }
+        System.out.println("PlanningServer OK");
+    }
+
+
+    private static String[] get(String url) throws IOException {
+        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
+        return reply(c);
+    }
+
+
+    private static String[] post(String url, String body) throws IOException {
+        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
+        c.setRequestMethod("POST");
+        c.setDoOutput(true);
+        try (OutputStream os = c.getOutputStream()) {
+            os.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return reply(c);
+    }
+
+
+    private static String[] reply(HttpURLConnection c) throws IOException {
+        final int code = c.getResponseCode();
+        InputStream is = code<400 ? c.getInputStream() : c.getErrorStream();
+        StringBuilder sb = new StringBuilder();
+        try (BufferedReader br = new BufferedReader(
+                new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line=br.readLine())!=null) sb.append(line);
+        }
+        return new String[]{Integer.toString(code), sb.toString()};
+    }
+
+
+    private static void check(boolean cond, String what) {
+        if (!cond) {
+            System.err.println("FAILED: "+what);
+            System.exit(1);
+        }
+    }
+
+
+    /**
+     * solver that returns the lower bounds of the variables as the optimal
+     * solution, without optimizing.
+     */
+    private static class StubSolver implements ScheduleSolver {
+        private volatile int _numSolves = 0;
+
+        public synchronized MIPSolution solve(MIPModel model) {
+            ++_numSolves;
+            double[] lbs = model.getLBs();
+            double obj = 0;
+            for (int j=0; j<lbs.length; j++)
+                obj += model.getObjCoeff(j)*lbs[j];
+            return new MIPSolution(MIPSolution.Status.OPTIMAL, lbs, obj, obj,
+                                   0, 0);
+        }
+
+        public void setTimeLimit(double secs) { }
+
+        public void setMIPGap(double gap) { }
+
+        public void setProgressListener(SolverProgressListener listener) { }
+
+        public void cancel() { }
+
+        public String getName() { return "stub"; }
+
+        public void close() { }
+    }
+}